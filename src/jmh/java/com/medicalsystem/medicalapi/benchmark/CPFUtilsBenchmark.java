@@ -0,0 +1,105 @@
+package com.medicalsystem.medicalapi.benchmark;
+
+import com.medicalsystem.medicalapi.utils.CPFTeste;
+import com.medicalsystem.medicalapi.utils.CPFUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Os métodos "legado*" medem a implementação anterior, para comparação com a atual
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CPFUtilsBenchmark {
+
+    private static final int TAMANHO_LOTE = 10_000;
+
+    private String cpfSemPontuacao = "52998224725";
+    private String cpfComPontuacao = "529.982.247-25";
+    private String cpfRepetido = "11111111111";
+    private String cpfDigitoErrado = "52998224726";
+    private char[] cpfCaracteres = "52998224725".toCharArray();
+
+    private List<String> lote;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        Random random = new Random(42);
+        lote = new ArrayList<>(TAMANHO_LOTE);
+        for (int i = 0; i < TAMANHO_LOTE; i++) {
+            // Um em cada dez com o último dígito trocado, como num arquivo de importação com erros
+            String cpf = CPFTeste.gerar(random);
+            lote.add(i % 10 == 0 ? cpf.substring(0, 10) + (char) ('0' + (cpf.charAt(10) - '0' + 1) % 10) : cpf);
+        }
+    }
+
+    @Benchmark
+    public boolean validoSemPontuacao() {
+        return CPFUtils.isValidCPF(cpfSemPontuacao);
+    }
+
+    @Benchmark
+    public boolean validoComPontuacao() {
+        return CPFUtils.isValidCPF(cpfComPontuacao);
+    }
+
+    @Benchmark
+    public boolean sequenciaRepetida() {
+        return CPFUtils.isValidCPF(cpfRepetido);
+    }
+
+    @Benchmark
+    public boolean digitoVerificadorErrado() {
+        return CPFUtils.isValidCPF(cpfDigitoErrado);
+    }
+
+    @Benchmark
+    public boolean arrayDeCaracteres() {
+        return CPFUtils.isValidCPF(cpfCaracteres);
+    }
+
+    @Benchmark
+    public BitSet lote() {
+        return CPFUtils.validarLote(lote);
+    }
+
+    @Benchmark
+    public boolean legadoSemPontuacao() {
+        return CPFUtilsLegado.isValidCPF(cpfSemPontuacao);
+    }
+
+    @Benchmark
+    public boolean legadoComPontuacao() {
+        return CPFUtilsLegado.isValidCPF(cpfComPontuacao);
+    }
+
+    @Benchmark
+    public boolean legadoSequenciaRepetida() {
+        return CPFUtilsLegado.isValidCPF(cpfRepetido);
+    }
+
+    @Benchmark
+    public void legadoLote(Blackhole blackhole) {
+        for (int i = 0; i < lote.size(); i++) {
+            blackhole.consume(CPFUtilsLegado.isValidCPF(lote.get(i)));
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.medicalsystem.medicalapi.benchmark;
+
+// Cópia da validação de CPF anterior (replaceAll + regex com referência), mantida só como base de comparação
+final class CPFUtilsLegado {
+
+    private CPFUtilsLegado() {
+    }
+
+    static boolean isValidCPF(String cpf) {
+        cpf = cpf.replaceAll("[^0-9]", "");
+
+        if (cpf.length() != 11) {
+            return false;
+        }
+
+        if (cpf.matches("(\\d)\\1{10}")) {
+            return false;
+        }
+
+        int sum1 = 0, sum2 = 0;
+        int[] weights1 = {10, 9, 8, 7, 6, 5, 4, 3, 2};
+        int[] weights2 = {11, 10, 9, 8, 7, 6, 5, 4, 3, 2};
+
+        for (int i = 0; i < 9; i++) {
+            sum1 += Character.getNumericValue(cpf.charAt(i)) * weights1[i];
+        }
+        int digit1 = (sum1 * 10) % 11;
+        if (digit1 == 10 || digit1 == 11) digit1 = 0;
+
+        for (int i = 0; i < 10; i++) {
+            sum2 += Character.getNumericValue(cpf.charAt(i)) * weights2[i];
+        }
+        int digit2 = (sum2 * 10) % 11;
+        if (digit2 == 10 || digit2 == 11) digit2 = 0;
+
+        return cpf.charAt(9) == digit1 + '0' && cpf.charAt(10) == digit2 + '0';
+    }
+}
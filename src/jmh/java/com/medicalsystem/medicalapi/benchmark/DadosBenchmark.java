@@ -0,0 +1,105 @@
+package com.medicalsystem.medicalapi.benchmark;
+
+import com.medicalsystem.medicalapi.constant.StatusConsulta;
+import com.medicalsystem.medicalapi.entity.Consulta;
+import com.medicalsystem.medicalapi.entity.Medico;
+import com.medicalsystem.medicalapi.entity.Paciente;
+import com.medicalsystem.medicalapi.utils.CPFTeste;
+
+import java.io.OutputStream;
+import java.io.Writer;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+// Massa de dados determinística compartilhada pelos benchmarks
+final class DadosBenchmark {
+
+    private static final String[] ESPECIALIDADES = {"Cardiologia", "Dermatologia", "Pediatria", "Ortopedia", "Neurologia"};
+
+    private DadosBenchmark() {
+    }
+
+    // Monta consultas reaproveitando médicos e pacientes, como acontece numa listagem real
+    static List<Consulta> consultas(int quantidade) {
+        Random random = new Random(42);
+
+        List<Medico> medicos = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            medicos.add(medico(i));
+        }
+
+        List<Paciente> pacientes = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            pacientes.add(paciente(i, random));
+        }
+
+        LocalDateTime inicio = LocalDateTime.of(2030, 1, 7, 8, 0);
+        List<Consulta> consultas = new ArrayList<>(quantidade);
+        for (int i = 0; i < quantidade; i++) {
+            Consulta consulta = new Consulta();
+            consulta.setId(new UUID(random.nextLong(), random.nextLong()));
+            consulta.setMedico_id(medicos.get(i % medicos.size()));
+            consulta.setPaciente_id(pacientes.get(random.nextInt(pacientes.size())));
+            consulta.setData_consulta(inicio.plusMinutes(30L * i));
+            consulta.setStatus_consulta(StatusConsulta.AGENDADA);
+            consultas.add(consulta);
+        }
+
+        return consultas;
+    }
+
+    static Medico medico(int indice) {
+        Medico medico = new Medico();
+        medico.setId(new UUID(0L, indice));
+        medico.setNome("Médico Benchmark " + indice);
+        medico.setEspecialidade(ESPECIALIDADES[indice % ESPECIALIDADES.length]);
+        medico.setCrm(String.valueOf(100000 + indice));
+        medico.setEmail("medico" + indice + "@clinica.com.br");
+        return medico;
+    }
+
+    static Paciente paciente(int indice, Random random) {
+        Paciente paciente = new Paciente();
+        paciente.setId(new UUID(1L, indice));
+        paciente.setNome("Paciente Benchmark " + indice);
+        paciente.setCpf(CPFTeste.gerar(random));
+        paciente.setDataNascimento(LocalDate.of(1950, 1, 1).plusDays(random.nextInt(25000)));
+        paciente.setContato("119" + (10000000 + random.nextInt(89999999)));
+        return paciente;
+    }
+
+    // Destinos que descartam a saída, para medir só o custo de gerar o JSON
+    static final class SaidaDescartada extends OutputStream {
+
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    }
+
+    static final class EscritorDescartado extends Writer {
+
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+        }
+
+        @Override
+        public void write(String str, int off, int len) {
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
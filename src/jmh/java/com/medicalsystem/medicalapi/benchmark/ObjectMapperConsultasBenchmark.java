@@ -0,0 +1,60 @@
+package com.medicalsystem.medicalapi.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.medicalsystem.medicalapi.config.JacksonConfig;
+import com.medicalsystem.medicalapi.entity.Consulta;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Serialização completa de listas de consultas (com médico e paciente aninhados) pelo ObjectMapper da aplicação
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ObjectMapperConsultasBenchmark {
+
+    @Param({"1000", "10000"})
+    private int quantidade;
+
+    private List<Consulta> consultas;
+    private ObjectMapper objectMapper;
+    private ObjectWriter writer;
+    private final OutputStream saida = new DadosBenchmark.SaidaDescartada();
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        consultas = DadosBenchmark.consultas(quantidade);
+        objectMapper = new JacksonConfig().objectMapper();
+        writer = objectMapper.writerFor(objectMapper.getTypeFactory().constructCollectionType(List.class, Consulta.class));
+    }
+
+    // Caminho das respostas montadas em memória (ResponseEntity com a lista inteira)
+    @Benchmark
+    public byte[] paraBytes() throws IOException {
+        return objectMapper.writeValueAsBytes(consultas);
+    }
+
+    // Caminho das respostas em streaming: sem o array final, sobra o custo de gerar o JSON
+    @Benchmark
+    public void paraStream() throws IOException {
+        writer.writeValue(saida, consultas);
+    }
+}
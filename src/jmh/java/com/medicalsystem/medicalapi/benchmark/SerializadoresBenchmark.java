@@ -0,0 +1,113 @@
+package com.medicalsystem.medicalapi.benchmark;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.medicalsystem.medicalapi.config.JacksonConfig;
+import com.medicalsystem.medicalapi.utils.CustomDateDeserializer;
+import com.medicalsystem.medicalapi.utils.CustomDateTimeDeserializer;
+import com.medicalsystem.medicalapi.utils.FormatoBrasileiroModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+// Cada serializador escreve num gerador reaproveitado, para que o custo medido seja o do próprio serializador
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializadoresBenchmark {
+
+    private final FormatoBrasileiroModule.CpfSerializer cpfSerializer = new FormatoBrasileiroModule.CpfSerializer();
+    private final FormatoBrasileiroModule.TelefoneSerializer phoneSerializer = new FormatoBrasileiroModule.TelefoneSerializer();
+    private final FormatoBrasileiroModule.DataSerializer dateSerializer = new FormatoBrasileiroModule.DataSerializer();
+    private final FormatoBrasileiroModule.DataHoraSerializer dateTimeSerializer = new FormatoBrasileiroModule.DataHoraSerializer();
+    private final CustomDateDeserializer dateDeserializer = new CustomDateDeserializer();
+    private final CustomDateTimeDeserializer dateTimeDeserializer = new CustomDateTimeDeserializer();
+
+    private final String cpf = "52998224725";
+    private final String celular = "11987654321";
+    private final String telefoneFixo = "1134567890";
+    private final LocalDate data = LocalDate.of(1987, 3, 15);
+    private final LocalDateTime dataHora = LocalDateTime.of(2030, 3, 15, 14, 30);
+    private final String dataJson = "\"15/03/1987\"";
+    private final String dataHoraJson = "\"15/03/2030 14:30:00\"";
+
+    private ObjectMapper objectMapper;
+    private JsonGenerator gerador;
+    private SerializerProvider provider;
+    private DeserializationContext contexto;
+
+    @Setup(Level.Trial)
+    public void preparar() throws IOException {
+        objectMapper = new JacksonConfig().objectMapper();
+        gerador = objectMapper.getFactory().createGenerator(new DadosBenchmark.EscritorDescartado());
+        provider = objectMapper.getSerializerProviderInstance();
+        contexto = objectMapper.getDeserializationContext();
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() throws IOException {
+        gerador.close();
+    }
+
+    @Benchmark
+    public void cpf() throws IOException {
+        cpfSerializer.serialize(cpf, gerador, provider);
+    }
+
+    @Benchmark
+    public void celular() throws IOException {
+        phoneSerializer.serialize(celular, gerador, provider);
+    }
+
+    @Benchmark
+    public void telefoneFixo() throws IOException {
+        phoneSerializer.serialize(telefoneFixo, gerador, provider);
+    }
+
+    @Benchmark
+    public void serializarData() throws IOException {
+        dateSerializer.serialize(data, gerador, provider);
+    }
+
+    @Benchmark
+    public void serializarDataHora() throws IOException {
+        dateTimeSerializer.serialize(dataHora, gerador, provider);
+    }
+
+    // A criação do parser entra na medição: é o que acontece a cada valor lido de uma requisição
+    @Benchmark
+    public LocalDate deserializarData() throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(dataJson)) {
+            parser.nextToken();
+            return dateDeserializer.deserialize(parser, contexto);
+        }
+    }
+
+    @Benchmark
+    public LocalDateTime deserializarDataHora() throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(dataHoraJson)) {
+            parser.nextToken();
+            return dateTimeDeserializer.deserialize(parser, contexto);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.medicalsystem.medicalapi.controller;
+
+import com.medicalsystem.medicalapi.DadosTeste;
+import com.medicalsystem.medicalapi.MedicalApiApplication;
+import com.medicalsystem.medicalapi.repository.MedicoRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Custo de GET /medicos/{id} pelos beans reais: controller, compartimento de leitura, proxy de cache e transação
+// do MedicoService e GlobalExceptionHandler. "inexistente" é o 404 (o ID não entra no cache, então cada chamada
+// vai ao banco e a exceção é lançada no controller, fora do proxy); "existente" é o acerto no cache, como referência.
+// Precisa de um PostgreSQL: informe BENCHMARK_JDBC_URL (e BENCHMARK_JDBC_USUARIO / BENCHMARK_JDBC_SENHA).
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RespostasNaoEncontradoBenchmark {
+
+    private ConfigurableApplicationContext contexto;
+    private MedicoController medicoController;
+    private GlobalExceptionHandler handler;
+    private MedicoRepository medicoRepository;
+    private UUID existente;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        String url = System.getenv("BENCHMARK_JDBC_URL");
+        if (url == null) {
+            throw new IllegalStateException("Informe o PostgreSQL do benchmark em BENCHMARK_JDBC_URL, ex.: jdbc:postgresql://localhost:5432/medico_db");
+        }
+        // Sem o log de cada SQL, que pesaria mais que o próprio caminho medido
+        contexto = new SpringApplicationBuilder(MedicalApiApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.datasource.url=" + url,
+                        "spring.datasource.username=" + System.getenv("BENCHMARK_JDBC_USUARIO"),
+                        "spring.datasource.password=" + System.getenv("BENCHMARK_JDBC_SENHA"),
+                        "logging.level.org.hibernate.SQL=WARN",
+                        "logging.level.org.hibernate.type.descriptor.sql=WARN")
+                .run();
+        medicoController = contexto.getBean(MedicoController.class);
+        handler = contexto.getBean(GlobalExceptionHandler.class);
+        medicoRepository = contexto.getBean(MedicoRepository.class);
+        existente = medicoRepository.save(DadosTeste.medico()).getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() {
+        medicoRepository.deleteById(existente);
+        contexto.close();
+    }
+
+    @Benchmark
+    public Object inexistente() {
+        return buscar(UUID.randomUUID());
+    }
+
+    @Benchmark
+    public Object existente() {
+        return buscar(existente);
+    }
+
+    // Como o Spring MVC trata o CompletableFuture do controller: a exceção chega crua e vai ao handler
+    private Object buscar(UUID id) {
+        return medicoController.buscarMedicoPorId(id, null)
+                .handle((resposta, erro) -> erro == null ? resposta.getBody()
+                        : handler.handleNaoEncontrado((RuntimeException) erro).getBody())
+                .join();
+    }
+}
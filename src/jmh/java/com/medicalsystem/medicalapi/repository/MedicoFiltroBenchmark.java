@@ -0,0 +1,202 @@
+package com.medicalsystem.medicalapi.repository;
+
+import com.medicalsystem.medicalapi.utils.TextoUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Listagem filtrada de médicos numa tabela de 1 milhão de linhas (medico_benchmark, com os índices da V9).
+// "legado" é o SQL da antiga findMedicosByFilters (filtros com OR e LIKE '%x%', que obrigam a ler a tabela toda);
+// "filtro" é o SQL gerado pelo Filtro (AND só dos filtros informados, igualdade e prefixo atendidos por índice).
+// Precisa de um PostgreSQL: informe BENCHMARK_JDBC_URL (e BENCHMARK_JDBC_USUARIO / BENCHMARK_JDBC_SENHA).
+// A tabela é criada na primeira execução e reaproveitada nas seguintes; os planos de cada SQL saem no console.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MedicoFiltroBenchmark {
+
+    private static final int MEDICOS = 1_000_000;
+
+    private static final String[] PRENOMES = {"Ana", "Bruno", "Carla", "Daniel", "Elisa", "Fabio", "Gabriela", "Hugo",
+            "Isabela", "Joao", "Karina", "Lucas", "Marina", "Nelson", "Olivia", "Paulo", "Raquel", "Sergio", "Tania", "Vitor"};
+    private static final String[] SOBRENOMES = {"Almeida", "Barbosa", "Costa", "Dias", "Ferreira", "Gomes", "Lima",
+            "Martins", "Nunes", "Oliveira", "Pereira", "Ribeiro", "Rocha", "Santos", "Silva", "Souza", "Teixeira", "Vieira",
+            "Xavier", "Zanetti"};
+    private static final String[] ESPECIALIDADES = {"Cardiologista", "Dermatologista", "Endocrinologista", "Gastroenterologista",
+            "Ginecologista", "Infectologista", "Nefrologista", "Neurologista", "Oftalmologista", "Oncologista", "Ortopedista",
+            "Otorrinolaringologista", "Pediatra", "Pneumologista", "Psiquiatra", "Reumatologista", "Urologista",
+            "Cirurgião Geral", "Médico de Família", "Geriatra"};
+
+    private static final String LEGADO = "SELECT id, nome, especialidade, crm, email FROM medico_benchmark " +
+            "WHERE nome LIKE ? OR especialidade LIKE ? OR crm = ?";
+
+    private static final String FILTRO_CRM = "SELECT id, nome, especialidade, crm, email FROM medico_benchmark " +
+            "WHERE crm = ? ORDER BY nome, id";
+
+    private static final String FILTRO_NOME_ESPECIALIDADE = "SELECT id, nome, especialidade, crm, email FROM medico_benchmark " +
+            "WHERE nome_busca LIKE ? ESCAPE '\\' AND especialidade = ? ORDER BY nome, id";
+
+    private Connection conexao;
+    private PreparedStatement legado;
+    private PreparedStatement filtroCrm;
+    private PreparedStatement filtroNomeEspecialidade;
+
+    @Setup(Level.Trial)
+    public void preparar() throws SQLException {
+        String url = System.getenv("BENCHMARK_JDBC_URL");
+        if (url == null) {
+            throw new IllegalStateException("Informe o PostgreSQL do benchmark em BENCHMARK_JDBC_URL, ex.: jdbc:postgresql://localhost:5432/medico_db");
+        }
+        conexao = DriverManager.getConnection(url, System.getenv("BENCHMARK_JDBC_USUARIO"), System.getenv("BENCHMARK_JDBC_SENHA"));
+        criarTabela();
+
+        legado = conexao.prepareStatement(LEGADO);
+        filtroCrm = conexao.prepareStatement(FILTRO_CRM);
+        filtroNomeEspecialidade = conexao.prepareStatement(FILTRO_NOME_ESPECIALIDADE);
+
+        int exemplo = MEDICOS / 2;
+        mostrarPlano("legado (CRM)", LEGADO, null, null, crm(exemplo));
+        mostrarPlano("filtro (CRM)", FILTRO_CRM, crm(exemplo));
+        mostrarPlano("legado (nome e especialidade)", LEGADO, "%" + nome(exemplo) + "%", "%" + especialidade(exemplo), null);
+        mostrarPlano("filtro (nome e especialidade)", FILTRO_NOME_ESPECIALIDADE, prefixo(exemplo), especialidade(exemplo));
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() throws SQLException {
+        conexao.close();
+    }
+
+    // Só o CRM informado: o nome e a especialidade vão nulos, como na antiga listarMedicos
+    @Benchmark
+    public int legadoPorCrm() throws SQLException {
+        int medico = sortear();
+        legado.setNull(1, Types.VARCHAR);
+        legado.setNull(2, Types.VARCHAR);
+        legado.setString(3, crm(medico));
+        return contar(legado);
+    }
+
+    @Benchmark
+    public int filtroPorCrm() throws SQLException {
+        filtroCrm.setString(1, crm(sortear()));
+        return contar(filtroCrm);
+    }
+
+    @Benchmark
+    public int legadoPorNomeEEspecialidade() throws SQLException {
+        int medico = sortear();
+        legado.setString(1, "%" + nome(medico) + "%");
+        legado.setString(2, "%" + especialidade(medico));
+        legado.setNull(3, Types.VARCHAR);
+        return contar(legado);
+    }
+
+    @Benchmark
+    public int filtroPorNomeEEspecialidade() throws SQLException {
+        int medico = sortear();
+        filtroNomeEspecialidade.setString(1, prefixo(medico));
+        filtroNomeEspecialidade.setString(2, especialidade(medico));
+        return contar(filtroNomeEspecialidade);
+    }
+
+    private void criarTabela() throws SQLException {
+        try (Statement instrucao = conexao.createStatement()) {
+            try (ResultSet existente = instrucao.executeQuery("SELECT count(*) FROM pg_tables WHERE tablename = 'medico_benchmark'")) {
+                existente.next();
+                if (existente.getInt(1) > 0) {
+                    return;
+                }
+            }
+
+            instrucao.execute("CREATE TABLE medico_benchmark (id UUID PRIMARY KEY, nome VARCHAR(255), " +
+                    "especialidade VARCHAR(255), crm VARCHAR(6), email VARCHAR(255), nome_busca TEXT)");
+        }
+
+        // Os nomes são montados com as mesmas regras de nome(), para que o benchmark sorteie médicos que existem
+        try (PreparedStatement carga = conexao.prepareStatement("INSERT INTO medico_benchmark " +
+                "SELECT md5(i::text)::uuid, nome, especialidade, lpad(i::text, 6, '0'), 'medico' || i || '@medicos.com', lower(nome) " +
+                "FROM (SELECT i, 'Dr. ' || (?::text[])[i % 20 + 1] || ' ' || (?::text[])[i / 20 % 20 + 1] || ' ' || i AS nome, " +
+                "(?::text[])[i % 20 + 1] AS especialidade FROM generate_series(0, ? - 1) i) medicos")) {
+            carga.setArray(1, conexao.createArrayOf("text", PRENOMES));
+            carga.setArray(2, conexao.createArrayOf("text", SOBRENOMES));
+            carga.setArray(3, conexao.createArrayOf("text", ESPECIALIDADES));
+            carga.setInt(4, MEDICOS);
+            carga.executeUpdate();
+        }
+
+        try (Statement instrucao = conexao.createStatement()) {
+            instrucao.execute("CREATE INDEX ON medico_benchmark (nome_busca text_pattern_ops)");
+            instrucao.execute("CREATE INDEX ON medico_benchmark (especialidade, nome, id)");
+            instrucao.execute("CREATE INDEX ON medico_benchmark (crm)");
+            instrucao.execute("CREATE INDEX ON medico_benchmark (nome, id)");
+            instrucao.execute("ANALYZE medico_benchmark");
+        }
+    }
+
+    private void mostrarPlano(String titulo, String sql, String... parametros) throws SQLException {
+        System.out.println("\n" + titulo);
+        try (PreparedStatement explain = conexao.prepareStatement("EXPLAIN " + sql)) {
+            for (int i = 0; i < parametros.length; i++) {
+                explain.setString(i + 1, parametros[i]);
+            }
+            try (ResultSet plano = explain.executeQuery()) {
+                while (plano.next()) {
+                    System.out.println("  " + plano.getString(1));
+                }
+            }
+        }
+    }
+
+    private static int contar(PreparedStatement consulta) throws SQLException {
+        int linhas = 0;
+        try (ResultSet resultado = consulta.executeQuery()) {
+            while (resultado.next()) {
+                linhas++;
+            }
+        }
+        return linhas;
+    }
+
+    private static int sortear() {
+        return ThreadLocalRandom.current().nextInt(MEDICOS);
+    }
+
+    private static String nome(int medico) {
+        return "Dr. " + PRENOMES[medico % 20] + " " + SOBRENOMES[medico / 20 % 20] + " " + medico;
+    }
+
+    // Mesmo formato que MedicoService passa ao Filtro: nome normalizado seguido de %
+    private static String prefixo(int medico) {
+        return TextoUtils.normalizarParaBusca(nome(medico)) + "%";
+    }
+
+    private static String especialidade(int medico) {
+        return ESPECIALIDADES[medico % 20];
+    }
+
+    private static String crm(int medico) {
+        return String.format("%06d", medico);
+    }
+}
@@ -0,0 +1,86 @@
+package com.medicalsystem.medicalapi.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Reserva e liberação de horários na agenda em memória. No pacote service porque AgendaMedico é package-private.
+// Com médicos distintos a vazão total com 4 threads deve ficar perto de 4x a de uma thread;
+// no mesmo médico as threads disputam o bitmap do dia e a vazão por thread cai.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AgendaMedicoBenchmark {
+
+    private static final long SEGUNDA = LocalDate.of(2025, 1, 6).toEpochDay();
+
+    @State(Scope.Thread)
+    public static class AgendaPropria {
+        final AgendaMedico agenda = agendaDeSegundaASexta();
+        int proximo;
+    }
+
+    @State(Scope.Benchmark)
+    public static class AgendaCompartilhada {
+        final AgendaMedico agenda = agendaDeSegundaASexta();
+    }
+
+    @State(Scope.Thread)
+    public static class Posicao {
+        int proximo;
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean umaThread(AgendaPropria estado) {
+        return reservarELiberar(estado.agenda, estado.proximo++);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean medicosDistintos(AgendaPropria estado) {
+        return reservarELiberar(estado.agenda, estado.proximo++);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean mesmoMedico(AgendaCompartilhada agenda, Posicao posicao) {
+        return reservarELiberar(agenda.agenda, posicao.proximo++);
+    }
+
+    // Percorre os 20 slots do expediente nos cinco dias úteis
+    private static boolean reservarELiberar(AgendaMedico agenda, int contador) {
+        int posicao = Math.floorMod(contador, 100);
+        long dia = SEGUNDA + posicao / 20;
+        int slot = 16 + posicao % 20;
+        boolean reservado = agenda.reservar(dia, slot) == AgendaMedico.ResultadoReserva.RESERVADO;
+        if (reservado) {
+            agenda.liberar(dia, slot);
+        }
+        return reservado;
+    }
+
+    private static AgendaMedico agendaDeSegundaASexta() {
+        long[] expediente = new long[8];
+        for (int dia = DayOfWeek.MONDAY.getValue(); dia <= DayOfWeek.FRIDAY.getValue(); dia++) {
+            expediente[dia] = 0xFFFFF0000L;
+        }
+        AgendaMedico agenda = new AgendaMedico(UUID.randomUUID());
+        agenda.definirExpediente(expediente);
+        return agenda;
+    }
+}
@@ -0,0 +1,22 @@
+package com.medicalsystem.medicalapi.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ConcurrentTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+@RequiredArgsConstructor
+public class AsyncConfig implements WebMvcConfigurer {
+
+    private final Bulkhead bulkhead;
+
+    // Respostas em streaming (StreamingResponseBody) são listagens: rodam no compartimento de listagem
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        ConcurrentTaskExecutor executor = new ConcurrentTaskExecutor(bulkhead.executorListagem());
+        executor.setTaskDecorator(LeituraNoPrimario::propagar);
+        configurer.setTaskExecutor(executor);
+    }
+}
@@ -0,0 +1,114 @@
+package com.medicalsystem.medicalapi.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// Separa o acesso ao banco em compartimentos com threads e fila próprias.
+// Listagens lentas só ocupam o compartimento de listagem; buscas por ID e gravações seguem com threads livres.
+// Com a fila cheia a tarefa é recusada na hora (RejectedExecutionException), e a requisição recebe 503.
+// Cada tarefa leva a marcação de leitura no primário (LeituraNoPrimario) da requisição que a enviou.
+@Component
+public class Bulkhead implements DisposableBean {
+
+    private final ThreadPoolExecutor listagem;
+    private final ThreadPoolExecutor leitura;
+    private final ThreadPoolExecutor escrita;
+
+    public Bulkhead(@Value("${bulkhead.listagem.threads}") int threadsListagem,
+                    @Value("${bulkhead.listagem.fila}") int filaListagem,
+                    @Value("${bulkhead.leitura.threads}") int threadsLeitura,
+                    @Value("${bulkhead.leitura.fila}") int filaLeitura,
+                    @Value("${bulkhead.escrita.threads}") int threadsEscrita,
+                    @Value("${bulkhead.escrita.fila}") int filaEscrita,
+                    MeterRegistry meterRegistry) {
+
+        this.listagem = criarExecutor("listagem", threadsListagem, filaListagem, meterRegistry);
+        this.leitura = criarExecutor("leitura", threadsLeitura, filaLeitura, meterRegistry);
+        this.escrita = criarExecutor("escrita", threadsEscrita, filaEscrita, meterRegistry);
+    }
+
+    // Consultas que podem devolver muitas linhas (findAll, filtros, buscas por nome, streaming)
+    public <T> CompletableFuture<T> listagem(Supplier<T> tarefa) {
+        return executar(tarefa, listagem);
+    }
+
+    // Buscas pontuais por ID
+    public <T> CompletableFuture<T> leitura(Supplier<T> tarefa) {
+        return executar(tarefa, leitura);
+    }
+
+    public <T> CompletableFuture<T> escrita(Supplier<T> tarefa) {
+        return executar(tarefa, escrita);
+    }
+
+    // Como supplyAsync, mas a exceção da tarefa chega ao GlobalExceptionHandler como foi lançada:
+    // supplyAsync a embrulharia numa CompletionException, que captura a pilha de chamadas a cada erro
+    private static <T> CompletableFuture<T> executar(Supplier<T> tarefa, Executor executor) {
+        Supplier<T> propagada = LeituraNoPrimario.propagar(tarefa);
+        CompletableFuture<T> resultado = new CompletableFuture<>();
+        executor.execute(() -> {
+            try {
+                resultado.complete(propagada.get());
+            } catch (Throwable e) {
+                resultado.completeExceptionally(e);
+            }
+        });
+        return resultado;
+    }
+
+    ExecutorService executorListagem() {
+        return listagem;
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        for (ThreadPoolExecutor executor : new ThreadPoolExecutor[]{listagem, leitura, escrita}) {
+            executor.shutdown();
+        }
+        for (ThreadPoolExecutor executor : new ThreadPoolExecutor[]{listagem, leitura, escrita}) {
+            executor.awaitTermination(30, TimeUnit.SECONDS);
+        }
+    }
+
+    private static ThreadPoolExecutor criarExecutor(String nome, int threads, int fila, MeterRegistry meterRegistry) {
+        Counter rejeicoes = Counter.builder("bulkhead.rejeicoes")
+                .description("Tarefas recusadas por falta de espaço na fila do compartimento")
+                .tag("compartimento", nome)
+                .register(meterRegistry);
+
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(fila), fabricaDeThreads(nome), (tarefa, origem) -> {
+                    rejeicoes.increment();
+                    throw new RejectedExecutionException("Compartimento '" + nome + "' sem capacidade.");
+                });
+
+        // Threads ativas, tamanho da fila e tarefas concluídas em executor.* (tag name=bulkhead.<nome>)
+        new ExecutorServiceMetrics(executor, "bulkhead." + nome, Tags.empty()).bindTo(meterRegistry);
+        return executor;
+    }
+
+    private static ThreadFactory fabricaDeThreads(String nome) {
+        AtomicInteger contador = new AtomicInteger();
+        return tarefa -> {
+            Thread thread = new Thread(tarefa, "bulkhead-" + nome + "-" + contador.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,34 @@
+package com.medicalsystem.medicalapi.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.util.Collections;
+
+// O cache envolve a transação: um acerto no cache responde sem abrir transação nem pedir conexão
+@Configuration
+@EnableCaching(order = Ordered.LOWEST_PRECEDENCE - 1)
+public class CacheConfig {
+
+    public static final String CACHE_MEDICOS = "medicos";
+    public static final String CACHE_PACIENTES = "pacientes";
+
+    @Bean
+    public CacheManager cacheManager(@Value("${cache.medicos.spec}") String specMedicos,
+                                     @Value("${cache.pacientes.spec}") String specPacientes) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+
+        // Cada cache tem limite de tamanho e de tempo próprios; nomes fora desta lista não são criados
+        cacheManager.registerCustomCache(CACHE_MEDICOS, Caffeine.from(specMedicos).build());
+        cacheManager.registerCustomCache(CACHE_PACIENTES, Caffeine.from(specPacientes).build());
+        cacheManager.setCacheNames(Collections.<String>emptyList());
+
+        return cacheManager;
+    }
+}
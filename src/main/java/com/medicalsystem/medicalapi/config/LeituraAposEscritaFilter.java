@@ -0,0 +1,73 @@
+package com.medicalsystem.medicalapi.config;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// Leitura das próprias escritas: depois de um POST, PUT, PATCH ou DELETE o cliente recebe um cookie
+// e, enquanto ele valer, suas leituras vão ao primário em vez de a uma réplica que pode estar atrasada
+public class LeituraAposEscritaFilter extends OncePerRequestFilter {
+
+    static final String COOKIE = "leitura-primario-ate";
+
+    private static final Set<String> METODOS_LEITURA = new HashSet<>(Arrays.asList("GET", "HEAD", "OPTIONS"));
+
+    private final long janelaMillis;
+
+    public LeituraAposEscritaFilter(long janelaMillis) {
+        this.janelaMillis = janelaMillis;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long agora = System.currentTimeMillis();
+        boolean escrita = !METODOS_LEITURA.contains(request.getMethod());
+
+        if (escrita) {
+            // Gravado antes de processar a requisição, enquanto a resposta ainda aceita cabeçalhos
+            Cookie cookie = new Cookie(COOKIE, String.valueOf(agora + janelaMillis));
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            cookie.setMaxAge((int) Math.max(1, TimeUnit.MILLISECONDS.toSeconds(janelaMillis + 999)));
+            response.addCookie(cookie);
+        }
+
+        if (escrita || dentroDaJanela(request, agora)) {
+            LeituraNoPrimario.ativar();
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            LeituraNoPrimario.limpar();
+        }
+    }
+
+    // O prazo vem no próprio cookie, para valer também com clientes que ignoram o Max-Age
+    private static boolean dentroDaJanela(HttpServletRequest request, long agora) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return false;
+        }
+
+        for (Cookie cookie : cookies) {
+            if (COOKIE.equals(cookie.getName())) {
+                try {
+                    return Long.parseLong(cookie.getValue()) > agora;
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+}
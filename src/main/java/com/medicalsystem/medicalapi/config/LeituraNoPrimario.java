@@ -0,0 +1,55 @@
+package com.medicalsystem.medicalapi.config;
+
+import java.util.function.Supplier;
+
+// Marca a thread atual para ler do primário mesmo em transações somente leitura.
+// Vale durante requisições de escrita e na janela logo após uma escrita do mesmo cliente,
+// para que ele não leia de uma réplica que ainda não recebeu o que acabou de gravar.
+public final class LeituraNoPrimario {
+
+    private static final ThreadLocal<Boolean> ATIVO = new ThreadLocal<>();
+
+    private LeituraNoPrimario() {
+    }
+
+    public static boolean ativo() {
+        return ATIVO.get() != null;
+    }
+
+    public static void ativar() {
+        ATIVO.set(Boolean.TRUE);
+    }
+
+    public static void limpar() {
+        ATIVO.remove();
+    }
+
+    // As tarefas enviadas a outras threads (bulkhead, streaming) levam a marcação da thread que as criou
+    public static <T> Supplier<T> propagar(Supplier<T> tarefa) {
+        if (!ativo()) {
+            return tarefa;
+        }
+        return () -> {
+            ativar();
+            try {
+                return tarefa.get();
+            } finally {
+                limpar();
+            }
+        };
+    }
+
+    public static Runnable propagar(Runnable tarefa) {
+        if (!ativo()) {
+            return tarefa;
+        }
+        return () -> {
+            ativar();
+            try {
+                tarefa.run();
+            } finally {
+                limpar();
+            }
+        };
+    }
+}
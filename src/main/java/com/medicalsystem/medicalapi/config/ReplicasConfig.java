@@ -0,0 +1,73 @@
+package com.medicalsystem.medicalapi.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayDataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+// Só entra em uso com replicas.urls definido; sem ele a aplicação usa apenas o datasource padrão do Spring Boot.
+// Flyway e gravações usam o primário; métodos @Transactional(readOnly = true) leem das réplicas.
+@Configuration
+@ConditionalOnProperty(name = "replicas.urls")
+public class ReplicasConfig {
+
+    // Mesmo pool que o Spring Boot criaria, com as propriedades spring.datasource.hikari.*
+    @Bean
+    @FlywayDataSource
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSourcePrimario(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public RoteamentoDataSource roteamentoDataSource(HikariDataSource dataSourcePrimario,
+                                                     DataSourceProperties properties,
+                                                     @Value("${replicas.urls}") String[] urls,
+                                                     @Value("${replicas.username:${spring.datasource.username}}") String username,
+                                                     @Value("${replicas.password:${spring.datasource.password}}") String password,
+                                                     @Value("${replicas.maximum-pool-size}") int tamanhoPool,
+                                                     @Value("${replicas.tempo-conexao-ms}") long tempoConexao,
+                                                     MeterRegistry meterRegistry) {
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (String url : urls) {
+            HikariConfig config = new HikariConfig();
+            config.setPoolName("medical-api-replica-" + (replicas.size() + 1));
+            config.setJdbcUrl(url.trim());
+            config.setUsername(username);
+            config.setPassword(password);
+            config.setDriverClassName(properties.determineDriverClassName());
+            config.setMaximumPoolSize(tamanhoPool);
+            config.setReadOnly(true);
+            // Réplica fora do ar não impede a subida nem segura a leitura: após o tempo limite ela vai ao primário
+            config.setConnectionTimeout(tempoConexao);
+            config.setInitializationFailTimeout(-1);
+            config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            replicas.add(new HikariDataSource(config));
+        }
+        return new RoteamentoDataSource(dataSourcePrimario, replicas);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(RoteamentoDataSource roteamentoDataSource) {
+        return new LazyConnectionDataSourceProxy(roteamentoDataSource);
+    }
+
+    @Bean
+    public LeituraAposEscritaFilter leituraAposEscritaFilter(@Value("${replicas.leitura-apos-escrita-ms}") long janela) {
+        return new LeituraAposEscritaFilter(janela);
+    }
+}
@@ -0,0 +1,113 @@
+package com.medicalsystem.medicalapi.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Envia as transações somente leitura às réplicas, em rodízio, e todo o resto ao primário.
+// Precisa ficar atrás de um LazyConnectionDataSourceProxy: a conexão só é pedida no primeiro comando SQL,
+// quando o Spring já marcou se a transação é somente leitura.
+@Slf4j
+public class RoteamentoDataSource extends AbstractDataSource implements DisposableBean {
+
+    // Segundos que a verificação de saúde espera a resposta de cada réplica
+    private static final int TEMPO_VERIFICACAO_SEGUNDOS = 2;
+
+    private final DataSource primario;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final AtomicInteger proxima = new AtomicInteger();
+
+    public RoteamentoDataSource(DataSource primario, List<? extends DataSource> replicas) {
+        this.primario = primario;
+        for (DataSource replica : replicas) {
+            this.replicas.add(new Replica(replica));
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Replica replica = replicaParaLeitura();
+        if (replica == null) {
+            return primario.getConnection();
+        }
+
+        try {
+            return replica.dataSource.getConnection();
+        } catch (SQLException e) {
+            // A réplica caiu entre duas verificações: sai do rodízio e a leitura segue no primário
+            log.warn("Réplica indisponível, lendo do primário: {}", e.getMessage());
+            replica.saudavel = false;
+            return primario.getConnection();
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return primario.getConnection(username, password);
+    }
+
+    // Réplica saudável seguinte no rodízio, ou null quando a conexão deve vir do primário
+    Replica replicaParaLeitura() {
+        if (replicas.isEmpty()
+                || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                || LeituraNoPrimario.ativo()) {
+            return null;
+        }
+
+        int inicio = Math.floorMod(proxima.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((inicio + i) % replicas.size());
+            if (replica.saudavel) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    // Réplicas fora do rodízio voltam assim que respondem de novo
+    @Scheduled(fixedDelayString = "${replicas.verificacao-ms:5000}")
+    public void verificarReplicas() {
+        for (Replica replica : replicas) {
+            boolean saudavel;
+            try (Connection conexao = replica.dataSource.getConnection()) {
+                saudavel = conexao.isValid(TEMPO_VERIFICACAO_SEGUNDOS);
+            } catch (SQLException e) {
+                saudavel = false;
+            }
+
+            if (saudavel != replica.saudavel) {
+                log.warn("Réplica {} {} rodízio de leitura", replicas.indexOf(replica) + 1, saudavel ? "voltou ao" : "saiu do");
+            }
+            replica.saudavel = saudavel;
+        }
+    }
+
+    // O primário é um bean próprio e é fechado pelo Spring; os pools das réplicas são fechados aqui
+    @Override
+    public void destroy() throws Exception {
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable) {
+                ((AutoCloseable) replica.dataSource).close();
+            }
+        }
+    }
+
+    static final class Replica {
+
+        final DataSource dataSource;
+        volatile boolean saudavel = true;
+
+        Replica(DataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.medicalsystem.medicalapi.constant;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+// Quanto tempo antes da consulta o lembrete é enviado; o código é o gravado em lembrete_enviado (V10)
+@Getter
+public enum AntecedenciaLembrete {
+
+    UM_DIA("D", Duration.ofHours(24)),
+    UMA_HORA("H", Duration.ofHours(1));
+
+    private final String codigo;
+    private final Duration antecedencia;
+
+    AntecedenciaLembrete(String codigo, Duration antecedencia) {
+        this.codigo = codigo;
+        this.antecedencia = antecedencia;
+    }
+
+    public static AntecedenciaLembrete doCodigo(String codigo) {
+        for (AntecedenciaLembrete valor : values()) {
+            if (valor.codigo.equals(codigo)) {
+                return valor;
+            }
+        }
+        throw new IllegalArgumentException("Antecedência de lembrete desconhecida: " + codigo);
+    }
+}
@@ -0,0 +1,45 @@
+package com.medicalsystem.medicalapi.constant;
+
+import lombok.Getter;
+
+import java.util.Locale;
+
+// Formatos da exportação de consultas, aceitos também na importação de pacientes
+@Getter
+public enum FormatoExportacao {
+
+    NDJSON("application/x-ndjson", "ndjson"),
+    CSV("text/csv;charset=UTF-8", "csv");
+
+    private final String contentType;
+    private final String extensao;
+
+    FormatoExportacao(String contentType, String extensao) {
+        this.contentType = contentType;
+        this.extensao = extensao;
+    }
+
+    // Aceita o nome em minúsculas ou maiúsculas; retorna null se o formato não existir
+    public static FormatoExportacao deParametro(String valor) {
+        for (FormatoExportacao formato : values()) {
+            if (formato.extensao.equalsIgnoreCase(valor)) {
+                return formato;
+            }
+        }
+        return null;
+    }
+
+    // Compara só o tipo, ignorando parâmetros como charset
+    public static FormatoExportacao deContentType(String contentType) {
+        if (contentType == null) {
+            return null;
+        }
+        String tipo = contentType.split(";")[0].trim().toLowerCase(Locale.ROOT);
+        for (FormatoExportacao formato : values()) {
+            if (formato.contentType.startsWith(tipo + ";") || formato.contentType.equals(tipo)) {
+                return formato;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,9 @@
+package com.medicalsystem.medicalapi.constant;
+
+// O que aconteceu com o recurso; o nome é o gravado em evento_alteracao (V12)
+public enum OperacaoEvento {
+
+    CRIADO,
+    ALTERADO,
+    REMOVIDO
+}
@@ -0,0 +1,32 @@
+package com.medicalsystem.medicalapi.constant;
+
+import lombok.Getter;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
+// Granularidade das estatísticas de consultas; o código é o gravado na coluna periodo (V8)
+@Getter
+public enum PeriodoEstatistica {
+
+    DIA("D"),
+    MES("M");
+
+    private final String codigo;
+
+    PeriodoEstatistica(String codigo) {
+        this.codigo = codigo;
+    }
+
+    // Primeiro dia do período que contém a data
+    public LocalDate inicioDo(LocalDate data) {
+        return this == MES ? data.withDayOfMonth(1) : data;
+    }
+
+    // Quantidade de períodos em [de, ate)
+    public long periodosEntre(LocalDate de, LocalDate ate) {
+        return this == MES
+                ? ChronoUnit.MONTHS.between(inicioDo(de), inicioDo(ate.minusDays(1))) + 1
+                : ChronoUnit.DAYS.between(de, ate);
+    }
+}
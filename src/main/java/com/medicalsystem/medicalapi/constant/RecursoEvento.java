@@ -0,0 +1,9 @@
+package com.medicalsystem.medicalapi.constant;
+
+// Recurso alterado num evento do feed (/eventos); o nome é o gravado em evento_alteracao (V12)
+public enum RecursoEvento {
+
+    CONSULTA,
+    MEDICO,
+    PACIENTE
+}
@@ -0,0 +1,9 @@
+package com.medicalsystem.medicalapi.constant;
+
+public enum StatusImportacao {
+
+    NA_FILA,
+    EM_ANDAMENTO,
+    CONCLUIDA,
+    FALHOU
+}
@@ -0,0 +1,57 @@
+package com.medicalsystem.medicalapi.controller;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.medicalsystem.medicalapi.model.EstatisticasCache;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RestController
+@RequestMapping("/cache")
+@RequiredArgsConstructor
+@Tag(name = "Cache", description = "Acompanhamento do cache de médicos e pacientes")
+public class CacheController {
+
+    private final CacheManager cacheManager;
+
+    @GetMapping("/estatisticas")
+    @Operation(summary = "Estatísticas do cache", description = "Retorna tamanho, acertos, faltas e remoções de cada cache desde a subida da aplicação.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Estatísticas retornadas com sucesso")
+    })
+    public ResponseEntity<List<EstatisticasCache>> estatisticas() {
+        List<EstatisticasCache> estatisticas = new ArrayList<>();
+
+        for (String nome : cacheManager.getCacheNames()) {
+            Cache cache = cacheManager.getCache(nome);
+            if (!(cache instanceof CaffeineCache)) {
+                continue;
+            }
+
+            com.github.benmanes.caffeine.cache.Cache<Object, Object> nativo = ((CaffeineCache) cache).getNativeCache();
+            CacheStats stats = nativo.stats();
+            estatisticas.add(new EstatisticasCache(
+                    nome,
+                    nativo.estimatedSize(),
+                    stats.hitCount(),
+                    stats.missCount(),
+                    stats.hitRate(),
+                    stats.evictionCount(),
+                    stats.averageLoadPenalty() / 1_000_000.0));
+        }
+
+        return ResponseEntity.ok(estatisticas);
+    }
+}
@@ -1,13 +1,23 @@
 package com.medicalsystem.medicalapi.controller;
 
+import com.medicalsystem.medicalapi.config.Bulkhead;
+import com.medicalsystem.medicalapi.constant.FormatoExportacao;
+import com.medicalsystem.medicalapi.constant.StatusConsulta;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.medicalsystem.medicalapi.entity.Consulta;
 import com.medicalsystem.medicalapi.entity.Medico;
 import com.medicalsystem.medicalapi.entity.Paciente;
-import com.medicalsystem.medicalapi.exception.ConsultaAgendamentoException;
-import com.medicalsystem.medicalapi.exception.ConsultaNotFoundException;
+import com.medicalsystem.medicalapi.exception.MedicoNotFoundException;
+import com.medicalsystem.medicalapi.exception.PacienteNotFound;
+import com.medicalsystem.medicalapi.model.ConsultaCursor;
 import com.medicalsystem.medicalapi.model.ConsultaRequest;
 import com.medicalsystem.medicalapi.model.ErrorsResponse;
+import com.medicalsystem.medicalapi.model.ResultadoAgendamentoLote;
 import com.medicalsystem.medicalapi.service.ConsultaService;
+import com.medicalsystem.medicalapi.service.IdempotenciaService;
 import com.medicalsystem.medicalapi.service.MedicoService;
 import com.medicalsystem.medicalapi.service.PacienteService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -16,14 +26,25 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/consultas")
@@ -34,17 +55,31 @@ public class ConsultaController {
     private final ConsultaService consultaService;
     private final MedicoService medicoService;
     private final PacienteService pacienteService;
+    private final ObjectMapper objectMapper;
+    private final Bulkhead bulkhead;
+    private final IdempotenciaService idempotenciaService;
+
+    private static final int LIMITE_MAXIMO_PAGINA = 1000;
+    private static final int LIMITE_MAXIMO_LOTE = 5000;
+    private static final String TOTAL_REGISTROS = "X-Total-Count";
 
     @PostMapping
-    @Operation(summary = "Agendar uma nova consulta", description = "Agende uma nova consulta entre o paciente e o médico.")
+    @Operation(summary = "Agendar uma nova consulta", description = "Agende uma nova consulta entre o paciente e o médico. " +
+            "Com o cabeçalho Idempotency-Key, a retentativa com a mesma chave recebe a resposta original sem agendar de novo.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Consulta agendada com sucesso"),
-            @ApiResponse(responseCode = "400", description = "Dados inválidos, verifique e tente novamente.")
+            @ApiResponse(responseCode = "400", description = "Dados inválidos, verifique e tente novamente."),
+            @ApiResponse(responseCode = "409", description = "Requisição com a mesma chave de idempotência ainda em andamento"),
+            @ApiResponse(responseCode = "422", description = "Chave de idempotência já usada com outros dados")
     })
-    public ResponseEntity<Object> agendarConsulta(@RequestBody ConsultaRequest consultaRequest) {
-        try {
-            Medico medico = medicoService.buscarMedicoPorId(consultaRequest.getMedico_id());
-            Paciente paciente = pacienteService.buscarPacientePorId(consultaRequest.getPaciente_id());
+    public CompletableFuture<ResponseEntity<Object>> agendarConsulta(@RequestBody ConsultaRequest consultaRequest,
+            @RequestHeader(value = IdempotenciaService.CABECALHO, required = false)
+            @Parameter(description = "Chave única da requisição, repetida nas retentativas") String chaveIdempotencia) {
+        return idempotenciaService.executar(chaveIdempotencia, "POST /consultas", consultaRequest, () -> {
+            Medico medico = medicoService.buscarMedicoPorId(consultaRequest.getMedico_id())
+                    .orElseThrow(MedicoNotFoundException::new);
+            Paciente paciente = pacienteService.buscarPacientePorId(consultaRequest.getPaciente_id())
+                    .orElseThrow(PacienteNotFound::porId);
 
             // Criar consulta com objetos completos
             Consulta novaConsulta = new Consulta();
@@ -54,46 +89,155 @@ public class ConsultaController {
             novaConsulta.setStatus_consulta(consultaRequest.getStatus());
             consultaService.agendarConsulta(novaConsulta);
             return ResponseEntity.status(200).body(novaConsulta);
+        });
+    }
 
-        } catch (ConsultaAgendamentoException e) {
-            List<String> errors = new ArrayList<>();
-            errors.add("Erro ao agendar consulta: " + e.getMessage());
-            ErrorsResponse errorsResponse = new ErrorsResponse(errors);
-            return ResponseEntity.status(400).body(errorsResponse);
-
-        } catch (Exception e) {
+    @PostMapping("/lote")
+    @Operation(summary = "Agendar consultas em lote", description = "Agenda até " + LIMITE_MAXIMO_LOTE + " consultas em uma única requisição e retorna o resultado de cada item.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Lote processado; verifique a situação de cada item"),
+            @ApiResponse(responseCode = "400", description = "Lote vazio ou acima do limite permitido"),
+            @ApiResponse(responseCode = "500", description = "Erro interno; nenhuma consulta do lote foi gravada")
+    })
+    public CompletableFuture<ResponseEntity<Object>> agendarLote(@RequestBody List<ConsultaRequest> consultasRequest) {
+        if (consultasRequest == null || consultasRequest.isEmpty() || consultasRequest.size() > LIMITE_MAXIMO_LOTE) {
             List<String> erros = new ArrayList<>();
-            erros.add("Erro interno ao agendar consulta, verifique os dados e tente novamente.");
-            ErrorsResponse errorsResponse = new ErrorsResponse(erros);
-            return ResponseEntity.status(500).body(errorsResponse);
+            erros.add("O lote deve conter entre 1 e " + LIMITE_MAXIMO_LOTE + " consultas.");
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ErrorsResponse(erros)));
         }
+
+        return bulkhead.escrita(() -> {
+            List<ResultadoAgendamentoLote> resultados = consultaService.agendarLote(consultasRequest);
+            return ResponseEntity.ok(resultados);
+        });
     }
 
     @GetMapping
-    @Operation(summary = "Lista todas as consultas com filtros", description = "Retorna uma lista de todas as consultas com ou sem filtros.")
+    @Operation(summary = "Lista todas as consultas com filtros", description = "Retorna uma lista de todas as consultas com ou sem filtros. " +
+            "Sem filtro, ou filtrando apenas por médico ou paciente, a listagem é paginada por cursor: use o valor de 'next' no parâmetro 'cursor' para obter a próxima página. " +
+            "Com os demais filtros, combinados com AND, a listagem é paginada por 'pagina' e 'limit' e o total vem no cabeçalho X-Total-Count.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Lista de consultas retornada com sucesso"),
+            @ApiResponse(responseCode = "400", description = "Cursor ou limite de página inválido"),
             @ApiResponse(responseCode = "404", description = "Nenhuma consulta encontrada com os critérios fornecidos")
     })
-    public ResponseEntity<Object> listarConsultas(
+    public CompletableFuture<ResponseEntity<StreamingResponseBody>> listarConsultas(
             @RequestParam(required = false) @Parameter(description = "Filtrar as consultas pelo ID da consulta") UUID consultaId,
             @RequestParam(required = false) @Parameter(description = "Filtrar as consultas pelo ID do paciente") UUID pacienteId,
-            @RequestParam(required = false) @Parameter(description = "Filtrar as consultas pelo ID do médico") UUID medicoId) {
+            @RequestParam(required = false) @Parameter(description = "Filtrar as consultas pelo ID do médico") UUID medicoId,
+            @RequestParam(required = false) @Parameter(description = "Filtrar as consultas pelo status") StatusConsulta status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) @Parameter(description = "Consultas a partir desta data e hora (inclusive)") LocalDateTime de,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) @Parameter(description = "Consultas antes desta data e hora") LocalDateTime ate,
+            @RequestParam(required = false) @Parameter(description = "Cursor retornado no campo 'next' da página anterior") String cursor,
+            @RequestParam(defaultValue = "0") @Parameter(description = "Página da listagem filtrada, a partir de 0") int pagina,
+            @RequestParam(defaultValue = "100") @Parameter(description = "Quantidade máxima de consultas por página (1 a 1000)") int limit) {
+
+        if (limit < 1 || limit > LIMITE_MAXIMO_PAGINA) {
+            return CompletableFuture.completedFuture(json(HttpStatus.BAD_REQUEST, new ErrorsResponse(Collections.singletonList(
+                    "O parâmetro 'limit' deve estar entre 1 e " + LIMITE_MAXIMO_PAGINA + "."))));
+        }
+
+        if (consultaId != null || (pacienteId != null && medicoId != null) || status != null || de != null || ate != null) {
+            if (pagina < 0) {
+                return CompletableFuture.completedFuture(json(HttpStatus.BAD_REQUEST,
+                        new ErrorsResponse(Collections.singletonList("O parâmetro 'pagina' não pode ser negativo."))));
+            }
+            // A página e a contagem rodam no compartimento de listagem: com a fila cheia a resposta é 503,
+            // sem ocupar a thread da requisição
+            return bulkhead.listagem(() -> {
+                Page<Consulta> consultas = consultaService.listarConsultas(consultaId, pacienteId, medicoId, status, de, ate, pagina, limit);
+
+                if (consultas.getTotalElements() == 0) {
+                    return json(HttpStatus.NOT_FOUND, new ErrorsResponse(Collections.singletonList("Nenhuma consulta encontrada com os filtros fornecidos.")));
+                }
+
+                return ResponseEntity.ok()
+                        .header(TOTAL_REGISTROS, String.valueOf(consultas.getTotalElements()))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(saida -> objectMapper.writeValue(saida, consultas.getContent()));
+            });
+        }
+
+        // Cursor inválido (IllegalArgumentException) vira 400 no GlobalExceptionHandler antes de a resposta começar
+        if (cursor != null) {
+            ConsultaCursor.decodificar(cursor);
+        }
+
+        // As consultas são escritas na resposta conforme chegam do banco, sem montar a lista em memória
+        StreamingResponseBody corpo = saida -> escreverPagina(saida, pacienteId, medicoId, cursor, limit);
+        return CompletableFuture.completedFuture(ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(corpo));
+    }
+
+    private void escreverPagina(OutputStream saida, UUID pacienteId, UUID medicoId, String cursor, int limite) throws IOException {
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        JsonGenerator gerador = objectMapper.getFactory().createGenerator(saida);
+
+        gerador.writeStartObject();
+        gerador.writeArrayFieldStart("consultas");
+        String proximo = consultaService.percorrerConsultas(pacienteId, medicoId, cursor, limite, consulta -> {
+            try {
+                writer.writeValue(gerador, consulta);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        gerador.writeEndArray();
+        gerador.writeStringField("next", proximo);
+        gerador.writeEndObject();
+        gerador.flush();
+    }
+
+    private ResponseEntity<StreamingResponseBody> json(HttpStatus status, Object corpo) {
+        return ResponseEntity.status(status)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(saida -> objectMapper.writeValue(saida, corpo));
+    }
+
+    @GetMapping("/export")
+    @Operation(summary = "Exportar consultas", description = "Exporta as consultas do intervalo [de, ate) em NDJSON ou CSV, ordenadas pela data. " +
+            "O arquivo é gerado enquanto é enviado; com 'Accept-Encoding: gzip' a resposta vem comprimida.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Arquivo de exportação"),
+            @ApiResponse(responseCode = "400", description = "Formato ou intervalo de datas inválido")
+    })
+    public ResponseEntity<StreamingResponseBody> exportarConsultas(
+            @RequestParam(defaultValue = "ndjson") @Parameter(description = "Formato do arquivo: ndjson ou csv") String formato,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+            @Parameter(description = "Início do intervalo, inclusivo (ex.: 2024-01-01T00:00:00)") LocalDateTime de,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+            @Parameter(description = "Fim do intervalo, exclusivo (ex.: 2024-02-01T00:00:00)") LocalDateTime ate,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+
+        FormatoExportacao formatoExportacao = FormatoExportacao.deParametro(formato);
+        if (formatoExportacao == null) {
+            return json(HttpStatus.BAD_REQUEST, new ErrorsResponse(Collections.singletonList(
+                    "O parâmetro 'formato' deve ser 'ndjson' ou 'csv'.")));
+        }
 
-        try {
-            // Chama o serviço para listar consultas com base nos filtros fornecidos
-            List<Consulta> consultas = consultaService.listarConsultas(consultaId, pacienteId, medicoId);
+        if (de != null && ate != null && !de.isBefore(ate)) {
+            return json(HttpStatus.BAD_REQUEST, new ErrorsResponse(Collections.singletonList(
+                    "A data 'de' deve ser anterior à data 'ate'.")));
+        }
 
-            if (consultas.isEmpty()) {
-                return ResponseEntity.status(HttpStatus.NOT_FOUND)
-                        .body(Collections.singletonList("Nenhuma consulta encontrada com os filtros fornecidos."));
+        boolean comprimir = acceptEncoding != null && acceptEncoding.toLowerCase(Locale.ROOT).contains("gzip");
+        StreamingResponseBody corpo = saida -> {
+            if (comprimir) {
+                GZIPOutputStream gzip = new GZIPOutputStream(saida, 64 * 1024);
+                consultaService.exportarConsultas(de, ate, formatoExportacao, gzip);
+                gzip.finish();
+            } else {
+                consultaService.exportarConsultas(de, ate, formatoExportacao, saida);
             }
+        };
 
-            return ResponseEntity.ok(consultas);
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(Collections.singletonList("Erro ao tentar listar as consultas."));
+        ResponseEntity.BodyBuilder resposta = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(formatoExportacao.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"consultas." + formatoExportacao.getExtensao() + "\"")
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (comprimir) {
+            resposta.header(HttpHeaders.CONTENT_ENCODING, "gzip");
         }
+        return resposta.body(corpo);
     }
 
 
@@ -105,37 +249,25 @@ public class ConsultaController {
             @ApiResponse(responseCode = "400", description = "Erro de validação ou entrada inválida"),
             @ApiResponse(responseCode = "500", description = "Erro interno ao atualizar consulta")
     })
-    public ResponseEntity<Object> atualizarConsulta(
+    public CompletableFuture<ResponseEntity<Object>> atualizarConsulta(
             @PathVariable @Parameter(description = "ID único da consulta a ser atualizada") UUID id,
             @Valid @RequestBody @Parameter(description = "Dados atualizados da consulta") ConsultaRequest consultaRequest,
             BindingResult result) {
-
         if (result.hasErrors()) {
             List<String> erros = new ArrayList<>();
             for (FieldError erro : result.getFieldErrors()) {
                 erros.add(erro.getField() + ": " + erro.getDefaultMessage());
             }
-            return ResponseEntity.badRequest().body(new ErrorsResponse(erros));
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(new ErrorsResponse(erros)));
         }
 
-        try {
-            // Verificar se a consulta existe
+        return bulkhead.escrita(() -> {
+            // Consulta, médico ou paciente inexistente vira 404 no GlobalExceptionHandler
             Consulta consultaExistente = consultaService.buscarConsultaPorId(id);
-            if (consultaExistente == null) {
-                throw new ConsultaNotFoundException("Consulta não encontrada para o ID fornecido.");
-            }
-
-            // Verificar se o médico existe
-            Medico medico = medicoService.buscarMedicoPorId(consultaRequest.getMedico_id());
-            if (medico == null) {
-                throw new ConsultaNotFoundException("Médico não encontrado para o ID fornecido.");
-            }
-
-            // Verificar se o paciente existe
-            Paciente paciente = pacienteService.buscarPacientePorId(consultaRequest.getPaciente_id());
-            if (paciente == null) {
-                throw new ConsultaNotFoundException("Paciente não encontrado para o ID fornecido.");
-            }
+            Medico medico = medicoService.buscarMedicoPorId(consultaRequest.getMedico_id())
+                    .orElseThrow(MedicoNotFoundException::new);
+            Paciente paciente = pacienteService.buscarPacientePorId(consultaRequest.getPaciente_id())
+                    .orElseThrow(PacienteNotFound::porId);
 
             // Atualizar dados da consulta
             consultaExistente.setMedico_id(medico);
@@ -145,17 +277,7 @@ public class ConsultaController {
             consultaService.atualizarConsulta(id, consultaExistente);
 
             return ResponseEntity.status(200).body(consultaExistente);
-
-        } catch (ConsultaNotFoundException e) {
-            List<String> errors = new ArrayList<>();
-            errors.add(e.getMessage());
-            return ResponseEntity.status(404).body(new ErrorsResponse(errors));
-
-        } catch (Exception e) {
-            List<String> errors = new ArrayList<>();
-            errors.add("Erro interno ao atualizar consulta. Verifique as informações e tente novamente");
-            return ResponseEntity.status(500).body(new ErrorsResponse(errors));
-        }
+        });
     }
 
 
@@ -165,41 +287,24 @@ public class ConsultaController {
             @ApiResponse(responseCode = "200", description = "Consulta encontrada"),
             @ApiResponse(responseCode = "404", description = "Consulta não encontrada")
     })
-    public ResponseEntity<Object> buscarConsultaPorId(@PathVariable UUID id) {
-        try {
+    public CompletableFuture<ResponseEntity<Object>> buscarConsultaPorId(@PathVariable UUID id) {
+        return bulkhead.leitura(() -> {
             Consulta consulta = consultaService.buscarConsultaPorId(id);
-            if (consulta == null) {
-                throw new ConsultaNotFoundException("Consulta não encontrada para o ID fornecido");
-            }
             return ResponseEntity.ok(consulta);
-
-        } catch (ConsultaNotFoundException e) {
-            List<String> erros = new ArrayList<>();
-            erros.add(e.getMessage());
-            ErrorsResponse errorsResponse = new ErrorsResponse(erros);
-            return ResponseEntity.status(404).body(errorsResponse);
-
-        } catch (Exception e) {
-            List<String> erros = new ArrayList<>();
-            erros.add("Erro interno ao buscar consulta, verifique os dados e tente novamente.");
-            ErrorsResponse errorsResponse = new ErrorsResponse(erros);
-            return ResponseEntity.status(500).body(errorsResponse);
-        }
+        });
     }
 
     @DeleteMapping("/{id}")
     @Operation(summary = "Cancelar uma consulta", description = "Cancela uma consulta agendada pelo ID.")
-    @ApiResponse(responseCode = "204", description = "Consulta cancelada com sucesso")
-    public ResponseEntity<Object> cancelarConsulta(@PathVariable UUID id) {
-        try {
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Consulta cancelada com sucesso"),
+            @ApiResponse(responseCode = "400", description = "A consulta foi alterada por outra requisição"),
+            @ApiResponse(responseCode = "404", description = "Consulta não encontrada")
+    })
+    public CompletableFuture<ResponseEntity<Object>> cancelarConsulta(@PathVariable UUID id) {
+        return bulkhead.escrita(() -> {
             consultaService.cancelarConsulta(id);
             return ResponseEntity.noContent().build();
-
-        } catch (Exception e) {
-            List<String> erros = new ArrayList<>();
-            erros.add(e.getMessage());
-            ErrorsResponse errorsResponse = new ErrorsResponse(erros);
-            return ResponseEntity.status(400).body(errorsResponse);
-        }
+        });
     }
 }
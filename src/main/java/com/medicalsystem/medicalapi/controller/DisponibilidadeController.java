@@ -0,0 +1,81 @@
+package com.medicalsystem.medicalapi.controller;
+
+import com.medicalsystem.medicalapi.model.ErrorsResponse;
+import com.medicalsystem.medicalapi.model.HorarioLivre;
+import com.medicalsystem.medicalapi.service.DisponibilidadeService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/medicos")
+@RequiredArgsConstructor
+@Tag(name = "Disponibilidade", description = "Busca de horários livres na agenda dos médicos")
+public class DisponibilidadeController {
+
+    private static final int QUANTIDADE_MAXIMA = 100;
+
+    private final DisponibilidadeService disponibilidadeService;
+
+    @GetMapping("/{id}/disponibilidade")
+    @Operation(summary = "Próximos horários livres de um médico", description = "Retorna os primeiros horários livres do médico a partir da data informada.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Horários livres retornados com sucesso"),
+            @ApiResponse(responseCode = "400", description = "Quantidade inválida"),
+            @ApiResponse(responseCode = "404", description = "Médico não encontrado para o ID fornecido")
+    })
+    public ResponseEntity<Object> horariosLivresDoMedico(
+            @PathVariable @Parameter(description = "ID único do médico") UUID id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+            @Parameter(description = "Data e hora inicial da busca (ISO-8601). Padrão: agora") LocalDateTime aPartirDe,
+            @RequestParam(defaultValue = "5") @Parameter(description = "Quantidade de horários (1 a 100)") int quantidade) {
+
+        if (quantidade < 1 || quantidade > QUANTIDADE_MAXIMA) {
+            return quantidadeInvalida();
+        }
+
+        List<HorarioLivre> livres = disponibilidadeService.proximosHorariosLivres(id, inicioDaBusca(aPartirDe), quantidade);
+        return ResponseEntity.ok(livres);
+    }
+
+    @GetMapping("/disponibilidade")
+    @Operation(summary = "Próximos horários livres por especialidade", description = "Retorna os primeiros horários livres entre todos os médicos da especialidade.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Horários livres retornados com sucesso"),
+            @ApiResponse(responseCode = "400", description = "Quantidade inválida")
+    })
+    public ResponseEntity<Object> horariosLivresPorEspecialidade(
+            @RequestParam @Parameter(description = "Especialidade desejada, ex.: Cardiologista") String especialidade,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+            @Parameter(description = "Data e hora inicial da busca (ISO-8601). Padrão: agora") LocalDateTime aPartirDe,
+            @RequestParam(defaultValue = "5") @Parameter(description = "Quantidade de horários (1 a 100)") int quantidade) {
+
+        if (quantidade < 1 || quantidade > QUANTIDADE_MAXIMA) {
+            return quantidadeInvalida();
+        }
+
+        List<HorarioLivre> livres = disponibilidadeService.proximosHorariosLivresPorEspecialidade(especialidade, inicioDaBusca(aPartirDe), quantidade);
+        return ResponseEntity.ok(livres);
+    }
+
+    private static LocalDateTime inicioDaBusca(LocalDateTime aPartirDe) {
+        return aPartirDe != null ? aPartirDe : LocalDateTime.now();
+    }
+
+    private static ResponseEntity<Object> quantidadeInvalida() {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(new ErrorsResponse(Collections.singletonList("O parâmetro 'quantidade' deve estar entre 1 e " + QUANTIDADE_MAXIMA + ".")));
+    }
+}
@@ -0,0 +1,72 @@
+package com.medicalsystem.medicalapi.controller;
+
+import com.medicalsystem.medicalapi.config.Bulkhead;
+import com.medicalsystem.medicalapi.constant.PeriodoEstatistica;
+import com.medicalsystem.medicalapi.model.ErrorsResponse;
+import com.medicalsystem.medicalapi.service.EstatisticasConsultaService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+@RestController
+@RequestMapping("/estatisticas")
+@RequiredArgsConstructor
+@Tag(name = "Estatísticas", description = "Contagem de consultas por status, pré-agregada por dia e por mês")
+public class EstatisticasController {
+
+    private final EstatisticasConsultaService estatisticasConsultaService;
+    private final Bulkhead bulkhead;
+
+    @GetMapping("/consultas")
+    @Operation(summary = "Estatísticas da clínica", description = "Quantidade de consultas agendadas, canceladas e concluídas de todos os médicos por dia ou por mês. " +
+            "O intervalo inclui 'de' e exclui 'ate', com no máximo " + EstatisticasConsultaService.LIMITE_MAXIMO_PERIODOS + " dias ou meses; períodos sem consultas não aparecem.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Estatísticas retornadas com sucesso"),
+            @ApiResponse(responseCode = "400", description = "Intervalo de datas inválido")
+    })
+    public CompletableFuture<ResponseEntity<Object>> estatisticasDaClinica(
+            @RequestParam(defaultValue = "DIA") @Parameter(description = "Agrupar por DIA ou MES") PeriodoEstatistica periodo,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+            @Parameter(description = "Início do intervalo (ISO-8601), inclusivo") LocalDate de,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+            @Parameter(description = "Fim do intervalo (ISO-8601), exclusivo") LocalDate ate) {
+        if (!de.isBefore(ate) || periodo.periodosEntre(de, ate) > EstatisticasConsultaService.LIMITE_MAXIMO_PERIODOS) {
+            List<String> erros = new ArrayList<>();
+            erros.add("O intervalo deve ter 'de' anterior a 'ate' e no máximo " + EstatisticasConsultaService.LIMITE_MAXIMO_PERIODOS + " períodos.");
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ErrorsResponse(erros)));
+        }
+
+        return bulkhead.leitura(() -> ResponseEntity.ok(estatisticasConsultaService.estatisticasDaClinica(periodo, de, ate)));
+    }
+
+    @PostMapping("/consultas/reconstrucao")
+    @Operation(summary = "Reconstruir estatísticas", description = "Recalcula todos os contadores a partir das consultas, inclusive as arquivadas. " +
+            "Agendamentos feitos durante a reconstrução aguardam o fim dela.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Estatísticas reconstruídas; retorna a quantidade de consultas contadas"),
+            @ApiResponse(responseCode = "500", description = "Erro interno; as estatísticas anteriores foram mantidas")
+    })
+    public CompletableFuture<ResponseEntity<Object>> reconstruir() {
+        return bulkhead.escrita(() -> {
+            long consultas = estatisticasConsultaService.reconstruir();
+            return ResponseEntity.ok(Collections.singletonMap("consultas", consultas));
+        });
+    }
+}
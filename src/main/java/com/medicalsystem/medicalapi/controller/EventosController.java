@@ -0,0 +1,59 @@
+package com.medicalsystem.medicalapi.controller;
+
+import com.medicalsystem.medicalapi.model.FeedEventos;
+import com.medicalsystem.medicalapi.service.EventosAlteracaoService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+@RestController
+@RequestMapping("/eventos")
+@RequiredArgsConstructor
+@Tag(name = "Eventos", description = "Feed de alterações de consultas, médicos e pacientes")
+public class EventosController {
+
+    private final EventosAlteracaoService eventosAlteracaoService;
+
+    private static final int LIMITE_MAXIMO = 1000;
+
+    // Abaixo do tempo limite padrão das requisições assíncronas do Tomcat (30 s)
+    private static final int ESPERA_MAXIMA_SEGUNDOS = 25;
+
+    @GetMapping
+    @Operation(summary = "Alterações desde um cursor", description = "Retorna, em ordem, as alterações posteriores a 'desde'. " +
+            "Envie o 'cursor' da resposta no 'desde' da chamada seguinte; comece com 0. " +
+            "Sem alterações novas, a resposta aguarda até 'espera' segundos pela próxima antes de voltar vazia.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Eventos retornados (a lista pode vir vazia)"),
+            @ApiResponse(responseCode = "400", description = "Cursor, limite ou espera inválidos")
+    })
+    public CompletableFuture<ResponseEntity<FeedEventos>> listarEventos(
+            @RequestParam(defaultValue = "0") @Parameter(description = "Posição do último evento já recebido") long desde,
+            @RequestParam(defaultValue = "100") @Parameter(description = "Quantidade máxima de eventos (1 a 1000)") int limite,
+            @RequestParam(defaultValue = "20") @Parameter(description = "Segundos de espera quando não há eventos novos (0 a 25)") int espera) {
+
+        if (desde < 0) {
+            throw new IllegalArgumentException("O parâmetro 'desde' não pode ser negativo.");
+        }
+        if (limite < 1 || limite > LIMITE_MAXIMO) {
+            throw new IllegalArgumentException("O parâmetro 'limite' deve estar entre 1 e " + LIMITE_MAXIMO + ".");
+        }
+        if (espera < 0 || espera > ESPERA_MAXIMA_SEGUNDOS) {
+            throw new IllegalArgumentException("O parâmetro 'espera' deve estar entre 0 e " + ESPERA_MAXIMA_SEGUNDOS + " segundos.");
+        }
+
+        return eventosAlteracaoService.aguardar(desde, limite, TimeUnit.SECONDS.toMillis(espera))
+                .thenApply(ResponseEntity::ok);
+    }
+}
@@ -0,0 +1,158 @@
+package com.medicalsystem.medicalapi.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.medicalsystem.medicalapi.exception.ChaveIdempotenciaException;
+import com.medicalsystem.medicalapi.exception.ConflitoException;
+import com.medicalsystem.medicalapi.exception.ConsultaAgendamentoException;
+import com.medicalsystem.medicalapi.exception.ConsultaNotFoundException;
+import com.medicalsystem.medicalapi.exception.ErroDominioException;
+import com.medicalsystem.medicalapi.exception.InvalidDateFormatException;
+import com.medicalsystem.medicalapi.exception.MedicoException;
+import com.medicalsystem.medicalapi.exception.MedicoNotFoundException;
+import com.medicalsystem.medicalapi.exception.PacienteException;
+import com.medicalsystem.medicalapi.exception.PacienteNotFound;
+import com.medicalsystem.medicalapi.model.ErrorsResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
+
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.concurrent.RejectedExecutionException;
+
+// Único ponto que transforma exceções em respostas de erro: os controllers só tratam o caminho feliz
+// e as validações de parâmetros. Os erros de domínio (ErroDominioException) chegam aqui sem pilha de chamadas,
+// e o corpo JSON de cada mensagem é serializado uma vez e reaproveitado nas respostas seguintes.
+@Slf4j
+@RestControllerAdvice
+public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
+
+    private static final String ERRO_INTERNO = "Erro interno ao processar a requisição. Tente novamente ou entre em contato com o suporte.";
+    private static final String CORPO_INVALIDO = "O corpo da requisição não pôde ser lido. Verifique o formato dos dados enviados.";
+
+    // Mensagens com dados da requisição quase não se repetem: o limite evita que ocupem memória sem retorno
+    private static final int MAXIMO_CORPOS = 1_000;
+
+    @Value("${bulkhead.retry-after-segundos}")
+    private int retryAfterSegundos;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final Cache<String, byte[]> corpos = Caffeine.newBuilder().maximumSize(MAXIMO_CORPOS).build();
+
+    // Fila do compartimento cheia: recusa na hora em vez de deixar a requisição esperando
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<byte[]> handleSobrecarga(RejectedExecutionException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSegundos))
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(corpo("O servidor está sobrecarregado no momento. Tente novamente em alguns segundos."));
+    }
+
+    @ExceptionHandler({MedicoNotFoundException.class, PacienteNotFound.class, ConsultaNotFoundException.class})
+    public ResponseEntity<byte[]> handleNaoEncontrado(RuntimeException ex) {
+        return erro(HttpStatus.NOT_FOUND, ex.getMessage());
+    }
+
+    @ExceptionHandler({ConsultaAgendamentoException.class, InvalidDateFormatException.class, IllegalArgumentException.class})
+    public ResponseEntity<byte[]> handleRequisicaoInvalida(RuntimeException ex) {
+        return erro(HttpStatus.BAD_REQUEST, ex.getMessage());
+    }
+
+    @ExceptionHandler(ConflitoException.class)
+    public ResponseEntity<byte[]> handleConflito(ConflitoException ex) {
+        return erro(HttpStatus.CONFLICT, ex.getMessage());
+    }
+
+    @ExceptionHandler(ChaveIdempotenciaException.class)
+    public ResponseEntity<byte[]> handleChaveIdempotencia(ChaveIdempotenciaException ex) {
+        return erro(HttpStatus.UNPROCESSABLE_ENTITY, ex.getMessage());
+    }
+
+    // A mesma resposta que os handlers acima dão ao erro de domínio, para quem precisa guardá-la (Idempotency-Key)
+    public ResponseEntity<byte[]> responder(ErroDominioException ex) {
+        if (ex instanceof MedicoNotFoundException || ex instanceof PacienteNotFound || ex instanceof ConsultaNotFoundException) {
+            return handleNaoEncontrado(ex);
+        }
+        if (ex instanceof ConflitoException) {
+            return handleConflito((ConflitoException) ex);
+        }
+        if (ex instanceof ChaveIdempotenciaException) {
+            return handleChaveIdempotencia((ChaveIdempotenciaException) ex);
+        }
+        return handleRequisicaoInvalida(ex);
+    }
+
+    // Falhas ao gravar médico ou paciente: a mensagem já explica o motivo ao cliente
+    @ExceptionHandler({MedicoException.class, PacienteException.class})
+    public ResponseEntity<byte[]> handleFalhaAoGravar(RuntimeException ex) {
+        log.warn("Falha ao gravar: {}", ex.getMessage());
+        return erro(HttpStatus.INTERNAL_SERVER_ERROR, ex.getMessage());
+    }
+
+    @ExceptionHandler(ResponseStatusException.class)
+    public ResponseEntity<byte[]> handleResponseStatus(ResponseStatusException ex) {
+        return erro(ex.getStatus(), ex.getReason() != null ? ex.getReason() : ex.getStatus().getReasonPhrase());
+    }
+
+    // Qualquer outro erro é inesperado: registra a pilha completa e não expõe detalhes ao cliente
+    @ExceptionHandler(Exception.class)
+    public ResponseEntity<byte[]> handleErroInesperado(Exception ex) {
+        log.error("Erro inesperado ao processar a requisição", ex);
+        return erro(HttpStatus.INTERNAL_SERVER_ERROR, ERRO_INTERNO);
+    }
+
+    // Datas fora do formato chegam embrulhadas pelo Jackson; as demais falhas de leitura recebem uma mensagem genérica
+    @Override
+    protected ResponseEntity<Object> handleHttpMessageNotReadable(HttpMessageNotReadableException ex, HttpHeaders headers,
+                                                                  HttpStatus status, WebRequest request) {
+        for (Throwable causa = ex.getCause(); causa != null; causa = causa.getCause()) {
+            if (causa instanceof InvalidDateFormatException) {
+                return handleExceptionInternal(ex, causa.getMessage(), headers, status, request);
+            }
+        }
+        return handleExceptionInternal(ex, CORPO_INVALIDO, headers, status, request);
+    }
+
+    // Erros do próprio Spring MVC (parâmetro ausente, tipo inválido, método não suportado...) no mesmo formato
+    @Override
+    protected ResponseEntity<Object> handleExceptionInternal(Exception ex, Object body, HttpHeaders headers,
+                                                             HttpStatus status, WebRequest request) {
+        String mensagem = body instanceof String ? (String) body : ex.getMessage();
+        HttpHeaders cabecalhos = new HttpHeaders();
+        cabecalhos.putAll(headers);
+        cabecalhos.setContentType(MediaType.APPLICATION_JSON);
+        return super.handleExceptionInternal(ex, corpo(mensagem != null ? mensagem : status.getReasonPhrase()), cabecalhos, status, request);
+    }
+
+    private ResponseEntity<byte[]> erro(HttpStatus status, String mensagem) {
+        return ResponseEntity.status(status).contentType(MediaType.APPLICATION_JSON).body(corpo(mensagem));
+    }
+
+    // O mesmo array é devolvido a todas as respostas com a mensagem: ninguém pode alterá-lo depois de pronto
+    private byte[] corpo(String mensagem) {
+        return corpos.get(mensagem != null ? mensagem : ERRO_INTERNO, this::serializar);
+    }
+
+    private byte[] serializar(String mensagem) {
+        try {
+            return objectMapper.writeValueAsBytes(new ErrorsResponse(Collections.singletonList(mensagem)));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -1,9 +1,16 @@
 package com.medicalsystem.medicalapi.controller;
 
+import com.medicalsystem.medicalapi.config.Bulkhead;
+import com.medicalsystem.medicalapi.constant.PeriodoEstatistica;
+import com.medicalsystem.medicalapi.constant.StatusConsulta;
 import com.medicalsystem.medicalapi.entity.Medico;
 import com.medicalsystem.medicalapi.exception.MedicoNotFoundException;
 import com.medicalsystem.medicalapi.model.ErrorsResponse;
+import com.medicalsystem.medicalapi.model.ItemAgenda;
+import com.medicalsystem.medicalapi.service.ConsultaService;
+import com.medicalsystem.medicalapi.service.EstatisticasConsultaService;
 import com.medicalsystem.medicalapi.service.MedicoService;
+import com.medicalsystem.medicalapi.service.VersoesRecursos;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -12,6 +19,10 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
@@ -20,10 +31,13 @@ import org.springframework.validation.ObjectError;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/medicos")
@@ -32,6 +46,15 @@ import java.util.UUID;
 public class MedicoController {
 
     private final MedicoService medicoService;
+    private final Bulkhead bulkhead;
+    private final ConsultaService consultaService;
+    private final VersoesRecursos versoesRecursos;
+    private final EstatisticasConsultaService estatisticasConsultaService;
+
+    private static final int LIMITE_MAXIMO_BUSCA = 50;
+    private static final int DIAS_MAXIMOS_AGENDA = 90;
+    private static final int LIMITE_MAXIMO_PAGINA = 1000;
+    private static final String TOTAL_REGISTROS = "X-Total-Count";
 
 
     @PostMapping
@@ -43,68 +66,152 @@ public class MedicoController {
                     content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorsResponse.class)))
     })
 
-    public ResponseEntity<Object> criarMedico(@RequestBody @Valid @Parameter(description = "Informações do médico a ser cadastrado") Medico medico, BindingResult result) {
+    public CompletableFuture<ResponseEntity<Object>> criarMedico(@RequestBody @Valid @Parameter(description = "Informações do médico a ser cadastrado") Medico medico, BindingResult result) {
         if (result.hasErrors()) {
             List<String> errors = new ArrayList<>();
             for (ObjectError error : result.getAllErrors()) {
                 errors.add(error.getDefaultMessage());
             }
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ErrorsResponse(errors));
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ErrorsResponse(errors)));
         }
-        try {
+
+        return bulkhead.escrita(() -> {
             Medico novoMedico = medicoService.salvarMedico(medico);
             return ResponseEntity.status(HttpStatus.CREATED).body(novoMedico);
-        } catch (Exception e) {
-            List<String> erros = new ArrayList<>();
-            erros.add("Erro ao salvar o médico: " + e.getMessage());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(new ErrorsResponse(erros));
-        }
+        });
     }
 
     @GetMapping
-    @Operation(summary = "Listar médicos com filtros", description = "Retorna uma lista de médicos com base em filtros opcionais como nome, especialidade ou CRM.")
+    @Operation(summary = "Listar médicos com filtros", description = "Retorna uma lista de médicos com base em filtros opcionais como nome, especialidade ou CRM, combinados com AND. " +
+            "Com 'tamanho' a lista é paginada e o total vem no cabeçalho X-Total-Count. " +
+            "A resposta traz uma ETag; enviada em If-None-Match, retorna 304 enquanto nenhum médico for alterado.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Lista de médicos retornada com sucesso"),
+            @ApiResponse(responseCode = "304", description = "Nenhum médico foi alterado desde a ETag informada"),
+            @ApiResponse(responseCode = "400", description = "Ordenação ou paginação inválida"),
             @ApiResponse(responseCode = "404", description = "Nenhum médico encontrado com os critérios fornecidos")
     })
-    public ResponseEntity<Object> listarMedicos(
-            @RequestParam(required = false) @Parameter(description = "Filtrar médicos pelo Nome (Digite o nome completo)") String nome,
+    public CompletableFuture<ResponseEntity<Object>> listarMedicos(
+            @RequestParam(required = false) @Parameter(description = "Filtrar médicos pelo início do Nome, sem diferenciar acentos e maiúsculas") String nome,
             @RequestParam(required = false) @Parameter(description = "Filtrar médicos pela Especialidade") String especialidade,
-            @RequestParam(required = false) @Parameter(description = "Filtrar médicos pelo CRM") String crm) {
+            @RequestParam(required = false) @Parameter(description = "Filtrar médicos pelo CRM") String crm,
+            @RequestParam(required = false) @Parameter(description = "Campo de ordenação (nome, especialidade, crm ou id), opcionalmente seguido de ',asc' ou ',desc'") String ordenar,
+            @RequestParam(required = false) @Parameter(description = "Página, a partir de 0 (requer 'tamanho')") Integer pagina,
+            @RequestParam(required = false) @Parameter(description = "Quantidade de médicos por página (1 a 1000)") Integer tamanho,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        if ((tamanho != null && (tamanho < 1 || tamanho > LIMITE_MAXIMO_PAGINA)) || (pagina != null && pagina < 0)) {
+            List<String> erros = new ArrayList<>();
+            erros.add("O parâmetro 'tamanho' deve estar entre 1 e " + LIMITE_MAXIMO_PAGINA + " e 'pagina' não pode ser negativo.");
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ErrorsResponse(erros)));
+        }
 
-        try {
-            List<Medico> medicos = medicoService.listarMedicos(nome, especialidade, crm);
-            return ResponseEntity.ok(medicos);
+        return bulkhead.listagem(() -> {
+            // Sem alterações desde a ETag do cliente: responde só com a leitura da versão, sem listar nem serializar
+            String etag = versoesRecursos.etagMedicos();
+            if (VersoesRecursos.naoModificado(ifNoneMatch, etag)) {
+                return naoModificado(etag);
+            }
+
+            // Ordenação inválida (IllegalArgumentException) e nenhum resultado viram 400 e 404 no GlobalExceptionHandler
+            Page<Medico> medicos = medicoService.listarMedicos(nome, especialidade, crm, ordenar, pagina, tamanho);
+            return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache())
+                    .header(TOTAL_REGISTROS, String.valueOf(medicos.getTotalElements()))
+                    .body(medicos.getContent());
+        });
+    }
 
-        } catch (Exception e) {
-            String mensagemErro = "Nenhum dado encontrado com as informações fornecidas. Verifique e tente novamente";
-            List<String> erros = Arrays.asList(mensagemErro);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(erros);
+    @GetMapping("/busca")
+    @Operation(summary = "Buscar médicos por nome", description = "Busca aproximada por nome, sem diferenciar acentos e maiúsculas e tolerante a erros de digitação. Os resultados mais parecidos vêm primeiro.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Médicos encontrados"),
+            @ApiResponse(responseCode = "400", description = "Limite inválido")
+    })
+    public CompletableFuture<ResponseEntity<Object>> buscarMedicosPorNome(
+            @RequestParam @Parameter(description = "Nome ou parte do nome do médico") String termo,
+            @RequestParam(defaultValue = "10") @Parameter(description = "Quantidade máxima de resultados (1 a 50)") int limite) {
+        if (limite < 1 || limite > LIMITE_MAXIMO_BUSCA) {
+            List<String> erros = new ArrayList<>();
+            erros.add("O parâmetro 'limite' deve estar entre 1 e " + LIMITE_MAXIMO_BUSCA + ".");
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ErrorsResponse(erros)));
         }
+
+        return bulkhead.listagem(() -> ResponseEntity.ok(medicoService.buscarMedicosPorNome(termo, limite)));
     }
 
     @GetMapping("/{id}")
-    @Operation(summary = "Buscar médico por ID", description = "Retorna os detalhes de um médico com base no ID fornecido.")
+    @Operation(summary = "Buscar médico por ID", description = "Retorna os detalhes de um médico com base no ID fornecido. " +
+            "A resposta traz uma ETag; enviada em If-None-Match, retorna 304 enquanto o médico não for alterado.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Médico encontrado com sucesso"),
+            @ApiResponse(responseCode = "304", description = "O médico não foi alterado desde a ETag informada"),
             @ApiResponse(responseCode = "404", description = "Médico não encontrado para o ID fornecido")
     })
-    public ResponseEntity<Object> buscarMedicoPorId(
-            @PathVariable @Parameter(description = "ID único do médico") UUID id) {
-        try {
-            Medico medico = medicoService.buscarMedicoPorId(id);
-            return ResponseEntity.ok(medico);
+    public CompletableFuture<ResponseEntity<Object>> buscarMedicoPorId(
+            @PathVariable @Parameter(description = "ID único do médico") UUID id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return bulkhead.leitura(() -> {
+            // A ETag sai da versão do próprio registro: com o médico no cache, o 304 não vai ao banco nem serializa
+            Medico medico = medicoService.buscarMedicoPorId(id).orElseThrow(MedicoNotFoundException::new);
+            String etag = VersoesRecursos.etagMedico(medico);
+            if (VersoesRecursos.naoModificado(ifNoneMatch, etag)) {
+                return naoModificado(etag);
+            }
+            return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache()).body(medico);
+        });
+    }
 
-        } catch (MedicoNotFoundException e) {
-            List<String> errors = new ArrayList<>();
-            errors.add(e.getMessage());
-            return ResponseEntity.status(404).body(new ErrorsResponse(errors));
+    @GetMapping("/{id}/agenda")
+    @Operation(summary = "Agenda do médico", description = "Retorna as consultas do médico entre duas datas, ordenadas pelo horário. O intervalo inclui 'de' e exclui 'ate', com no máximo " + DIAS_MAXIMOS_AGENDA + " dias.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Agenda retornada com sucesso"),
+            @ApiResponse(responseCode = "400", description = "Intervalo de datas inválido"),
+            @ApiResponse(responseCode = "404", description = "Médico não encontrado para o ID fornecido")
+    })
+    public CompletableFuture<ResponseEntity<Object>> agendaDoMedico(
+            @PathVariable @Parameter(description = "ID único do médico") UUID id,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+            @Parameter(description = "Início do intervalo (ISO-8601), inclusivo") LocalDateTime de,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+            @Parameter(description = "Fim do intervalo (ISO-8601), exclusivo") LocalDateTime ate,
+            @RequestParam(required = false) @Parameter(description = "Filtrar pelo status da consulta") StatusConsulta status) {
+        if (!de.isBefore(ate) || Duration.between(de, ate).toDays() > DIAS_MAXIMOS_AGENDA) {
+            List<String> erros = new ArrayList<>();
+            erros.add("O intervalo deve ter 'de' anterior a 'ate' e no máximo " + DIAS_MAXIMOS_AGENDA + " dias.");
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ErrorsResponse(erros)));
+        }
+
+        return bulkhead.listagem(() -> {
+            medicoService.buscarMedicoPorId(id).orElseThrow(MedicoNotFoundException::new);
+            List<ItemAgenda> agenda = consultaService.listarAgendaDoMedico(id, de, ate, status);
+            return ResponseEntity.ok(agenda);
+        });
+    }
 
-        } catch (Exception e) {
+    @GetMapping("/{id}/estatisticas")
+    @Operation(summary = "Estatísticas do médico", description = "Quantidade de consultas agendadas, canceladas e concluídas do médico por dia ou por mês. " +
+            "O intervalo inclui 'de' e exclui 'ate', com no máximo " + EstatisticasConsultaService.LIMITE_MAXIMO_PERIODOS + " dias ou meses; períodos sem consultas não aparecem.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Estatísticas retornadas com sucesso"),
+            @ApiResponse(responseCode = "400", description = "Intervalo de datas inválido"),
+            @ApiResponse(responseCode = "404", description = "Médico não encontrado para o ID fornecido")
+    })
+    public CompletableFuture<ResponseEntity<Object>> estatisticasDoMedico(
+            @PathVariable @Parameter(description = "ID único do médico") UUID id,
+            @RequestParam(defaultValue = "DIA") @Parameter(description = "Agrupar por DIA ou MES") PeriodoEstatistica periodo,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+            @Parameter(description = "Início do intervalo (ISO-8601), inclusivo") LocalDate de,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+            @Parameter(description = "Fim do intervalo (ISO-8601), exclusivo") LocalDate ate) {
+        if (!de.isBefore(ate) || periodo.periodosEntre(de, ate) > EstatisticasConsultaService.LIMITE_MAXIMO_PERIODOS) {
             List<String> erros = new ArrayList<>();
-            erros.add("Erro interno ao buscar médico.");
-            return ResponseEntity.status(500).body(new ErrorsResponse(erros));
+            erros.add("O intervalo deve ter 'de' anterior a 'ate' e no máximo " + EstatisticasConsultaService.LIMITE_MAXIMO_PERIODOS + " períodos.");
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ErrorsResponse(erros)));
         }
+
+        return bulkhead.leitura(() -> {
+            medicoService.buscarMedicoPorId(id).orElseThrow(MedicoNotFoundException::new);
+            return ResponseEntity.ok(estatisticasConsultaService.estatisticasDoMedico(id, periodo, de, ate));
+        });
     }
 
     @PutMapping("/{id}")
@@ -113,36 +220,22 @@ public class MedicoController {
             @ApiResponse(responseCode = "200", description = "Médico atualizado com sucesso"),
             @ApiResponse(responseCode = "404", description = "Médico não encontrado para o ID fornecido")
     })
-    public ResponseEntity<Object> atualizarMedico(
+    public CompletableFuture<ResponseEntity<Object>> atualizarMedico(
             @PathVariable @Parameter(description = "ID único do médico a ser atualizado") UUID id,
             @Valid @RequestBody @Parameter(description = "Informações atualizadas do médico") Medico medicoAtualizado,
             BindingResult result) {
-
         if (result.hasErrors()) {
             List<String> erros = new ArrayList<>();
             for (FieldError erro : result.getFieldErrors()) {
                 erros.add(erro.getField() + ": " + erro.getDefaultMessage());
             }
-            return ResponseEntity.badRequest().body(new ErrorsResponse(erros));
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(new ErrorsResponse(erros)));
         }
 
-        try {
+        return bulkhead.escrita(() -> {
             Medico medico = medicoService.atualizarMedico(id, medicoAtualizado);
-            if (medico == null) {
-                throw new MedicoNotFoundException("Médico não encontrado para o ID fornecido.");
-            }
             return ResponseEntity.ok(medico);
-
-        } catch (MedicoNotFoundException e) {
-            List<String> erros = new ArrayList<>();
-            erros.add(e.getMessage());
-            return ResponseEntity.status(404).body(new ErrorsResponse(erros));
-
-        } catch (Exception e) {
-            List<String> erros = new ArrayList<>();
-            erros.add("Erro interno ao atualizar médico.");
-            return ResponseEntity.status(500).body(new ErrorsResponse(erros));
-        }
+        });
     }
 
     @DeleteMapping("/{id}")
@@ -151,24 +244,15 @@ public class MedicoController {
             @ApiResponse(responseCode = "200", description = "Médico deletado com sucesso"),
             @ApiResponse(responseCode = "404", description = "Médico não encontrado para o ID fornecido"),
     })
-    public ResponseEntity<Object> deletarMedico(
+    public CompletableFuture<ResponseEntity<Object>> deletarMedico(
             @PathVariable @Parameter(description = "ID único do médico a ser removido") UUID id) {
-        try {
-            boolean sucesso = medicoService.deletarMedico(id);
-            if (!sucesso) {
-                throw new MedicoNotFoundException("Médico não encontrado para o ID fornecido.");
-            }
+        return bulkhead.escrita(() -> {
+            medicoService.deletarMedico(id);
             return ResponseEntity.noContent().build();
+        });
+    }
 
-        } catch (MedicoNotFoundException e) {
-            List<String> errors = new ArrayList<>();
-            errors.add(e.getMessage());
-            return ResponseEntity.status(404).body(new ErrorsResponse(errors));
-
-        } catch (Exception e) {
-            List<String> errors = new ArrayList<>();
-            errors.add("Não foi possível remover o médico. O médico está vinculado a consultas existentes. Por favor, remova as consultas relacionadas antes de tentar excluir o médico.");
-            return ResponseEntity.status(500).body(new ErrorsResponse(errors));
-        }
+    private static ResponseEntity<Object> naoModificado(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(CacheControl.noCache()).build();
     }
 }
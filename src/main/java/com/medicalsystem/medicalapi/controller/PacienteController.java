@@ -1,10 +1,15 @@
 package com.medicalsystem.medicalapi.controller;
 
+import com.medicalsystem.medicalapi.config.Bulkhead;
+import com.medicalsystem.medicalapi.constant.FormatoExportacao;
 import com.medicalsystem.medicalapi.entity.Paciente;
-import com.medicalsystem.medicalapi.exception.InvalidDateFormatException;
 import com.medicalsystem.medicalapi.exception.PacienteNotFound;
 import com.medicalsystem.medicalapi.model.ErrorsResponse;
+import com.medicalsystem.medicalapi.model.ImportacaoPacientes;
+import com.medicalsystem.medicalapi.service.IdempotenciaService;
+import com.medicalsystem.medicalapi.service.ImportacaoPacientesService;
 import com.medicalsystem.medicalapi.service.PacienteService;
+import com.medicalsystem.medicalapi.service.VersoesRecursos;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -12,8 +17,13 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
-import org.springframework.beans.factory.annotation.Autowired;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.data.domain.Page;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
@@ -21,81 +31,192 @@ import org.springframework.validation.ObjectError;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/pacientes")
+@RequiredArgsConstructor
 @Tag(name = "Pacientes", description = "Operações relacionadas a pacientes")
 public class PacienteController {
 
-    @Autowired
-    private PacienteService pacienteService;
+    private final PacienteService pacienteService;
+    private final Bulkhead bulkhead;
+    private final ImportacaoPacientesService importacaoPacientesService;
+    private final IdempotenciaService idempotenciaService;
 
-    @Operation(summary = "Cadastrar um novo paciente", description = "Permite cadastrar um paciente no sistema.")
+    private static final int LIMITE_MAXIMO_BUSCA = 50;
+    private static final int LIMITE_MAXIMO_PAGINA = 1000;
+    private static final String TOTAL_REGISTROS = "X-Total-Count";
+
+    @Operation(summary = "Cadastrar um novo paciente", description = "Permite cadastrar um paciente no sistema. " +
+            "Com o cabeçalho Idempotency-Key, a retentativa com a mesma chave recebe a resposta original sem cadastrar de novo.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Paciente cadastrado com sucesso",
                     content = @Content(mediaType = "application/json", schema = @Schema(implementation = Paciente.class))),
             @ApiResponse(responseCode = "400", description = "Erro de validação nos dados fornecidos",
-                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorsResponse.class)))
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorsResponse.class))),
+            @ApiResponse(responseCode = "409", description = "CPF já cadastrado, ou requisição com a mesma chave ainda em andamento"),
+            @ApiResponse(responseCode = "422", description = "Chave de idempotência já usada com outros dados")
     })
 
     @PostMapping
-    public ResponseEntity<Object> salvarPaciente(@Valid @RequestBody Paciente paciente, BindingResult result) {
+    public CompletableFuture<ResponseEntity<Object>> salvarPaciente(@Valid @RequestBody Paciente paciente, BindingResult result,
+            @RequestHeader(value = IdempotenciaService.CABECALHO, required = false)
+            @Parameter(description = "Chave única da requisição, repetida nas retentativas") String chaveIdempotencia) {
+        // Requisição inválida responde 400 sem ocupar a fila do compartimento nem reservar a chave
         if (result.hasErrors()) {
             List<String> errors = new ArrayList<>();
             for (ObjectError error : result.getAllErrors()) {
                 errors.add(error.getDefaultMessage());
             }
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ErrorsResponse(errors));
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ErrorsResponse(errors)));
         }
-        try {
+
+        return idempotenciaService.executar(chaveIdempotencia, "POST /pacientes", paciente, () -> {
             Paciente novoPaciente = pacienteService.salvarPaciente(paciente);
             return ResponseEntity.status(HttpStatus.CREATED).body(novoPaciente);
-        } catch (Exception e) {
-            List<String> erros = new ArrayList<>();
-            erros.add("Erro ao salvar o paciente: " + e.getMessage());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(new ErrorsResponse(erros));
-        }
+        });
     }
 
     @GetMapping
-    @Operation(summary = "Listar pacientes com filtros", description = "Retorna uma lista de pacientes com filtros opcionais (Nome ou CPF).")
+    @Operation(summary = "Listar pacientes com filtros", description = "Retorna uma lista de pacientes com filtros opcionais (Nome ou CPF), combinados com AND. " +
+            "Com 'tamanho' a lista é paginada e o total vem no cabeçalho X-Total-Count.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Lista de pacientes retornada com sucesso"),
+            @ApiResponse(responseCode = "400", description = "Ordenação ou paginação inválida"),
             @ApiResponse(responseCode = "404", description = "Nenhum paciente encontrado com os critérios fornecidos")
     })
-    public ResponseEntity<List<Paciente>> listarPacientes(
-            @RequestParam(required = false) @Parameter(description = "Filtrar pacientes pelo Nome (Digite o nome completo)") String nome,
-            @RequestParam(required = false) @Parameter(description = "Filtrar pacientes pelo CPF (Digite o CPF completo sem pontuações)") String cpf) {
+    public CompletableFuture<ResponseEntity<Object>> listarPacientes(
+            @RequestParam(required = false) @Parameter(description = "Filtrar pacientes pelo início do Nome, sem diferenciar acentos e maiúsculas") String nome,
+            @RequestParam(required = false) @Parameter(description = "Filtrar pacientes pelo CPF completo, com ou sem pontuação") String cpf,
+            @RequestParam(required = false) @Parameter(description = "Campo de ordenação (nome, cpf, dataNascimento ou id), opcionalmente seguido de ',asc' ou ',desc'") String ordenar,
+            @RequestParam(required = false) @Parameter(description = "Página, a partir de 0 (requer 'tamanho')") Integer pagina,
+            @RequestParam(required = false) @Parameter(description = "Quantidade de pacientes por página (1 a 1000)") Integer tamanho) {
+        if ((tamanho != null && (tamanho < 1 || tamanho > LIMITE_MAXIMO_PAGINA)) || (pagina != null && pagina < 0)) {
+            List<String> errors = new ArrayList<>();
+            errors.add("O parâmetro 'tamanho' deve estar entre 1 e " + LIMITE_MAXIMO_PAGINA + " e 'pagina' não pode ser negativo.");
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ErrorsResponse(errors)));
+        }
 
-        List<Paciente> pacientes = pacienteService.listarPacientes(nome, cpf);
-        return new ResponseEntity<>(pacientes, HttpStatus.OK);
+        return bulkhead.listagem(() -> {
+            // Ordenação inválida (IllegalArgumentException) e nenhum resultado viram 400 e 404 no GlobalExceptionHandler
+            Page<Paciente> pacientes = pacienteService.listarPacientes(nome, cpf, ordenar, pagina, tamanho);
+            return ResponseEntity.ok()
+                    .header(TOTAL_REGISTROS, String.valueOf(pacientes.getTotalElements()))
+                    .body(pacientes.getContent());
+        });
     }
 
-    @GetMapping("/{id}")
-    @Operation(summary = "Buscar paciente por ID", description = "Retorna os detalhes de um paciente com base no ID fornecido.")
+    @GetMapping("/busca")
+    @Operation(summary = "Buscar pacientes por nome", description = "Busca aproximada por nome, sem diferenciar acentos e maiúsculas e tolerante a erros de digitação. Os resultados mais parecidos vêm primeiro.")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Paciente encontrado com sucesso"),
-            @ApiResponse(responseCode = "404", description = "Paciente não encontrado para o ID fornecido")
+            @ApiResponse(responseCode = "200", description = "Pacientes encontrados"),
+            @ApiResponse(responseCode = "400", description = "Limite inválido")
     })
-    public ResponseEntity<Object> buscarPacientePorId(
-            @PathVariable @Parameter(description = "ID único do paciente") UUID id) {
-        try {
-            Paciente paciente = pacienteService.buscarPacientePorId(id);
-            return ResponseEntity.ok(paciente);
-
-        } catch (PacienteNotFound e) {
+    public CompletableFuture<ResponseEntity<Object>> buscarPacientesPorNome(
+            @RequestParam @Parameter(description = "Nome ou parte do nome do paciente") String termo,
+            @RequestParam(defaultValue = "10") @Parameter(description = "Quantidade máxima de resultados (1 a 50)") int limite) {
+        if (limite < 1 || limite > LIMITE_MAXIMO_BUSCA) {
             List<String> errors = new ArrayList<>();
-            errors.add(e.getMessage());
-            return ResponseEntity.status(404).body(new ErrorsResponse(errors));
+            errors.add("O parâmetro 'limite' deve estar entre 1 e " + LIMITE_MAXIMO_BUSCA + ".");
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ErrorsResponse(errors)));
+        }
+
+        return bulkhead.listagem(() -> ResponseEntity.ok(pacienteService.buscarPacientesPorNome(termo, limite)));
+    }
 
-        } catch (Exception e) {
+    @PostMapping("/importacao")
+    @Operation(summary = "Importar pacientes em massa", description = "Recebe um arquivo CSV (colunas nome, cpf, dataNascimento e contato) " +
+            "ou NDJSON (um paciente por linha) e importa em segundo plano. O formato vem do parâmetro 'formato' ou do Content-Type " +
+            "(text/csv ou application/x-ndjson). Acompanhe o andamento pelo endereço retornado em Location.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Arquivo recebido e importação na fila"),
+            @ApiResponse(responseCode = "400", description = "Formato do arquivo não informado ou inválido"),
+            @ApiResponse(responseCode = "503", description = "Muitas importações aguardando; tente novamente mais tarde")
+    })
+    public ResponseEntity<Object> importarPacientes(
+            @RequestParam(required = false) @Parameter(description = "Formato do arquivo: csv ou ndjson") String formato,
+            @RequestHeader(value = HttpHeaders.CONTENT_TYPE, required = false) String contentType,
+            InputStream corpo) throws IOException {
+
+        FormatoExportacao formatoImportacao = formato != null
+                ? FormatoExportacao.deParametro(formato) : FormatoExportacao.deContentType(contentType);
+        if (formatoImportacao == null) {
             List<String> errors = new ArrayList<>();
-            errors.add("Erro interno ao buscar paciente, verifique as informações e tente novamente.");
-            return ResponseEntity.status(500).body(new ErrorsResponse(errors));
+            errors.add("Informe o formato do arquivo ('csv' ou 'ndjson') no parâmetro 'formato' ou no Content-Type.");
+            return ResponseEntity.badRequest().body(new ErrorsResponse(errors));
+        }
+
+        ImportacaoPacientes importacao = importacaoPacientesService.iniciar(formatoImportacao, corpo);
+        return ResponseEntity.accepted()
+                .location(URI.create("/pacientes/importacao/" + importacao.getId()))
+                .body(importacao);
+    }
+
+    @GetMapping("/importacao/{id}")
+    @Operation(summary = "Andamento de uma importação", description = "Retorna o status, o percentual lido do arquivo e as quantidades de linhas lidas, importadas e rejeitadas.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Andamento da importação"),
+            @ApiResponse(responseCode = "404", description = "Importação não encontrada")
+    })
+    public ResponseEntity<Object> buscarImportacao(@PathVariable @Parameter(description = "ID da importação") UUID id) {
+        ImportacaoPacientes importacao = importacaoPacientesService.buscar(id);
+        if (importacao == null) {
+            return importacaoNaoEncontrada();
+        }
+        return ResponseEntity.ok(importacao);
+    }
+
+    @GetMapping("/importacao/{id}/erros")
+    @Operation(summary = "Relatório de erros de uma importação", description = "CSV com a linha, o CPF e o motivo de cada registro rejeitado. " +
+            "Durante a importação contém os lotes já processados.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Relatório de erros"),
+            @ApiResponse(responseCode = "404", description = "Importação não encontrada")
+    })
+    public ResponseEntity<Object> baixarErrosImportacao(@PathVariable @Parameter(description = "ID da importação") UUID id) {
+        ImportacaoPacientes importacao = importacaoPacientesService.buscar(id);
+        if (importacao == null) {
+            return importacaoNaoEncontrada();
         }
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(FormatoExportacao.CSV.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"importacao-" + id + "-erros.csv\"")
+                .body(new FileSystemResource(importacao.getRelatorioErros()));
+    }
+
+    private ResponseEntity<Object> importacaoNaoEncontrada() {
+        List<String> errors = new ArrayList<>();
+        errors.add("Importação não encontrada para o ID fornecido.");
+        return ResponseEntity.status(404).body(new ErrorsResponse(errors));
+    }
+
+    @GetMapping("/{id}")
+    @Operation(summary = "Buscar paciente por ID", description = "Retorna os detalhes de um paciente com base no ID fornecido. " +
+            "A resposta traz uma ETag; enviada em If-None-Match, retorna 304 enquanto o paciente não for alterado.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Paciente encontrado com sucesso"),
+            @ApiResponse(responseCode = "304", description = "O paciente não foi alterado desde a ETag informada"),
+            @ApiResponse(responseCode = "404", description = "Paciente não encontrado para o ID fornecido")
+    })
+    public CompletableFuture<ResponseEntity<Object>> buscarPacientePorId(
+            @PathVariable @Parameter(description = "ID único do paciente") UUID id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return bulkhead.leitura(() -> {
+            // A ETag sai da versão do próprio registro: com o paciente no cache, o 304 não vai ao banco nem serializa
+            Paciente paciente = pacienteService.buscarPacientePorId(id).orElseThrow(PacienteNotFound::porId);
+            String etag = VersoesRecursos.etagPaciente(paciente);
+            if (VersoesRecursos.naoModificado(ifNoneMatch, etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(CacheControl.noCache()).build();
+            }
+            return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache()).body(paciente);
+        });
     }
 
     @PutMapping("/{id}")
@@ -104,36 +225,22 @@ public class PacienteController {
             @ApiResponse(responseCode = "200", description = "Paciente atualizado com sucesso"),
             @ApiResponse(responseCode = "404", description = "Paciente não encontrado para o ID fornecido")
     })
-    public ResponseEntity<Object> atualizarPaciente(
+    public CompletableFuture<ResponseEntity<Object>> atualizarPaciente(
             @PathVariable @Parameter(description = "ID único do paciente a ser atualizado") UUID id,
             @Valid @RequestBody @Parameter(description = "Informações atualizadas do paciente") Paciente pacienteAtualizado,
             BindingResult result) {
-
         if (result.hasErrors()) {
             List<String> erros = new ArrayList<>();
             for (FieldError erro : result.getFieldErrors()) {
                 erros.add(erro.getField() + ": " + erro.getDefaultMessage());
             }
-            return ResponseEntity.badRequest().body(new ErrorsResponse(erros));
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(new ErrorsResponse(erros)));
         }
 
-        try {
+        return bulkhead.escrita(() -> {
             Paciente paciente = pacienteService.atualizarPaciente(id, pacienteAtualizado);
-            if (paciente == null) {
-                throw new PacienteNotFound("Paciente não encontrado para o ID fornecido.");
-            }
             return ResponseEntity.ok(paciente);
-
-        } catch (PacienteNotFound e) {
-            List<String> errors = new ArrayList<>();
-            errors.add(e.getMessage());
-            return ResponseEntity.status(404).body(new ErrorsResponse(errors));
-
-        } catch (Exception e) {
-            List<String> errors = new ArrayList<>();
-            errors.add("Erro interno ao atualizar paciente.");
-            return ResponseEntity.status(500).body(new ErrorsResponse(errors));
-        }
+        });
     }
 
     @DeleteMapping("/{id}")
@@ -142,35 +249,11 @@ public class PacienteController {
             @ApiResponse(responseCode = "200", description = "Paciente deletado com sucesso"),
             @ApiResponse(responseCode = "404", description = "Paciente não encontrado para o ID fornecido"),
     })
-    public ResponseEntity<Object> deletarPaciente(
+    public CompletableFuture<ResponseEntity<Object>> deletarPaciente(
             @PathVariable @Parameter(description = "ID único do paciente a ser removido") UUID id) {
-        try {
-            boolean sucesso = pacienteService.deletarPaciente(id);
-            if (!sucesso) {
-                throw new PacienteNotFound("Paciente não encontrado para o ID fornecido.");
-            }
+        return bulkhead.escrita(() -> {
+            pacienteService.deletarPaciente(id);
             return ResponseEntity.noContent().build();
-
-        } catch (PacienteNotFound e) {
-            List<String> errors = new ArrayList<>();
-            errors.add(e.getMessage());
-            return ResponseEntity.status(404).body(new ErrorsResponse(errors));
-
-        } catch (Exception e) {
-            List<String> errors = new ArrayList<>();
-            errors.add("Erro ao tentar remover o paciente: " + e.getMessage());
-            return ResponseEntity.status(500).body(new ErrorsResponse(errors));
-        }
-
-    }
-
-    @ExceptionHandler(InvalidDateFormatException.class)
-    public ResponseEntity<String> handleInvalidDateFormatException(InvalidDateFormatException ex) {
-        return new ResponseEntity<>(ex.getMessage(), HttpStatus.BAD_REQUEST);
-    }
-
-    @ExceptionHandler(PacienteNotFound.class)
-    public ResponseEntity<String> handlePacienteNotFoundException(PacienteNotFound ex) {
-        return new ResponseEntity<>(ex.getMessage(), HttpStatus.BAD_REQUEST);
+        });
     }
 }
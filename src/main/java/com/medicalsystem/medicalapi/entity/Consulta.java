@@ -1,10 +1,13 @@
 package com.medicalsystem.medicalapi.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.medicalsystem.medicalapi.constant.StatusConsulta;
 import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AccessLevel;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.Setter;
+import org.springframework.data.domain.Persistable;
 
 import javax.persistence.*;
 import javax.validation.Valid;
@@ -17,10 +20,10 @@ import java.util.UUID;
 @Entity
 @EqualsAndHashCode(of = "id")
 @Schema(description = "Informações sobre a consulta.")
-public class Consulta {
+public class Consulta implements Persistable<UUID> {
 
+    // O ID é atribuído pela aplicação (e não pelo banco) para que os inserts possam ser agrupados em lotes JDBC
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
     @Schema(description = "ID único da consulta", example = "123e4567-e89b-12d3-a456-426614174000")
     private UUID id;
 
@@ -45,5 +48,34 @@ public class Consulta {
     @Schema(description = "Status da consulta", allowableValues = {"AGENDADA", "CANCELADA", "CONCLUIDA"})
     private StatusConsulta status_consulta;
 
+    // Controle otimista de concorrência: uma alteração baseada numa leitura antiga é recusada
+    @Version
+    @Schema(description = "Versão da consulta, incrementada a cada alteração", accessMode = Schema.AccessMode.READ_ONLY)
+    private Long versao;
 
+    @Transient
+    @JsonIgnore
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private boolean nova = true;
+
+    @PrePersist
+    private void atribuirId() {
+        if (id == null) {
+            id = UUID.randomUUID();
+        }
+    }
+
+    @PostLoad
+    @PostPersist
+    private void marcarComoPersistida() {
+        nova = false;
+    }
+
+    // Evita que o save() faça um SELECT (merge) antes de inserir uma consulta com ID já atribuído
+    @Override
+    @JsonIgnore
+    public boolean isNew() {
+        return nova;
+    }
 }
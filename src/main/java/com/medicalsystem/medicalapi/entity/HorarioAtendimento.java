@@ -0,0 +1,30 @@
+package com.medicalsystem.medicalapi.entity;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import java.time.LocalTime;
+import java.util.UUID;
+
+@Getter
+@Setter
+@Entity
+public class HorarioAtendimento {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private UUID id;
+
+    private UUID medicoId;
+
+    // 1 = segunda-feira ... 7 = domingo (padrão ISO, igual a DayOfWeek)
+    private Integer diaSemana;
+
+    private LocalTime horaInicio;
+
+    private LocalTime horaFim;
+}
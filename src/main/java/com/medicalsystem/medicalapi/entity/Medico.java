@@ -1,13 +1,16 @@
 package com.medicalsystem.medicalapi.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.Getter;
 import lombok.Setter;
 
+import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Version;
 import javax.validation.constraints.Email;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Pattern;
@@ -39,4 +42,16 @@ public class Medico {
     @NotNull(message = "Campo obrigatório: E-MAIL.")
     @Email (message = "O e-mail informado não é válido. Por favor, insira um endereço de e-mail correto.")
     private String email;
+
+    // Coluna gerada pelo banco (V4): nome sem acentos, em minúsculas, usada nos filtros por prefixo
+    @Column(name = "nome_busca", insertable = false, updatable = false)
+    @JsonIgnore
+    @Schema(hidden = true)
+    private String nomeBusca;
+
+    // Avançada pelo Hibernate a cada alteração (V15); forma a ETag do registro
+    @Version
+    @JsonIgnore
+    @Schema(hidden = true)
+    private long versao;
 }
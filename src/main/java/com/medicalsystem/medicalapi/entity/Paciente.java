@@ -1,19 +1,22 @@
 package com.medicalsystem.medicalapi.entity;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
-import com.medicalsystem.medicalapi.utils.CustomCPFSerializer;
 import com.medicalsystem.medicalapi.utils.CustomDateDeserializer;
-import com.medicalsystem.medicalapi.utils.CustomPhoneSerializer;
+import com.medicalsystem.medicalapi.utils.FormatoBrasileiroModule;
+import com.medicalsystem.medicalapi.validation.CPF;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.Getter;
 import lombok.Setter;
 
+import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Version;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Pattern;
 import javax.validation.constraints.Size;
@@ -36,7 +39,8 @@ public class Paciente {
 
     @NotNull(message = "O campo 'cpf' é obrigatório.")
     @Pattern(regexp = "^\\d{11}$", message = "O 'cpf' deve conter apenas números e ter 11 dígitos.")
-    @JsonSerialize(using = CustomCPFSerializer.class)
+    @CPF
+    @JsonSerialize(using = FormatoBrasileiroModule.CpfSerializer.class)
     private String cpf;
 
     @NotNull(message = "A 'dataNascimento' é obrigatória.")
@@ -46,8 +50,18 @@ public class Paciente {
 
     @NotNull(message = "O campo 'contato' é obrigatório.")
     @Pattern(regexp = "^\\d{10,11}$", message = "O 'contato' deve conter apenas números e ter entre 10 e 11 dígitos com DDD.")
-    @JsonSerialize(using = CustomPhoneSerializer.class)
+    @JsonSerialize(using = FormatoBrasileiroModule.TelefoneSerializer.class)
     private String contato;
 
-}
+    // Coluna gerada pelo banco (V4): nome sem acentos, em minúsculas, usada nos filtros por prefixo
+    @Column(name = "nome_busca", insertable = false, updatable = false)
+    @JsonIgnore
+    @Schema(hidden = true)
+    private String nomeBusca;
 
+    // Avançada pelo Hibernate a cada alteração (V15); forma a ETag do registro
+    @Version
+    @JsonIgnore
+    @Schema(hidden = true)
+    private long versao;
+}
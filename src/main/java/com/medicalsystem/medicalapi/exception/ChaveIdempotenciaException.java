@@ -0,0 +1,11 @@
+package com.medicalsystem.medicalapi.exception;
+
+// A chave de idempotência já foi usada com outro corpo de requisição: 422
+public class ChaveIdempotenciaException extends ErroDominioException {
+
+    private static final String DEFAULT_MESSAGE = "A chave de idempotência informada já foi usada com outros dados. Gere uma nova chave para esta requisição.";
+
+    public ChaveIdempotenciaException() {
+        super(DEFAULT_MESSAGE);
+    }
+}
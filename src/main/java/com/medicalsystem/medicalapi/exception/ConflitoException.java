@@ -0,0 +1,9 @@
+package com.medicalsystem.medicalapi.exception;
+
+// O pedido conflita com o estado atual (CPF já cadastrado, mesma chave de idempotência ainda em andamento): 409
+public class ConflitoException extends ErroDominioException {
+
+    public ConflitoException(String customMessage) {
+        super(customMessage);
+    }
+}
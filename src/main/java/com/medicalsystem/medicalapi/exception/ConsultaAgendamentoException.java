@@ -1,7 +1,7 @@
 package com.medicalsystem.medicalapi.exception;
 
 
-public class ConsultaAgendamentoException extends RuntimeException {
+public class ConsultaAgendamentoException extends ErroDominioException {
 
     private static final String DEFAULT_MESSAGE = "Houve um erro ao tentar agendar a consulta. Por favor, tente novamente ou entre em contato com o suporte.";
 
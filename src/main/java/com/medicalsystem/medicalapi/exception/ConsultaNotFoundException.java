@@ -1,7 +1,7 @@
 package com.medicalsystem.medicalapi.exception;
 
 
-public class ConsultaNotFoundException extends RuntimeException {
+public class ConsultaNotFoundException extends ErroDominioException {
 
     private static final String DEFAULT_MESSAGE = "Consulta não encontrada para o ID fornecido.";
 
@@ -0,0 +1,11 @@
+package com.medicalsystem.medicalapi.exception;
+
+// Erros esperados das regras de negócio (registro não encontrado, horário ocupado...), que viram respostas 4xx
+// no GlobalExceptionHandler. Não capturam a pilha de chamadas nem guardam exceções suprimidas: lançar um
+// custa o mesmo que criar um objeto, o que importa quando a maior parte das respostas é 404.
+public abstract class ErroDominioException extends RuntimeException {
+
+    protected ErroDominioException(String mensagem) {
+        super(mensagem, null, false, false);
+    }
+}
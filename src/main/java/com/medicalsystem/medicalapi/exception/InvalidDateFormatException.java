@@ -4,7 +4,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ResponseStatus;
 
 @ResponseStatus(HttpStatus.BAD_REQUEST)
-public class InvalidDateFormatException extends RuntimeException {
+public class InvalidDateFormatException extends ErroDominioException {
 
     public InvalidDateFormatException(String message) {
         super(message);
@@ -1,8 +1,8 @@
 package com.medicalsystem.medicalapi.exception;
 
-public class MedicoNotFoundException extends RuntimeException {
+public class MedicoNotFoundException extends ErroDominioException {
 
-    private static final String DEFAULT_MESSAGE = "Médico não encontrado para o ID fornecido..";
+    private static final String DEFAULT_MESSAGE = "Médico não encontrado para o ID fornecido.";
 
     public MedicoNotFoundException() {
         super(DEFAULT_MESSAGE);
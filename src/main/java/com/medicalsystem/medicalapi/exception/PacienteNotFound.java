@@ -1,9 +1,10 @@
 package com.medicalsystem.medicalapi.exception;
 
-public class PacienteNotFound extends RuntimeException {
+public class PacienteNotFound extends ErroDominioException {
 
     private static final String DEFAULT_MESSAGE_CPF = "Não há pacientes cadastrados com o CPF informado. Digite apenas números e verifique novamente.";
     private static final String DEFAULT_MESSAGE_NOME = "Não há pacientes cadastrados com o nome informado. Verifique se o nome está completo e foi digitado corretamente.";
+    private static final String DEFAULT_MESSAGE_ID = "Paciente não encontrado para o ID fornecido.";
 
     public PacienteNotFound() {
         super(DEFAULT_MESSAGE_CPF);
@@ -16,4 +17,8 @@ public class PacienteNotFound extends RuntimeException {
     public PacienteNotFound(boolean isNome, String customMessage) {
         super(isNome ? DEFAULT_MESSAGE_NOME : DEFAULT_MESSAGE_CPF);
     }
+
+    public static PacienteNotFound porId() {
+        return new PacienteNotFound(DEFAULT_MESSAGE_ID);
+    }
 }
@@ -0,0 +1,46 @@
+package com.medicalsystem.medicalapi.model;
+
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.UUID;
+
+@Getter
+public class ConsultaCursor {
+
+    private static final char SEPARADOR = '|';
+
+    private final LocalDateTime dataConsulta;
+    private final UUID id;
+
+    public ConsultaCursor(LocalDateTime dataConsulta, UUID id) {
+        this.dataConsulta = dataConsulta;
+        this.id = id;
+    }
+
+    // Gera o token opaco enviado ao cliente no campo "next"
+    public String codificar() {
+        String bruto = dataConsulta.toString() + SEPARADOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bruto.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Reconstrói o cursor a partir do token recebido na requisição
+    public static ConsultaCursor decodificar(String token) {
+        try {
+            String bruto = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separador = bruto.indexOf(SEPARADOR);
+            if (separador < 0) {
+                throw new IllegalArgumentException("Cursor de paginação inválido.");
+            }
+            return new ConsultaCursor(
+                    LocalDateTime.parse(bruto.substring(0, separador)),
+                    UUID.fromString(bruto.substring(separador + 1)));
+
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Cursor de paginação inválido.");
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.medicalsystem.medicalapi.model;
+
+import com.medicalsystem.medicalapi.constant.StatusConsulta;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Médico, data, status e versão gravados de uma consulta, lidos antes de alterá-la para atualizar as estatísticas
+public interface EstadoConsulta {
+
+    UUID getMedicoId();
+
+    LocalDateTime getDataConsulta();
+
+    StatusConsulta getStatus();
+
+    Long getVersao();
+}
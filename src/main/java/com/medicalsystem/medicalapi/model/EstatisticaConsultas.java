@@ -0,0 +1,25 @@
+package com.medicalsystem.medicalapi.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDate;
+
+@Getter
+@AllArgsConstructor
+@Schema(description = "Quantidade de consultas em cada status num dia ou mês.")
+public class EstatisticaConsultas {
+
+    @Schema(description = "Primeiro dia do período (o próprio dia, ou o dia 1 do mês)", example = "01/01/2025")
+    private LocalDate inicio;
+
+    @Schema(description = "Consultas agendadas", example = "42")
+    private long agendadas;
+
+    @Schema(description = "Consultas canceladas", example = "3")
+    private long canceladas;
+
+    @Schema(description = "Consultas concluídas", example = "37")
+    private long concluidas;
+}
@@ -0,0 +1,17 @@
+package com.medicalsystem.medicalapi.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class EstatisticasCache {
+
+    private String nome;
+    private long tamanho;
+    private long acertos;
+    private long faltas;
+    private double taxaAcerto;
+    private long remocoes;
+    private double tempoMedioCargaMs;
+}
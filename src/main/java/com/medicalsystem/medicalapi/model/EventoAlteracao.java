@@ -0,0 +1,31 @@
+package com.medicalsystem.medicalapi.model;
+
+import com.medicalsystem.medicalapi.constant.OperacaoEvento;
+import com.medicalsystem.medicalapi.constant.RecursoEvento;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Getter
+@AllArgsConstructor
+@Schema(description = "Alteração de uma consulta, médico ou paciente.")
+public class EventoAlteracao {
+
+    @Schema(description = "Posição do evento no feed; crescente, sem repetição", example = "1024")
+    private long posicao;
+
+    @Schema(description = "Recurso alterado")
+    private RecursoEvento recurso;
+
+    @Schema(description = "ID do recurso alterado")
+    private UUID id;
+
+    @Schema(description = "Operação realizada")
+    private OperacaoEvento operacao;
+
+    @Schema(description = "Data e hora da alteração")
+    private LocalDateTime registradoEm;
+}
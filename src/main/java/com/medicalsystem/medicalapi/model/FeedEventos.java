@@ -0,0 +1,18 @@
+package com.medicalsystem.medicalapi.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+@Schema(description = "Eventos posteriores ao cursor informado, em ordem de posição.")
+public class FeedEventos {
+
+    private List<EventoAlteracao> eventos;
+
+    @Schema(description = "Valor a enviar em 'desde' na próxima chamada (posição do último evento, ou o próprio 'desde' quando não há eventos)", example = "1024")
+    private long cursor;
+}
@@ -0,0 +1,20 @@
+package com.medicalsystem.medicalapi.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Getter
+@AllArgsConstructor
+@Schema(description = "Horário livre na agenda de um médico.")
+public class HorarioLivre {
+
+    @Schema(description = "ID do médico disponível", example = "123e4567-e89b-12d3-a456-426614174000")
+    private UUID medicoId;
+
+    @Schema(description = "Início do horário livre", example = "15/01/2025 09:30:00")
+    private LocalDateTime inicio;
+}
@@ -0,0 +1,14 @@
+package com.medicalsystem.medicalapi.model;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Projeção usada para carregar os horários já agendados sem montar a entidade Consulta completa
+public interface HorarioOcupado {
+
+    UUID getId();
+
+    UUID getMedicoId();
+
+    LocalDateTime getDataConsulta();
+}
@@ -0,0 +1,119 @@
+package com.medicalsystem.medicalapi.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.medicalsystem.medicalapi.constant.FormatoExportacao;
+import com.medicalsystem.medicalapi.constant.StatusImportacao;
+import lombok.Getter;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Estado de uma importação de pacientes, atualizado pela thread da importação e lido pelas consultas de progresso
+public class ImportacaoPacientes {
+
+    @Getter
+    private final UUID id;
+
+    @Getter
+    private final FormatoExportacao formato;
+
+    @Getter
+    private final long totalBytes;
+
+    @Getter
+    private final LocalDateTime recebidaEm = LocalDateTime.now();
+
+    @Getter
+    private volatile StatusImportacao status = StatusImportacao.NA_FILA;
+
+    @Getter
+    private volatile LocalDateTime concluidaEm;
+
+    @Getter
+    private volatile String erro;
+
+    @Getter
+    @JsonIgnore
+    private final Path arquivo;
+
+    @Getter
+    @JsonIgnore
+    private final Path relatorioErros;
+
+    private final AtomicLong bytesLidos = new AtomicLong();
+    private final AtomicLong linhasLidas = new AtomicLong();
+    private final AtomicLong importadas = new AtomicLong();
+    private final AtomicLong rejeitadas = new AtomicLong();
+
+    public ImportacaoPacientes(UUID id, FormatoExportacao formato, long totalBytes, Path arquivo, Path relatorioErros) {
+        this.id = id;
+        this.formato = formato;
+        this.totalBytes = totalBytes;
+        this.arquivo = arquivo;
+        this.relatorioErros = relatorioErros;
+    }
+
+    public long getBytesLidos() {
+        return bytesLidos.get();
+    }
+
+    public long getLinhasLidas() {
+        return linhasLidas.get();
+    }
+
+    public long getImportadas() {
+        return importadas.get();
+    }
+
+    public long getRejeitadas() {
+        return rejeitadas.get();
+    }
+
+    // Parte do arquivo já lida; o arquivo é lido em blocos, então o valor avança um pouco à frente do processamento
+    public int getPercentual() {
+        if (status == StatusImportacao.CONCLUIDA) {
+            return 100;
+        }
+        if (totalBytes == 0) {
+            return 0;
+        }
+        return (int) Math.min(99, bytesLidos.get() * 100 / totalBytes);
+    }
+
+    public boolean isFinalizada() {
+        return status == StatusImportacao.CONCLUIDA || status == StatusImportacao.FALHOU;
+    }
+
+    public void adicionarBytesLidos(long bytes) {
+        bytesLidos.addAndGet(bytes);
+    }
+
+    public void adicionarLinhasLidas(long linhas) {
+        linhasLidas.addAndGet(linhas);
+    }
+
+    public void adicionarImportadas(long linhas) {
+        importadas.addAndGet(linhas);
+    }
+
+    public void adicionarRejeitadas(long linhas) {
+        rejeitadas.addAndGet(linhas);
+    }
+
+    public void iniciar() {
+        status = StatusImportacao.EM_ANDAMENTO;
+    }
+
+    public void concluir() {
+        concluidaEm = LocalDateTime.now();
+        status = StatusImportacao.CONCLUIDA;
+    }
+
+    public void falhar(String mensagem) {
+        erro = mensagem;
+        concluidaEm = LocalDateTime.now();
+        status = StatusImportacao.FALHOU;
+    }
+}
@@ -0,0 +1,31 @@
+package com.medicalsystem.medicalapi.model;
+
+import com.medicalsystem.medicalapi.constant.StatusConsulta;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Linha da agenda do médico: só o necessário para a recepção, sem carregar as entidades completas
+@Getter
+@AllArgsConstructor
+@Schema(description = "Consulta na agenda de um médico.")
+public class ItemAgenda {
+
+    @Schema(description = "ID da consulta", example = "123e4567-e89b-12d3-a456-426614174000")
+    private UUID consultaId;
+
+    @Schema(description = "Data e hora da consulta", example = "15/01/2025 09:30:00")
+    private LocalDateTime dataConsulta;
+
+    @Schema(description = "Status da consulta", allowableValues = {"AGENDADA", "CANCELADA", "CONCLUIDA"})
+    private StatusConsulta status;
+
+    @Schema(description = "ID do paciente", example = "123e4567-e89b-12d3-a456-426614174000")
+    private UUID pacienteId;
+
+    @Schema(description = "Nome do paciente", example = "Maria Souza")
+    private String pacienteNome;
+}
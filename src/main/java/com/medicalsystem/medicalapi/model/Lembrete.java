@@ -0,0 +1,32 @@
+package com.medicalsystem.medicalapi.model;
+
+import com.medicalsystem.medicalapi.constant.AntecedenciaLembrete;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Lembrete de uma consulta agendada: SMS para o contato do paciente e e-mail para o médico.
+// 'tentativa' começa em 0 e aumenta a cada reenvio após uma falha do enviador.
+@Getter
+@AllArgsConstructor
+public class Lembrete {
+
+    private UUID consultaId;
+    private AntecedenciaLembrete antecedencia;
+    private LocalDateTime dataConsulta;
+    private String nomePaciente;
+    private String contatoPaciente;
+    private String nomeMedico;
+    private String emailMedico;
+    private int tentativa;
+
+    public LocalDateTime getEnviarEm() {
+        return dataConsulta.minus(antecedencia.getAntecedencia());
+    }
+
+    public Lembrete proximaTentativa() {
+        return new Lembrete(consultaId, antecedencia, dataConsulta, nomePaciente, contatoPaciente, nomeMedico, emailMedico, tentativa + 1);
+    }
+}
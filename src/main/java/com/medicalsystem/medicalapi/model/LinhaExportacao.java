@@ -0,0 +1,24 @@
+package com.medicalsystem.medicalapi.model;
+
+import com.medicalsystem.medicalapi.constant.StatusConsulta;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Linha plana da exportação de consultas, montada direto pela consulta JPQL (sem entidades gerenciadas)
+@Getter
+@AllArgsConstructor
+public class LinhaExportacao {
+
+    private UUID consultaId;
+    private LocalDateTime dataConsulta;
+    private StatusConsulta status;
+    private UUID medicoId;
+    private String medicoNome;
+    private String medicoEspecialidade;
+    private String medicoCrm;
+    private UUID pacienteId;
+    private String pacienteNome;
+}
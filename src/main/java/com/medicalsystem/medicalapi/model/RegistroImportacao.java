@@ -0,0 +1,31 @@
+package com.medicalsystem.medicalapi.model;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+// Uma linha do arquivo de importação de pacientes: os textos como vieram no arquivo e, após a validação,
+// os valores normalizados ou a mensagem de erro
+@Getter
+@Setter
+public class RegistroImportacao {
+
+    private final long linha;
+    private String nome;
+    private String cpf;
+    private String dataNascimento;
+    private String contato;
+
+    private LocalDate data;
+    private long cpfNumerico;
+    private String erro;
+
+    public RegistroImportacao(long linha) {
+        this.linha = linha;
+    }
+
+    public boolean isValido() {
+        return erro == null;
+    }
+}
@@ -0,0 +1,40 @@
+package com.medicalsystem.medicalapi.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.UUID;
+
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(description = "Resultado do agendamento de um item do lote.")
+public class ResultadoAgendamentoLote {
+
+    public static final String AGENDADA = "AGENDADA";
+    public static final String REJEITADA = "REJEITADA";
+
+    @Schema(description = "Posição do item na lista enviada (começando em 0)")
+    private final int indice;
+
+    @Schema(description = "ID da consulta criada, quando agendada")
+    private final UUID consultaId;
+
+    @Schema(description = "Situação do item", allowableValues = {AGENDADA, REJEITADA})
+    private final String situacao;
+
+    @Schema(description = "Motivos da rejeição, quando rejeitada")
+    private final List<String> erros;
+
+    public static ResultadoAgendamentoLote agendada(int indice, UUID consultaId) {
+        return new ResultadoAgendamentoLote(indice, consultaId, AGENDADA, null);
+    }
+
+    public static ResultadoAgendamentoLote rejeitada(int indice, List<String> erros) {
+        return new ResultadoAgendamentoLote(indice, null, REJEITADA, erros);
+    }
+}
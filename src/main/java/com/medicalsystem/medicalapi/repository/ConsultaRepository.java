@@ -1,29 +1,131 @@
 package com.medicalsystem.medicalapi.repository;
 
+import com.medicalsystem.medicalapi.constant.StatusConsulta;
 import com.medicalsystem.medicalapi.entity.Consulta;
+import com.medicalsystem.medicalapi.model.EstadoConsulta;
+import com.medicalsystem.medicalapi.model.HorarioOcupado;
+import com.medicalsystem.medicalapi.model.ItemAgenda;
+import com.medicalsystem.medicalapi.model.LinhaExportacao;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
-public interface ConsultaRepository extends JpaRepository<Consulta, UUID> {
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
-    @Query("SELECT c FROM Consulta c WHERE c.paciente_id.id = :pacienteId")
+// A tabela consulta é particionada por mês de data_consulta (V6). Só as consultas com intervalo de data
+// (páginas após um cursor, agenda, exportação, horários ocupados) e o UPDATE por (id, data) leem uma parte das
+// partições. Buscas apenas pelo ID, por médico ou paciente sem data e a primeira página do cursor consultam
+// o índice de cada partição; com poucas partições ativas (o arquivamento remove as antigas) o custo é limitado.
+public interface ConsultaRepository extends JpaRepository<Consulta, UUID>, JpaSpecificationExecutor<Consulta> {
+
+    // Médico e paciente vêm na mesma instrução SQL, evitando um SELECT extra por registro relacionado
+    String CARREGAR_RELACIONAMENTOS = "JOIN FETCH c.medico_id JOIN FETCH c.paciente_id ";
+
+    @Override
+    @EntityGraph(attributePaths = {"medico_id", "paciente_id"})
+    List<Consulta> findAll();
+
+    @Query("SELECT c FROM Consulta c " + CARREGAR_RELACIONAMENTOS + "WHERE c.paciente_id.id = :pacienteId")
     List<Consulta> findByPacienteId(@Param("pacienteId") UUID pacienteId);
 
-    @Query("SELECT c FROM Consulta c WHERE c.medico_id.id = :medicoId")
+    @Query("SELECT c FROM Consulta c " + CARREGAR_RELACIONAMENTOS + "WHERE c.medico_id.id = :medicoId")
     List<Consulta> findByMedicoId(@Param("medicoId") UUID medicoId);
 
-    @Query("SELECT c FROM Consulta c WHERE c.paciente_id.id = :pacienteId AND c.medico_id.id = :medicoId")
+    @Query("SELECT c FROM Consulta c " + CARREGAR_RELACIONAMENTOS + "WHERE c.paciente_id.id = :pacienteId AND c.medico_id.id = :medicoId")
     List<Consulta> findByPacienteIdAndMedicoId(@Param("pacienteId") UUID pacienteId, @Param("medicoId") UUID medicoId);
 
-    @Query("SELECT c FROM Consulta c WHERE c.id = :consultaId")
+    @Query("SELECT c FROM Consulta c " + CARREGAR_RELACIONAMENTOS + "WHERE c.id = :consultaId")
     Optional<Consulta> findById(@Param("consultaId") UUID consultaId);
 
+    // Sem JOIN: a busca pelo ID passa pelo índice de cada partição, então lê só as colunas da própria consulta
+    @Query("SELECT c.medico_id.id AS medicoId, c.data_consulta AS dataConsulta, c.status_consulta AS status, c.versao AS versao " +
+            "FROM Consulta c WHERE c.id = :id")
+    Optional<EstadoConsulta> findEstadoById(@Param("id") UUID id);
+
+    // Paginação por cursor (keyset) em (data_consulta, id): o Pageable só define o limite da página
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "200"))
+    @Query("SELECT c FROM Consulta c " + CARREGAR_RELACIONAMENTOS + "ORDER BY c.data_consulta, c.id")
+    Stream<Consulta> streamPrimeiraPagina(Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "200"))
+    @Query("SELECT c FROM Consulta c " + CARREGAR_RELACIONAMENTOS + "WHERE c.data_consulta > :data OR (c.data_consulta = :data AND c.id > :id) " +
+            "ORDER BY c.data_consulta, c.id")
+    Stream<Consulta> streamPaginaApos(@Param("data") LocalDateTime data, @Param("id") UUID id, Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "200"))
+    @Query("SELECT c FROM Consulta c " + CARREGAR_RELACIONAMENTOS + "WHERE c.medico_id.id = :medicoId ORDER BY c.data_consulta, c.id")
+    Stream<Consulta> streamPrimeiraPaginaPorMedico(@Param("medicoId") UUID medicoId, Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "200"))
+    @Query("SELECT c FROM Consulta c " + CARREGAR_RELACIONAMENTOS + "WHERE c.medico_id.id = :medicoId " +
+            "AND (c.data_consulta > :data OR (c.data_consulta = :data AND c.id > :id)) " +
+            "ORDER BY c.data_consulta, c.id")
+    Stream<Consulta> streamPaginaPorMedicoApos(@Param("medicoId") UUID medicoId, @Param("data") LocalDateTime data,
+                                               @Param("id") UUID id, Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "200"))
+    @Query("SELECT c FROM Consulta c " + CARREGAR_RELACIONAMENTOS + "WHERE c.paciente_id.id = :pacienteId ORDER BY c.data_consulta, c.id")
+    Stream<Consulta> streamPrimeiraPaginaPorPaciente(@Param("pacienteId") UUID pacienteId, Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "200"))
+    @Query("SELECT c FROM Consulta c " + CARREGAR_RELACIONAMENTOS + "WHERE c.paciente_id.id = :pacienteId " +
+            "AND (c.data_consulta > :data OR (c.data_consulta = :data AND c.id > :id)) " +
+            "ORDER BY c.data_consulta, c.id")
+    Stream<Consulta> streamPaginaPorPacienteApos(@Param("pacienteId") UUID pacienteId, @Param("data") LocalDateTime data,
+                                                 @Param("id") UUID id, Pageable pageable);
+
+    // Agenda do médico no intervalo [de, ate), ordenada pelo horário
+    String SELECIONAR_AGENDA = "SELECT new com.medicalsystem.medicalapi.model.ItemAgenda(c.id, c.data_consulta, c.status_consulta, p.id, p.nome) " +
+            "FROM Consulta c JOIN c.paciente_id p " +
+            "WHERE c.medico_id.id = :medicoId AND c.data_consulta >= :de AND c.data_consulta < :ate ";
+
+    @Query(SELECIONAR_AGENDA + "ORDER BY c.data_consulta, c.id")
+    List<ItemAgenda> findAgendaDoMedico(@Param("medicoId") UUID medicoId, @Param("de") LocalDateTime de,
+                                        @Param("ate") LocalDateTime ate);
+
+    // Status fixo no texto da consulta para que o PostgreSQL use o índice parcial de consultas agendadas
+    @Query(SELECIONAR_AGENDA + "AND c.status_consulta = 'AGENDADA' ORDER BY c.data_consulta, c.id")
+    List<ItemAgenda> findAgendaAgendadaDoMedico(@Param("medicoId") UUID medicoId, @Param("de") LocalDateTime de,
+                                                @Param("ate") LocalDateTime ate);
+
+    @Query(SELECIONAR_AGENDA + "AND c.status_consulta = :status ORDER BY c.data_consulta, c.id")
+    List<ItemAgenda> findAgendaDoMedicoPorStatus(@Param("medicoId") UUID medicoId, @Param("de") LocalDateTime de,
+                                                 @Param("ate") LocalDateTime ate, @Param("status") StatusConsulta status);
+
+    // Exportação completa: cursor no servidor com linhas planas, sem médico e paciente como entidades gerenciadas
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new com.medicalsystem.medicalapi.model.LinhaExportacao(c.id, c.data_consulta, c.status_consulta, " +
+            "m.id, m.nome, m.especialidade, m.crm, p.id, p.nome) " +
+            "FROM Consulta c JOIN c.medico_id m JOIN c.paciente_id p " +
+            "WHERE c.data_consulta >= :de AND c.data_consulta < :ate ORDER BY c.data_consulta, c.id")
+    Stream<LinhaExportacao> streamExportacao(@Param("de") LocalDateTime de, @Param("ate") LocalDateTime ate);
+
+    // A data na condição limita o UPDATE à partição da consulta. A versão é conferida e incrementada como faria
+    // o Hibernate: nenhum dos dois lados grava por cima de uma alteração que não leu, e o status anterior
+    // usado nas estatísticas é de fato o que foi substituído. Retorna 0 se a consulta mudou desde a leitura.
+    @Modifying
+    @Query("UPDATE Consulta c SET c.status_consulta = :status, c.versao = c.versao + 1 " +
+            "WHERE c.id = :id AND c.data_consulta = :data AND c.versao = :versao")
+    int atualizarStatus(@Param("id") UUID id, @Param("data") LocalDateTime data, @Param("versao") Long versao,
+                        @Param("status") StatusConsulta status);
 
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT c.id AS id, c.medico_id.id AS medicoId, c.data_consulta AS dataConsulta FROM Consulta c " +
+            "WHERE c.status_consulta = :status AND c.data_consulta >= :inicio")
+    Stream<HorarioOcupado> streamHorariosOcupados(@Param("status") StatusConsulta status, @Param("inicio") LocalDateTime inicio);
 
 }
 
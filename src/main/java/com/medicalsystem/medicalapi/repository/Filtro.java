@@ -0,0 +1,142 @@
+package com.medicalsystem.medicalapi.repository;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+
+import javax.persistence.criteria.JoinType;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Root;
+import java.util.Arrays;
+import java.util.List;
+
+// Filtro dinâmico: só os critérios informados entram na consulta, sempre combinados com AND.
+// Cada critério é uma igualdade, um prefixo (LIKE 'x%') ou um limite de intervalo, formas que um índice btree atende.
+// Os valores vão como parâmetros (hibernate.criteria.literal_handling_mode=bind): filtros com os mesmos campos
+// geram o mesmo JPQL e reaproveitam o plano já compilado pelo Hibernate e o prepared statement do PostgreSQL.
+public final class Filtro<T> {
+
+    private static final char ESCAPE = '\\';
+
+    private Specification<T> especificacao;
+    private boolean vazio = true;
+
+    public static <T> Filtro<T> novo() {
+        return new Filtro<>();
+    }
+
+    // Atributos de associações usam ponto, ex.: "medico_id.id"
+    public Filtro<T> igual(String atributo, Object valor) {
+        if (valor != null) {
+            adicionarCriterio((root, query, cb) -> cb.equal(caminho(root, atributo), valor));
+        }
+        return this;
+    }
+
+    // Prefixo vazio não filtra; % e _ digitados são tratados como texto
+    public Filtro<T> prefixo(String atributo, String prefixo) {
+        if (prefixo != null && !prefixo.isEmpty()) {
+            String padrao = escaparLike(prefixo) + "%";
+            adicionarCriterio((root, query, cb) -> cb.like(caminho(root, atributo), padrao, ESCAPE));
+        }
+        return this;
+    }
+
+    public <V extends Comparable<? super V>> Filtro<T> aPartirDe(String atributo, V valor) {
+        if (valor != null) {
+            adicionarCriterio((root, query, cb) -> cb.greaterThanOrEqualTo(caminho(root, atributo), valor));
+        }
+        return this;
+    }
+
+    public <V extends Comparable<? super V>> Filtro<T> antesDe(String atributo, V valor) {
+        if (valor != null) {
+            adicionarCriterio((root, query, cb) -> cb.lessThan(caminho(root, atributo), valor));
+        }
+        return this;
+    }
+
+    // Carrega as associações na mesma instrução; fica de fora da contagem de registros da paginação
+    public Filtro<T> buscarJunto(String... associacoes) {
+        especificacao = combinar(especificacao, (root, query, cb) -> {
+            Class<?> resultado = query.getResultType();
+            if (resultado != Long.class && resultado != long.class) {
+                for (String associacao : associacoes) {
+                    root.fetch(associacao, JoinType.INNER);
+                }
+            }
+            return null;
+        });
+        return this;
+    }
+
+    // Nenhum critério informado (associações carregadas junto não contam)
+    public boolean isVazio() {
+        return vazio;
+    }
+
+    public Specification<T> especificacao() {
+        return especificacao;
+    }
+
+    // Sem tamanho de página retorna todos os registros, na ordem pedida; com tamanho, a página e o total
+    public Page<T> buscar(JpaSpecificationExecutor<T> repositorio, Sort ordem, Integer pagina, Integer tamanho) {
+        if (tamanho == null) {
+            return new PageImpl<>(repositorio.findAll(especificacao, ordem));
+        }
+        return repositorio.findAll(especificacao, PageRequest.of(pagina != null ? pagina : 0, tamanho, ordem));
+    }
+
+    // Lê "campo" ou "campo,asc|desc" e desempata pelo id, para que a paginação seja estável
+    public static Sort ordenacao(String valor, String padrao, String... permitidos) {
+        String[] partes = (valor == null || valor.trim().isEmpty() ? padrao : valor).split(",");
+        String campo = partes[0].trim();
+        List<String> campos = Arrays.asList(permitidos);
+        if (!campos.contains(campo) || partes.length > 2) {
+            throw new IllegalArgumentException("Ordenação inválida: use um dos campos " + campos + ", opcionalmente seguido de ',asc' ou ',desc'.");
+        }
+
+        Sort.Direction direcao = Sort.Direction.ASC;
+        if (partes.length == 2) {
+            direcao = Sort.Direction.fromOptionalString(partes[1].trim())
+                    .orElseThrow(() -> new IllegalArgumentException("Direção de ordenação inválida: " + partes[1].trim()));
+        }
+
+        Sort ordem = Sort.by(direcao, campo);
+        return "id".equals(campo) ? ordem : ordem.and(Sort.by(Sort.Direction.ASC, "id"));
+    }
+
+    private void adicionarCriterio(Specification<T> criterio) {
+        especificacao = combinar(especificacao, criterio);
+        vazio = false;
+    }
+
+    private static <T> Specification<T> combinar(Specification<T> atual, Specification<T> nova) {
+        return atual == null ? nova : atual.and(nova);
+    }
+
+    private static <Y> Path<Y> caminho(Root<?> root, String atributo) {
+        Path<?> caminho = root;
+        for (String parte : atributo.split("\\.")) {
+            caminho = caminho.get(parte);
+        }
+        @SuppressWarnings("unchecked")
+        Path<Y> tipado = (Path<Y>) caminho;
+        return tipado;
+    }
+
+    private static String escaparLike(String texto) {
+        StringBuilder escapado = new StringBuilder(texto.length() + 4);
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (c == '%' || c == '_' || c == ESCAPE) {
+                escapado.append(ESCAPE);
+            }
+            escapado.append(c);
+        }
+        return escapado.toString();
+    }
+}
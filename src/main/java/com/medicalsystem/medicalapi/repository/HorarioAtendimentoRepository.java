@@ -0,0 +1,15 @@
+package com.medicalsystem.medicalapi.repository;
+
+import com.medicalsystem.medicalapi.entity.HorarioAtendimento;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.UUID;
+
+public interface HorarioAtendimentoRepository extends JpaRepository<HorarioAtendimento, UUID> {
+
+    @Query("SELECT h FROM HorarioAtendimento h WHERE h.medicoId = :medicoId")
+    List<HorarioAtendimento> findByMedicoId(@Param("medicoId") UUID medicoId);
+}
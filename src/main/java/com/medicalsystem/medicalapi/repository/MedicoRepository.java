@@ -2,20 +2,23 @@ package com.medicalsystem.medicalapi.repository;
 
 import com.medicalsystem.medicalapi.entity.Medico;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 import java.util.UUID;
 
-public interface MedicoRepository extends JpaRepository<Medico, UUID> {
+// Filtros por nome, especialidade e CRM: MedicoService.listarMedicos monta a Specification (Filtro)
+public interface MedicoRepository extends JpaRepository<Medico, UUID>, JpaSpecificationExecutor<Medico> {
 
-    @Query("SELECT m FROM Medico m WHERE " +
-            "(m.nome LIKE %:nome%) OR " +
-            "(m.especialidade LIKE %:especialidade) OR " +
-            "(m.crm = :crm)")
-    List<Medico> findMedicosByFilters(@Param("nome") String nome,
-                                      @Param("especialidade") String especialidade,
-                                      @Param("crm") String crm);
+    // Busca aproximada por nome, ordenada pela semelhança com o termo normalizado
+    @Query(value = "SELECT * FROM medico WHERE :termo <% nome_busca " +
+            "ORDER BY word_similarity(:termo, nome_busca) DESC, nome LIMIT :limite", nativeQuery = true)
+    List<Medico> buscarPorNomeAproximado(@Param("termo") String termo, @Param("limite") int limite);
+
+    // Vale só para a transação corrente
+    @Query(value = "SELECT set_config('pg_trgm.word_similarity_threshold', :limiar, true)", nativeQuery = true)
+    String definirLimiarSimilaridade(@Param("limiar") String limiar);
 }
 
@@ -2,22 +2,23 @@ package com.medicalsystem.medicalapi.repository;
 
 import com.medicalsystem.medicalapi.entity.Paciente;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 import java.util.UUID;
 
-public interface PacienteRepository extends JpaRepository<Paciente, UUID> {
+// Filtros por nome e CPF: PacienteService.listarPacientes monta a Specification (Filtro)
+public interface PacienteRepository extends JpaRepository<Paciente, UUID>, JpaSpecificationExecutor<Paciente> {
 
-    @Query("SELECT p FROM Paciente p WHERE  p.nome LIKE %:nome%")
-    List<Paciente> findPacientesByName(@Param("nome") String nome);
-
-    @Query("SELECT p FROM Paciente p WHERE  p.cpf = :cpf")
-    List<Paciente> findPacientesByCPF(@Param("cpf") String cpf);
-
-    @Query("SELECT p FROM Paciente p WHERE p.nome = :nome AND p.cpf = :cpf")
-    List<Paciente> findPacientesByNameAndCPF(@Param("nome") String nome, @Param("cpf") String cpf);
+    // Busca aproximada por nome, ordenada pela semelhança com o termo normalizado
+    @Query(value = "SELECT * FROM paciente WHERE :termo <% nome_busca " +
+            "ORDER BY word_similarity(:termo, nome_busca) DESC, nome LIMIT :limite", nativeQuery = true)
+    List<Paciente> buscarPorNomeAproximado(@Param("termo") String termo, @Param("limite") int limite);
 
+    // Vale só para a transação corrente
+    @Query(value = "SELECT set_config('pg_trgm.word_similarity_threshold', :limiar, true)", nativeQuery = true)
+    String definirLimiarSimilaridade(@Param("limiar") String limiar);
 
 }
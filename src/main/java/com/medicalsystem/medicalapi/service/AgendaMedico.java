@@ -0,0 +1,105 @@
+package com.medicalsystem.medicalapi.service;
+
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Agenda em memória de um médico: cada dia é um bitmap de 48 posições (slots de 30 minutos),
+// tanto para o expediente semanal quanto para os horários já ocupados.
+// Sem locks: a reserva de um slot é um compareAndSet no bitmap do dia, então só disputam entre si
+// reservas do mesmo médico no mesmo dia; médicos e dias diferentes nunca se bloqueiam.
+final class AgendaMedico {
+
+    enum ResultadoReserva {
+        RESERVADO,
+        FORA_DO_EXPEDIENTE,
+        OCUPADO
+    }
+
+    static final int DURACAO_SLOT_MINUTOS = 30;
+    static final int SLOTS_POR_DIA = 24 * 60 / DURACAO_SLOT_MINUTOS;
+
+    private final UUID medicoId;
+    private volatile String especialidade;
+
+    // Índices 1 a 7, seguindo DayOfWeek (segunda-feira = 1). Substituído inteiro a cada alteração.
+    private volatile long[] expediente = new long[8];
+
+    // Chave: LocalDate.toEpochDay()
+    private final ConcurrentMap<Long, AtomicLong> ocupados = new ConcurrentHashMap<>();
+
+    AgendaMedico(UUID medicoId) {
+        this.medicoId = medicoId;
+    }
+
+    UUID getMedicoId() {
+        return medicoId;
+    }
+
+    String getEspecialidade() {
+        return especialidade;
+    }
+
+    void setEspecialidade(String especialidade) {
+        this.especialidade = especialidade;
+    }
+
+    void definirExpediente(long[] expedientePorDiaDaSemana) {
+        expediente = expedientePorDiaDaSemana.clone();
+    }
+
+    ResultadoReserva reservar(long dia, int slot) {
+        long bit = 1L << slot;
+        if ((expediente[diaDaSemana(dia)] & bit) == 0) {
+            return ResultadoReserva.FORA_DO_EXPEDIENTE;
+        }
+
+        AtomicLong doDia = ocupadosNoDia(dia);
+        while (true) {
+            long atual = doDia.get();
+            if ((atual & bit) != 0) {
+                return ResultadoReserva.OCUPADO;
+            }
+            if (doDia.compareAndSet(atual, atual | bit)) {
+                return ResultadoReserva.RESERVADO;
+            }
+        }
+    }
+
+    // Marca o slot sem validar o expediente (carga inicial e desfazer liberações)
+    void ocupar(long dia, int slot) {
+        long bit = 1L << slot;
+        ocupadosNoDia(dia).getAndUpdate(atual -> atual | bit);
+    }
+
+    // O bitmap do dia fica no mapa mesmo zerado: removê-lo aqui poderia descartar uma reserva
+    // feita ao mesmo tempo. Os dias passados saem em descartarAntesDe.
+    void liberar(long dia, int slot) {
+        AtomicLong doDia = ocupados.get(dia);
+        if (doDia != null) {
+            long bit = 1L << slot;
+            doDia.getAndUpdate(atual -> atual & ~bit);
+        }
+    }
+
+    // Slots dentro do expediente que ainda não foram ocupados
+    long livres(long dia) {
+        AtomicLong doDia = ocupados.get(dia);
+        return expediente[diaDaSemana(dia)] & ~(doDia != null ? doDia.get() : 0L);
+    }
+
+    void descartarAntesDe(long dia) {
+        ocupados.keySet().removeIf(d -> d < dia);
+    }
+
+    private AtomicLong ocupadosNoDia(long dia) {
+        AtomicLong doDia = ocupados.get(dia);
+        return doDia != null ? doDia : ocupados.computeIfAbsent(dia, d -> new AtomicLong());
+    }
+
+    // 1970-01-01 (epochDay 0) foi uma quinta-feira
+    static int diaDaSemana(long epochDay) {
+        return (int) Math.floorMod(epochDay + 3, 7L) + 1;
+    }
+}
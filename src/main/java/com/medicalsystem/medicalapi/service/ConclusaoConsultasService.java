@@ -0,0 +1,162 @@
+package com.medicalsystem.medicalapi.service;
+
+import com.medicalsystem.medicalapi.constant.OperacaoEvento;
+import com.medicalsystem.medicalapi.constant.RecursoEvento;
+import com.medicalsystem.medicalapi.constant.StatusConsulta;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Conclui as consultas AGENDADA cujo horário já passou, em lotes de conclusao.consultas.lote, cada um numa
+// transação curta: um só UPDATE ... RETURNING sobre as consultas mais antigas, as estatísticas e os eventos de
+// alteração dessas consultas e o andamento da execução (V11). As consultas do lote são travadas com
+// FOR UPDATE SKIP LOCKED: as que uma requisição está alterando ficam para o lote seguinte, e o lote não espera por elas.
+// Uma execução interrompida (queda ou parada da aplicação) é retomada na próxima, com o mesmo corte.
+@Slf4j
+@Service
+public class ConclusaoConsultasService {
+
+    private static final String CONCLUIR_LOTE = "WITH lote AS (" +
+            "SELECT id, data_consulta FROM consulta WHERE status_consulta = 'AGENDADA' AND data_consulta < ? " +
+            "ORDER BY data_consulta LIMIT ? FOR UPDATE SKIP LOCKED) " +
+            "UPDATE consulta c SET status_consulta = 'CONCLUIDA', versao = c.versao + 1 FROM lote " +
+            "WHERE c.id = lote.id AND c.data_consulta = lote.data_consulta " +
+            "RETURNING c.id, c.medico_id, c.data_consulta";
+
+    private static final String REGISTRAR_LOTE = "UPDATE execucao_conclusao_consulta " +
+            "SET lotes = lotes + 1, concluidas = concluidas + ?, atualizada_em = now() WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final EstatisticasConsultaService estatisticasConsultaService;
+    private final EventosAlteracaoService eventosAlteracaoService;
+    private final int tamanhoLote;
+    private final int lockTimeoutMs;
+    private final long pausaMs;
+
+    private final Counter concluidas;
+    private final Timer duracaoLote;
+
+    public ConclusaoConsultasService(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                                     EstatisticasConsultaService estatisticasConsultaService,
+                                     EventosAlteracaoService eventosAlteracaoService, MeterRegistry meterRegistry,
+                                     @Value("${conclusao.consultas.lote}") int tamanhoLote,
+                                     @Value("${conclusao.consultas.lock-timeout-ms}") int lockTimeoutMs,
+                                     @Value("${conclusao.consultas.pausa-ms}") long pausaMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.estatisticasConsultaService = estatisticasConsultaService;
+        this.eventosAlteracaoService = eventosAlteracaoService;
+        this.tamanhoLote = tamanhoLote;
+        this.lockTimeoutMs = lockTimeoutMs;
+        this.pausaMs = pausaMs;
+        this.concluidas = Counter.builder("consultas.conclusao.concluidas")
+                .description("Consultas passadas concluídas automaticamente")
+                .register(meterRegistry);
+        this.duracaoLote = Timer.builder("consultas.conclusao.lote")
+                .description("Duração da transação de cada lote da conclusão automática")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+    }
+
+    // Retorna quantas consultas esta chamada concluiu
+    @Scheduled(cron = "${conclusao.consultas.cron}")
+    public long concluirConsultasPassadas() {
+        Execucao execucao = retomarOuIniciar();
+        long inicio = System.nanoTime();
+        long total = 0;
+
+        int quantidade;
+        do {
+            quantidade = concluirLote(execucao);
+            total += quantidade;
+        } while (quantidade == tamanhoLote && pausar());
+
+        if (quantidade < tamanhoLote) {
+            jdbcTemplate.update("UPDATE execucao_conclusao_consulta SET finalizada_em = now() WHERE id = ?", execucao.id);
+        }
+
+        long ms = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio);
+        if (total > 0) {
+            log.info("{} consultas anteriores a {} concluídas em {} ms ({} por segundo)",
+                    total, execucao.corte, ms, ms > 0 ? total * 1000 / ms : total);
+        }
+        return total;
+    }
+
+    private int concluirLote(Execucao execucao) {
+        return duracaoLote.record(() -> transactionTemplate.execute(status -> {
+            // Vale só para esta transação: um lote nunca fica parado atrás de um bloqueio longo
+            jdbcTemplate.execute("SET LOCAL lock_timeout = " + lockTimeoutMs);
+
+            VariacaoEstatisticas variacao = new VariacaoEstatisticas();
+            List<UUID> alteradas = new ArrayList<>(tamanhoLote);
+            jdbcTemplate.query(CONCLUIR_LOTE, rs -> {
+                UUID medicoId = (UUID) rs.getObject("medico_id");
+                LocalDateTime data = rs.getTimestamp("data_consulta").toLocalDateTime();
+                variacao.remover(medicoId, data, StatusConsulta.AGENDADA);
+                variacao.adicionar(medicoId, data, StatusConsulta.CONCLUIDA);
+                alteradas.add((UUID) rs.getObject("id"));
+            }, Timestamp.valueOf(execucao.corte), tamanhoLote);
+
+            estatisticasConsultaService.aplicar(variacao);
+            eventosAlteracaoService.registrar(RecursoEvento.CONSULTA, alteradas, OperacaoEvento.ALTERADO);
+            jdbcTemplate.update(REGISTRAR_LOTE, alteradas.size(), execucao.id);
+            concluidas.increment(alteradas.size());
+            return alteradas.size();
+        }));
+    }
+
+    // A execução interrompida mantém o corte original; sem ela, o corte é agora
+    private Execucao retomarOuIniciar() {
+        List<Execucao> interrompidas = jdbcTemplate.query("SELECT id, corte FROM execucao_conclusao_consulta " +
+                        "WHERE finalizada_em IS NULL ORDER BY id LIMIT 1",
+                (rs, linha) -> new Execucao(rs.getLong("id"), rs.getTimestamp("corte").toLocalDateTime()));
+        if (!interrompidas.isEmpty()) {
+            log.info("Retomando a conclusão de consultas {} (corte {})", interrompidas.get(0).id, interrompidas.get(0).corte);
+            return interrompidas.get(0);
+        }
+
+        LocalDateTime corte = LocalDateTime.now();
+        Long id = jdbcTemplate.queryForObject("INSERT INTO execucao_conclusao_consulta (corte) VALUES (?) RETURNING id",
+                Long.class, Timestamp.valueOf(corte));
+        return new Execucao(id, corte);
+    }
+
+    // Dá espaço às requisições e ao autovacuum entre os lotes; interrompida, a execução fica para a próxima
+    private boolean pausar() {
+        if (pausaMs <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(pausaMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static final class Execucao {
+        final long id;
+        final LocalDateTime corte;
+
+        Execucao(long id, LocalDateTime corte) {
+            this.id = id;
+            this.corte = corte;
+        }
+    }
+}
@@ -1,18 +1,57 @@
 package com.medicalsystem.medicalapi.service;
 
 import com.medicalsystem.medicalapi.entity.Consulta;
+import com.medicalsystem.medicalapi.constant.FormatoExportacao;
+import com.medicalsystem.medicalapi.constant.OperacaoEvento;
+import com.medicalsystem.medicalapi.constant.RecursoEvento;
 import com.medicalsystem.medicalapi.constant.StatusConsulta;
+import com.medicalsystem.medicalapi.entity.Medico;
+import com.medicalsystem.medicalapi.entity.Paciente;
 import com.medicalsystem.medicalapi.exception.ConsultaAgendamentoException;
 import com.medicalsystem.medicalapi.exception.ConsultaNotFoundException;
+import com.medicalsystem.medicalapi.exception.ErroDominioException;
+import com.medicalsystem.medicalapi.model.ConsultaCursor;
+import com.medicalsystem.medicalapi.model.ConsultaRequest;
+import com.medicalsystem.medicalapi.model.EstadoConsulta;
+import com.medicalsystem.medicalapi.model.ItemAgenda;
+import com.medicalsystem.medicalapi.model.LinhaExportacao;
+import com.medicalsystem.medicalapi.model.ResultadoAgendamentoLote;
 import com.medicalsystem.medicalapi.repository.ConsultaRepository;
+import com.medicalsystem.medicalapi.repository.Filtro;
+import com.medicalsystem.medicalapi.repository.MedicoRepository;
+import com.medicalsystem.medicalapi.repository.PacienteRepository;
+import org.postgresql.util.PSQLException;
+import org.postgresql.util.PSQLState;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class ConsultaService {
@@ -20,51 +59,239 @@ public class ConsultaService {
     @Autowired
     private ConsultaRepository consultaRepository;
 
+    @Autowired
+    private MedicoRepository medicoRepository;
+
+    @Autowired
+    private PacienteRepository pacienteRepository;
+
+    @Autowired
+    private DisponibilidadeService disponibilidadeService;
+
+    @Autowired
+    private ExportadorConsultas exportadorConsultas;
+
+    @Autowired
+    private EstatisticasConsultaService estatisticasConsultaService;
+
+    @Autowired
+    private LembreteService lembreteService;
+
+    @Autowired
+    private EventosAlteracaoService eventosAlteracaoService;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Acompanha spring.jpa.properties.hibernate.jdbc.batch_size
+    private static final int TAMANHO_LOTE_JDBC = 500;
+    private static final int TAMANHO_LISTA_IN = 1000;
+
+    // Índice único parcial (V7): uma consulta AGENDADA por médico e horário. A violação traz o índice da
+    // partição, com o nome fixado pela V16: uq_consulta_2030_01_medico_data_agendada, uq_consulta_padrao_medico_data_agendada...
+    private static final String INDICE_HORARIO_AGENDADO_PREFIXO = "uq_consulta_";
+    private static final String INDICE_HORARIO_AGENDADO_SUFIXO = "_medico_data_agendada";
+
+    // O horário é disputado primeiro na agenda em memória (compareAndSet por médico e dia) e depois
+    // garantido no banco pelo índice único de consultas agendadas, que vale entre instâncias da aplicação
     @Transactional
     public Consulta agendarConsulta(Consulta consulta) {
-        try {
-            return consultaRepository.save(consulta);
+        if (consulta.getId() == null) {
+            consulta.setId(UUID.randomUUID());
+        }
 
-        } catch (IllegalArgumentException e) {
-            throw new ConsultaAgendamentoException("Erro ao validar consulta: " + e.getMessage());
+        // Se estiver indisponível a transação é desfeita e nada é gravado
+        disponibilidadeService.reservar(consulta);
+        Consulta salva = gravar(consulta, "Erro ao salvar consulta: ");
 
-        } catch (DataIntegrityViolationException e) {
-            throw new DataIntegrityViolationException("Erro de integridade de dados: " + e.getMessage());
+        VariacaoEstatisticas variacao = new VariacaoEstatisticas();
+        variacao.adicionar(salva);
+        estatisticasConsultaService.aplicar(variacao);
+        lembreteService.atualizarLembretes(Collections.singletonList(salva));
+        eventosAlteracaoService.registrar(RecursoEvento.CONSULTA, salva.getId(), OperacaoEvento.CRIADO);
+        return salva;
+    }
 
-        } catch (Exception e) {
-            throw new RuntimeException("Erro ao salvar consulta: " + e.getMessage());
+    // Agenda várias consultas de uma vez: médicos e pacientes são resolvidos com poucas consultas IN
+    // e os inserts são enviados em lotes JDBC. Itens inválidos são rejeitados sem interromper o lote.
+    @Transactional
+    public List<ResultadoAgendamentoLote> agendarLote(List<ConsultaRequest> requisicoes) {
+        Map<UUID, Medico> medicos = buscarPorIds(requisicoes, ConsultaRequest::getMedico_id, medicoRepository::findAllById, Medico::getId);
+        Map<UUID, Paciente> pacientes = buscarPorIds(requisicoes, ConsultaRequest::getPaciente_id, pacienteRepository::findAllById, Paciente::getId);
+
+        List<ResultadoAgendamentoLote> resultados = new ArrayList<>(requisicoes.size());
+        List<Consulta> pendentes = new ArrayList<>(TAMANHO_LOTE_JDBC);
+        List<Consulta> agendadas = new ArrayList<>();
+        VariacaoEstatisticas variacao = new VariacaoEstatisticas();
+
+        for (int indice = 0; indice < requisicoes.size(); indice++) {
+            ConsultaRequest requisicao = requisicoes.get(indice);
+            Medico medico = requisicao.getMedico_id() != null ? medicos.get(requisicao.getMedico_id()) : null;
+            Paciente paciente = requisicao.getPaciente_id() != null ? pacientes.get(requisicao.getPaciente_id()) : null;
+
+            List<String> erros = new ArrayList<>();
+            if (medico == null) {
+                erros.add("Médico não encontrado para o ID fornecido: " + requisicao.getMedico_id());
+            }
+            if (paciente == null) {
+                erros.add("Paciente não encontrado para o ID fornecido: " + requisicao.getPaciente_id());
+            }
+            if (requisicao.getData_consulta() == null) {
+                erros.add("A data da consulta é obrigatória.");
+            }
+            if (requisicao.getStatus() == null) {
+                erros.add("O status da consulta é obrigatório.");
+            }
+            if (!erros.isEmpty()) {
+                resultados.add(ResultadoAgendamentoLote.rejeitada(indice, erros));
+                continue;
+            }
+
+            Consulta consulta = new Consulta();
+            consulta.setId(UUID.randomUUID());
+            consulta.setMedico_id(medico);
+            consulta.setPaciente_id(paciente);
+            consulta.setData_consulta(requisicao.getData_consulta());
+            consulta.setStatus_consulta(requisicao.getStatus());
+
+            try {
+                disponibilidadeService.reservar(consulta);
+            } catch (ConsultaAgendamentoException e) {
+                resultados.add(ResultadoAgendamentoLote.rejeitada(indice, Collections.singletonList(e.getMessage())));
+                continue;
+            }
+
+            pendentes.add(consulta);
+            agendadas.add(consulta);
+            variacao.adicionar(consulta);
+            resultados.add(ResultadoAgendamentoLote.agendada(indice, consulta.getId()));
+            if (pendentes.size() == TAMANHO_LOTE_JDBC) {
+                gravarLote(pendentes);
+            }
         }
+
+        gravarLote(pendentes);
+        estatisticasConsultaService.aplicar(variacao);
+        lembreteService.atualizarLembretes(agendadas);
+        eventosAlteracaoService.registrar(RecursoEvento.CONSULTA,
+                agendadas.stream().map(Consulta::getId).collect(Collectors.toList()), OperacaoEvento.CRIADO);
+        return resultados;
     }
 
-    public List<Consulta> listarConsultas(UUID consultaId, UUID pacienteId, UUID medicoId) {
-        if (consultaId != null) {
-            // Busca pela consultaId
-            return consultaRepository.findById(consultaId)
-                    .map(Collections::singletonList)
-                    .orElse(Collections.emptyList());
+    private void gravarLote(List<Consulta> pendentes) {
+        if (pendentes.isEmpty()) {
+            return;
         }
 
-        if (pacienteId != null && medicoId != null) {
-            // Busca por pacienteId e medicoId
-            return consultaRepository.findByPacienteIdAndMedicoId(pacienteId, medicoId);
+        consultaRepository.saveAll(pendentes);
+        entityManager.flush();
+        entityManager.clear();
+        pendentes.clear();
+    }
+
+    private static <T> Map<UUID, T> buscarPorIds(List<ConsultaRequest> requisicoes, Function<ConsultaRequest, UUID> id,
+                                                 Function<List<UUID>, List<T>> busca, Function<T, UUID> idDaEntidade) {
+        Set<UUID> ids = requisicoes.stream().map(id).filter(Objects::nonNull).collect(Collectors.toCollection(LinkedHashSet::new));
+        List<UUID> pendentes = new ArrayList<>(ids);
+
+        Map<UUID, T> encontrados = new HashMap<>();
+        for (int inicio = 0; inicio < pendentes.size(); inicio += TAMANHO_LISTA_IN) {
+            List<UUID> parte = pendentes.subList(inicio, Math.min(inicio + TAMANHO_LISTA_IN, pendentes.size()));
+            for (T entidade : busca.apply(parte)) {
+                encontrados.put(idDaEntidade.apply(entidade), entidade);
+            }
         }
+        return encontrados;
+    }
 
-        if (pacienteId != null) {
-            // Busca somente por pacienteId
-            return consultaRepository.findByPacienteId(pacienteId);
+    // Só os filtros informados entram, combinados com AND; a data é o intervalo [de, ate).
+    // Médico e paciente vêm na mesma instrução, ordenado por (data_consulta, id).
+    @Transactional(readOnly = true)
+    public Page<Consulta> listarConsultas(UUID consultaId, UUID pacienteId, UUID medicoId, StatusConsulta status,
+                                          LocalDateTime de, LocalDateTime ate, Integer pagina, Integer tamanho) {
+        return Filtro.<Consulta>novo()
+                .igual("id", consultaId)
+                .igual("paciente_id.id", pacienteId)
+                .igual("medico_id.id", medicoId)
+                .igual("status_consulta", status)
+                .aPartirDe("data_consulta", de)
+                .antesDe("data_consulta", ate)
+                .buscarJunto("medico_id", "paciente_id")
+                .buscar(consultaRepository, Sort.by("data_consulta", "id"), pagina, tamanho);
+    }
+
+    // Percorre uma página ordenada por (data_consulta, id), repassando cada consulta ao consumidor
+    // à medida que é lida do banco. Retorna o cursor da próxima página ou null quando não há mais registros.
+    @Transactional(readOnly = true)
+    public String percorrerConsultas(UUID pacienteId, UUID medicoId, String cursor, int limite, Consumer<Consulta> consumidor) {
+        ConsultaCursor inicio = cursor != null ? ConsultaCursor.decodificar(cursor) : null;
+        Pageable pagina = PageRequest.of(0, limite);
+
+        Consulta ultima = null;
+        int lidas = 0;
+        try (Stream<Consulta> consultas = abrirPagina(pacienteId, medicoId, inicio, pagina)) {
+            Iterator<Consulta> iterator = consultas.iterator();
+            while (iterator.hasNext()) {
+                ultima = iterator.next();
+                consumidor.accept(ultima);
+                lidas++;
+            }
+        }
+
+        if (ultima == null || lidas < limite) {
+            return null;
         }
+        return new ConsultaCursor(ultima.getData_consulta(), ultima.getId()).codificar();
+    }
 
+    private Stream<Consulta> abrirPagina(UUID pacienteId, UUID medicoId, ConsultaCursor inicio, Pageable pagina) {
         if (medicoId != null) {
-            // Busca somente por medicoId
-            return consultaRepository.findByMedicoId(medicoId);
+            return inicio == null
+                    ? consultaRepository.streamPrimeiraPaginaPorMedico(medicoId, pagina)
+                    : consultaRepository.streamPaginaPorMedicoApos(medicoId, inicio.getDataConsulta(), inicio.getId(), pagina);
         }
 
-        // Se nenhum filtro for fornecido, retorna todas as consultas
-        return consultaRepository.findAll();
+        if (pacienteId != null) {
+            return inicio == null
+                    ? consultaRepository.streamPrimeiraPaginaPorPaciente(pacienteId, pagina)
+                    : consultaRepository.streamPaginaPorPacienteApos(pacienteId, inicio.getDataConsulta(), inicio.getId(), pagina);
+        }
+
+        return inicio == null
+                ? consultaRepository.streamPrimeiraPagina(pagina)
+                : consultaRepository.streamPaginaApos(inicio.getDataConsulta(), inicio.getId(), pagina);
     }
 
 
 
+    // Limites usados quando a exportação não informa 'de' ou 'ate'
+    private static final LocalDateTime INICIO_EXPORTACAO = LocalDateTime.of(1900, 1, 1, 0, 0);
+    private static final LocalDateTime FIM_EXPORTACAO = LocalDateTime.of(9999, 12, 31, 0, 0);
+
+    // Escreve as consultas do intervalo na saída enquanto o cursor avança; a transação mantém o cursor aberto
+    @Transactional(readOnly = true)
+    public long exportarConsultas(LocalDateTime de, LocalDateTime ate, FormatoExportacao formato, OutputStream saida) throws IOException {
+        try (Stream<LinhaExportacao> linhas = consultaRepository.streamExportacao(
+                de != null ? de : INICIO_EXPORTACAO, ate != null ? ate : FIM_EXPORTACAO)) {
+            return exportadorConsultas.escrever(formato, linhas.iterator(), saida);
+        }
+    }
+
+    // Agenda do médico entre duas datas, opcionalmente filtrada pelo status
+    @Transactional(readOnly = true)
+    public List<ItemAgenda> listarAgendaDoMedico(UUID medicoId, LocalDateTime de, LocalDateTime ate, StatusConsulta status) {
+        if (status == null) {
+            return consultaRepository.findAgendaDoMedico(medicoId, de, ate);
+        }
+
+        if (status == StatusConsulta.AGENDADA) {
+            return consultaRepository.findAgendaAgendadaDoMedico(medicoId, de, ate);
+        }
+
+        return consultaRepository.findAgendaDoMedicoPorStatus(medicoId, de, ate, status);
+    }
+
+    @Transactional(readOnly = true)
     public Consulta buscarConsultaPorId(UUID id) {
 
         return consultaRepository.findById(id)
@@ -73,31 +300,96 @@ public class ConsultaService {
 
     @Transactional
     public Consulta atualizarConsulta(UUID id, Consulta consultaAtualizada) {
-        try {
-            return consultaRepository.save(consultaAtualizada);
+        // Estado gravado antes da alteração; se outra requisição alterar a consulta no meio tempo,
+        // a versão recusa esta gravação e as estatísticas não mudam
+        EstadoConsulta anterior = consultaRepository.findEstadoById(id).orElse(null);
 
-        } catch (IllegalArgumentException e) {
-            throw new ConsultaAgendamentoException("Erro ao atualizar consulta: " + e.getMessage());
+        // Remarca (ou libera) o horário conforme a nova data, médico e status
+        disponibilidadeService.reservar(consultaAtualizada);
+        Consulta salva = gravar(consultaAtualizada, "Erro ao tentar atualizar consulta: ");
+
+        VariacaoEstatisticas variacao = new VariacaoEstatisticas();
+        if (anterior != null) {
+            variacao.remover(anterior.getMedicoId(), anterior.getDataConsulta(), anterior.getStatus());
+        }
+        variacao.adicionar(salva);
+        estatisticasConsultaService.aplicar(variacao);
+        lembreteService.atualizarLembretes(Collections.singletonList(salva));
+        eventosAlteracaoService.registrar(RecursoEvento.CONSULTA, salva.getId(), OperacaoEvento.ALTERADO);
+        return salva;
+    }
+
+    // O flush faz o banco validar a gravação aqui, e não só no commit, para que o índice único e a versão
+    // da consulta virem ConsultaAgendamentoException
+    private Consulta gravar(Consulta consulta, String mensagemErro) {
+        try {
+            return consultaRepository.saveAndFlush(consulta);
 
         } catch (DataIntegrityViolationException e) {
+            if (violouHorarioUnico(e)) {
+                throw new ConsultaAgendamentoException("O médico já possui uma consulta agendada neste horário.");
+            }
             throw new DataIntegrityViolationException("Erro de integridade de dados: " + e.getMessage());
 
+        } catch (OptimisticLockingFailureException e) {
+            throw new ConsultaAgendamentoException("A consulta foi alterada por outra requisição. Consulte os dados atuais e tente novamente.");
+
+        } catch (IllegalArgumentException e) {
+            throw new ConsultaAgendamentoException("Erro ao validar consulta: " + e.getMessage());
+
         } catch (Exception e) {
-            throw new RuntimeException("Erro ao tentar atualizar consulta: " + e.getMessage());
+            throw new RuntimeException(mensagemErro + e.getMessage());
         }
     }
 
+    // Violação de unicidade (SQLState 23505) informada pelo PostgreSQL no índice de horário agendado
+    private static boolean violouHorarioUnico(DataIntegrityViolationException e) {
+        PSQLException erro = erroDoPostgres(e);
+        if (erro == null || !PSQLState.UNIQUE_VIOLATION.getState().equals(erro.getSQLState()) || erro.getServerErrorMessage() == null) {
+            return false;
+        }
+
+        String indice = erro.getServerErrorMessage().getConstraint();
+        return indice != null && indice.startsWith(INDICE_HORARIO_AGENDADO_PREFIXO) && indice.endsWith(INDICE_HORARIO_AGENDADO_SUFIXO);
+    }
+
+    // Com inserts em lote o driver entrega uma BatchUpdateException, que leva o erro do servidor como próxima exceção
+    private static PSQLException erroDoPostgres(Throwable erro) {
+        for (Throwable atual = erro; atual != null; atual = atual.getCause()) {
+            if (atual instanceof PSQLException) {
+                return (PSQLException) atual;
+            }
+            if (atual instanceof SQLException && ((SQLException) atual).getNextException() instanceof PSQLException) {
+                return (PSQLException) ((SQLException) atual).getNextException();
+            }
+        }
+        return null;
+    }
+
     @Transactional
     public void cancelarConsulta(UUID id) {
         try {
-            Consulta consulta = consultaRepository.findById(id)
+            // Só o ID é conhecido: a leitura passa por todas as partições, mas sem carregar médico e paciente
+            EstadoConsulta consulta = consultaRepository.findEstadoById(id)
                     .orElseThrow(() -> new ConsultaNotFoundException("Consulta não encontrada para o ID fornecido."));
-            // Alterando o status para "Cancelada"
-            consulta.setStatus_consulta(StatusConsulta.CANCELADA);
-            consultaRepository.save(consulta);
+            // Alterando o status para "Cancelada" direto na partição do mês da consulta
+            int alteradas = consultaRepository.atualizarStatus(id, consulta.getDataConsulta(), consulta.getVersao(), StatusConsulta.CANCELADA);
+            if (alteradas == 0) {
+                throw new ConsultaAgendamentoException("A consulta foi alterada por outra requisição. Tente novamente.");
+            }
+            disponibilidadeService.liberar(id);
+            lembreteService.removerLembretes(id);
+
+            VariacaoEstatisticas variacao = new VariacaoEstatisticas();
+            variacao.remover(consulta.getMedicoId(), consulta.getDataConsulta(), consulta.getStatus());
+            variacao.adicionar(consulta.getMedicoId(), consulta.getDataConsulta(), StatusConsulta.CANCELADA);
+            estatisticasConsultaService.aplicar(variacao);
+            eventosAlteracaoService.registrar(RecursoEvento.CONSULTA, id, OperacaoEvento.ALTERADO);
 
+        } catch (ErroDominioException e) {
+            throw e;
         } catch (Exception e) {
-            throw new RuntimeException("Erro ao tentar cancelar consulta: " + e.getMessage());
+            throw new RuntimeException("Erro ao tentar cancelar consulta: " + e.getMessage(), e);
         }
     }
 }
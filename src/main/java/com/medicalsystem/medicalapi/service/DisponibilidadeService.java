@@ -0,0 +1,324 @@
+package com.medicalsystem.medicalapi.service;
+
+import com.medicalsystem.medicalapi.constant.StatusConsulta;
+import com.medicalsystem.medicalapi.entity.Consulta;
+import com.medicalsystem.medicalapi.entity.HorarioAtendimento;
+import com.medicalsystem.medicalapi.entity.Medico;
+import com.medicalsystem.medicalapi.exception.ConsultaAgendamentoException;
+import com.medicalsystem.medicalapi.exception.MedicoNotFoundException;
+import com.medicalsystem.medicalapi.model.HorarioLivre;
+import com.medicalsystem.medicalapi.model.HorarioOcupado;
+import com.medicalsystem.medicalapi.repository.ConsultaRepository;
+import com.medicalsystem.medicalapi.repository.HorarioAtendimentoRepository;
+import com.medicalsystem.medicalapi.repository.MedicoRepository;
+import lombok.Value;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.medicalsystem.medicalapi.service.AgendaMedico.DURACAO_SLOT_MINUTOS;
+
+@Service
+public class DisponibilidadeService {
+
+    private static final int HORIZONTE_BUSCA_DIAS = 90;
+    private static final LocalTime INICIO_EXPEDIENTE_PADRAO = LocalTime.of(8, 0);
+    private static final LocalTime FIM_EXPEDIENTE_PADRAO = LocalTime.of(18, 0);
+
+    @Autowired
+    private MedicoRepository medicoRepository;
+
+    @Autowired
+    private HorarioAtendimentoRepository horarioAtendimentoRepository;
+
+    @Autowired
+    private ConsultaRepository consultaRepository;
+
+    private final Map<UUID, AgendaMedico> agendas = new ConcurrentHashMap<>();
+    private final Map<String, Set<UUID>> medicosPorEspecialidade = new ConcurrentHashMap<>();
+
+    // Horário ocupado por cada consulta agendada, para liberar ou remarcar sem consultar o banco
+    private final Map<UUID, Reserva> reservas = new ConcurrentHashMap<>();
+
+    // Lê do primário (transação sem readOnly): uma réplica atrasada deixaria de fora agendamentos recentes
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void carregarAgendas() {
+        Map<UUID, List<HorarioAtendimento>> horarios = horarioAtendimentoRepository.findAll().stream()
+                .collect(Collectors.groupingBy(HorarioAtendimento::getMedicoId));
+
+        for (Medico medico : medicoRepository.findAll()) {
+            registrar(medico, horarios.getOrDefault(medico.getId(), Collections.emptyList()));
+        }
+
+        LocalDateTime inicio = LocalDate.now().atStartOfDay();
+        try (Stream<HorarioOcupado> ocupados = consultaRepository.streamHorariosOcupados(StatusConsulta.AGENDADA, inicio)) {
+            ocupados.forEach(horario -> {
+                AgendaMedico agenda = agendas.get(horario.getMedicoId());
+                if (agenda != null) {
+                    Reserva reserva = new Reserva(agenda.getMedicoId(),
+                            horario.getDataConsulta().toLocalDate().toEpochDay(),
+                            slotDe(horario.getDataConsulta().toLocalTime()));
+                    agenda.ocupar(reserva.getDia(), reserva.getSlot());
+                    reservas.put(horario.getId(), reserva);
+                }
+            });
+        }
+    }
+
+    // Atualiza expediente e especialidade do médico na agenda em memória
+    public void registrarMedico(Medico medico) {
+        registrar(medico, horarioAtendimentoRepository.findByMedicoId(medico.getId()));
+    }
+
+    public void removerMedico(UUID medicoId) {
+        AgendaMedico agenda = agendas.remove(medicoId);
+        if (agenda != null && agenda.getEspecialidade() != null) {
+            medicosPorEspecialidade.getOrDefault(agenda.getEspecialidade(), Collections.emptySet()).remove(medicoId);
+        }
+    }
+
+    // Ocupa o horário da consulta (ou o libera, se ela não estiver mais agendada).
+    // Se a transação corrente for desfeita, a agenda volta ao estado anterior.
+    public void reservar(Consulta consulta) {
+        if (consulta.getStatus_consulta() != StatusConsulta.AGENDADA || consulta.getData_consulta() == null) {
+            liberar(consulta.getId());
+            return;
+        }
+
+        LocalDateTime data = consulta.getData_consulta();
+        if (!alinhadoAoSlot(data.toLocalTime())) {
+            throw new ConsultaAgendamentoException("O horário da consulta deve iniciar em intervalos de " + DURACAO_SLOT_MINUTOS + " minutos.");
+        }
+
+        AgendaMedico agenda = obterAgenda(consulta.getMedico_id());
+        UUID consultaId = consulta.getId();
+        Reserva nova = new Reserva(agenda.getMedicoId(), data.toLocalDate().toEpochDay(), slotDe(data.toLocalTime()));
+        Reserva anterior = reservas.get(consultaId);
+        if (nova.equals(anterior)) {
+            return;
+        }
+
+        switch (agenda.reservar(nova.getDia(), nova.getSlot())) {
+            case FORA_DO_EXPEDIENTE:
+                throw new ConsultaAgendamentoException("O médico não atende no horário solicitado.");
+            case OCUPADO:
+                throw new ConsultaAgendamentoException("O médico já possui uma consulta agendada neste horário.");
+            default:
+                break;
+        }
+
+        reservas.put(consultaId, nova);
+        if (anterior != null) {
+            desocupar(anterior);
+        }
+
+        aoDesfazerTransacao(() -> {
+            desocupar(nova);
+            if (anterior != null) {
+                ocupar(anterior);
+                reservas.put(consultaId, anterior);
+            } else {
+                reservas.remove(consultaId, nova);
+            }
+        });
+    }
+
+    public void liberar(UUID consultaId) {
+        if (consultaId == null) {
+            return;
+        }
+
+        Reserva anterior = reservas.remove(consultaId);
+        if (anterior == null) {
+            return;
+        }
+
+        desocupar(anterior);
+        aoDesfazerTransacao(() -> {
+            ocupar(anterior);
+            reservas.put(consultaId, anterior);
+        });
+    }
+
+    public List<HorarioLivre> proximosHorariosLivres(UUID medicoId, LocalDateTime aPartirDe, int quantidade) {
+        AgendaMedico agenda = agendas.get(medicoId);
+        if (agenda == null) {
+            throw new MedicoNotFoundException();
+        }
+        return buscarHorariosLivres(Collections.singletonList(agenda), aPartirDe, quantidade);
+    }
+
+    public List<HorarioLivre> proximosHorariosLivresPorEspecialidade(String especialidade, LocalDateTime aPartirDe, int quantidade) {
+        List<AgendaMedico> candidatas = new ArrayList<>();
+        for (UUID medicoId : medicosPorEspecialidade.getOrDefault(chaveEspecialidade(especialidade), Collections.emptySet())) {
+            AgendaMedico agenda = agendas.get(medicoId);
+            if (agenda != null) {
+                candidatas.add(agenda);
+            }
+        }
+        return buscarHorariosLivres(candidatas, aPartirDe, quantidade);
+    }
+
+    // Os dias que já passaram não são mais consultados
+    @Scheduled(cron = "0 5 0 * * *")
+    public void descartarDiasPassados() {
+        long hoje = LocalDate.now().toEpochDay();
+        agendas.values().forEach(agenda -> agenda.descartarAntesDe(hoje));
+        reservas.values().removeIf(reserva -> reserva.getDia() < hoje);
+    }
+
+    private List<HorarioLivre> buscarHorariosLivres(List<AgendaMedico> candidatas, LocalDateTime aPartirDe, int quantidade) {
+        List<HorarioLivre> livres = new ArrayList<>(quantidade);
+        if (candidatas.isEmpty()) {
+            return livres;
+        }
+
+        long primeiroDia = aPartirDe.toLocalDate().toEpochDay();
+        LocalTime hora = aPartirDe.toLocalTime();
+        int primeiroSlot = slotDe(hora) + (alinhadoAoSlot(hora) ? 0 : 1);
+        long[] mascaras = new long[candidatas.size()];
+
+        for (long dia = primeiroDia; dia < primeiroDia + HORIZONTE_BUSCA_DIAS && livres.size() < quantidade; dia++) {
+            long uniao = 0;
+            for (int i = 0; i < mascaras.length; i++) {
+                mascaras[i] = candidatas.get(i).livres(dia);
+                if (dia == primeiroDia) {
+                    mascaras[i] &= ~((1L << primeiroSlot) - 1);
+                }
+                uniao |= mascaras[i];
+            }
+
+            // Percorre os slots livres do dia em ordem, do mais cedo para o mais tarde
+            while (uniao != 0 && livres.size() < quantidade) {
+                int slot = Long.numberOfTrailingZeros(uniao);
+                uniao &= uniao - 1;
+                LocalDateTime inicio = LocalDate.ofEpochDay(dia).atStartOfDay().plusMinutes((long) slot * DURACAO_SLOT_MINUTOS);
+
+                for (int i = 0; i < mascaras.length && livres.size() < quantidade; i++) {
+                    if ((mascaras[i] & (1L << slot)) != 0) {
+                        livres.add(new HorarioLivre(candidatas.get(i).getMedicoId(), inicio));
+                    }
+                }
+            }
+        }
+        return livres;
+    }
+
+    private AgendaMedico obterAgenda(Medico medico) {
+        AgendaMedico agenda = agendas.get(medico.getId());
+        if (agenda == null) {
+            registrarMedico(medico);
+            agenda = agendas.get(medico.getId());
+        }
+        return agenda;
+    }
+
+    private void registrar(Medico medico, List<HorarioAtendimento> horarios) {
+        AgendaMedico agenda = agendas.computeIfAbsent(medico.getId(), AgendaMedico::new);
+        agenda.definirExpediente(montarExpediente(horarios));
+
+        String anterior = agenda.getEspecialidade();
+        String atual = chaveEspecialidade(medico.getEspecialidade());
+        if (anterior != null && !anterior.equals(atual)) {
+            medicosPorEspecialidade.getOrDefault(anterior, Collections.emptySet()).remove(medico.getId());
+        }
+        medicosPorEspecialidade.computeIfAbsent(atual, chave -> ConcurrentHashMap.newKeySet()).add(medico.getId());
+        agenda.setEspecialidade(atual);
+    }
+
+    private static long[] montarExpediente(List<HorarioAtendimento> horarios) {
+        long[] expediente = new long[8];
+        if (horarios.isEmpty()) {
+            long padrao = mascaraDoIntervalo(INICIO_EXPEDIENTE_PADRAO, FIM_EXPEDIENTE_PADRAO);
+            for (int dia = DayOfWeek.MONDAY.getValue(); dia <= DayOfWeek.FRIDAY.getValue(); dia++) {
+                expediente[dia] = padrao;
+            }
+            return expediente;
+        }
+
+        for (HorarioAtendimento horario : horarios) {
+            expediente[horario.getDiaSemana()] |= mascaraDoIntervalo(horario.getHoraInicio(), horario.getHoraFim());
+        }
+        return expediente;
+    }
+
+    // Slots inteiramente contidos no intervalo [inicio, fim)
+    private static long mascaraDoIntervalo(LocalTime inicio, LocalTime fim) {
+        int primeiro = slotDe(inicio) + (alinhadoAoSlot(inicio) ? 0 : 1);
+        int ultimo = fim.equals(LocalTime.MIDNIGHT) ? AgendaMedico.SLOTS_POR_DIA : slotDe(fim);
+        long mascara = 0;
+        for (int slot = primeiro; slot < ultimo; slot++) {
+            mascara |= 1L << slot;
+        }
+        return mascara;
+    }
+
+    private static int slotDe(LocalTime hora) {
+        return (hora.getHour() * 60 + hora.getMinute()) / DURACAO_SLOT_MINUTOS;
+    }
+
+    private static boolean alinhadoAoSlot(LocalTime hora) {
+        return hora.getMinute() % DURACAO_SLOT_MINUTOS == 0 && hora.getSecond() == 0 && hora.getNano() == 0;
+    }
+
+    private static String chaveEspecialidade(String especialidade) {
+        return especialidade == null ? "" : especialidade.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private void ocupar(Reserva reserva) {
+        AgendaMedico agenda = agendas.get(reserva.getMedicoId());
+        if (agenda != null) {
+            agenda.ocupar(reserva.getDia(), reserva.getSlot());
+        }
+    }
+
+    private void desocupar(Reserva reserva) {
+        AgendaMedico agenda = agendas.get(reserva.getMedicoId());
+        if (agenda != null) {
+            agenda.liberar(reserva.getDia(), reserva.getSlot());
+        }
+    }
+
+    private static void aoDesfazerTransacao(Runnable acao) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    acao.run();
+                }
+            }
+        });
+    }
+
+    @Value
+    private static class Reserva {
+        UUID medicoId;
+        long dia;
+        int slot;
+    }
+}
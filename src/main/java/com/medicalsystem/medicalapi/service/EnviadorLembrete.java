@@ -0,0 +1,13 @@
+package com.medicalsystem.medicalapi.service;
+
+import com.medicalsystem.medicalapi.model.Lembrete;
+
+import java.util.List;
+
+// Canal de envio dos lembretes de consulta (SMS, e-mail...). Recebe os lembretes em lotes e retorna os que
+// não puderam ser enviados, que o LembreteService tenta de novo mais tarde. Uma exceção conta como falha do lote inteiro.
+// A implementação ativa é escolhida por lembretes.enviador.
+public interface EnviadorLembrete {
+
+    List<Lembrete> enviar(List<Lembrete> lote);
+}
@@ -0,0 +1,26 @@
+package com.medicalsystem.medicalapi.service;
+
+import com.medicalsystem.medicalapi.model.Lembrete;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.List;
+
+// Enviador padrão enquanto não há um provedor de SMS e e-mail configurado: só registra cada lembrete no log
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "lembretes.enviador", havingValue = "registro", matchIfMissing = true)
+public class EnviadorLembreteRegistro implements EnviadorLembrete {
+
+    @Override
+    public List<Lembrete> enviar(List<Lembrete> lote) {
+        for (Lembrete lembrete : lote) {
+            log.info("Lembrete {} da consulta {} em {}: SMS para {} ({}), e-mail para {} ({})",
+                    lembrete.getAntecedencia(), lembrete.getConsultaId(), lembrete.getDataConsulta(),
+                    lembrete.getContatoPaciente(), lembrete.getNomePaciente(), lembrete.getEmailMedico(), lembrete.getNomeMedico());
+        }
+        return Collections.emptyList();
+    }
+}
@@ -0,0 +1,150 @@
+package com.medicalsystem.medicalapi.service;
+
+import com.medicalsystem.medicalapi.constant.PeriodoEstatistica;
+import com.medicalsystem.medicalapi.model.EstatisticaConsultas;
+import com.medicalsystem.medicalapi.service.VariacaoEstatisticas.ChaveDia;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+// Estatísticas de consultas por status, pré-agregadas por médico e pela clínica, por dia e por mês (V8).
+// As gravações de consulta somam a própria variação na mesma transação, então ler um período é
+// ler uma linha (médico) ou até FATIAS_CLINICA linhas (clínica), sem percorrer a tabela consulta.
+@Service
+public class EstatisticasConsultaService {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Mesmo valor citado na V8
+    static final int FATIAS_CLINICA = 16;
+
+    // Máximo de dias ou meses numa consulta às estatísticas
+    public static final int LIMITE_MAXIMO_PERIODOS = 366;
+
+    private static final String SOMAR_MEDICO = "INSERT INTO estatistica_medico " +
+            "(medico_id, periodo, inicio, agendadas, canceladas, concluidas) VALUES (?, ?, ?, ?, ?, ?) " +
+            "ON CONFLICT (medico_id, periodo, inicio) DO UPDATE SET " +
+            "agendadas = estatistica_medico.agendadas + EXCLUDED.agendadas, " +
+            "canceladas = estatistica_medico.canceladas + EXCLUDED.canceladas, " +
+            "concluidas = estatistica_medico.concluidas + EXCLUDED.concluidas";
+
+    private static final String SOMAR_CLINICA = "INSERT INTO estatistica_clinica " +
+            "(periodo, inicio, fatia, agendadas, canceladas, concluidas) VALUES (?, ?, ?, ?, ?, ?) " +
+            "ON CONFLICT (periodo, inicio, fatia) DO UPDATE SET " +
+            "agendadas = estatistica_clinica.agendadas + EXCLUDED.agendadas, " +
+            "canceladas = estatistica_clinica.canceladas + EXCLUDED.canceladas, " +
+            "concluidas = estatistica_clinica.concluidas + EXCLUDED.concluidas";
+
+    private static final RowMapper<EstatisticaConsultas> LINHA = (rs, numero) -> new EstatisticaConsultas(
+            rs.getDate("inicio").toLocalDate(), rs.getLong("agendadas"), rs.getLong("canceladas"), rs.getLong("concluidas"));
+
+    // Só grava dentro da transação que alterou as consultas: se ela for desfeita, os contadores também são
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void aplicar(VariacaoEstatisticas variacao) {
+        if (variacao.isVazia()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(SOMAR_MEDICO, linhasMedico(variacao));
+        jdbcTemplate.batchUpdate(SOMAR_CLINICA, linhasClinica(variacao));
+    }
+
+    // Períodos que começam em [de, ate); períodos sem consultas não aparecem
+    @Transactional(readOnly = true)
+    public List<EstatisticaConsultas> estatisticasDoMedico(UUID medicoId, PeriodoEstatistica periodo, LocalDate de, LocalDate ate) {
+        return jdbcTemplate.query("SELECT inicio, agendadas, canceladas, concluidas FROM estatistica_medico " +
+                        "WHERE medico_id = ? AND periodo = ? AND inicio >= ? AND inicio < ? ORDER BY inicio",
+                LINHA, medicoId, periodo.getCodigo(), Date.valueOf(periodo.inicioDo(de)), Date.valueOf(ate));
+    }
+
+    @Transactional(readOnly = true)
+    public List<EstatisticaConsultas> estatisticasDaClinica(PeriodoEstatistica periodo, LocalDate de, LocalDate ate) {
+        return jdbcTemplate.query("SELECT inicio, sum(agendadas) AS agendadas, sum(canceladas) AS canceladas, " +
+                        "sum(concluidas) AS concluidas FROM estatistica_clinica " +
+                        "WHERE periodo = ? AND inicio >= ? AND inicio < ? GROUP BY inicio ORDER BY inicio",
+                LINHA, periodo.getCodigo(), Date.valueOf(periodo.inicioDo(de)), Date.valueOf(ate));
+    }
+
+    // Recalcula tudo a partir das consultas (inclusive as arquivadas) e retorna quantas foram contadas
+    @Transactional
+    public long reconstruir() {
+        Long total = jdbcTemplate.queryForObject("SELECT reconstruir_estatisticas_consulta()", Long.class);
+        return total != null ? total : 0;
+    }
+
+    // Linhas de todos os dias e depois de todos os meses, cada grupo em ordem de médico e data:
+    // duas transações que tocam as mesmas linhas as bloqueiam na mesma ordem e não entram em deadlock
+    static List<Object[]> linhasMedico(VariacaoEstatisticas variacao) {
+        Map<ChaveDia, int[]> porMes = new TreeMap<>();
+        List<Object[]> linhas = new ArrayList<>();
+
+        for (Map.Entry<ChaveDia, int[]> entrada : variacao.porDia().entrySet()) {
+            ChaveDia chave = entrada.getKey();
+            somar(porMes.computeIfAbsent(new ChaveDia(chave.medicoId, PeriodoEstatistica.MES.inicioDo(chave.dia)),
+                    mes -> new int[VariacaoEstatisticas.CONTADORES]), entrada.getValue());
+            adicionarLinha(linhas, chave.medicoId, PeriodoEstatistica.DIA, chave.dia, entrada.getValue());
+        }
+        for (Map.Entry<ChaveDia, int[]> entrada : porMes.entrySet()) {
+            adicionarLinha(linhas, entrada.getKey().medicoId, PeriodoEstatistica.MES, entrada.getKey().dia, entrada.getValue());
+        }
+        return linhas;
+    }
+
+    static List<Object[]> linhasClinica(VariacaoEstatisticas variacao) {
+        Map<LocalDate, int[][]> porDia = new TreeMap<>();
+        Map<LocalDate, int[][]> porMes = new TreeMap<>();
+
+        for (Map.Entry<ChaveDia, int[]> entrada : variacao.porDia().entrySet()) {
+            ChaveDia chave = entrada.getKey();
+            int fatia = fatia(chave.medicoId);
+            somar(porDia.computeIfAbsent(chave.dia, dia -> new int[FATIAS_CLINICA][VariacaoEstatisticas.CONTADORES])[fatia],
+                    entrada.getValue());
+            somar(porMes.computeIfAbsent(PeriodoEstatistica.MES.inicioDo(chave.dia),
+                    mes -> new int[FATIAS_CLINICA][VariacaoEstatisticas.CONTADORES])[fatia], entrada.getValue());
+        }
+
+        List<Object[]> linhas = new ArrayList<>();
+        adicionarLinhasClinica(linhas, PeriodoEstatistica.DIA, porDia);
+        adicionarLinhasClinica(linhas, PeriodoEstatistica.MES, porMes);
+        return linhas;
+    }
+
+    static int fatia(UUID medicoId) {
+        return Math.floorMod(medicoId.hashCode(), FATIAS_CLINICA);
+    }
+
+    private static void adicionarLinhasClinica(List<Object[]> linhas, PeriodoEstatistica periodo, Map<LocalDate, int[][]> porInicio) {
+        for (Map.Entry<LocalDate, int[][]> entrada : porInicio.entrySet()) {
+            int[][] fatias = entrada.getValue();
+            for (int fatia = 0; fatia < fatias.length; fatia++) {
+                if (!VariacaoEstatisticas.zerados(fatias[fatia])) {
+                    linhas.add(new Object[]{periodo.getCodigo(), Date.valueOf(entrada.getKey()), fatia,
+                            fatias[fatia][0], fatias[fatia][1], fatias[fatia][2]});
+                }
+            }
+        }
+    }
+
+    private static void adicionarLinha(List<Object[]> linhas, UUID medicoId, PeriodoEstatistica periodo, LocalDate inicio, int[] contadores) {
+        if (!VariacaoEstatisticas.zerados(contadores)) {
+            linhas.add(new Object[]{medicoId, periodo.getCodigo(), Date.valueOf(inicio), contadores[0], contadores[1], contadores[2]});
+        }
+    }
+
+    private static void somar(int[] total, int[] parcela) {
+        for (int i = 0; i < total.length; i++) {
+            total[i] += parcela[i];
+        }
+    }
+}
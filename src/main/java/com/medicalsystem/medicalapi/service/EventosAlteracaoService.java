@@ -0,0 +1,244 @@
+package com.medicalsystem.medicalapi.service;
+
+import com.medicalsystem.medicalapi.config.Bulkhead;
+import com.medicalsystem.medicalapi.constant.OperacaoEvento;
+import com.medicalsystem.medicalapi.constant.RecursoEvento;
+import com.medicalsystem.medicalapi.model.EventoAlteracao;
+import com.medicalsystem.medicalapi.model.FeedEventos;
+import com.medicalsystem.medicalapi.utils.TransacaoUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Feed de alterações de consultas, médicos e pacientes (outbox, V12). Cada gravação registra o evento na própria
+// transação; depois do commit o publicador numera os eventos confirmados (posicao) e acorda quem espera em
+// GET /eventos. Os consumidores leem a partir da última posição recebida: o custo de sincronizar acompanha
+// a quantidade de alterações, não o tamanho das tabelas.
+@Slf4j
+@Service
+public class EventosAlteracaoService implements DisposableBean {
+
+    private static final String REGISTRAR = "INSERT INTO evento_alteracao (recurso, recurso_id, operacao) VALUES (?, ?, ?)";
+
+    // Numera os eventos confirmados que ainda não têm posição, na ordem em que foram gravados
+    private static final String PUBLICAR = "UPDATE evento_alteracao e SET posicao = p.posicao FROM (" +
+            "SELECT id, nextval('evento_alteracao_posicao_seq') AS posicao FROM (" +
+            "SELECT id FROM evento_alteracao WHERE posicao IS NULL ORDER BY id LIMIT ?) pendentes) p " +
+            "WHERE e.id = p.id";
+
+    private static final String LER = "SELECT posicao, recurso, recurso_id, operacao, registrado_em " +
+            "FROM evento_alteracao WHERE posicao > ? ORDER BY posicao LIMIT ?";
+
+    // Chave do pg_advisory_xact_lock: um publicador de cada vez, entre todas as instâncias da aplicação
+    private static final long TRAVA_PUBLICACAO = 0x45564e54L;
+
+    private static final RowMapper<EventoAlteracao> LINHA = (rs, numero) -> new EventoAlteracao(
+            rs.getLong("posicao"),
+            RecursoEvento.valueOf(rs.getString("recurso")),
+            (UUID) rs.getObject("recurso_id"),
+            OperacaoEvento.valueOf(rs.getString("operacao")),
+            rs.getTimestamp("registrado_em").toLocalDateTime());
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Bulkhead bulkhead;
+    private final int lotePublicacao;
+    private final int retencaoDias;
+    private final Counter publicados;
+
+    // Publicação e prazos das esperas; uma thread basta, cada publicação é uma transação curta
+    private final ScheduledExecutorService publicador = Executors.newSingleThreadScheduledExecutor(tarefa -> {
+        Thread thread = new Thread(tarefa, "eventos-publicacao");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicBoolean publicacaoAgendada = new AtomicBoolean();
+    private final AtomicLong ultimaPublicada = new AtomicLong();
+    private final Queue<Espera> esperas = new ConcurrentLinkedQueue<>();
+
+    public EventosAlteracaoService(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, Bulkhead bulkhead,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${eventos.lote-publicacao}") int lotePublicacao,
+                                   @Value("${eventos.retencao-dias}") int retencaoDias) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.bulkhead = bulkhead;
+        this.lotePublicacao = lotePublicacao;
+        this.retencaoDias = retencaoDias;
+        this.publicados = Counter.builder("eventos.publicados")
+                .description("Eventos de alteração numerados e liberados no feed")
+                .register(meterRegistry);
+    }
+
+    // Só grava dentro da transação que alterou os dados: se ela for desfeita, os eventos também são
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrar(RecursoEvento recurso, UUID id, OperacaoEvento operacao) {
+        registrar(recurso, Collections.singletonList(id), operacao);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrar(RecursoEvento recurso, Collection<UUID> ids, OperacaoEvento operacao) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        List<Object[]> linhas = new ArrayList<>(ids.size());
+        for (UUID id : ids) {
+            linhas.add(new Object[]{recurso.name(), id, operacao.name()});
+        }
+        jdbcTemplate.batchUpdate(REGISTRAR, linhas);
+        TransacaoUtils.aposConfirmar(this::notificar);
+    }
+
+    // Pede uma publicação logo após um commit. Vários commits seguidos viram uma só publicação; um commit
+    // durante a publicação agenda a seguinte, então nenhum evento fica esperando o ciclo de eventos.publicacao-ms
+    public void notificar() {
+        if (publicacaoAgendada.compareAndSet(false, true)) {
+            publicador.execute(() -> {
+                publicacaoAgendada.set(false);
+                try {
+                    publicar();
+                } catch (RuntimeException e) {
+                    log.warn("Falha ao publicar eventos; nova tentativa no próximo ciclo: {}", e.getMessage());
+                }
+            });
+        }
+    }
+
+    // Numera os eventos já confirmados em lotes de eventos.lote-publicacao e atende as esperas.
+    // O ciclo também publica os eventos de outras instâncias e de gravações feitas direto no banco,
+    // e acorda as esperas desta instância com o que outra publicou
+    @Scheduled(fixedDelayString = "${eventos.publicacao-ms}")
+    public synchronized void publicar() {
+        int quantidade;
+        do {
+            quantidade = transactionTemplate.execute(status -> {
+                jdbcTemplate.execute("SELECT pg_advisory_xact_lock(" + TRAVA_PUBLICACAO + ")");
+                return jdbcTemplate.update(PUBLICAR, lotePublicacao);
+            });
+            publicados.increment(quantidade);
+        } while (quantidade == lotePublicacao);
+
+        Long maxima = jdbcTemplate.queryForObject("SELECT max(posicao) FROM evento_alteracao", Long.class);
+        if (maxima != null && maxima > ultimaPublicada.get()) {
+            ultimaPublicada.accumulateAndGet(maxima, Math::max);
+            atenderEsperas(maxima);
+        }
+    }
+
+    // Com eventos depois de 'desde', responde na hora. Sem eventos, espera até esperaMs pelo próximo;
+    // a thread da requisição fica livre durante a espera
+    public CompletableFuture<FeedEventos> aguardar(long desde, int limite, long esperaMs) {
+        if (esperaMs <= 0 || ultimaPublicada.get() > desde) {
+            return bulkhead.listagem(() -> buscar(desde, limite));
+        }
+
+        Espera espera = new Espera(desde, limite);
+        esperas.add(espera);
+        // Uma publicação entre a verificação acima e o add não veria esta espera
+        if (ultimaPublicada.get() > desde && esperas.remove(espera)) {
+            return bulkhead.listagem(() -> buscar(desde, limite));
+        }
+
+        publicador.schedule(() -> {
+            if (esperas.remove(espera)) {
+                espera.resultado.complete(new FeedEventos(Collections.emptyList(), desde));
+            }
+        }, esperaMs, TimeUnit.MILLISECONDS);
+        return espera.resultado;
+    }
+
+    // Lê do primário (fora de transação somente leitura): uma réplica atrasada deixaria a espera sem resposta
+    public FeedEventos buscar(long desde, int limite) {
+        return recortar(jdbcTemplate.query(LER, LINHA, desde, limite), desde, limite);
+    }
+
+    // Posição mais alta já publicada que esta instância conhece
+    public long ultimaPublicada() {
+        return ultimaPublicada.get();
+    }
+
+    // Uma leitura por cursor distinto: quem acompanha o feed costuma esperar a partir da mesma posição
+    private void atenderEsperas(long maxima) {
+        Map<Long, List<Espera>> porCursor = new TreeMap<>();
+        for (Espera espera : esperas) {
+            if (espera.desde < maxima && esperas.remove(espera)) {
+                porCursor.computeIfAbsent(espera.desde, desde -> new ArrayList<>()).add(espera);
+            }
+        }
+
+        for (Map.Entry<Long, List<Espera>> grupo : porCursor.entrySet()) {
+            int limite = 0;
+            for (Espera espera : grupo.getValue()) {
+                limite = Math.max(limite, espera.limite);
+            }
+            try {
+                List<EventoAlteracao> eventos = jdbcTemplate.query(LER, LINHA, grupo.getKey(), limite);
+                for (Espera espera : grupo.getValue()) {
+                    espera.resultado.complete(recortar(eventos, espera.desde, espera.limite));
+                }
+            } catch (RuntimeException e) {
+                for (Espera espera : grupo.getValue()) {
+                    espera.resultado.completeExceptionally(e);
+                }
+            }
+        }
+    }
+
+    private static FeedEventos recortar(List<EventoAlteracao> eventos, long desde, int limite) {
+        List<EventoAlteracao> pagina = eventos.size() > limite ? eventos.subList(0, limite) : eventos;
+        long cursor = pagina.isEmpty() ? desde : pagina.get(pagina.size() - 1).getPosicao();
+        return new FeedEventos(pagina, cursor);
+    }
+
+    // Consumidores parados por mais que a retenção precisam sincronizar de novo pela listagem completa
+    @Scheduled(cron = "0 15 4 * * *")
+    public void removerEventosAntigos() {
+        int removidos = jdbcTemplate.update("DELETE FROM evento_alteracao WHERE posicao IS NOT NULL " +
+                "AND registrado_em < now() - make_interval(days => ?)", retencaoDias);
+        if (removidos > 0) {
+            log.info("{} eventos de alteração anteriores a {} dias removidos", removidos, retencaoDias);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        publicador.shutdownNow();
+    }
+
+    private static final class Espera {
+        final long desde;
+        final int limite;
+        final CompletableFuture<FeedEventos> resultado = new CompletableFuture<>();
+
+        Espera(long desde, int limite) {
+            this.desde = desde;
+            this.limite = limite;
+        }
+    }
+}
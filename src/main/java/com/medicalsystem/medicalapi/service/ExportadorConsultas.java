@@ -0,0 +1,124 @@
+package com.medicalsystem.medicalapi.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.medicalsystem.medicalapi.constant.FormatoExportacao;
+import com.medicalsystem.medicalapi.model.LinhaExportacao;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+
+// Escreve as linhas da exportação uma a uma na saída; nada além do buffer de escrita fica em memória
+@Component
+public class ExportadorConsultas {
+
+    private static final int TAMANHO_BUFFER = 64 * 1024;
+    private static final DateTimeFormatter DATA_HORA = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss");
+    private static final String CABECALHO_CSV = "consulta_id,data_consulta,status,medico_id,medico_nome," +
+            "medico_especialidade,medico_crm,paciente_id,paciente_nome";
+
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter writer;
+
+    public ExportadorConsultas(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.writer = objectMapper.writerFor(LinhaExportacao.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    // Retorna a quantidade de linhas escritas
+    public long escrever(FormatoExportacao formato, Iterator<LinhaExportacao> linhas, OutputStream saida) throws IOException {
+        return formato == FormatoExportacao.CSV ? escreverCsv(linhas, saida) : escreverNdjson(linhas, saida);
+    }
+
+    // Um objeto JSON por linha, com as mesmas datas e formatos da API
+    private long escreverNdjson(Iterator<LinhaExportacao> linhas, OutputStream saida) throws IOException {
+        long escritas = 0;
+        JsonGenerator gerador = objectMapper.getFactory().createGenerator(saida);
+        gerador.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        // Sem o espaço que o Jackson coloca entre valores de raiz: o separador é a quebra de linha
+        gerador.setRootValueSeparator(null);
+
+        while (linhas.hasNext()) {
+            writer.writeValue(gerador, linhas.next());
+            gerador.writeRaw('\n');
+            escritas++;
+        }
+
+        gerador.close();
+        return escritas;
+    }
+
+    private long escreverCsv(Iterator<LinhaExportacao> linhas, OutputStream saida) throws IOException {
+        long escritas = 0;
+        Writer csv = new BufferedWriter(new OutputStreamWriter(saida, StandardCharsets.UTF_8), TAMANHO_BUFFER);
+        csv.write(CABECALHO_CSV);
+        csv.write('\n');
+
+        while (linhas.hasNext()) {
+            LinhaExportacao linha = linhas.next();
+            csv.write(String.valueOf(linha.getConsultaId()));
+            csv.write(',');
+            if (linha.getDataConsulta() != null) {
+                DATA_HORA.formatTo(linha.getDataConsulta(), csv);
+            }
+            csv.write(',');
+            if (linha.getStatus() != null) {
+                csv.write(linha.getStatus().name());
+            }
+            csv.write(',');
+            csv.write(String.valueOf(linha.getMedicoId()));
+            csv.write(',');
+            escreverCampoCsv(csv, linha.getMedicoNome());
+            csv.write(',');
+            escreverCampoCsv(csv, linha.getMedicoEspecialidade());
+            csv.write(',');
+            escreverCampoCsv(csv, linha.getMedicoCrm());
+            csv.write(',');
+            csv.write(String.valueOf(linha.getPacienteId()));
+            csv.write(',');
+            escreverCampoCsv(csv, linha.getPacienteNome());
+            csv.write('\n');
+            escritas++;
+        }
+
+        csv.flush();
+        return escritas;
+    }
+
+    // Aspas só quando o texto tem vírgula, aspas ou quebra de linha (RFC 4180)
+    private static void escreverCampoCsv(Writer csv, String valor) throws IOException {
+        if (valor == null) {
+            return;
+        }
+
+        boolean precisaAspas = false;
+        for (int i = 0; i < valor.length() && !precisaAspas; i++) {
+            char c = valor.charAt(i);
+            precisaAspas = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+
+        if (!precisaAspas) {
+            csv.write(valor);
+            return;
+        }
+
+        csv.write('"');
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            if (c == '"') {
+                csv.write('"');
+            }
+            csv.write(c);
+        }
+        csv.write('"');
+    }
+}
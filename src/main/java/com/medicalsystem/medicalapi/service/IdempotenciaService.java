@@ -0,0 +1,281 @@
+package com.medicalsystem.medicalapi.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.medicalsystem.medicalapi.config.Bulkhead;
+import com.medicalsystem.medicalapi.controller.GlobalExceptionHandler;
+import com.medicalsystem.medicalapi.exception.ChaveIdempotenciaException;
+import com.medicalsystem.medicalapi.exception.ErroDominioException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+// Idempotency-Key nos POST de criação: a retentativa de uma requisição já atendida recebe o mesmo status e corpo,
+// sem gravar de novo. Cada chave guarda a impressão da requisição (SHA-256 da operação e do corpo) e a resposta
+// serializada, num cache limitado (idempotencia.maximo-chaves, por idempotencia.retencao-horas).
+// Duplicatas simultâneas esperam a requisição em andamento, sem ir ao banco. Com idempotencia.persistir=true
+// as chaves também ficam na tabela chave_idempotencia (V13), o que vale entre instâncias e reinícios: a chave é
+// reservada e completada na mesma transação da gravação, então ou as duas são confirmadas ou nenhuma.
+// Erros de domínio (404, 409, 400...) são guardados como qualquer resposta, com o status e o corpo do GlobalExceptionHandler.
+// Uma requisição que termina em 5xx ou em exceção inesperada libera a chave: nada foi gravado e a retentativa executa de novo.
+@Slf4j
+@Service
+public class IdempotenciaService {
+
+    public static final String CABECALHO = "Idempotency-Key";
+    public static final String CABECALHO_REPETIDA = "Idempotent-Replayed";
+
+    private static final int TAMANHO_MAXIMO_CHAVE = 255;
+
+    // A reserva só aparece para as outras transações no commit, já com a resposta. Outra instância com a mesma
+    // chave espera neste INSERT até o commit (e recebe a resposta guardada) ou o rollback (e executa ela mesma);
+    // se a instância cair, o banco desfaz a transação e a chave fica livre, sem depender de prazo
+    private static final String RESERVAR = "INSERT INTO chave_idempotencia (operacao, chave, impressao) VALUES (?, ?, ?) " +
+            "ON CONFLICT (operacao, chave) DO NOTHING RETURNING chave";
+
+    private static final String COMPLETAR = "UPDATE chave_idempotencia SET status = ?, corpo = ? WHERE operacao = ? AND chave = ?";
+
+    private static final String GUARDAR_ERRO = "INSERT INTO chave_idempotencia (operacao, chave, impressao, status, corpo) " +
+            "VALUES (?, ?, ?, ?, ?) ON CONFLICT (operacao, chave) DO NOTHING";
+
+    private final Bulkhead bulkhead;
+    private final ObjectMapper objectMapper;
+    private final GlobalExceptionHandler globalExceptionHandler;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean persistir;
+    private final int retencaoHoras;
+    private final Cache<String, Registro> registros;
+
+    private final Counter novas;
+    private final Counter repetidas;
+    private final Counter recusadas;
+
+    public IdempotenciaService(Bulkhead bulkhead, ObjectMapper objectMapper, GlobalExceptionHandler globalExceptionHandler,
+                               JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, MeterRegistry meterRegistry,
+                               @Value("${idempotencia.maximo-chaves}") long maximoChaves,
+                               @Value("${idempotencia.retencao-horas}") int retencaoHoras,
+                               @Value("${idempotencia.persistir}") boolean persistir) {
+        this.bulkhead = bulkhead;
+        this.objectMapper = objectMapper;
+        this.globalExceptionHandler = globalExceptionHandler;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.persistir = persistir;
+        this.retencaoHoras = retencaoHoras;
+        this.registros = Caffeine.newBuilder()
+                .maximumSize(maximoChaves)
+                .expireAfterWrite(Duration.ofHours(retencaoHoras))
+                .build();
+        this.novas = contador(meterRegistry, "nova");
+        this.repetidas = contador(meterRegistry, "repetida");
+        this.recusadas = contador(meterRegistry, "recusada");
+    }
+
+    // Executa a ação no compartimento de escrita. Sem chave, é o mesmo que bulkhead.escrita(acao)
+    public CompletableFuture<ResponseEntity<Object>> executar(String chave, String operacao, Object corpo,
+                                                              Supplier<ResponseEntity<Object>> acao) {
+        if (chave == null) {
+            return bulkhead.escrita(acao);
+        }
+        if (chave.isEmpty() || chave.length() > TAMANHO_MAXIMO_CHAVE) {
+            throw new IllegalArgumentException("O cabeçalho '" + CABECALHO + "' deve ter entre 1 e " + TAMANHO_MAXIMO_CHAVE + " caracteres.");
+        }
+
+        String impressao = impressao(operacao, corpo);
+        Registro novo = new Registro(impressao);
+        Registro existente = registros.asMap().putIfAbsent(operacao + ' ' + chave, novo);
+        if (existente != null) {
+            if (!existente.impressao.equals(impressao)) {
+                recusadas.increment();
+                throw new ChaveIdempotenciaException();
+            }
+            // Em andamento ou já respondida: a resposta é a mesma da primeira requisição
+            repetidas.increment();
+            return existente.resposta.thenApply(resposta -> resposta.responder(true));
+        }
+
+        novas.increment();
+        CompletableFuture<RespostaGuardada> execucao;
+        try {
+            execucao = bulkhead.escrita(() -> processar(operacao, chave, impressao, acao));
+        } catch (RejectedExecutionException e) {
+            liberar(operacao, chave, novo, e);
+            throw e;
+        }
+
+        return execucao.handle((resposta, erro) -> {
+            if (erro != null) {
+                liberar(operacao, chave, novo, erro);
+                throw erro instanceof RuntimeException ? (RuntimeException) erro : new IllegalStateException(erro);
+            }
+            novo.resposta.complete(resposta);
+            if (resposta.status >= 500) {
+                registros.asMap().remove(operacao + ' ' + chave, novo);
+            }
+            return resposta.responder(resposta.repetida);
+        });
+    }
+
+    // Roda no compartimento de escrita: executa e guarda a resposta. Com persistir, a reserva, a ação (cujo
+    // @Transactional participa desta transação) e a resposta são confirmadas juntas
+    private RespostaGuardada processar(String operacao, String chave, String impressao, Supplier<ResponseEntity<Object>> acao) {
+        if (!persistir) {
+            try {
+                return executar(acao);
+            } catch (ErroDominioException e) {
+                return erro(e);
+            }
+        }
+
+        try {
+            return transactionTemplate.execute(status -> {
+                RespostaGuardada anterior = reservar(operacao, chave, impressao);
+                if (anterior != null) {
+                    return anterior;
+                }
+
+                RespostaGuardada resposta = executar(acao);
+                if (resposta.status >= 500) {
+                    jdbcTemplate.update("DELETE FROM chave_idempotencia WHERE operacao = ? AND chave = ?", operacao, chave);
+                } else {
+                    jdbcTemplate.update(COMPLETAR, resposta.status, resposta.corpo, operacao, chave);
+                }
+                return resposta;
+            });
+        } catch (ChaveIdempotenciaException e) {
+            throw e;
+        } catch (ErroDominioException e) {
+            // A gravação foi desfeita junto com a reserva; o erro fica guardado numa instrução própria
+            RespostaGuardada resposta = erro(e);
+            jdbcTemplate.update(GUARDAR_ERRO, operacao, chave, impressao, resposta.status, resposta.corpo);
+            return resposta;
+        }
+    }
+
+    private RespostaGuardada executar(Supplier<ResponseEntity<Object>> acao) {
+        ResponseEntity<Object> entidade = acao.get();
+        return new RespostaGuardada(entidade.getStatusCodeValue(), serializar(entidade.getBody()), false);
+    }
+
+    // A retentativa daria o mesmo erro: a resposta do GlobalExceptionHandler fica guardada e a chave continua usada
+    private RespostaGuardada erro(ErroDominioException e) {
+        ResponseEntity<byte[]> resposta = globalExceptionHandler.responder(e);
+        return new RespostaGuardada(resposta.getStatusCodeValue(), resposta.getBody(), false);
+    }
+
+    // null quando esta requisição ficou com a chave; senão, a resposta guardada pela requisição que a usou antes
+    private RespostaGuardada reservar(String operacao, String chave, String impressao) {
+        if (!jdbcTemplate.queryForList(RESERVAR, String.class, operacao, chave, impressao).isEmpty()) {
+            return null;
+        }
+
+        List<RespostaGuardada> guardadas = jdbcTemplate.query(
+                "SELECT impressao, status, corpo FROM chave_idempotencia WHERE operacao = ? AND chave = ?",
+                (rs, linha) -> {
+                    if (!impressao.equals(rs.getString("impressao"))) {
+                        throw new ChaveIdempotenciaException();
+                    }
+                    return new RespostaGuardada(rs.getInt("status"), rs.getBytes("corpo"), true);
+                }, operacao, chave);
+
+        // A chave foi removida (retenção) entre as duas instruções: reserva de novo
+        return guardadas.isEmpty() ? reservar(operacao, chave, impressao) : guardadas.get(0);
+    }
+
+    // Erro inesperado: as duplicatas que esperavam recebem o mesmo erro; a próxima retentativa executa de novo
+    private void liberar(String operacao, String chave, Registro registro, Throwable erro) {
+        registros.asMap().remove(operacao + ' ' + chave, registro);
+        registro.resposta.completeExceptionally(erro);
+    }
+
+    @Scheduled(cron = "0 30 4 * * *")
+    public void removerChavesAntigas() {
+        if (!persistir) {
+            return;
+        }
+        int removidas = jdbcTemplate.update("DELETE FROM chave_idempotencia WHERE criada_em < now() - make_interval(hours => ?)", retencaoHoras);
+        if (removidas > 0) {
+            log.info("{} chaves de idempotência anteriores a {} horas removidas", removidas, retencaoHoras);
+        }
+    }
+
+    // Operação e corpo como o Jackson os serializa: a mesma requisição reenviada gera a mesma impressão
+    private String impressao(String operacao, Object corpo) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            sha256.update(operacao.getBytes(StandardCharsets.UTF_8));
+            sha256.update((byte) '\n');
+            sha256.update(serializar(corpo));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(sha256.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private byte[] serializar(Object corpo) {
+        try {
+            return objectMapper.writeValueAsBytes(corpo);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Counter contador(MeterRegistry meterRegistry, String resultado) {
+        return Counter.builder("idempotencia.requisicoes")
+                .description("Requisições com Idempotency-Key: novas, repetidas e recusadas (chave usada com outro corpo)")
+                .tag("resultado", resultado)
+                .register(meterRegistry);
+    }
+
+    private static final class Registro {
+        final String impressao;
+        final CompletableFuture<RespostaGuardada> resposta = new CompletableFuture<>();
+
+        Registro(String impressao) {
+            this.impressao = impressao;
+        }
+    }
+
+    private static final class RespostaGuardada {
+        final int status;
+        final byte[] corpo;
+        // Resposta lida de chave_idempotencia, gravada por uma requisição anterior
+        final boolean repetida;
+
+        RespostaGuardada(int status, byte[] corpo, boolean repetida) {
+            this.status = status;
+            this.corpo = corpo;
+            this.repetida = repetida;
+        }
+
+        // O mesmo array vai a todas as respostas; ninguém o altera depois de pronto
+        ResponseEntity<Object> responder(boolean repeticao) {
+            ResponseEntity.BodyBuilder resposta = ResponseEntity.status(status).contentType(MediaType.APPLICATION_JSON);
+            if (repeticao) {
+                resposta.header(CABECALHO_REPETIDA, "true");
+            }
+            return resposta.body(corpo);
+        }
+    }
+}
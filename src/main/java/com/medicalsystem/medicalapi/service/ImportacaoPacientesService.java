@@ -0,0 +1,420 @@
+package com.medicalsystem.medicalapi.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.medicalsystem.medicalapi.constant.FormatoExportacao;
+import com.medicalsystem.medicalapi.model.ImportacaoPacientes;
+import com.medicalsystem.medicalapi.model.RegistroImportacao;
+import com.medicalsystem.medicalapi.utils.CPFUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.format.ResolverStyle;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// Importação de pacientes em massa. O corpo da requisição é gravado num arquivo temporário e processado
+// em segundo plano, em lotes: leitura sequencial, validação em paralelo, CPFs repetidos no arquivo
+// descartados e carga com COPY numa tabela temporária seguida de INSERT ... ON CONFLICT (cpf) DO NOTHING,
+// que separa os CPFs já cadastrados e registra os eventos de alteração (V12) dos pacientes inseridos.
+// Cada lote é uma transação; linhas rejeitadas vão para o relatório de erros.
+@Slf4j
+@Service
+public class ImportacaoPacientesService implements DisposableBean {
+
+    private static final DateTimeFormatter DATA = DateTimeFormatter.ofPattern("dd/MM/uuuu").withResolverStyle(ResolverStyle.STRICT);
+    private static final DateTimeFormatter DATA_COPY = DateTimeFormatter.ISO_LOCAL_DATE;
+
+    private static final String CRIAR_TABELA_TEMPORARIA = "CREATE TEMP TABLE paciente_importacao " +
+            "(id UUID, nome VARCHAR(100), data_nascimento DATE, cpf VARCHAR(20), contato VARCHAR(12)) ON COMMIT DROP";
+    private static final String COPIAR = "COPY paciente_importacao (id, nome, data_nascimento, cpf, contato) FROM STDIN WITH (FORMAT csv)";
+    private static final String INSERIR = "WITH inseridos AS (" +
+            "INSERT INTO paciente (id, nome, data_nascimento, cpf, contato) " +
+            "SELECT id, nome, data_nascimento, cpf, contato FROM paciente_importacao ON CONFLICT (cpf) DO NOTHING RETURNING id, cpf), " +
+            "eventos AS (INSERT INTO evento_alteracao (recurso, recurso_id, operacao) SELECT 'PACIENTE', id, 'CRIADO' FROM inseridos) " +
+            "SELECT cpf FROM inseridos";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final EventosAlteracaoService eventosAlteracaoService;
+    private final int tamanhoLote;
+    private final int retencaoHoras;
+
+    private final Map<UUID, ImportacaoPacientes> importacoes = new ConcurrentHashMap<>();
+
+    // Uma importação por vez; as demais aguardam na fila
+    private final ThreadPoolExecutor executor;
+
+    // Validação dos registros de cada lote, usando todos os núcleos
+    private final ForkJoinPool validacao = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+    public ImportacaoPacientesService(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, ObjectMapper objectMapper,
+                                      EventosAlteracaoService eventosAlteracaoService,
+                                      @Value("${importacao.pacientes.tamanho-lote}") int tamanhoLote,
+                                      @Value("${importacao.pacientes.fila}") int fila,
+                                      @Value("${importacao.pacientes.retencao-horas}") int retencaoHoras) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.eventosAlteracaoService = eventosAlteracaoService;
+        this.tamanhoLote = tamanhoLote;
+        this.retencaoHoras = retencaoHoras;
+        this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(fila),
+                tarefa -> new Thread(tarefa, "importacao-pacientes"));
+    }
+
+    // Grava o corpo num arquivo temporário e coloca a importação na fila.
+    // Com a fila cheia lança RejectedExecutionException (503 no GlobalExceptionHandler).
+    public ImportacaoPacientes iniciar(FormatoExportacao formato, InputStream corpo) throws IOException {
+        UUID id = UUID.randomUUID();
+        Path arquivo = Files.createTempFile("importacao-pacientes-" + id, "." + formato.getExtensao());
+        Path relatorioErros = Files.createTempFile("importacao-pacientes-" + id + "-erros", ".csv");
+
+        try {
+            Files.copy(corpo, arquivo, StandardCopyOption.REPLACE_EXISTING);
+            ImportacaoPacientes importacao = new ImportacaoPacientes(id, formato, Files.size(arquivo), arquivo, relatorioErros);
+            importacoes.put(id, importacao);
+            try {
+                executor.execute(() -> processar(importacao));
+            } catch (RejectedExecutionException e) {
+                importacoes.remove(id);
+                throw e;
+            }
+            return importacao;
+
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(arquivo);
+            Files.deleteIfExists(relatorioErros);
+            throw e;
+        }
+    }
+
+    public ImportacaoPacientes buscar(UUID id) {
+        return importacoes.get(id);
+    }
+
+    private void processar(ImportacaoPacientes importacao) {
+        importacao.iniciar();
+        LocalDate hoje = LocalDate.now();
+        CpfsVistos cpfsVistos = new CpfsVistos();
+
+        try (InputStream entrada = new BytesContados(Files.newInputStream(importacao.getArquivo()), importacao);
+             BufferedReader leitor = new BufferedReader(new InputStreamReader(entrada, StandardCharsets.UTF_8), 64 * 1024);
+             Writer erros = Files.newBufferedWriter(importacao.getRelatorioErros(), StandardCharsets.UTF_8)) {
+
+            erros.write("linha,cpf,erro\n");
+            LeitorImportacao registros = new LeitorImportacao(importacao.getFormato(), leitor, objectMapper);
+            List<RegistroImportacao> lote = new ArrayList<>(tamanhoLote);
+            RegistroImportacao registro;
+            while ((registro = registros.proximo()) != null) {
+                lote.add(registro);
+                if (lote.size() == tamanhoLote) {
+                    processarLote(importacao, lote, cpfsVistos, hoje, erros);
+                    lote.clear();
+                }
+            }
+            if (!lote.isEmpty()) {
+                processarLote(importacao, lote, cpfsVistos, hoje, erros);
+            }
+
+            importacao.concluir();
+            log.info("Importação de pacientes {} concluída: {} importados, {} rejeitados",
+                    importacao.getId(), importacao.getImportadas(), importacao.getRejeitadas());
+
+        } catch (Exception e) {
+            // Lotes anteriores já foram gravados; o relatório mostra até onde a importação chegou
+            log.error("Falha na importação de pacientes {}", importacao.getId(), e);
+            importacao.falhar(e.getMessage());
+        } finally {
+            try {
+                Files.deleteIfExists(importacao.getArquivo());
+            } catch (IOException e) {
+                log.warn("Não foi possível remover o arquivo {}", importacao.getArquivo(), e);
+            }
+        }
+    }
+
+    private void processarLote(ImportacaoPacientes importacao, List<RegistroImportacao> lote, CpfsVistos cpfsVistos,
+                               LocalDate hoje, Writer erros) throws IOException {
+        importacao.adicionarLinhasLidas(lote.size());
+
+        validacao.submit(() -> lote.parallelStream().forEach(registro -> validar(registro, hoje))).join();
+
+        // CPFs repetidos: vale a primeira ocorrência no arquivo
+        List<RegistroImportacao> validos = new ArrayList<>(lote.size());
+        for (RegistroImportacao registro : lote) {
+            if (registro.isValido()) {
+                long primeiraLinha = cpfsVistos.adicionar(registro.getCpfNumerico(), registro.getLinha());
+                if (primeiraLinha > 0) {
+                    registro.setErro("CPF repetido no arquivo (primeira ocorrência na linha " + primeiraLinha + ").");
+                } else {
+                    validos.add(registro);
+                }
+            }
+        }
+
+        Set<String> inseridos = validos.isEmpty() ? new HashSet<>() : carregar(validos);
+
+        long rejeitadas = 0;
+        for (RegistroImportacao registro : lote) {
+            if (registro.isValido() && !inseridos.contains(registro.getCpf())) {
+                registro.setErro("CPF já cadastrado.");
+            }
+            if (!registro.isValido()) {
+                escreverErro(erros, registro);
+                rejeitadas++;
+            }
+        }
+        erros.flush();
+
+        importacao.adicionarImportadas(lote.size() - rejeitadas);
+        importacao.adicionarRejeitadas(rejeitadas);
+    }
+
+    // COPY para a tabela temporária e INSERT com ON CONFLICT na mesma transação; retorna os CPFs inseridos
+    // e, depois do commit, pede a publicação dos eventos
+    private Set<String> carregar(List<RegistroImportacao> validos) {
+        StringBuilder csv = new StringBuilder(validos.size() * 96);
+        for (RegistroImportacao registro : validos) {
+            csv.append(UUID.randomUUID()).append(',');
+            csv.append('"').append(registro.getNome().replace("\"", "\"\"")).append('"').append(',');
+            csv.append(DATA_COPY.format(registro.getData())).append(',');
+            csv.append(registro.getCpf()).append(',');
+            csv.append(registro.getContato()).append('\n');
+        }
+
+        Set<String> inseridos = transactionTemplate.execute(status -> {
+            jdbcTemplate.execute(CRIAR_TABELA_TEMPORARIA);
+            jdbcTemplate.execute((ConnectionCallback<Long>) conexao ->
+                    conexao.unwrap(PGConnection.class).getCopyAPI().copyIn(COPIAR, new StringReader(csv.toString())));
+            return new HashSet<>(jdbcTemplate.queryForList(INSERIR, String.class));
+        });
+        if (!inseridos.isEmpty()) {
+            eventosAlteracaoService.notificar();
+        }
+        return inseridos;
+    }
+
+    // Mesmas regras da entidade Paciente; CPF e contato podem vir com pontuação, que é removida
+    static void validar(RegistroImportacao registro, LocalDate hoje) {
+        if (!registro.isValido()) {
+            return;
+        }
+
+        List<String> erros = new ArrayList<>(2);
+
+        String nome = registro.getNome() != null ? registro.getNome().trim() : null;
+        if (nome == null || nome.isEmpty()) {
+            erros.add("O campo 'nome' é obrigatório.");
+        } else if (nome.length() < 2 || nome.length() > 100) {
+            erros.add("O campo 'nome' deve ter entre 2 e 100 caracteres.");
+        }
+        registro.setNome(nome);
+
+        String cpf = registro.getCpf();
+        if (cpf == null || cpf.trim().isEmpty()) {
+            erros.add("O campo 'cpf' é obrigatório.");
+        } else if (!CPFUtils.isValidCPF(cpf)) {
+            erros.add("O CPF informado é inválido.");
+        } else {
+            String digitos = somenteDigitos(cpf);
+            registro.setCpf(digitos);
+            registro.setCpfNumerico(Long.parseLong(digitos));
+        }
+
+        String dataNascimento = registro.getDataNascimento();
+        if (dataNascimento == null || dataNascimento.trim().isEmpty()) {
+            erros.add("A 'dataNascimento' é obrigatória.");
+        } else {
+            try {
+                LocalDate data = LocalDate.parse(dataNascimento.trim(), DATA);
+                if (data.isAfter(hoje)) {
+                    erros.add("A 'dataNascimento' não pode ser uma data futura.");
+                }
+                registro.setData(data);
+            } catch (DateTimeParseException e) {
+                erros.add("A 'dataNascimento' deve estar no formato dd/MM/yyyy.");
+            }
+        }
+
+        String contato = registro.getContato();
+        if (contato == null || contato.trim().isEmpty()) {
+            erros.add("O campo 'contato' é obrigatório.");
+        } else {
+            String digitos = somenteDigitos(contato);
+            if (digitos.length() < 10 || digitos.length() > 11) {
+                erros.add("O 'contato' deve ter entre 10 e 11 dígitos com DDD.");
+            }
+            registro.setContato(digitos);
+        }
+
+        if (!erros.isEmpty()) {
+            registro.setErro(String.join(" ", erros));
+        }
+    }
+
+    private static String somenteDigitos(String texto) {
+        StringBuilder digitos = new StringBuilder(texto.length());
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digitos.append(c);
+            }
+        }
+        return digitos.toString();
+    }
+
+    private static void escreverErro(Writer erros, RegistroImportacao registro) throws IOException {
+        erros.write(String.valueOf(registro.getLinha()));
+        erros.write(',');
+        erros.write(campoCsv(registro.getCpf()));
+        erros.write(',');
+        erros.write(campoCsv(registro.getErro()));
+        erros.write('\n');
+    }
+
+    private static String campoCsv(String valor) {
+        if (valor == null) {
+            return "";
+        }
+        return "\"" + valor.replace("\"", "\"\"") + "\"";
+    }
+
+    // Remove importações finalizadas há mais tempo que a retenção, junto com o relatório de erros
+    @Scheduled(fixedDelay = 60 * 60 * 1000)
+    public void removerImportacoesAntigas() {
+        LocalDateTime limite = LocalDateTime.now().minusHours(retencaoHoras);
+        importacoes.values().removeIf(importacao -> {
+            if (!importacao.isFinalizada() || importacao.getConcluidaEm().isAfter(limite)) {
+                return false;
+            }
+            try {
+                Files.deleteIfExists(importacao.getRelatorioErros());
+            } catch (IOException e) {
+                log.warn("Não foi possível remover o relatório {}", importacao.getRelatorioErros(), e);
+            }
+            return true;
+        });
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        executor.shutdownNow();
+        validacao.shutdownNow();
+        executor.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+    // Atualiza o progresso conforme o arquivo é lido
+    private static class BytesContados extends FilterInputStream {
+
+        private final ImportacaoPacientes importacao;
+
+        BytesContados(InputStream entrada, ImportacaoPacientes importacao) {
+            super(entrada);
+            this.importacao = importacao;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                importacao.adicionarBytesLidos(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int inicio, int tamanho) throws IOException {
+            int lidos = super.read(b, inicio, tamanho);
+            if (lidos > 0) {
+                importacao.adicionarBytesLidos(lidos);
+            }
+            return lidos;
+        }
+    }
+
+    // CPFs já vistos no arquivo, com a linha da primeira ocorrência. Tabela de endereçamento aberto com
+    // chaves long: centenas de milhares de CPFs sem um Long e um nó de HashMap por entrada.
+    static class CpfsVistos {
+
+        private long[] cpfs = new long[1 << 16];
+        private long[] linhas = new long[1 << 16];
+        private int quantidade;
+
+        // Retorna a linha da primeira ocorrência, ou 0 se o CPF ainda não tinha aparecido
+        long adicionar(long cpf, long linha) {
+            // CPF 0 (000.000.000-00) é inválido e nunca chega aqui; 0 marca posição livre
+            int mascara = cpfs.length - 1;
+            int posicao = espalhar(cpf) & mascara;
+            while (cpfs[posicao] != 0) {
+                if (cpfs[posicao] == cpf) {
+                    return linhas[posicao];
+                }
+                posicao = (posicao + 1) & mascara;
+            }
+
+            cpfs[posicao] = cpf;
+            linhas[posicao] = linha;
+            if (++quantidade * 2 > cpfs.length) {
+                crescer();
+            }
+            return 0;
+        }
+
+        private void crescer() {
+            long[] cpfsAntigos = cpfs;
+            long[] linhasAntigas = linhas;
+            cpfs = new long[cpfsAntigos.length * 2];
+            linhas = new long[cpfsAntigos.length * 2];
+            int mascara = cpfs.length - 1;
+            for (int i = 0; i < cpfsAntigos.length; i++) {
+                if (cpfsAntigos[i] != 0) {
+                    int posicao = espalhar(cpfsAntigos[i]) & mascara;
+                    while (cpfs[posicao] != 0) {
+                        posicao = (posicao + 1) & mascara;
+                    }
+                    cpfs[posicao] = cpfsAntigos[i];
+                    linhas[posicao] = linhasAntigas[i];
+                }
+            }
+        }
+
+        private static int espalhar(long valor) {
+            long h = valor * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.medicalsystem.medicalapi.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.medicalsystem.medicalapi.constant.FormatoExportacao;
+import com.medicalsystem.medicalapi.model.RegistroImportacao;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+// Lê o arquivo de importação um registro por vez, sem carregar o arquivo em memória.
+// CSV: primeira linha com os nomes das colunas (nome, cpf, dataNascimento, contato), campos entre aspas
+// quando preciso (RFC 4180). NDJSON: um objeto JSON por linha com os mesmos campos.
+public class LeitorImportacao {
+
+    private static final String[] COLUNAS = {"nome", "cpf", "datanascimento", "contato"};
+
+    private final FormatoExportacao formato;
+    private final BufferedReader leitor;
+    private final ObjectReader leitorJson;
+    private final StringBuilder campo = new StringBuilder(64);
+
+    // Posição de cada coluna no CSV, na ordem de COLUNAS
+    private int[] posicoes;
+    private long linha;
+
+    public LeitorImportacao(FormatoExportacao formato, BufferedReader leitor, ObjectMapper objectMapper) {
+        this.formato = formato;
+        this.leitor = leitor;
+        this.leitorJson = objectMapper.readerFor(CamposJson.class)
+                .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    }
+
+    // Retorna null no fim do arquivo. Registros com erro de leitura voltam com a mensagem em 'erro'.
+    public RegistroImportacao proximo() throws IOException {
+        return formato == FormatoExportacao.CSV ? proximoCsv() : proximoNdjson();
+    }
+
+    private RegistroImportacao proximoNdjson() throws IOException {
+        String texto;
+        do {
+            texto = leitor.readLine();
+            if (texto == null) {
+                return null;
+            }
+            linha++;
+        } while (texto.trim().isEmpty());
+
+        RegistroImportacao registro = new RegistroImportacao(linha);
+        try {
+            CamposJson campos = leitorJson.readValue(texto);
+            registro.setNome(campos.nome);
+            registro.setCpf(campos.cpf);
+            registro.setDataNascimento(campos.dataNascimento);
+            registro.setContato(campos.contato);
+        } catch (JsonProcessingException e) {
+            registro.setErro("JSON inválido: " + e.getOriginalMessage());
+        }
+        return registro;
+    }
+
+    private RegistroImportacao proximoCsv() throws IOException {
+        if (posicoes == null) {
+            lerCabecalho();
+        }
+
+        List<String> campos;
+        do {
+            campos = lerCamposCsv();
+            if (campos == null) {
+                return null;
+            }
+            linha++;
+        } while (campos.size() == 1 && campos.get(0).trim().isEmpty());
+
+        RegistroImportacao registro = new RegistroImportacao(linha);
+        registro.setNome(coluna(campos, 0));
+        registro.setCpf(coluna(campos, 1));
+        registro.setDataNascimento(coluna(campos, 2));
+        registro.setContato(coluna(campos, 3));
+        return registro;
+    }
+
+    private void lerCabecalho() throws IOException {
+        List<String> cabecalho = lerCamposCsv();
+        linha++;
+        posicoes = new int[COLUNAS.length];
+        for (int i = 0; i < COLUNAS.length; i++) {
+            posicoes[i] = -1;
+            for (int j = 0; cabecalho != null && j < cabecalho.size(); j++) {
+                String nome = cabecalho.get(j).trim().replace("_", "").toLowerCase(Locale.ROOT);
+                if (nome.equals(COLUNAS[i])) {
+                    posicoes[i] = j;
+                }
+            }
+            if (posicoes[i] < 0) {
+                throw new IllegalArgumentException("A primeira linha do CSV deve conter as colunas nome, cpf, dataNascimento e contato.");
+            }
+        }
+    }
+
+    private String coluna(List<String> campos, int indice) {
+        int posicao = posicoes[indice];
+        return posicao < campos.size() ? campos.get(posicao) : null;
+    }
+
+    // Um registro CSV; campos entre aspas podem conter vírgulas, aspas duplicadas e quebras de linha.
+    // Nesse último caso o número da linha passa a contar registros, não linhas físicas.
+    private List<String> lerCamposCsv() throws IOException {
+        int c = leitor.read();
+        if (c == -1) {
+            return null;
+        }
+
+        List<String> campos = new ArrayList<>(COLUNAS.length);
+        campo.setLength(0);
+        boolean entreAspas = false;
+        while (true) {
+            if (entreAspas) {
+                if (c == -1) {
+                    campos.add(campo.toString());
+                    return campos;
+                }
+                if (c == '"') {
+                    c = leitor.read();
+                    if (c != '"') {
+                        entreAspas = false;
+                        continue;
+                    }
+                }
+                campo.append((char) c);
+            } else if (c == -1 || c == '\n') {
+                campos.add(campo.toString());
+                return campos;
+            } else if (c == ',') {
+                campos.add(campo.toString());
+                campo.setLength(0);
+            } else if (c == '"' && campo.length() == 0) {
+                entreAspas = true;
+            } else if (c != '\r') {
+                campo.append((char) c);
+            }
+            c = leitor.read();
+        }
+    }
+
+    static class CamposJson {
+        public String nome;
+        public String cpf;
+        public String dataNascimento;
+        public String contato;
+    }
+}
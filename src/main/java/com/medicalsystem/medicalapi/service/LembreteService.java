@@ -0,0 +1,347 @@
+package com.medicalsystem.medicalapi.service;
+
+import com.medicalsystem.medicalapi.constant.AntecedenciaLembrete;
+import com.medicalsystem.medicalapi.constant.StatusConsulta;
+import com.medicalsystem.medicalapi.entity.Consulta;
+import com.medicalsystem.medicalapi.model.Lembrete;
+import com.medicalsystem.medicalapi.utils.TransacaoUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+// Lembretes 24h e 1h antes de cada consulta agendada, sem varrer a tabela consulta.
+// A cada lembretes.carga-ms entram na roda de tempo só as consultas cujo lembrete vence na próxima janela
+// (lembretes.janela-ms): uma busca por intervalo de data_consulta para cada antecedência. Agendamentos, remarcações
+// e cancelamentos confirmados atualizam a roda na hora. A cada lembretes.tick-ms a roda avança e os lembretes
+// vencidos vão ao EnviadorLembrete em lotes de lembretes.lote.
+// Antes do envio cada lembrete é registrado em lembrete_enviado (V10), desde que a consulta continue agendada na
+// mesma data: depois de um reinício, ou com outra instância carregando a mesma janela, um lembrete já registrado
+// não sai de novo. Se a aplicação cair entre o registro e o envio, o lembrete se perde; é preferível a enviá-lo duas vezes.
+@Slf4j
+@Service
+public class LembreteService {
+
+    private static final String CONSULTAS_AGENDADAS_ENTRE = "SELECT c.id, c.data_consulta, p.nome AS nome_paciente, " +
+            "p.contato, m.nome AS nome_medico, m.email FROM consulta c " +
+            "JOIN paciente p ON p.id = c.paciente_id JOIN medico m ON m.id = c.medico_id " +
+            "WHERE c.data_consulta >= ? AND c.data_consulta < ? AND c.status_consulta = 'AGENDADA'";
+
+    // Retorna só os lembretes registrados por esta instrução: os já registrados antes e os de consultas
+    // canceladas ou remarcadas depois de entrarem na roda ficam de fora
+    private static final String REGISTRAR_ENVIO = "INSERT INTO lembrete_enviado (consulta_id, antecedencia, data_consulta) " +
+            "SELECT l.consulta_id, l.antecedencia, l.data_consulta " +
+            "FROM unnest(?::uuid[], ?::text[], ?::timestamp[]) AS l (consulta_id, antecedencia, data_consulta) " +
+            "JOIN consulta c ON c.id = l.consulta_id AND c.data_consulta = l.data_consulta AND c.status_consulta = 'AGENDADA' " +
+            "ON CONFLICT DO NOTHING RETURNING consulta_id, antecedencia";
+
+    private static final String DESFAZER_REGISTRO = "DELETE FROM lembrete_enviado " +
+            "WHERE consulta_id = ? AND antecedencia = ? AND data_consulta = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EnviadorLembrete enviador;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final long tickMs;
+    private final long janelaMs;
+    private final int tamanhoLote;
+    private final int maximoTentativas;
+    private final long esperaRetentativaMs;
+    private final long atrasoMaximoMs;
+
+    // Guarda a roda e carregadoAte
+    private final Object trava = new Object();
+    private RodaTemporal<ChaveLembrete, Lembrete> roda;
+
+    // Lembretes que vencem antes deste instante já estão na roda; -1 antes da primeira carga
+    private long carregadoAte = -1;
+
+    public LembreteService(@Value("${lembretes.tick-ms}") long tickMs,
+                           @Value("${lembretes.janela-ms}") long janelaMs,
+                           @Value("${lembretes.lote}") int tamanhoLote,
+                           @Value("${lembretes.tentativas}") int maximoTentativas,
+                           @Value("${lembretes.espera-retentativa-ms}") long esperaRetentativaMs,
+                           @Value("${lembretes.atraso-maximo-ms}") long atrasoMaximoMs) {
+        this.tickMs = tickMs;
+        this.janelaMs = janelaMs;
+        this.tamanhoLote = tamanhoLote;
+        this.maximoTentativas = maximoTentativas;
+        this.esperaRetentativaMs = esperaRetentativaMs;
+        this.atrasoMaximoMs = atrasoMaximoMs;
+        this.roda = new RodaTemporal<>(tickMs, System.currentTimeMillis());
+    }
+
+    @Scheduled(fixedDelayString = "${lembretes.carga-ms}")
+    public void carregarProximaJanela() {
+        carregarJanela(System.currentTimeMillis());
+    }
+
+    @Scheduled(fixedDelayString = "${lembretes.tick-ms}")
+    public void despacharVencidos() {
+        despachar(System.currentTimeMillis());
+    }
+
+    // Registros de consultas que já passaram não evitam mais nenhum envio
+    @Scheduled(cron = "0 45 3 * * *")
+    public void removerRegistrosAntigos() {
+        int removidos = jdbcTemplate.update("DELETE FROM lembrete_enviado WHERE data_consulta < ?",
+                Timestamp.valueOf(LocalDateTime.now().minusDays(1)));
+        log.info("{} registros de lembretes enviados removidos", removidos);
+    }
+
+    // Chamado na transação que agenda ou altera as consultas; a roda só muda depois do commit.
+    // Lembretes que vencem depois da janela carregada ficam para a carga que chegar até eles.
+    public void atualizarLembretes(Collection<Consulta> consultas) {
+        List<UUID> ids = new ArrayList<>(consultas.size());
+        List<Lembrete> lembretes = new ArrayList<>();
+        long limite = System.currentTimeMillis() - atrasoMaximoMs;
+
+        // Nomes e contatos são lidos aqui, com a sessão do Hibernate ainda aberta
+        for (Consulta consulta : consultas) {
+            ids.add(consulta.getId());
+            if (consulta.getStatus_consulta() != StatusConsulta.AGENDADA) {
+                continue;
+            }
+            for (AntecedenciaLembrete antecedencia : AntecedenciaLembrete.values()) {
+                Lembrete lembrete = new Lembrete(consulta.getId(), antecedencia, consulta.getData_consulta(),
+                        consulta.getPaciente_id().getNome(), consulta.getPaciente_id().getContato(),
+                        consulta.getMedico_id().getNome(), consulta.getMedico_id().getEmail(), 0);
+                if (emMilissegundos(lembrete.getEnviarEm()) >= limite) {
+                    lembretes.add(lembrete);
+                }
+            }
+        }
+
+        TransacaoUtils.aposConfirmar(() -> {
+            synchronized (trava) {
+                ids.forEach(this::removerDaRoda);
+                for (Lembrete lembrete : lembretes) {
+                    if (emMilissegundos(lembrete.getEnviarEm()) < carregadoAte) {
+                        agendarNaRoda(lembrete, emMilissegundos(lembrete.getEnviarEm()));
+                    }
+                }
+            }
+        });
+    }
+
+    public void removerLembretes(UUID consultaId) {
+        TransacaoUtils.aposConfirmar(() -> {
+            synchronized (trava) {
+                removerDaRoda(consultaId);
+            }
+        });
+    }
+
+    // Carrega os lembretes que vencem entre o fim da carga anterior e agora + janela. A primeira carga começa
+    // lembretes.atraso-maximo-ms atrás, para enviar os lembretes que venceram com a aplicação parada.
+    void carregarJanela(long agora) {
+        long inicio;
+        long fim = agora + janelaMs;
+        synchronized (trava) {
+            inicio = carregadoAte < 0 ? agora - atrasoMaximoMs : carregadoAte;
+            if (fim <= inicio) {
+                return;
+            }
+            // Avança antes da busca: consultas confirmadas durante a busca entram na roda pelo atualizarLembretes
+            carregadoAte = fim;
+        }
+
+        try {
+            int carregados = 0;
+            for (AntecedenciaLembrete antecedencia : AntecedenciaLembrete.values()) {
+                long antecedenciaMs = antecedencia.getAntecedencia().toMillis();
+                List<Lembrete> lembretes = jdbcTemplate.query(CONSULTAS_AGENDADAS_ENTRE,
+                        (rs, linha) -> new Lembrete((UUID) rs.getObject("id"), antecedencia,
+                                rs.getTimestamp("data_consulta").toLocalDateTime(), rs.getString("nome_paciente"),
+                                rs.getString("contato"), rs.getString("nome_medico"), rs.getString("email"), 0),
+                        Timestamp.valueOf(emData(inicio + antecedenciaMs)), Timestamp.valueOf(emData(fim + antecedenciaMs)));
+
+                synchronized (trava) {
+                    for (Lembrete lembrete : lembretes) {
+                        agendarNaRoda(lembrete, emMilissegundos(lembrete.getEnviarEm()));
+                    }
+                }
+                carregados += lembretes.size();
+            }
+            log.debug("{} lembretes carregados para a janela até {}", carregados, emData(fim));
+
+        } catch (RuntimeException e) {
+            // A próxima carga tenta a mesma janela de novo
+            synchronized (trava) {
+                if (carregadoAte == fim) {
+                    carregadoAte = inicio;
+                }
+            }
+            throw e;
+        }
+    }
+
+    void despachar(long agora) {
+        List<Lembrete> vencidos;
+        synchronized (trava) {
+            vencidos = roda.avancar(agora);
+        }
+        if (vencidos.isEmpty()) {
+            return;
+        }
+
+        // Com a aplicação atrasada, não avisa de uma consulta que já começou
+        LocalDateTime momento = emData(agora);
+        List<Lembrete> pendentes = vencidos.stream()
+                .filter(lembrete -> lembrete.getDataConsulta().isAfter(momento))
+                .collect(Collectors.toList());
+
+        for (int inicio = 0; inicio < pendentes.size(); inicio += tamanhoLote) {
+            enviarLote(pendentes.subList(inicio, Math.min(inicio + tamanhoLote, pendentes.size())), agora);
+        }
+    }
+
+    // Volta ao estado de uma aplicação recém-iniciada: roda vazia e nenhuma janela carregada
+    void reiniciar(long agora) {
+        synchronized (trava) {
+            roda = new RodaTemporal<>(tickMs, agora);
+            carregadoAte = -1;
+        }
+    }
+
+    private void enviarLote(List<Lembrete> lote, long agora) {
+        List<Lembrete> registrados;
+        try {
+            registrados = registrarEnvio(lote);
+        } catch (DataAccessException e) {
+            log.warn("Falha ao registrar o envio de {} lembretes", lote.size(), e);
+            reagendar(lote, agora);
+            return;
+        }
+        if (registrados.isEmpty()) {
+            return;
+        }
+
+        List<Lembrete> falhas;
+        try {
+            falhas = enviador.enviar(registrados);
+        } catch (RuntimeException e) {
+            log.warn("Falha ao enviar lote de {} lembretes", registrados.size(), e);
+            falhas = registrados;
+        }
+        contar("enviado", registrados.size() - falhas.size());
+
+        if (!falhas.isEmpty()) {
+            // Sem o registro, a nova tentativa (desta ou de outra instância) pode enviar o lembrete
+            desfazerRegistro(falhas);
+            reagendar(falhas, agora);
+        }
+    }
+
+    private List<Lembrete> registrarEnvio(List<Lembrete> lote) {
+        UUID[] consultas = new UUID[lote.size()];
+        String[] antecedencias = new String[lote.size()];
+        Timestamp[] datas = new Timestamp[lote.size()];
+        for (int i = 0; i < lote.size(); i++) {
+            consultas[i] = lote.get(i).getConsultaId();
+            antecedencias[i] = lote.get(i).getAntecedencia().getCodigo();
+            datas[i] = Timestamp.valueOf(lote.get(i).getDataConsulta());
+        }
+
+        Set<ChaveLembrete> registrados = new HashSet<>(jdbcTemplate.query(conexao -> {
+            PreparedStatement instrucao = conexao.prepareStatement(REGISTRAR_ENVIO);
+            instrucao.setArray(1, conexao.createArrayOf("uuid", consultas));
+            instrucao.setArray(2, conexao.createArrayOf("text", antecedencias));
+            instrucao.setArray(3, conexao.createArrayOf("timestamp", datas));
+            return instrucao;
+        }, (rs, linha) -> new ChaveLembrete((UUID) rs.getObject("consulta_id"), AntecedenciaLembrete.doCodigo(rs.getString("antecedencia")))));
+
+        return lote.stream().filter(lembrete -> registrados.contains(chave(lembrete))).collect(Collectors.toList());
+    }
+
+    private void desfazerRegistro(List<Lembrete> lembretes) {
+        try {
+            jdbcTemplate.batchUpdate(DESFAZER_REGISTRO, lembretes.stream()
+                    .map(lembrete -> new Object[]{lembrete.getConsultaId(), lembrete.getAntecedencia().getCodigo(),
+                            Timestamp.valueOf(lembrete.getDataConsulta())})
+                    .collect(Collectors.toList()));
+        } catch (DataAccessException e) {
+            // O registro fica: as novas tentativas não enviam, mas também não há risco de envio duplicado
+            log.warn("Falha ao desfazer o registro de {} lembretes não enviados", lembretes.size(), e);
+        }
+    }
+
+    // Espera lembretes.espera-retentativa-ms e dobra a cada nova falha, até lembretes.tentativas
+    private void reagendar(List<Lembrete> falhas, long agora) {
+        synchronized (trava) {
+            for (Lembrete lembrete : falhas) {
+                Lembrete proxima = lembrete.proximaTentativa();
+                if (proxima.getTentativa() >= maximoTentativas) {
+                    log.error("Lembrete {} da consulta {} descartado após {} tentativas",
+                            lembrete.getAntecedencia(), lembrete.getConsultaId(), proxima.getTentativa());
+                    contar("descartado", 1);
+                    continue;
+                }
+                contar("falha", 1);
+                // Se a consulta foi remarcada durante o envio, vale o lembrete novo que já está na roda
+                if (!roda.contem(chave(lembrete))) {
+                    agendarNaRoda(proxima, agora + (esperaRetentativaMs << lembrete.getTentativa()));
+                }
+            }
+        }
+    }
+
+    private void agendarNaRoda(Lembrete lembrete, long instante) {
+        roda.agendar(chave(lembrete), instante, lembrete);
+    }
+
+    private void removerDaRoda(UUID consultaId) {
+        for (AntecedenciaLembrete antecedencia : AntecedenciaLembrete.values()) {
+            roda.remover(new ChaveLembrete(consultaId, antecedencia));
+        }
+    }
+
+    private void contar(String resultado, int quantidade) {
+        if (quantidade > 0) {
+            meterRegistry.counter("lembretes.envios", "resultado", resultado).increment(quantidade);
+        }
+    }
+
+    private static ChaveLembrete chave(Lembrete lembrete) {
+        return new ChaveLembrete(lembrete.getConsultaId(), lembrete.getAntecedencia());
+    }
+
+    private static long emMilissegundos(LocalDateTime data) {
+        return data.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static LocalDateTime emData(long milissegundos) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(milissegundos), ZoneId.systemDefault());
+    }
+
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    private static final class ChaveLembrete {
+        private final UUID consultaId;
+        private final AntecedenciaLembrete antecedencia;
+    }
+}
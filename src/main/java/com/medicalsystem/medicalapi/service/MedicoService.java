@@ -1,13 +1,27 @@
 package com.medicalsystem.medicalapi.service;
 
+import com.medicalsystem.medicalapi.config.CacheConfig;
+import com.medicalsystem.medicalapi.constant.OperacaoEvento;
+import com.medicalsystem.medicalapi.constant.RecursoEvento;
 import com.medicalsystem.medicalapi.entity.Medico;
 import com.medicalsystem.medicalapi.exception.MedicoException;
 import com.medicalsystem.medicalapi.exception.MedicoNotFoundException;
+import com.medicalsystem.medicalapi.repository.Filtro;
 import com.medicalsystem.medicalapi.repository.MedicoRepository;
+import com.medicalsystem.medicalapi.utils.TextoUtils;
+import com.medicalsystem.medicalapi.utils.TransacaoUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Service
@@ -16,54 +30,126 @@ public class MedicoService {
     @Autowired
     private MedicoRepository medicoRepository;
 
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private DisponibilidadeService disponibilidadeService;
+
+    @Autowired
+    private EventosAlteracaoService eventosAlteracaoService;
+
+    // Semelhança mínima entre o termo e alguma palavra do nome (padrão do pg_trgm: 0.6)
+    private static final String LIMIAR_SIMILARIDADE = "0.4";
+
+    // O evento é gravado na mesma transação; agenda em memória e cache só mudam depois do commit
+    @Transactional
     public Medico salvarMedico(Medico medico) {
+        Medico salvo;
         try {
-            return medicoRepository.save(medico);
+            salvo = medicoRepository.saveAndFlush(medico);
 
         } catch (Exception e) {
             throw new MedicoException("Erro ao salvar: " + e.getMessage());
         }
+
+        eventosAlteracaoService.registrar(RecursoEvento.MEDICO, salvo.getId(), OperacaoEvento.CRIADO);
+        TransacaoUtils.aposConfirmar(() -> {
+            disponibilidadeService.registrarMedico(salvo);
+            registrarAlteracao(salvo.getId());
+        });
+        return salvo;
     }
 
-    public List<Medico> listarMedicos(String nome, String especialidade, String crm) {
-        List<Medico> listarMedicos;
+    // Campos aceitos em 'ordenar'
+    public static final String[] CAMPOS_ORDENACAO = {"nome", "especialidade", "crm", "id"};
 
-        if (nome == null && especialidade == null && crm == null) {
-            return medicoRepository.findAll();
-        }
+    // Só os filtros informados entram, combinados com AND: nome por prefixo (sem acentos e maiúsculas),
+    // especialidade e CRM exatos. Sem tamanho de página retorna todos os médicos encontrados.
+    // Lê do primário (transação sem readOnly): a resposta leva a ETag lida do primário antes da busca, e uma
+    // réplica atrasada devolveria dados antigos com a ETag nova, que o cliente guardaria até a próxima alteração.
+    @Transactional
+    public Page<Medico> listarMedicos(String nome, String especialidade, String crm, String ordenar, Integer pagina, Integer tamanho) {
+        Filtro<Medico> filtro = Filtro.<Medico>novo()
+                .prefixo("nomeBusca", nome != null ? TextoUtils.normalizarParaBusca(nome) : null)
+                .igual("especialidade", especialidade)
+                .igual("crm", crm);
 
-        listarMedicos = medicoRepository.findMedicosByFilters(nome, especialidade, crm);
+        Page<Medico> medicos = filtro.buscar(medicoRepository, Filtro.ordenacao(ordenar, "nome", CAMPOS_ORDENACAO), pagina, tamanho);
 
-        if (listarMedicos.isEmpty()) {
+        if (!filtro.isVazio() && medicos.getTotalElements() == 0) {
             throw new MedicoNotFoundException("Não foram encontrados registros com os dados Nome: " + nome + " Especialidade: " + especialidade + " CRM: " + crm);
         }
 
-        return listarMedicos;
+        return medicos;
+    }
 
+    // Busca tolerante a acentos, prefixos e erros de digitação, com os resultados mais parecidos primeiro
+    @Transactional(readOnly = true)
+    public List<Medico> buscarMedicosPorNome(String termo, int limite) {
+        String normalizado = TextoUtils.normalizarParaBusca(termo);
+        if (normalizado.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        medicoRepository.definirLimiarSimilaridade(LIMIAR_SIMILARIDADE);
+        return medicoRepository.buscarPorNomeAproximado(normalizado, limite);
     }
 
-    public Medico buscarMedicoPorId(UUID id) {
-        return medicoRepository.findById(id)
-                .orElseThrow(() -> new MedicoNotFoundException("Medico não encontrado com ID: " + id));
+    // Consulta o banco só na primeira busca. ID inexistente volta vazio e não entra no cache: quem chama lança o 404
+    // fora do proxy, sem a exceção atravessar o cache (que a embrulharia em exceções com pilha de chamadas).
+    // Lê do primário (transação sem readOnly, na qual o findById do repositório participa): depois de uma gravação
+    // o registro sai do cache, e uma réplica atrasada o recarregaria com os dados anteriores até o cache expirar.
+    @Transactional
+    @Cacheable(cacheNames = CacheConfig.CACHE_MEDICOS, key = "#id", unless = "#result == null")
+    public Optional<Medico> buscarMedicoPorId(UUID id) {
+        return medicoRepository.findById(id);
     }
 
     // Atualizar dados do médico
+    @Transactional
     public Medico atualizarMedico(UUID id, Medico medico) {
-        if (!medicoRepository.existsById(id)) {
-            throw new MedicoNotFoundException("Médico não encontrado com ID: " + id);
-        }
+        Medico existente = medicoRepository.findById(id).orElseThrow(MedicoNotFoundException::new);
 
+        // O corpo da requisição não traz a versão (@Version): a gravada vale, e o UPDATE a avança
         medico.setId(id);
-        return medicoRepository.save(medico);
+        medico.setVersao(existente.getVersao());
+        Medico atualizado = medicoRepository.save(medico);
+        eventosAlteracaoService.registrar(RecursoEvento.MEDICO, id, OperacaoEvento.ALTERADO);
+        TransacaoUtils.aposConfirmar(() -> {
+            disponibilidadeService.registrarMedico(atualizado);
+            registrarAlteracao(id);
+        });
+        return atualizado;
     }
 
     // Deletar médico
+    @Transactional
     public boolean deletarMedico(UUID id) {
         if (!medicoRepository.existsById(id)) {
-            throw new MedicoNotFoundException("Médico não encontrado com ID: " + id);
+            throw new MedicoNotFoundException();
         }
 
-        medicoRepository.deleteById(id);
+        // O flush faz o banco recusar aqui, e não só no commit, a remoção de um médico com consultas
+        try {
+            medicoRepository.deleteById(id);
+            medicoRepository.flush();
+        } catch (DataIntegrityViolationException e) {
+            throw new MedicoException("Não foi possível remover o médico. O médico está vinculado a consultas existentes. Por favor, remova as consultas relacionadas antes de tentar excluir o médico.");
+        }
+        eventosAlteracaoService.registrar(RecursoEvento.MEDICO, id, OperacaoEvento.REMOVIDO);
+        TransacaoUtils.aposConfirmar(() -> {
+            disponibilidadeService.removerMedico(id);
+            registrarAlteracao(id);
+        });
         return true;
     }
+
+    // A versão (ETag) já mudou no commit; o cache não pode continuar respondendo com os dados anteriores
+    private void registrarAlteracao(UUID id) {
+        Cache cache = cacheManager.getCache(CacheConfig.CACHE_MEDICOS);
+        if (cache != null) {
+            cache.evict(id);
+        }
+    }
 }
@@ -1,13 +1,28 @@
 package com.medicalsystem.medicalapi.service;
 
+import com.medicalsystem.medicalapi.config.CacheConfig;
+import com.medicalsystem.medicalapi.constant.OperacaoEvento;
+import com.medicalsystem.medicalapi.constant.RecursoEvento;
 import com.medicalsystem.medicalapi.entity.Paciente;
+import com.medicalsystem.medicalapi.exception.ConflitoException;
 import com.medicalsystem.medicalapi.exception.PacienteException;
 import com.medicalsystem.medicalapi.exception.PacienteNotFound;
+import com.medicalsystem.medicalapi.repository.Filtro;
 import com.medicalsystem.medicalapi.repository.PacienteRepository;
+import com.medicalsystem.medicalapi.utils.TextoUtils;
+import com.medicalsystem.medicalapi.utils.TransacaoUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Service
@@ -16,42 +31,65 @@ public class PacienteService {
     @Autowired
     private PacienteRepository pacienteRepository;
 
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private EventosAlteracaoService eventosAlteracaoService;
+
+    // Semelhança mínima entre o termo e alguma palavra do nome (padrão do pg_trgm: 0.6)
+    private static final String LIMIAR_SIMILARIDADE = "0.4";
 
+    // Restrição UNIQUE da coluna cpf (V1), com o nome padrão do PostgreSQL
+    private static final String RESTRICAO_CPF_UNICO = "paciente_cpf_key";
+
+    // O evento é gravado na mesma transação; o cache só muda depois do commit
+    @Transactional
     public Paciente salvarPaciente(Paciente paciente) {
+        Paciente salvo;
         try {
-            return pacienteRepository.save(paciente);
+            salvo = pacienteRepository.saveAndFlush(paciente);
+
+        } catch (DataIntegrityViolationException e) {
+            // Uma retentativa do mesmo cadastro (ou outro paciente com o CPF) é um conflito, não um erro interno
+            if (violouCpfUnico(e)) {
+                throw new ConflitoException("Já existe um paciente cadastrado com o CPF informado.");
+            }
+            throw new PacienteException("Erro ao salvar o paciente: " + e.getMessage());
 
         } catch (Exception e) {
             throw new PacienteException("Erro ao salvar o paciente: " + e.getMessage());
         }
-    }
 
-    public List<Paciente> listarPacientes(String nome, String cpf) {
-        List<Paciente> pacientes;
+        eventosAlteracaoService.registrar(RecursoEvento.PACIENTE, salvo.getId(), OperacaoEvento.CRIADO);
+        TransacaoUtils.aposConfirmar(() -> registrarAlteracao(salvo.getId()));
+        return salvo;
+    }
 
-        if (nome == null && cpf == null) {
-            return pacienteRepository.findAll();
-        }
+    // Campos aceitos em 'ordenar'
+    public static final String[] CAMPOS_ORDENACAO = {"nome", "cpf", "dataNascimento", "id"};
 
-        // Verifica se o CPF contém pontuação e remove se necessário
-        if (cpf != null && cpf.matches(".*[\\.\\-\\/]")) {
+    // Só os filtros informados entram, combinados com AND: nome por prefixo (sem acentos e maiúsculas)
+    // e CPF exato. Sem tamanho de página retorna todos os pacientes encontrados.
+    @Transactional(readOnly = true)
+    public Page<Paciente> listarPacientes(String nome, String cpf, String ordenar, Integer pagina, Integer tamanho) {
+        // Remove a pontuação do CPF, se houver
+        if (cpf != null) {
             cpf = cpf.replaceAll("[\\.\\-\\/]", "");
         }
 
-        if (nome != null && cpf != null) {
-            pacientes = pacienteRepository.findPacientesByNameAndCPF(nome, cpf);
-        } else if (nome != null) {
-            pacientes = pacienteRepository.findPacientesByName(nome);
-        } else {
-            pacientes = pacienteRepository.findPacientesByCPF(cpf);
-        }
+        Filtro<Paciente> filtro = Filtro.<Paciente>novo()
+                .prefixo("nomeBusca", nome != null ? TextoUtils.normalizarParaBusca(nome) : null)
+                .igual("cpf", cpf);
+
+        Page<Paciente> pacientes = filtro.buscar(pacienteRepository, Filtro.ordenacao(ordenar, "nome", CAMPOS_ORDENACAO), pagina, tamanho);
 
         // Verifica se a lista de pacientes está vazia
-        if (pacientes.isEmpty()) {
+        if (!filtro.isVazio() && pacientes.getTotalElements() == 0) {
             if (nome != null && cpf != null) {
                 throw new PacienteNotFound("Não foram encontrados registros para o paciente com nome: " + nome + " e CPF: " + cpf);
             } else if (cpf != null) {
-                throw new PacienteNotFound("Não foram encontrados registros para o CPF: " + cpf + ". Lembre-se de pesquisar sem pontuação.");
+                throw new PacienteNotFound("Não foram encontrados registros para o CPF: " + cpf + ".");
             } else {
                 throw new PacienteNotFound("Não foram encontrados registros para o nome: " + nome);
             }
@@ -61,27 +99,70 @@ public class PacienteService {
     }
 
 
-    public Paciente buscarPacientePorId(UUID id) {
-        return pacienteRepository.findById(id)
-                .orElseThrow(() -> new PacienteNotFound("Paciente não encontrado com ID: " + id));
+    // Busca tolerante a acentos, prefixos e erros de digitação, com os resultados mais parecidos primeiro
+    @Transactional(readOnly = true)
+    public List<Paciente> buscarPacientesPorNome(String termo, int limite) {
+        String normalizado = TextoUtils.normalizarParaBusca(termo);
+        if (normalizado.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        pacienteRepository.definirLimiarSimilaridade(LIMIAR_SIMILARIDADE);
+        return pacienteRepository.buscarPorNomeAproximado(normalizado, limite);
+    }
+
+    // Consulta o banco só na primeira busca. ID inexistente volta vazio e não entra no cache: quem chama lança o 404
+    // fora do proxy, sem a exceção atravessar o cache (que a embrulharia em exceções com pilha de chamadas).
+    // Lê do primário (transação sem readOnly, na qual o findById do repositório participa): depois de uma gravação
+    // o registro sai do cache, e uma réplica atrasada o recarregaria com os dados anteriores até o cache expirar.
+    @Transactional
+    @Cacheable(cacheNames = CacheConfig.CACHE_PACIENTES, key = "#id", unless = "#result == null")
+    public Optional<Paciente> buscarPacientePorId(UUID id) {
+        return pacienteRepository.findById(id);
     }
 
     // Atualiza os dados do paciente
+    @Transactional
     public Paciente atualizarPaciente(UUID id, Paciente paciente) {
-        if (!pacienteRepository.existsById(id)) {
-            throw new PacienteNotFound("Paciente não encontrado com ID: " + id);
-        }
+        Paciente existente = pacienteRepository.findById(id).orElseThrow(PacienteNotFound::porId);
 
+        // O corpo da requisição não traz a versão (@Version): a gravada vale, e o UPDATE a avança
         paciente.setId(id);
-        return pacienteRepository.save(paciente);
+        paciente.setVersao(existente.getVersao());
+        Paciente atualizado = pacienteRepository.save(paciente);
+        eventosAlteracaoService.registrar(RecursoEvento.PACIENTE, id, OperacaoEvento.ALTERADO);
+        TransacaoUtils.aposConfirmar(() -> registrarAlteracao(id));
+        return atualizado;
     }
 
+    @Transactional
     public boolean deletarPaciente(UUID id) {
         if (!pacienteRepository.existsById(id)) {
-            throw new PacienteNotFound("Paciente não encontrado com ID: " + id);
+            throw PacienteNotFound.porId();
         }
 
-        pacienteRepository.deleteById(id);
+        // O flush faz o banco recusar aqui, e não só no commit, a remoção de um paciente com consultas
+        try {
+            pacienteRepository.deleteById(id);
+            pacienteRepository.flush();
+        } catch (DataIntegrityViolationException e) {
+            throw new PacienteException("Não foi possível remover o paciente. O paciente está vinculado a consultas existentes. Por favor, remova as consultas relacionadas antes de tentar excluir o paciente.");
+        }
+        eventosAlteracaoService.registrar(RecursoEvento.PACIENTE, id, OperacaoEvento.REMOVIDO);
+        TransacaoUtils.aposConfirmar(() -> registrarAlteracao(id));
         return true;
     }
+
+    private static boolean violouCpfUnico(DataIntegrityViolationException e) {
+        String mensagem = e.getMostSpecificCause().getMessage();
+        return mensagem != null && mensagem.contains(RESTRICAO_CPF_UNICO);
+    }
+
+    // A versão (ETag) já mudou no commit; o cache não pode continuar respondendo com os dados anteriores
+    private void registrarAlteracao(UUID id) {
+        Cache cache = cacheManager.getCache(CacheConfig.CACHE_PACIENTES);
+        if (cache != null) {
+            cache.evict(id);
+        }
+    }
 }
@@ -0,0 +1,56 @@
+package com.medicalsystem.medicalapi.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Date;
+import java.time.LocalDate;
+
+// Mantém as partições mensais de consulta (migração V6): cria as dos próximos meses
+// e arquiva as consultas concluídas e canceladas dos meses fora do período de retenção.
+@Slf4j
+@Service
+public class ParticionamentoConsultaService {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${particionamento.consulta.meses-a-frente}")
+    private int mesesAFrente;
+
+    @Value("${particionamento.consulta.meses-retencao}")
+    private int mesesRetencao;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void prepararParticoes() {
+        criarParticoesFuturas(LocalDate.now());
+    }
+
+    @Scheduled(cron = "${particionamento.consulta.cron}")
+    public void manterParticoes() {
+        LocalDate hoje = LocalDate.now();
+        criarParticoesFuturas(hoje);
+
+        Integer arquivadas = jdbcTemplate.queryForObject("SELECT arquivar_particoes_consulta(?)", Integer.class,
+                Date.valueOf(hoje.withDayOfMonth(1).minusMonths(mesesRetencao)));
+        log.info("Consultas movidas para consulta_arquivo: {}", arquivadas);
+    }
+
+    // Consultas são agendadas com antecedência: o mês corrente e os seguintes precisam existir antes das gravações
+    private void criarParticoesFuturas(LocalDate hoje) {
+        LocalDate mes = hoje.withDayOfMonth(1);
+        for (int i = 0; i <= mesesAFrente; i++) {
+            Boolean criada = jdbcTemplate.queryForObject("SELECT criar_particao_consulta(?)", Boolean.class,
+                    Date.valueOf(mes.plusMonths(i)));
+            if (Boolean.TRUE.equals(criada)) {
+                log.info("Partição de consulta criada para {}", mes.plusMonths(i));
+            }
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.medicalsystem.medicalapi.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Roda de tempo hierárquica (timing wheel): agendar, remover e avançar um tick custam O(1) por item,
+// qualquer que seja a quantidade de itens na roda.
+// São três níveis de 64 posições: no primeiro cada posição é um tick, no segundo 64 ticks e no terceiro 4.096.
+// Quando o nível de baixo completa uma volta, os itens da posição seguinte do nível de cima descem para
+// posições mais finas, até vencerem no primeiro nível. Itens além do terceiro nível esperam numa lista à parte.
+// Não é thread-safe: quem usa sincroniza o acesso.
+final class RodaTemporal<K, T> {
+
+    private static final int BITS_POR_NIVEL = 6;
+    private static final int POSICOES = 1 << BITS_POR_NIVEL;
+    private static final int MASCARA = POSICOES - 1;
+    private static final int NIVEIS = 3;
+
+    private final long tickMs;
+
+    // Índice: nivel * POSICOES + posicao
+    private final List<List<Entrada<K, T>>> posicoes = new ArrayList<>(NIVEIS * POSICOES);
+    private final List<Entrada<K, T>> distantes = new ArrayList<>();
+    private final List<Entrada<K, T>> vencidas = new ArrayList<>();
+    private final Map<K, Entrada<K, T>> entradas = new HashMap<>();
+
+    // Último tick processado
+    private long atual;
+
+    RodaTemporal(long tickMs, long inicioMs) {
+        this.tickMs = tickMs;
+        this.atual = Math.floorDiv(inicioMs, tickMs);
+        for (int i = 0; i < NIVEIS * POSICOES; i++) {
+            posicoes.add(new ArrayList<>());
+        }
+    }
+
+    // Substitui o item já agendado com a mesma chave; instantes já passados vencem no próximo avanço
+    void agendar(K chave, long instanteMs, T item) {
+        remover(chave);
+        Entrada<K, T> entrada = new Entrada<>(chave, Math.floorDiv(instanteMs, tickMs), item);
+        entradas.put(chave, entrada);
+        posicionar(entrada);
+    }
+
+    // A entrada fica na posição marcada como removida e é descartada quando a roda passar por ela
+    void remover(K chave) {
+        Entrada<K, T> entrada = entradas.remove(chave);
+        if (entrada != null) {
+            entrada.removida = true;
+        }
+    }
+
+    boolean contem(K chave) {
+        return entradas.containsKey(chave);
+    }
+
+    int tamanho() {
+        return entradas.size();
+    }
+
+    // Avança até o tick de agoraMs e retorna os itens vencidos, na ordem dos ticks
+    List<T> avancar(long agoraMs) {
+        long alvo = Math.floorDiv(agoraMs, tickMs);
+        List<T> resultado = new ArrayList<>();
+        recolher(vencidas, resultado);
+
+        // Roda vazia: não há o que descer nem vencer nos ticks intermediários
+        if (entradas.isEmpty() && alvo > atual) {
+            atual = alvo;
+        }
+
+        while (atual < alvo) {
+            atual++;
+            if ((atual & MASCARA) == 0) {
+                if ((atual >>> BITS_POR_NIVEL & MASCARA) == 0) {
+                    if ((atual >>> 2 * BITS_POR_NIVEL & MASCARA) == 0) {
+                        redistribuir(distantes);
+                    }
+                    redistribuir(posicao(2, atual >>> 2 * BITS_POR_NIVEL));
+                }
+                redistribuir(posicao(1, atual >>> BITS_POR_NIVEL));
+            }
+            recolher(posicao(0, atual), resultado);
+            recolher(vencidas, resultado);
+        }
+        return resultado;
+    }
+
+    private void posicionar(Entrada<K, T> entrada) {
+        long distancia = entrada.tick - atual;
+        if (distancia <= 0) {
+            vencidas.add(entrada);
+        } else if (distancia < POSICOES) {
+            posicao(0, entrada.tick).add(entrada);
+        } else if (distancia < (long) POSICOES * POSICOES) {
+            posicao(1, entrada.tick >>> BITS_POR_NIVEL).add(entrada);
+        } else if (distancia < (long) POSICOES * POSICOES * POSICOES) {
+            posicao(2, entrada.tick >>> 2 * BITS_POR_NIVEL).add(entrada);
+        } else {
+            distantes.add(entrada);
+        }
+    }
+
+    private List<Entrada<K, T>> posicao(int nivel, long indice) {
+        return posicoes.get(nivel * POSICOES + (int) (indice & MASCARA));
+    }
+
+    private void redistribuir(List<Entrada<K, T>> lista) {
+        if (lista.isEmpty()) {
+            return;
+        }
+        List<Entrada<K, T>> pendentes = new ArrayList<>(lista);
+        lista.clear();
+        for (Entrada<K, T> entrada : pendentes) {
+            if (!entrada.removida) {
+                posicionar(entrada);
+            }
+        }
+    }
+
+    private void recolher(List<Entrada<K, T>> lista, List<T> resultado) {
+        for (Entrada<K, T> entrada : lista) {
+            if (!entrada.removida) {
+                entradas.remove(entrada.chave);
+                resultado.add(entrada.item);
+            }
+        }
+        lista.clear();
+    }
+
+    private static final class Entrada<K, T> {
+        final K chave;
+        final long tick;
+        final T item;
+        boolean removida;
+
+        Entrada(K chave, long tick, T item) {
+            this.chave = chave;
+            this.tick = tick;
+            this.item = item;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.medicalsystem.medicalapi.service;
+
+import com.medicalsystem.medicalapi.constant.StatusConsulta;
+import com.medicalsystem.medicalapi.entity.Consulta;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+// Quanto cada contador de estatística muda com as consultas gravadas numa transação.
+// Acumula por médico e dia; o mês e o total da clínica são derivados na hora de gravar.
+public class VariacaoEstatisticas {
+
+    // Contadores na ordem das colunas: agendadas, canceladas, concluídas
+    static final int CONTADORES = 3;
+
+    private final Map<ChaveDia, int[]> porDia = new TreeMap<>();
+
+    public void adicionar(Consulta consulta) {
+        adicionar(consulta.getMedico_id() != null ? consulta.getMedico_id().getId() : null,
+                consulta.getData_consulta(), consulta.getStatus_consulta());
+    }
+
+    public void adicionar(UUID medicoId, LocalDateTime data, StatusConsulta status) {
+        somar(medicoId, data, status, 1);
+    }
+
+    public void remover(UUID medicoId, LocalDateTime data, StatusConsulta status) {
+        somar(medicoId, data, status, -1);
+    }
+
+    public boolean isVazia() {
+        for (int[] contadores : porDia.values()) {
+            if (!zerados(contadores)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Em ordem de médico e dia, para que transações concorrentes atualizem as linhas na mesma ordem
+    Map<ChaveDia, int[]> porDia() {
+        return porDia;
+    }
+
+    static boolean zerados(int[] contadores) {
+        for (int contador : contadores) {
+            if (contador != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void somar(UUID medicoId, LocalDateTime data, StatusConsulta status, int quantidade) {
+        if (medicoId == null || data == null || status == null) {
+            return;
+        }
+        porDia.computeIfAbsent(new ChaveDia(medicoId, data.toLocalDate()), chave -> new int[CONTADORES])[indice(status)] += quantidade;
+    }
+
+    private static int indice(StatusConsulta status) {
+        switch (status) {
+            case AGENDADA:
+                return 0;
+            case CANCELADA:
+                return 1;
+            default:
+                return 2;
+        }
+    }
+
+    static final class ChaveDia implements Comparable<ChaveDia> {
+
+        final UUID medicoId;
+        final LocalDate dia;
+
+        ChaveDia(UUID medicoId, LocalDate dia) {
+            this.medicoId = medicoId;
+            this.dia = dia;
+        }
+
+        @Override
+        public int compareTo(ChaveDia outra) {
+            int comparacao = medicoId.compareTo(outra.medicoId);
+            return comparacao != 0 ? comparacao : dia.compareTo(outra.dia);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof ChaveDia && compareTo((ChaveDia) o) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * medicoId.hashCode() + dia.hashCode();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.medicalsystem.medicalapi.service;
+
+import com.medicalsystem.medicalapi.entity.Medico;
+import com.medicalsystem.medicalapi.entity.Paciente;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+// ETags de médicos e pacientes nas leituras (If-None-Match), derivadas do que está gravado (V15):
+// a versão (@Version) do registro e, na listagem de médicos, o contador que cada gravação em medico
+// avança na própria transação. Valem igualmente em todas as instâncias e continuam valendo após um reinício.
+@Component
+public class VersoesRecursos {
+
+    private static final String VERSAO_MEDICOS = "SELECT versao FROM versao_colecao WHERE recurso = 'medico'";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public VersoesRecursos(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // A versão vem com os dados (do cache ou do banco), então a ETag sempre marca exatamente o que é enviado
+    public static String etagMedico(Medico medico) {
+        return etag("m", medico.getVersao());
+    }
+
+    public static String etagPaciente(Paciente paciente) {
+        return etag("p", paciente.getVersao());
+    }
+
+    // Lida antes de buscar a listagem, para nunca marcar dados mais antigos que a versão, e do primário
+    // (fora de transação somente leitura): uma réplica atrasada devolveria a versão anterior
+    public String etagMedicos() {
+        return etag("ml", jdbcTemplate.queryForObject(VERSAO_MEDICOS, Long.class));
+    }
+
+    // If-None-Match com uma ou mais ETags separadas por vírgula; a comparação ignora o prefixo W/.
+    // "*" não é tratado aqui porque exigiria saber se o registro existe.
+    public static boolean naoModificado(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+
+        for (String candidata : ifNoneMatch.split(",")) {
+            String valor = candidata.trim();
+            if (valor.startsWith("W/")) {
+                valor = valor.substring(2);
+            }
+            if (valor.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String etag(String tipo, long versao) {
+        return "\"" + tipo + "-" + versao + "\"";
+    }
+}
@@ -1,41 +1,107 @@
 package com.medicalsystem.medicalapi.utils;
 
+import java.util.BitSet;
+import java.util.List;
+
 
 public class CPFUtils {
 
-    // Método para verificar se o CPF é válido
+    private static final int TAMANHO_CPF = 11;
+
+    // Método para verificar se o CPF é válido. Aceita o CPF com ou sem pontuação.
     public static boolean isValidCPF(String cpf) {
-        // Remove pontuações do CPF
-        cpf = cpf.replaceAll("[^0-9]", "");
+        return isValidCPF((CharSequence) cpf);
+    }
 
-        if (cpf.length() != 11) {
+    // Percorre os caracteres uma única vez, ignorando o que não for dígito, sem criar objetos intermediários.
+    // Os 11 dígitos ficam empacotados num long, 4 bits cada, na ordem em que aparecem.
+    public static boolean isValidCPF(CharSequence cpf) {
+        if (cpf == null) {
             return false;
         }
 
-        // Verifica se o CPF é uma sequência de números repetidos
-        if (cpf.matches("(\\d)\\1{10}")) {
+        long digitos = 0;
+        int quantidade = 0;
+        for (int i = 0; i < cpf.length(); i++) {
+            char c = cpf.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (quantidade == TAMANHO_CPF) {
+                    return false;
+                }
+                digitos = (digitos << 4) | (c - '0');
+                quantidade++;
+            }
+        }
+        return verificar(digitos, quantidade);
+    }
+
+    public static boolean isValidCPF(char[] cpf) {
+        return cpf != null && isValidCPF(cpf, 0, cpf.length);
+    }
+
+    // Permite validar um trecho de um buffer maior (ex.: linha lida de um arquivo de importação)
+    public static boolean isValidCPF(char[] cpf, int inicio, int tamanho) {
+        if (cpf == null) {
             return false;
         }
 
-        // Valida os dois dígitos verificadores
-        int sum1 = 0, sum2 = 0;
-        int[] weights1 = {10, 9, 8, 7, 6, 5, 4, 3, 2};
-        int[] weights2 = {11, 10, 9, 8, 7, 6, 5, 4, 3, 2};
+        long digitos = 0;
+        int quantidade = 0;
+        for (int i = inicio; i < inicio + tamanho; i++) {
+            char c = cpf[i];
+            if (c >= '0' && c <= '9') {
+                if (quantidade == TAMANHO_CPF) {
+                    return false;
+                }
+                digitos = (digitos << 4) | (c - '0');
+                quantidade++;
+            }
+        }
+        return verificar(digitos, quantidade);
+    }
 
-        // Cálculo do primeiro dígito verificador
-        for (int i = 0; i < 9; i++) {
-            sum1 += Character.getNumericValue(cpf.charAt(i)) * weights1[i];
+    // Valida uma lista inteira e devolve os índices dos CPFs válidos marcados no BitSet
+    public static BitSet validarLote(List<? extends CharSequence> cpfs) {
+        BitSet validos = new BitSet(cpfs.size());
+        for (int i = 0; i < cpfs.size(); i++) {
+            if (isValidCPF(cpfs.get(i))) {
+                validos.set(i);
+            }
         }
-        int digit1 = (sum1 * 10) % 11;
-        if (digit1 == 10 || digit1 == 11) digit1 = 0;
+        return validos;
+    }
 
-        // Cálculo do segundo dígito verificador
+    private static boolean verificar(long digitos, int quantidade) {
+        if (quantidade != TAMANHO_CPF) {
+            return false;
+        }
+
+        // Verifica se o CPF é uma sequência de números repetidos
+        long repetido = (digitos & 0xF) * 0x11111111111L;
+        if (digitos == repetido) {
+            return false;
+        }
+
+        // Pesos de 10 a 2 para o primeiro dígito verificador e de 11 a 2 para o segundo
+        int sum1 = 0, sum2 = 0;
         for (int i = 0; i < 10; i++) {
-            sum2 += Character.getNumericValue(cpf.charAt(i)) * weights2[i];
+            int digito = digito(digitos, i);
+            if (i < 9) {
+                sum1 += digito * (10 - i);
+            }
+            sum2 += digito * (11 - i);
         }
-        int digit2 = (sum2 * 10) % 11;
-        if (digit2 == 10 || digit2 == 11) digit2 = 0;
 
-        return cpf.charAt(9) == digit1 + '0' && cpf.charAt(10) == digit2 + '0';
+        return digito(digitos, 9) == digitoVerificador(sum1) && digito(digitos, 10) == digitoVerificador(sum2);
+    }
+
+    // Posição 0 é o primeiro dígito do CPF, que está nos bits mais altos
+    private static int digito(long digitos, int posicao) {
+        return (int) (digitos >>> (4 * (TAMANHO_CPF - 1 - posicao))) & 0xF;
+    }
+
+    private static int digitoVerificador(int soma) {
+        int digito = (soma * 10) % 11;
+        return digito == 10 ? 0 : digito;
     }
 }
@@ -1,23 +0,0 @@
-package com.medicalsystem.medicalapi.utils;
-
-import com.fasterxml.jackson.core.JsonGenerator;
-import com.fasterxml.jackson.databind.SerializerProvider;
-import com.fasterxml.jackson.databind.ser.std.StdSerializer;
-
-import java.io.IOException;
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-
-public class CustomDateSerializer extends StdSerializer<LocalDate> {
-
-    public CustomDateSerializer() {
-        super(LocalDate.class);
-    }
-
-    @Override
-    public void serialize(LocalDate value, JsonGenerator gen, SerializerProvider provider) throws IOException {
-        DateTimeFormatter formatterBR = DateTimeFormatter.ofPattern("dd/MM/yyyy");
-        String formattedDate = value.format(formatterBR);
-        gen.writeString(formattedDate);
-    }
-}
@@ -0,0 +1,187 @@
+package com.medicalsystem.medicalapi.utils;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+// Serializadores dos campos no formato brasileiro (CPF, telefone, data e data/hora).
+// Cada valor é montado num buffer de caracteres reaproveitado por thread e escrito direto no JsonGenerator,
+// sem regex, String.format nem Strings intermediárias.
+public class FormatoBrasileiroModule extends SimpleModule {
+
+    private static final int TAMANHO_BUFFER = 64;
+
+    // Metade inicial do buffer guarda a entrada; a outra metade, o valor formatado
+    private static final int INICIO_SAIDA = TAMANHO_BUFFER / 2;
+
+    private static final ThreadLocal<char[]> BUFFER = ThreadLocal.withInitial(() -> new char[TAMANHO_BUFFER]);
+
+    public FormatoBrasileiroModule() {
+        super("FormatoBrasileiroModule");
+
+        addSerializer(LocalDate.class, new DataSerializer());
+        addSerializer(LocalDateTime.class, new DataHoraSerializer());
+        addDeserializer(LocalDate.class, new CustomDateDeserializer());
+        addDeserializer(LocalDateTime.class, new CustomDateTimeDeserializer());
+    }
+
+    // CPF no padrão XXX.XXX.XXX-XX. Com outra quantidade de dígitos, escreve só os dígitos.
+    // Por ser um String, é aplicado no campo com @JsonSerialize(using = FormatoBrasileiroModule.CpfSerializer.class)
+    public static class CpfSerializer extends StdSerializer<String> {
+
+        public CpfSerializer() {
+            super(String.class);
+        }
+
+        @Override
+        public void serialize(String value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            if (value == null) {
+                gen.writeNull();
+                return;
+            }
+
+            // Valores que não cabem na metade de entrada do buffer ganham um buffer próprio
+            char[] buffer = value.length() <= INICIO_SAIDA ? BUFFER.get() : new char[INICIO_SAIDA + value.length()];
+
+            int digitos = 0;
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c >= '0' && c <= '9') {
+                    buffer[digitos++] = c;
+                }
+            }
+
+            if (digitos != 11) {
+                gen.writeString(buffer, 0, digitos);
+                return;
+            }
+
+            int pos = INICIO_SAIDA;
+            pos = copiar(buffer, 0, 3, buffer, pos);
+            buffer[pos++] = '.';
+            pos = copiar(buffer, 3, 6, buffer, pos);
+            buffer[pos++] = '.';
+            pos = copiar(buffer, 6, 9, buffer, pos);
+            buffer[pos++] = '-';
+            pos = copiar(buffer, 9, 11, buffer, pos);
+            gen.writeString(buffer, INICIO_SAIDA, pos - INICIO_SAIDA);
+        }
+    }
+
+    // Telefone com DDD: (XX) XXXX-XXXX para 10 dígitos e (XX) XXXXX-XXXX para 11. Outros valores saem como vieram.
+    public static class TelefoneSerializer extends StdSerializer<String> {
+
+        public TelefoneSerializer() {
+            super(String.class);
+        }
+
+        @Override
+        public void serialize(String value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            if (value == null || value.length() < 10 || value.length() > 11) {
+                gen.writeString(value);
+                return;
+            }
+
+            char[] buffer = BUFFER.get();
+            int meio = value.length() - 4;
+
+            int pos = 0;
+            buffer[pos++] = '(';
+            buffer[pos++] = value.charAt(0);
+            buffer[pos++] = value.charAt(1);
+            buffer[pos++] = ')';
+            buffer[pos++] = ' ';
+            for (int i = 2; i < meio; i++) {
+                buffer[pos++] = value.charAt(i);
+            }
+            buffer[pos++] = '-';
+            for (int i = meio; i < value.length(); i++) {
+                buffer[pos++] = value.charAt(i);
+            }
+            gen.writeString(buffer, 0, pos);
+        }
+    }
+
+    // Data no padrão dd/MM/yyyy
+    public static class DataSerializer extends StdSerializer<LocalDate> {
+
+        private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+        public DataSerializer() {
+            super(LocalDate.class);
+        }
+
+        @Override
+        public void serialize(LocalDate value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            if (!anoComQuatroDigitos(value.getYear())) {
+                gen.writeString(value.format(FORMATTER));
+                return;
+            }
+
+            char[] buffer = BUFFER.get();
+            int pos = escreverData(buffer, value.getDayOfMonth(), value.getMonthValue(), value.getYear());
+            gen.writeString(buffer, 0, pos);
+        }
+    }
+
+    // Data e hora no padrão dd/MM/yyyy HH:mm:ss (frações de segundo não são escritas)
+    public static class DataHoraSerializer extends StdSerializer<LocalDateTime> {
+
+        private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss");
+
+        public DataHoraSerializer() {
+            super(LocalDateTime.class);
+        }
+
+        @Override
+        public void serialize(LocalDateTime value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            if (!anoComQuatroDigitos(value.getYear())) {
+                gen.writeString(value.format(FORMATTER));
+                return;
+            }
+
+            char[] buffer = BUFFER.get();
+            int pos = escreverData(buffer, value.getDayOfMonth(), value.getMonthValue(), value.getYear());
+            buffer[pos++] = ' ';
+            pos = doisDigitos(buffer, pos, value.getHour());
+            buffer[pos++] = ':';
+            pos = doisDigitos(buffer, pos, value.getMinute());
+            buffer[pos++] = ':';
+            pos = doisDigitos(buffer, pos, value.getSecond());
+            gen.writeString(buffer, 0, pos);
+        }
+    }
+
+    // Fora de 1 a 9999 o "yyyy" do DateTimeFormatter usa sinal ou ano da era; nesses casos o formatter é usado
+    private static boolean anoComQuatroDigitos(int ano) {
+        return ano >= 1 && ano <= 9999;
+    }
+
+    private static int escreverData(char[] buffer, int dia, int mes, int ano) {
+        int pos = doisDigitos(buffer, 0, dia);
+        buffer[pos++] = '/';
+        pos = doisDigitos(buffer, pos, mes);
+        buffer[pos++] = '/';
+        pos = doisDigitos(buffer, pos, ano / 100);
+        return doisDigitos(buffer, pos, ano % 100);
+    }
+
+    private static int doisDigitos(char[] buffer, int pos, int valor) {
+        buffer[pos] = (char) ('0' + valor / 10);
+        buffer[pos + 1] = (char) ('0' + valor % 10);
+        return pos + 2;
+    }
+
+    private static int copiar(char[] origem, int inicio, int fim, char[] destino, int pos) {
+        for (int i = inicio; i < fim; i++) {
+            destino[pos++] = origem[i];
+        }
+        return pos;
+    }
+}
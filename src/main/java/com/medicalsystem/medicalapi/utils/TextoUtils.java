@@ -0,0 +1,21 @@
+package com.medicalsystem.medicalapi.utils;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+public class TextoUtils {
+
+    private static final Pattern ACENTOS = Pattern.compile("\\p{M}+");
+    private static final Pattern ESPACOS = Pattern.compile("\\s+");
+
+    // Normaliza o texto da mesma forma que a coluna nome_busca: sem acentos, minúsculo e com espaços simples
+    public static String normalizarParaBusca(String texto) {
+        if (texto == null) {
+            return "";
+        }
+
+        String semAcentos = ACENTOS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        return ESPACOS.matcher(semAcentos.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+}
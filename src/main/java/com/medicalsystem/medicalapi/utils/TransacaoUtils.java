@@ -0,0 +1,23 @@
+package com.medicalsystem.medicalapi.utils;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public class TransacaoUtils {
+
+    // Executa a ação só depois do commit da transação atual (nada acontece se ela for desfeita).
+    // Fora de uma transação, executa na hora.
+    public static void aposConfirmar(Runnable acao) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            acao.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                acao.run();
+            }
+        });
+    }
+}
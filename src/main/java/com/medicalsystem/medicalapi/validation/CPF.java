@@ -0,0 +1,23 @@
+package com.medicalsystem.medicalapi.validation;
+
+import javax.validation.Constraint;
+import javax.validation.Payload;
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Valida os dígitos verificadores do CPF. Valores nulos são aceitos (use @NotNull para exigir o campo).
+@Documented
+@Constraint(validatedBy = CPFValidator.class)
+@Target({ElementType.FIELD, ElementType.METHOD, ElementType.PARAMETER, ElementType.ANNOTATION_TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface CPF {
+
+    String message() default "O 'cpf' informado não é válido.";
+
+    Class<?>[] groups() default {};
+
+    Class<? extends Payload>[] payload() default {};
+}
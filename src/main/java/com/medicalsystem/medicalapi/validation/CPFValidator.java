@@ -0,0 +1,14 @@
+package com.medicalsystem.medicalapi.validation;
+
+import com.medicalsystem.medicalapi.utils.CPFUtils;
+
+import javax.validation.ConstraintValidator;
+import javax.validation.ConstraintValidatorContext;
+
+public class CPFValidator implements ConstraintValidator<CPF, CharSequence> {
+
+    @Override
+    public boolean isValid(CharSequence value, ConstraintValidatorContext context) {
+        return value == null || CPFUtils.isValidCPF(value);
+    }
+}
@@ -0,0 +1,14 @@
+-- Lembretes de consulta já enviados (ou em envio). A linha é gravada antes de chamar o enviador, e só enquanto
+-- a consulta está agendada na data do lembrete: depois de um reinício, o lembrete carregado de novo encontra
+-- a linha e não é reenviado. A data da consulta faz parte da chave para que uma consulta remarcada receba
+-- os lembretes da nova data. Sem chave estrangeira: consulta é particionada e as antigas vão para consulta_arquivo.
+CREATE TABLE lembrete_enviado (
+    consulta_id UUID NOT NULL,
+    antecedencia CHAR(1) NOT NULL CHECK (antecedencia IN ('D', 'H')),
+    data_consulta TIMESTAMP NOT NULL,
+    registrado_em TIMESTAMP NOT NULL DEFAULT now(),
+    PRIMARY KEY (consulta_id, antecedencia, data_consulta)
+);
+
+-- Remoção diária dos registros de consultas que já passaram
+CREATE INDEX idx_lembrete_enviado_data ON lembrete_enviado (data_consulta);
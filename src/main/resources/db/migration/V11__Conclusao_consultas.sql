@@ -0,0 +1,15 @@
+-- Conclusão automática das consultas agendadas que já passaram (ConclusaoConsultasService).
+-- Só as consultas AGENDADA entram no índice: cada lote lê as mais antigas direto dele, e as já concluídas saem.
+CREATE INDEX idx_consulta_agendada_data ON consulta (data_consulta) WHERE status_consulta = 'AGENDADA';
+
+-- Andamento de cada execução, atualizado na mesma transação de cada lote. Uma execução sem finalizada_em
+-- foi interrompida e é retomada pela próxima, com o mesmo corte.
+CREATE TABLE execucao_conclusao_consulta (
+    id BIGSERIAL PRIMARY KEY,
+    corte TIMESTAMP NOT NULL,
+    iniciada_em TIMESTAMP NOT NULL DEFAULT now(),
+    atualizada_em TIMESTAMP NOT NULL DEFAULT now(),
+    finalizada_em TIMESTAMP,
+    lotes INTEGER NOT NULL DEFAULT 0,
+    concluidas BIGINT NOT NULL DEFAULT 0
+);
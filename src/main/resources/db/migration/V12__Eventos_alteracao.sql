@@ -0,0 +1,22 @@
+-- Eventos de alteração de consultas, médicos e pacientes (EventosAlteracaoService), gravados na mesma
+-- transação da alteração: se ela for desfeita, o evento também é.
+-- O id segue a ordem dos INSERTs, não a dos commits: uma transação lenta pode confirmar um id menor depois
+-- que um consumidor já leu ids maiores. Por isso os consumidores leem pela posicao, atribuída só depois do
+-- commit, por um publicador de cada vez (pg_advisory_xact_lock) e em ordem crescente: um evento nunca
+-- aparece atrás de uma posição já entregue.
+CREATE SEQUENCE evento_alteracao_posicao_seq;
+
+CREATE TABLE evento_alteracao (
+    id BIGSERIAL PRIMARY KEY,
+    posicao BIGINT UNIQUE,
+    recurso VARCHAR(10) NOT NULL CHECK (recurso IN ('CONSULTA', 'MEDICO', 'PACIENTE')),
+    recurso_id UUID NOT NULL,
+    operacao VARCHAR(10) NOT NULL CHECK (operacao IN ('CRIADO', 'ALTERADO', 'REMOVIDO')),
+    registrado_em TIMESTAMP NOT NULL DEFAULT now()
+);
+
+-- Eventos ainda sem posição: o publicador lê só estes
+CREATE INDEX idx_evento_alteracao_pendente ON evento_alteracao (id) WHERE posicao IS NULL;
+
+-- Remoção diária dos eventos mais antigos que a retenção
+CREATE INDEX idx_evento_alteracao_registrado_em ON evento_alteracao (registrado_em);
@@ -0,0 +1,16 @@
+-- Chaves de idempotência (cabeçalho Idempotency-Key) dos POST de criação, usadas quando idempotencia.persistir=true.
+-- A linha é reservada sem status antes de executar a requisição e recebe o status e o corpo da resposta no fim:
+-- outra instância que recebe a mesma chave devolve a resposta guardada, ou 409 enquanto ela não existe.
+-- A impressão (SHA-256 da operação e do corpo) recusa a mesma chave com outros dados.
+CREATE TABLE chave_idempotencia (
+    operacao VARCHAR(30) NOT NULL,
+    chave VARCHAR(255) NOT NULL,
+    impressao VARCHAR(64) NOT NULL,
+    status SMALLINT,
+    corpo BYTEA,
+    criada_em TIMESTAMP NOT NULL DEFAULT now(),
+    PRIMARY KEY (operacao, chave)
+);
+
+-- Remoção diária das chaves mais antigas que a retenção
+CREATE INDEX idx_chave_idempotencia_criada_em ON chave_idempotencia (criada_em);
@@ -0,0 +1,4 @@
+-- A chave passa a ser reservada e completada na mesma transação da gravação: a linha sem status só existe
+-- dentro dessa transação e nenhuma outra a vê. Reservas sem resposta deixadas pelo esquema anterior (V13)
+-- não têm como ser concluídas e bloqueariam a chave.
+DELETE FROM chave_idempotencia WHERE status IS NULL;
@@ -0,0 +1,26 @@
+-- Versões gravadas que formam as ETags (antes mantidas em memória em cada instância).
+-- versao é o @Version de Medico e Paciente: o Hibernate a avança em cada UPDATE. Pacientes importados
+-- (JDBC) entram com a versão 0.
+ALTER TABLE medico ADD COLUMN versao BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE paciente ADD COLUMN versao BIGINT NOT NULL DEFAULT 0;
+
+-- Versão da listagem de médicos, avançada na mesma transação de qualquer inclusão, alteração ou remoção:
+-- é confirmada junto com os dados, vale em todas as instâncias e sobrevive a reinícios.
+-- Um gatilho por comando (e não por linha) faz um lote de gravações avançar a versão uma vez só.
+CREATE TABLE versao_colecao (
+    recurso VARCHAR(30) PRIMARY KEY,
+    versao BIGINT NOT NULL
+);
+
+INSERT INTO versao_colecao (recurso, versao) VALUES ('medico', 0);
+
+CREATE OR REPLACE FUNCTION avancar_versao_colecao() RETURNS TRIGGER AS $$
+BEGIN
+    UPDATE versao_colecao SET versao = versao + 1 WHERE recurso = TG_TABLE_NAME;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER medico_versao_colecao
+    AFTER INSERT OR UPDATE OR DELETE ON medico
+    FOR EACH STATEMENT EXECUTE FUNCTION avancar_versao_colecao();
@@ -0,0 +1,41 @@
+-- O índice único de horário agendado (V7) tem um índice em cada partição, e é o nome dele que vem na
+-- violação. O PostgreSQL gera esses nomes (consulta_2030_01_medico_id_data_consulta_idx, com sufixo numérico
+-- em caso de colisão); a partir daqui todos seguem uq_<partição>_medico_data_agendada.
+DO $$
+DECLARE
+    indice RECORD;
+BEGIN
+    FOR indice IN
+        SELECT filho.relname AS nome, tabela.relname AS particao
+        FROM pg_inherits heranca
+        JOIN pg_class filho ON filho.oid = heranca.inhrelid
+        JOIN pg_index definicao ON definicao.indexrelid = filho.oid
+        JOIN pg_class tabela ON tabela.oid = definicao.indrelid
+        WHERE heranca.inhparent = 'uq_consulta_medico_data_agendada'::regclass
+    LOOP
+        EXECUTE format('ALTER INDEX %I RENAME TO %I', indice.nome, 'uq_' || indice.particao || '_medico_data_agendada');
+    END LOOP;
+END;
+$$;
+
+-- Partições novas já nascem com o índice no nome fixo: criado antes do ATTACH, ele é adotado como o índice
+-- da partição em vez de o PostgreSQL criar outro
+CREATE OR REPLACE FUNCTION criar_particao_consulta(mes DATE) RETURNS BOOLEAN AS $$
+DECLARE
+    inicio DATE := date_trunc('month', mes)::DATE;
+    fim DATE := (date_trunc('month', mes) + INTERVAL '1 month')::DATE;
+    nome TEXT := 'consulta_' || to_char(inicio, 'YYYY_MM');
+BEGIN
+    IF to_regclass(nome) IS NOT NULL THEN
+        RETURN FALSE;
+    END IF;
+
+    EXECUTE format('CREATE TABLE %I (LIKE consulta INCLUDING DEFAULTS INCLUDING CONSTRAINTS)', nome);
+    EXECUTE format('WITH movidas AS (DELETE FROM consulta_padrao WHERE data_consulta >= %L AND data_consulta < %L RETURNING *) '
+                   'INSERT INTO %I SELECT * FROM movidas', inicio, fim, nome);
+    EXECUTE format('CREATE UNIQUE INDEX %I ON %I (medico_id, data_consulta) WHERE status_consulta = ''AGENDADA''',
+                   'uq_' || nome || '_medico_data_agendada', nome);
+    EXECUTE format('ALTER TABLE consulta ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)', nome, inicio, fim);
+    RETURN TRUE;
+END;
+$$ LANGUAGE plpgsql;
@@ -0,0 +1,4 @@
+-- Índices que sustentam a paginação por cursor (data_consulta, id) da listagem de consultas
+CREATE INDEX IF NOT EXISTS idx_consulta_data_id ON consulta (data_consulta, id);
+CREATE INDEX IF NOT EXISTS idx_consulta_medico_data_id ON consulta (medico_id, data_consulta, id);
+CREATE INDEX IF NOT EXISTS idx_consulta_paciente_data_id ON consulta (paciente_id, data_consulta, id);
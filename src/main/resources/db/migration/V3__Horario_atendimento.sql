@@ -0,0 +1,12 @@
+-- Expediente semanal de cada médico. Médicos sem registros atendem de segunda a sexta, das 08:00 às 18:00.
+CREATE TABLE horario_atendimento (
+    id UUID PRIMARY KEY,
+    medico_id UUID NOT NULL,
+    dia_semana INTEGER NOT NULL CHECK (dia_semana BETWEEN 1 AND 7),
+    hora_inicio TIME NOT NULL,
+    hora_fim TIME NOT NULL,
+    CHECK (hora_fim > hora_inicio),
+    FOREIGN KEY (medico_id) REFERENCES medico(id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_horario_atendimento_medico ON horario_atendimento (medico_id);
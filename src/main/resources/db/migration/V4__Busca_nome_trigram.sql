@@ -0,0 +1,15 @@
+-- Busca por nome sem diferenciar acentos e maiúsculas, tolerante a prefixos e erros de digitação
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE EXTENSION IF NOT EXISTS unaccent;
+
+-- unaccent() não é IMMUTABLE; o wrapper fixa o dicionário para permitir o uso em colunas geradas e índices
+CREATE OR REPLACE FUNCTION f_unaccent(texto text) RETURNS text AS $$
+    SELECT public.unaccent('public.unaccent', texto)
+$$ LANGUAGE sql IMMUTABLE PARALLEL SAFE STRICT;
+
+-- Nome normalizado, mantido pelo próprio banco a cada INSERT/UPDATE
+ALTER TABLE paciente ADD COLUMN nome_busca TEXT GENERATED ALWAYS AS (lower(f_unaccent(nome))) STORED;
+ALTER TABLE medico ADD COLUMN nome_busca TEXT GENERATED ALWAYS AS (lower(f_unaccent(nome))) STORED;
+
+CREATE INDEX idx_paciente_nome_busca_trgm ON paciente USING gin (nome_busca gin_trgm_ops);
+CREATE INDEX idx_medico_nome_busca_trgm ON medico USING gin (nome_busca gin_trgm_ops);
@@ -0,0 +1,12 @@
+-- Agenda do médico por intervalo de datas (GET /medicos/{id}/agenda).
+-- O índice cobre as colunas lidas pela projeção da agenda, permitindo index-only scan na consulta;
+-- substitui idx_consulta_medico_data_id, que tem as mesmas colunas-chave.
+CREATE INDEX IF NOT EXISTS idx_consulta_medico_data_cobertura
+    ON consulta (medico_id, data_consulta, id) INCLUDE (paciente_id, status_consulta);
+
+DROP INDEX IF EXISTS idx_consulta_medico_data_id;
+
+-- Consultas ainda agendadas são a menor e mais acessada fatia da tabela
+CREATE INDEX IF NOT EXISTS idx_consulta_medico_data_agendada
+    ON consulta (medico_id, data_consulta)
+    WHERE status_consulta = 'AGENDADA';
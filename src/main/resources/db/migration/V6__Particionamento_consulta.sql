@@ -0,0 +1,128 @@
+-- Particionamento mensal da tabela consulta por data_consulta.
+-- Cada mês fica numa partição própria (consulta_AAAA_MM); datas sem partição caem em consulta_padrao.
+-- Partições antigas têm as consultas concluídas e canceladas movidas para consulta_arquivo.
+
+ALTER TABLE consulta RENAME TO consulta_legado;
+
+CREATE TABLE consulta (
+    id UUID NOT NULL,
+    medico_id UUID NOT NULL,
+    paciente_id UUID NOT NULL,
+    data_consulta TIMESTAMP NOT NULL,
+    status_consulta VARCHAR(16) CHECK (status_consulta IN ('AGENDADA', 'CANCELADA', 'CONCLUIDA'))
+) PARTITION BY RANGE (data_consulta);
+
+CREATE TABLE consulta_padrao PARTITION OF consulta DEFAULT;
+
+-- Consultas concluídas e canceladas de meses antigos, fora do caminho das consultas do dia a dia
+CREATE TABLE consulta_arquivo (
+    id UUID NOT NULL,
+    medico_id UUID NOT NULL,
+    paciente_id UUID NOT NULL,
+    data_consulta TIMESTAMP NOT NULL,
+    status_consulta VARCHAR(16) NOT NULL,
+    arquivada_em TIMESTAMP NOT NULL DEFAULT now(),
+    PRIMARY KEY (id, data_consulta)
+);
+
+CREATE INDEX idx_consulta_arquivo_medico_data ON consulta_arquivo (medico_id, data_consulta);
+CREATE INDEX idx_consulta_arquivo_paciente_data ON consulta_arquivo (paciente_id, data_consulta);
+
+-- Cria a partição do mês informado, se ainda não existir. Linhas desse mês que estejam na
+-- partição padrão são movidas para a nova partição antes de anexá-la.
+CREATE OR REPLACE FUNCTION criar_particao_consulta(mes DATE) RETURNS BOOLEAN AS $$
+DECLARE
+    inicio DATE := date_trunc('month', mes)::DATE;
+    fim DATE := (date_trunc('month', mes) + INTERVAL '1 month')::DATE;
+    nome TEXT := 'consulta_' || to_char(inicio, 'YYYY_MM');
+BEGIN
+    IF to_regclass(nome) IS NOT NULL THEN
+        RETURN FALSE;
+    END IF;
+
+    EXECUTE format('CREATE TABLE %I (LIKE consulta INCLUDING DEFAULTS INCLUDING CONSTRAINTS)', nome);
+    EXECUTE format('WITH movidas AS (DELETE FROM consulta_padrao WHERE data_consulta >= %L AND data_consulta < %L RETURNING *) '
+                   'INSERT INTO %I SELECT * FROM movidas', inicio, fim, nome);
+    EXECUTE format('ALTER TABLE consulta ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)', nome, inicio, fim);
+    RETURN TRUE;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Move as consultas concluídas e canceladas da partição do mês para consulta_arquivo.
+-- Se a partição ficar vazia ela é removida; consultas ainda agendadas mantêm a partição.
+CREATE OR REPLACE FUNCTION arquivar_particao_consulta(mes DATE) RETURNS INTEGER AS $$
+DECLARE
+    nome TEXT := 'consulta_' || to_char(date_trunc('month', mes), 'YYYY_MM');
+    arquivadas INTEGER;
+    restantes BOOLEAN;
+BEGIN
+    IF to_regclass(nome) IS NULL THEN
+        RETURN 0;
+    END IF;
+
+    EXECUTE format('WITH movidas AS (DELETE FROM %I WHERE status_consulta IN (''CONCLUIDA'', ''CANCELADA'') RETURNING *) '
+                   'INSERT INTO consulta_arquivo (id, medico_id, paciente_id, data_consulta, status_consulta) '
+                   'SELECT id, medico_id, paciente_id, data_consulta, status_consulta FROM movidas '
+                   'ON CONFLICT DO NOTHING', nome);
+    GET DIAGNOSTICS arquivadas = ROW_COUNT;
+
+    EXECUTE format('SELECT EXISTS (SELECT 1 FROM %I)', nome) INTO restantes;
+    IF NOT restantes THEN
+        EXECUTE format('ALTER TABLE consulta DETACH PARTITION %I', nome);
+        EXECUTE format('DROP TABLE %I', nome);
+    END IF;
+
+    RETURN arquivadas;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Arquiva todas as partições mensais que terminam antes da data limite
+CREATE OR REPLACE FUNCTION arquivar_particoes_consulta(limite DATE) RETURNS INTEGER AS $$
+DECLARE
+    particao TEXT;
+    mes DATE;
+    total INTEGER := 0;
+BEGIN
+    FOR particao IN
+        SELECT filha.relname
+        FROM pg_inherits heranca
+        JOIN pg_class filha ON filha.oid = heranca.inhrelid
+        JOIN pg_class pai ON pai.oid = heranca.inhparent
+        WHERE pai.relname = 'consulta' AND filha.relname ~ '^consulta_[0-9]{4}_[0-9]{2}$'
+        ORDER BY filha.relname
+    LOOP
+        mes := to_date(substring(particao FROM 10), 'YYYY_MM');
+        IF mes + INTERVAL '1 month' <= limite THEN
+            total := total + arquivar_particao_consulta(mes);
+        END IF;
+    END LOOP;
+
+    RETURN total;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Partições de todos os meses com consultas, até três meses à frente
+SELECT criar_particao_consulta(mes::DATE)
+FROM generate_series(
+        date_trunc('month', LEAST(COALESCE((SELECT min(data_consulta) FROM consulta_legado), now()), now())),
+        date_trunc('month', GREATEST(COALESCE((SELECT max(data_consulta) FROM consulta_legado), now()), now()) + INTERVAL '3 months'),
+        INTERVAL '1 month') AS mes;
+
+INSERT INTO consulta (id, medico_id, paciente_id, data_consulta, status_consulta)
+SELECT id, medico_id, paciente_id, data_consulta, status_consulta FROM consulta_legado;
+
+DROP TABLE consulta_legado;
+
+-- A chave de partição precisa fazer parte da chave primária
+ALTER TABLE consulta ADD PRIMARY KEY (id, data_consulta);
+ALTER TABLE consulta ADD FOREIGN KEY (medico_id) REFERENCES medico (id);
+ALTER TABLE consulta ADD FOREIGN KEY (paciente_id) REFERENCES paciente (id);
+
+-- Índices das migrações V2 e V5, recriados na tabela particionada (propagam para cada partição)
+CREATE INDEX idx_consulta_data_id ON consulta (data_consulta, id);
+CREATE INDEX idx_consulta_paciente_data_id ON consulta (paciente_id, data_consulta, id);
+CREATE INDEX idx_consulta_medico_data_cobertura
+    ON consulta (medico_id, data_consulta, id) INCLUDE (paciente_id, status_consulta);
+CREATE INDEX idx_consulta_medico_data_agendada
+    ON consulta (medico_id, data_consulta)
+    WHERE status_consulta = 'AGENDADA';
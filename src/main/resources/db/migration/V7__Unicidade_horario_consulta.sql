@@ -0,0 +1,20 @@
+-- Garantia no banco contra agendamento duplo: um médico só pode ter uma consulta AGENDADA por horário,
+-- mesmo com várias instâncias da aplicação gravando ao mesmo tempo. Em tabela particionada o índice
+-- único precisa conter a chave de partição, o que já acontece com (medico_id, data_consulta).
+
+-- Agendamentos duplicados que já existam ficam só com a consulta de menor ID; as demais são canceladas
+UPDATE consulta c SET status_consulta = 'CANCELADA'
+WHERE c.status_consulta = 'AGENDADA'
+  AND EXISTS (SELECT 1 FROM consulta o
+              WHERE o.medico_id = c.medico_id AND o.data_consulta = c.data_consulta
+                AND o.status_consulta = 'AGENDADA' AND o.id < c.id);
+
+-- Mesmas colunas e condição do índice parcial da V5, agora único
+DROP INDEX IF EXISTS idx_consulta_medico_data_agendada;
+
+CREATE UNIQUE INDEX uq_consulta_medico_data_agendada
+    ON consulta (medico_id, data_consulta)
+    WHERE status_consulta = 'AGENDADA';
+
+-- Versão para o controle otimista de concorrência (@Version em Consulta)
+ALTER TABLE consulta ADD COLUMN versao BIGINT NOT NULL DEFAULT 0;
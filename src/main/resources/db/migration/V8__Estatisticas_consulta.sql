@@ -0,0 +1,70 @@
+-- Contadores de consultas por status, por médico e por período, atualizados na mesma transação que
+-- agenda, altera ou cancela a consulta. periodo 'D' = dia; 'M' = mês, com inicio no primeiro dia do mês.
+-- Cada contador é a quantidade de consultas que estão no status agora: uma mudança de status
+-- tira 1 do status anterior e soma 1 no novo.
+CREATE TABLE estatistica_medico (
+    medico_id UUID NOT NULL,
+    periodo CHAR(1) NOT NULL CHECK (periodo IN ('D', 'M')),
+    inicio DATE NOT NULL,
+    agendadas INTEGER NOT NULL DEFAULT 0,
+    canceladas INTEGER NOT NULL DEFAULT 0,
+    concluidas INTEGER NOT NULL DEFAULT 0,
+    PRIMARY KEY (medico_id, periodo, inicio)
+);
+
+-- Total da clínica dividido em fatias (pelo médico), para que agendamentos simultâneos de médicos
+-- diferentes não disputem a mesma linha. O total de um período é a soma de no máximo 16 linhas.
+CREATE TABLE estatistica_clinica (
+    periodo CHAR(1) NOT NULL CHECK (periodo IN ('D', 'M')),
+    inicio DATE NOT NULL,
+    fatia SMALLINT NOT NULL,
+    agendadas INTEGER NOT NULL DEFAULT 0,
+    canceladas INTEGER NOT NULL DEFAULT 0,
+    concluidas INTEGER NOT NULL DEFAULT 0,
+    PRIMARY KEY (periodo, inicio, fatia)
+);
+
+-- Recalcula todos os contadores a partir de consulta e consulta_arquivo.
+-- O bloqueio faz as gravações de estatística concorrentes esperarem o fim da reconstrução: as que já
+-- gravaram terminam antes e entram na contagem; as que vierem depois somam sobre o resultado.
+-- O total da clínica é refeito numa fatia só; a soma por período não depende da fatia.
+CREATE OR REPLACE FUNCTION reconstruir_estatisticas_consulta() RETURNS BIGINT AS $$
+DECLARE
+    total BIGINT;
+BEGIN
+    LOCK TABLE estatistica_medico, estatistica_clinica IN EXCLUSIVE MODE;
+
+    DELETE FROM estatistica_medico;
+    DELETE FROM estatistica_clinica;
+
+    CREATE TEMPORARY TABLE estatistica_dia AS
+    SELECT medico_id,
+           data_consulta::DATE AS dia,
+           count(*) FILTER (WHERE status_consulta = 'AGENDADA') AS agendadas,
+           count(*) FILTER (WHERE status_consulta = 'CANCELADA') AS canceladas,
+           count(*) FILTER (WHERE status_consulta = 'CONCLUIDA') AS concluidas
+    FROM (SELECT medico_id, data_consulta, status_consulta FROM consulta
+          UNION ALL
+          SELECT medico_id, data_consulta, status_consulta FROM consulta_arquivo) todas
+    GROUP BY medico_id, data_consulta::DATE;
+
+    INSERT INTO estatistica_medico (medico_id, periodo, inicio, agendadas, canceladas, concluidas)
+    SELECT medico_id, 'D', dia, agendadas, canceladas, concluidas FROM estatistica_dia
+    UNION ALL
+    SELECT medico_id, 'M', date_trunc('month', dia)::DATE, sum(agendadas), sum(canceladas), sum(concluidas)
+    FROM estatistica_dia GROUP BY medico_id, date_trunc('month', dia);
+
+    INSERT INTO estatistica_clinica (periodo, inicio, fatia, agendadas, canceladas, concluidas)
+    SELECT 'D', dia, 0, sum(agendadas), sum(canceladas), sum(concluidas)
+    FROM estatistica_dia GROUP BY dia
+    UNION ALL
+    SELECT 'M', date_trunc('month', dia)::DATE, 0, sum(agendadas), sum(canceladas), sum(concluidas)
+    FROM estatistica_dia GROUP BY date_trunc('month', dia);
+
+    SELECT coalesce(sum(agendadas + canceladas + concluidas), 0) INTO total FROM estatistica_dia;
+    DROP TABLE estatistica_dia;
+    RETURN total;
+END;
+$$ LANGUAGE plpgsql;
+
+SELECT reconstruir_estatisticas_consulta();
@@ -0,0 +1,14 @@
+-- Índices das listagens filtradas de médicos e pacientes (Filtro): cada filtro é uma igualdade ou um prefixo,
+-- combinados com AND, então o planejador usa o índice do campo mais seletivo em vez de ler a tabela inteira.
+
+-- text_pattern_ops permite usar btree em LIKE 'prefixo%' independente da collation do banco
+CREATE INDEX idx_medico_nome_busca_prefixo ON medico (nome_busca text_pattern_ops);
+CREATE INDEX idx_paciente_nome_busca_prefixo ON paciente (nome_busca text_pattern_ops);
+
+-- Especialidade exata já na ordem padrão da listagem (nome, id): a página sai do índice sem ordenar
+CREATE INDEX idx_medico_especialidade_nome ON medico (especialidade, nome, id);
+CREATE INDEX idx_medico_crm ON medico (crm);
+
+-- Listagem sem filtro, ordenada por nome e paginada
+CREATE INDEX idx_medico_nome ON medico (nome, id);
+CREATE INDEX idx_paciente_nome ON paciente (nome, id);
@@ -0,0 +1,55 @@
+package com.medicalsystem.medicalapi;
+
+import com.medicalsystem.medicalapi.constant.StatusConsulta;
+import com.medicalsystem.medicalapi.entity.Consulta;
+import com.medicalsystem.medicalapi.entity.Medico;
+import com.medicalsystem.medicalapi.entity.Paciente;
+import com.medicalsystem.medicalapi.utils.CPFTeste;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Médicos, pacientes e consultas válidos e ainda não gravados, para os testes que usam o banco.
+// A numeração começa num ponto aleatório: o CPF (único) não se repete entre testes nem com o que outra execução gravou
+public final class DadosTeste {
+
+    private static final AtomicInteger SEQUENCIA = new AtomicInteger(ThreadLocalRandom.current().nextInt(100_000_000));
+
+    private DadosTeste() {
+    }
+
+    public static Medico medico() {
+        int numero = SEQUENCIA.incrementAndGet();
+        return medico("Dr. Teste " + numero, "Clínico Geral", String.valueOf(100000 + numero % 900000));
+    }
+
+    public static Medico medico(String nome, String especialidade, String crm) {
+        Medico medico = new Medico();
+        medico.setNome(nome);
+        medico.setEspecialidade(especialidade);
+        medico.setCrm(crm);
+        medico.setEmail(crm + "@medicos.com");
+        return medico;
+    }
+
+    public static Paciente paciente() {
+        int numero = SEQUENCIA.incrementAndGet();
+        Paciente paciente = new Paciente();
+        paciente.setNome("Paciente Teste " + numero);
+        paciente.setCpf(CPFTeste.gerar(numero));
+        paciente.setDataNascimento(LocalDate.of(1990, 1, 1));
+        paciente.setContato("11987654321");
+        return paciente;
+    }
+
+    public static Consulta consulta(Medico medico, Paciente paciente, LocalDateTime data, StatusConsulta status) {
+        Consulta consulta = new Consulta();
+        consulta.setMedico_id(medico);
+        consulta.setPaciente_id(paciente);
+        consulta.setData_consulta(data);
+        consulta.setStatus_consulta(status);
+        return consulta;
+    }
+}
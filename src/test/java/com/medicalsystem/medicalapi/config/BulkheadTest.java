@@ -0,0 +1,101 @@
+package com.medicalsystem.medicalapi.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Simula o pico de listagens: o compartimento de listagem fica travado e cheio,
+// enquanto as buscas por ID continuam com a mesma latência
+class BulkheadTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final Bulkhead bulkhead = new Bulkhead(2, 2, 4, 100, 2, 10, meterRegistry);
+    private final CountDownLatch liberarListagens = new CountDownLatch(1);
+
+    @AfterEach
+    void encerrar() throws InterruptedException {
+        liberarListagens.countDown();
+        bulkhead.destroy();
+    }
+
+    @Test
+    void listagensSaturadasNaoAtrasamBuscasPorId() throws Exception {
+        saturarListagem();
+
+        List<Long> latencias = new ArrayList<>();
+        for (int rodada = 0; rodada < 50; rodada++) {
+            List<CompletableFuture<Long>> buscas = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                long inicio = System.nanoTime();
+                buscas.add(bulkhead.leitura(() -> simularConsulta(1)).thenApply(r -> System.nanoTime() - inicio));
+            }
+            for (CompletableFuture<Long> busca : buscas) {
+                latencias.add(busca.get(5, TimeUnit.SECONDS));
+            }
+        }
+
+        Collections.sort(latencias);
+        long p99 = latencias.get((int) Math.ceil(latencias.size() * 0.99) - 1);
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(p99) < 100, "p99 das buscas por ID: " + TimeUnit.NANOSECONDS.toMillis(p99) + " ms");
+    }
+
+    @Test
+    void filaCheiaRecusaNaHoraEContaARejeicao() throws Exception {
+        saturarListagem();
+
+        long inicio = System.nanoTime();
+        assertThrows(RejectedExecutionException.class, () -> bulkhead.listagem(() -> simularConsulta(1)));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio) < 50);
+
+        assertEquals(1.0, meterRegistry.get("bulkhead.rejeicoes").tag("compartimento", "listagem").counter().count());
+        assertEquals(0.0, meterRegistry.get("bulkhead.rejeicoes").tag("compartimento", "leitura").counter().count());
+    }
+
+    // O GlobalExceptionHandler recebe a exceção lançada pela tarefa, sem CompletionException em volta
+    @Test
+    void erroDaTarefaChegaComoFoiLancado() throws Exception {
+        IllegalStateException erro = new IllegalStateException("falhou");
+
+        Throwable recebido = bulkhead.leitura(() -> {
+            throw erro;
+        }).handle((resultado, falha) -> falha).get(5, TimeUnit.SECONDS);
+
+        assertSame(erro, recebido);
+    }
+
+    // Ocupa as 2 threads e as 2 posições da fila com listagens que só terminam no fim do teste
+    private void saturarListagem() {
+        for (int i = 0; i < 4; i++) {
+            bulkhead.listagem(() -> {
+                try {
+                    liberarListagens.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return null;
+            });
+        }
+    }
+
+    private static Object simularConsulta(long milissegundos) {
+        try {
+            Thread.sleep(milissegundos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return new Object();
+    }
+}
@@ -0,0 +1,159 @@
+package com.medicalsystem.medicalapi.config;
+
+import com.medicalsystem.medicalapi.service.MedicoService;
+import com.medicalsystem.medicalapi.service.PacienteService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.annotation.AnnotationTransactionAttributeSource;
+import org.springframework.transaction.interceptor.TransactionAttribute;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RoteamentoDataSourceTest {
+
+    private final BancoFalso primario = new BancoFalso("primario");
+    private final BancoFalso replica1 = new BancoFalso("replica1");
+    private final BancoFalso replica2 = new BancoFalso("replica2");
+    private final RoteamentoDataSource roteamento = new RoteamentoDataSource(primario, Arrays.asList(replica1, replica2));
+
+    @AfterEach
+    void limpar() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        LeituraNoPrimario.limpar();
+    }
+
+    @Test
+    void transacaoDeEscritaUsaOPrimario() throws SQLException {
+        assertEquals("primario", banco(roteamento.getConnection()));
+    }
+
+    @Test
+    void transacaoSomenteLeituraAlternaEntreAsReplicas() throws SQLException {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertEquals("replica1", banco(roteamento.getConnection()));
+        assertEquals("replica2", banco(roteamento.getConnection()));
+        assertEquals("replica1", banco(roteamento.getConnection()));
+    }
+
+    @Test
+    void replicaForaDoArSaiDoRodizioEVoltaNaVerificacao() throws SQLException {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        replica1.noAr = false;
+        roteamento.verificarReplicas();
+        assertEquals("replica2", banco(roteamento.getConnection()));
+        assertEquals("replica2", banco(roteamento.getConnection()));
+
+        replica2.noAr = false;
+        roteamento.verificarReplicas();
+        assertEquals("primario", banco(roteamento.getConnection()));
+
+        replica1.noAr = true;
+        roteamento.verificarReplicas();
+        assertEquals("replica1", banco(roteamento.getConnection()));
+    }
+
+    @Test
+    void falhaAoConectarNaReplicaLeDoPrimario() throws SQLException {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        replica1.noAr = false;
+
+        assertEquals("primario", banco(roteamento.getConnection()));
+        assertEquals("replica2", banco(roteamento.getConnection()));
+        assertEquals("replica2", banco(roteamento.getConnection()));
+    }
+
+    @Test
+    void leituraAposEscritaUsaOPrimarioInclusiveEmOutraThread() throws Exception {
+        LeituraNoPrimario.ativar();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            String banco = CompletableFuture.supplyAsync(LeituraNoPrimario.propagar(() -> {
+                TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+                try {
+                    return banco(roteamento.getConnection());
+                } catch (SQLException e) {
+                    throw new IllegalStateException(e);
+                } finally {
+                    TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+                }
+            }), executor).get();
+            assertEquals("primario", banco);
+
+            // A marcação não fica na thread do executor depois da tarefa
+            assertFalse(CompletableFuture.supplyAsync(LeituraNoPrimario::ativo, executor).get());
+        } finally {
+            executor.shutdown();
+        }
+        assertTrue(LeituraNoPrimario.ativo());
+    }
+
+    // As buscas por ID enchem o cache que responde com a ETag: a transação que o proxy abre (a mesma que o
+    // AnnotationTransactionAttributeSource resolve) não pode ser somente leitura, senão a carga iria a uma réplica
+    @Test
+    void buscasPorIdQueAlimentamOCacheLeemDoPrimario() throws Exception {
+        AnnotationTransactionAttributeSource atributos = new AnnotationTransactionAttributeSource();
+        for (Method busca : Arrays.asList(MedicoService.class.getMethod("buscarMedicoPorId", UUID.class),
+                PacienteService.class.getMethod("buscarPacientePorId", UUID.class))) {
+            TransactionAttribute transacao = atributos.getTransactionAttribute(busca, busca.getDeclaringClass());
+            assertNotNull(transacao, busca.getName());
+
+            TransactionSynchronizationManager.setCurrentTransactionReadOnly(transacao.isReadOnly());
+            assertEquals("primario", banco(roteamento.getConnection()), busca.getName());
+        }
+    }
+
+    private static String banco(Connection conexao) throws SQLException {
+        return conexao.getCatalog();
+    }
+
+    // Conexões falsas: getCatalog devolve o nome do banco e isValid indica se ele está no ar
+    private static final class BancoFalso extends AbstractDataSource {
+
+        private final String nome;
+        private volatile boolean noAr = true;
+
+        BancoFalso(String nome) {
+            this.nome = nome;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            if (!noAr) {
+                throw new SQLException("Conexão recusada: " + nome);
+            }
+            return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, metodo, argumentos) -> {
+                        switch (metodo.getName()) {
+                            case "getCatalog":
+                                return nome;
+                            case "isValid":
+                                return noAr;
+                            default:
+                                return null;
+                        }
+                    });
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return getConnection();
+        }
+    }
+}
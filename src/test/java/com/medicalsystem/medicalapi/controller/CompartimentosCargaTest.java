@@ -0,0 +1,146 @@
+package com.medicalsystem.medicalapi.controller;
+
+import com.medicalsystem.medicalapi.DadosTeste;
+import com.medicalsystem.medicalapi.config.Bulkhead;
+import com.medicalsystem.medicalapi.entity.Medico;
+import com.medicalsystem.medicalapi.entity.Paciente;
+import com.medicalsystem.medicalapi.repository.MedicoRepository;
+import com.medicalsystem.medicalapi.repository.PacienteRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Carga pela aplicação inteira (Tomcat, Spring MVC, compartimentos, pool de conexões e banco): com o compartimento
+// de listagem travado e a fila cheia, GET /consultas/{id} continua respondendo com a latência de sempre.
+// As listagens travadas seguram uma conexão cada, como uma listagem lenta de verdade.
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class CompartimentosCargaTest {
+
+    private static final int CLIENTES = 8;
+    private static final int BUSCAS_POR_CLIENTE = 50;
+    private static final long P99_MAXIMO_MS = 250;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private Bulkhead bulkhead;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MedicoRepository medicoRepository;
+
+    @Autowired
+    private PacienteRepository pacienteRepository;
+
+    @Value("${bulkhead.listagem.threads}")
+    private int threadsListagem;
+
+    @Value("${bulkhead.listagem.fila}")
+    private int filaListagem;
+
+    private final CountDownLatch liberarListagens = new CountDownLatch(1);
+    private Medico medico;
+    private Paciente paciente;
+    private UUID consultaId;
+
+    @AfterEach
+    void removerDados() {
+        liberarListagens.countDown();
+        if (consultaId != null) {
+            jdbcTemplate.update("DELETE FROM consulta WHERE id = ?", consultaId);
+        }
+        if (paciente != null) {
+            pacienteRepository.deleteById(paciente.getId());
+        }
+        if (medico != null) {
+            medicoRepository.deleteById(medico.getId());
+        }
+    }
+
+    @Test
+    void buscaPorIdMantemALatenciaComListagensSaturadas() throws Exception {
+        medico = medicoRepository.save(DadosTeste.medico());
+        paciente = pacienteRepository.save(DadosTeste.paciente());
+        consultaId = UUID.randomUUID();
+        // Direto na tabela: o teste mede a leitura, sem passar pela agenda nem pelas estatísticas
+        jdbcTemplate.update("INSERT INTO consulta (id, medico_id, paciente_id, data_consulta, status_consulta) VALUES (?, ?, ?, ?, 'AGENDADA')",
+                consultaId, medico.getId(), paciente.getId(), LocalDateTime.of(2031, 4, 7, 9, 0));
+
+        for (int i = 0; i < 20; i++) {
+            assertEquals(HttpStatus.OK, buscarConsulta().getStatusCode());
+        }
+
+        // Listagem filtrada de consultas: roda no compartimento de listagem, agora sem vaga
+        saturarListagem();
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, restTemplate.getForEntity("/consultas?status=AGENDADA", String.class).getStatusCode());
+
+        ExecutorService clientes = Executors.newFixedThreadPool(CLIENTES);
+        List<Long> latencias = new ArrayList<>();
+        try {
+            List<Future<List<Long>>> rodadas = new ArrayList<>();
+            for (int i = 0; i < CLIENTES; i++) {
+                rodadas.add(clientes.submit(() -> {
+                    List<Long> medidas = new ArrayList<>();
+                    for (int busca = 0; busca < BUSCAS_POR_CLIENTE; busca++) {
+                        long inicio = System.nanoTime();
+                        ResponseEntity<String> resposta = buscarConsulta();
+                        medidas.add(System.nanoTime() - inicio);
+                        assertEquals(HttpStatus.OK, resposta.getStatusCode());
+                    }
+                    return medidas;
+                }));
+            }
+            for (Future<List<Long>> rodada : rodadas) {
+                latencias.addAll(rodada.get(60, TimeUnit.SECONDS));
+            }
+        } finally {
+            clientes.shutdownNow();
+        }
+
+        Collections.sort(latencias);
+        long p99 = TimeUnit.NANOSECONDS.toMillis(latencias.get((int) Math.ceil(latencias.size() * 0.99) - 1));
+        assertTrue(p99 < P99_MAXIMO_MS, "p99 de GET /consultas/{id} com a listagem saturada: " + p99 + " ms");
+    }
+
+    private ResponseEntity<String> buscarConsulta() {
+        return restTemplate.getForEntity("/consultas/{id}", String.class, consultaId);
+    }
+
+    // Ocupa as threads do compartimento de listagem (cada uma segurando uma conexão) e todas as posições da fila
+    private void saturarListagem() {
+        for (int i = 0; i < threadsListagem + filaListagem; i++) {
+            bulkhead.listagem(() -> jdbcTemplate.execute((ConnectionCallback<Object>) conexao -> {
+                try {
+                    liberarListagens.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return null;
+            }));
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.medicalsystem.medicalapi.controller;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureMetrics
+class MetricasTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void requisicoesERepositoriosSaoMedidos() throws Exception {
+        long requisicoesAntes = contarRequisicoes("/medicos/{id}", "CLIENT_ERROR");
+        long invocacoesAntes = contarInvocacoes("MedicoRepository", "findById");
+
+        for (int i = 0; i < 3; i++) {
+            buscarMedicoInexistente();
+        }
+
+        assertEquals(requisicoesAntes + 3, contarRequisicoes("/medicos/{id}", "CLIENT_ERROR"));
+        assertEquals(invocacoesAntes + 3, contarInvocacoes("MedicoRepository", "findById"));
+        assertNotNull(meterRegistry.find("hikaricp.connections.active").gauge());
+        assertNotNull(meterRegistry.find("hikaricp.connections.idle").gauge());
+        assertNotNull(meterRegistry.find("hikaricp.connections.pending").gauge());
+    }
+
+    @Test
+    void endpointDeColetaExpoeOsPercentis() throws Exception {
+        buscarMedicoInexistente();
+
+        String metricas = mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertTrue(metricas.contains("http_server_requests_seconds_bucket"));
+        assertTrue(metricas.contains("quantile=\"0.99\""));
+        assertTrue(metricas.contains("spring_data_repository_invocations_seconds_count"));
+        assertTrue(metricas.contains("hikaricp_connections_pending"));
+    }
+
+    // A busca por ID roda no bulkhead (CompletableFuture): o status e o timer só existem depois do despacho assíncrono
+    private void buscarMedicoInexistente() throws Exception {
+        MvcResult resultado = mockMvc.perform(get("/medicos/{id}", UUID.randomUUID()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(resultado)).andExpect(status().isNotFound());
+    }
+
+    private long contarRequisicoes(String uri, String resultado) {
+        Timer timer = meterRegistry.find("http.server.requests").tag("uri", uri).tag("outcome", resultado).timer();
+        return timer == null ? 0 : timer.count();
+    }
+
+    private long contarInvocacoes(String repositorio, String metodo) {
+        Timer timer = meterRegistry.find("spring.data.repository.invocations")
+                .tag("repository", repositorio).tag("method", metodo).timer();
+        return timer == null ? 0 : timer.count();
+    }
+}
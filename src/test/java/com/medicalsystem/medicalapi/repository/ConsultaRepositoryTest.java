@@ -0,0 +1,122 @@
+package com.medicalsystem.medicalapi.repository;
+
+import com.medicalsystem.medicalapi.DadosTeste;
+import com.medicalsystem.medicalapi.constant.StatusConsulta;
+import com.medicalsystem.medicalapi.entity.Consulta;
+import com.medicalsystem.medicalapi.entity.Medico;
+import com.medicalsystem.medicalapi.entity.Paciente;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional
+class ConsultaRepositoryTest {
+
+    @Autowired
+    private ConsultaRepository consultaRepository;
+
+    @Autowired
+    private MedicoRepository medicoRepository;
+
+    @Autowired
+    private PacienteRepository pacienteRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private int sequencia;
+
+    @Test
+    void listagemPorMedicoUsaUmaInstrucaoIndependenteDoVolume() {
+        Medico poucas = criarMedico();
+        Medico muitas = criarMedico();
+        for (int i = 0; i < 2; i++) {
+            criarConsulta(poucas, criarPaciente());
+        }
+        for (int i = 0; i < 25; i++) {
+            criarConsulta(muitas, criarPaciente());
+        }
+
+        long instrucoesPoucas = contarInstrucoes(() -> consultaRepository.findByMedicoId(poucas.getId()));
+        long instrucoesMuitas = contarInstrucoes(() -> consultaRepository.findByMedicoId(muitas.getId()));
+
+        assertEquals(1, instrucoesPoucas);
+        assertEquals(instrucoesPoucas, instrucoesMuitas);
+    }
+
+    @Test
+    void listagemPorPacienteUsaUmaInstrucaoIndependenteDoVolume() {
+        Paciente poucas = criarPaciente();
+        Paciente muitas = criarPaciente();
+        for (int i = 0; i < 2; i++) {
+            criarConsulta(criarMedico(), poucas);
+        }
+        for (int i = 0; i < 25; i++) {
+            criarConsulta(criarMedico(), muitas);
+        }
+
+        long instrucoesPoucas = contarInstrucoes(() -> consultaRepository.findByPacienteId(poucas.getId()));
+        long instrucoesMuitas = contarInstrucoes(() -> consultaRepository.findByPacienteId(muitas.getId()));
+
+        assertEquals(1, instrucoesPoucas);
+        assertEquals(instrucoesPoucas, instrucoesMuitas);
+    }
+
+    @Test
+    void listagemPorPacienteEMedicoUsaUmaInstrucaoIndependenteDoVolume() {
+        Medico medico = criarMedico();
+        Paciente poucas = criarPaciente();
+        Paciente muitas = criarPaciente();
+        criarConsulta(medico, poucas);
+        for (int i = 0; i < 25; i++) {
+            criarConsulta(medico, muitas);
+        }
+
+        long instrucoesPoucas = contarInstrucoes(() -> consultaRepository.findByPacienteIdAndMedicoId(poucas.getId(), medico.getId()));
+        long instrucoesMuitas = contarInstrucoes(() -> consultaRepository.findByPacienteIdAndMedicoId(muitas.getId(), medico.getId()));
+
+        assertEquals(1, instrucoesPoucas);
+        assertEquals(instrucoesPoucas, instrucoesMuitas);
+    }
+
+    private long contarInstrucoes(Supplier<List<Consulta>> busca) {
+        entityManager.flush();
+        entityManager.clear();
+
+        Statistics estatisticas = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        estatisticas.clear();
+
+        // Acessa os relacionamentos como a serialização faria
+        for (Consulta consulta : busca.get()) {
+            consulta.getMedico_id().getNome();
+            consulta.getPaciente_id().getNome();
+        }
+        return estatisticas.getPrepareStatementCount();
+    }
+
+    private Medico criarMedico() {
+        return medicoRepository.save(DadosTeste.medico());
+    }
+
+    private Paciente criarPaciente() {
+        return pacienteRepository.save(DadosTeste.paciente());
+    }
+
+    // Um dia por consulta, para não repetir o horário do médico
+    private void criarConsulta(Medico medico, Paciente paciente) {
+        LocalDateTime data = LocalDateTime.of(2030, 1, 7, 8, 0).plusDays(++sequencia);
+        consultaRepository.save(DadosTeste.consulta(medico, paciente, data, StatusConsulta.AGENDADA));
+    }
+}
@@ -0,0 +1,128 @@
+package com.medicalsystem.medicalapi.repository;
+
+import com.medicalsystem.medicalapi.DadosTeste;
+import com.medicalsystem.medicalapi.entity.Medico;
+import com.medicalsystem.medicalapi.utils.TextoUtils;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional
+class FiltroTest {
+
+    private static final Sort POR_NOME = Filtro.ordenacao(null, "nome", "nome", "id");
+
+    @Autowired
+    private MedicoRepository medicoRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Test
+    void nomeFiltraPorPrefixoSemDiferenciarAcentosEMaiusculas() {
+        criarMedico("Dra. Ângela Filtrada", "Cardiologista", "90001");
+        criarMedico("Dr. Filtrado Ângelo", "Cardiologista", "90002");
+        sincronizar();
+
+        List<Medico> medicos = buscar(Filtro.<Medico>novo()
+                .prefixo("nomeBusca", TextoUtils.normalizarParaBusca("DRA. ANGELA")));
+
+        assertEquals(1, medicos.size());
+        assertEquals("90001", medicos.get(0).getCrm());
+    }
+
+    @Test
+    void filtrosInformadosSaoCombinadosComAnd() {
+        criarMedico("Dr. Filtro Combinado", "Pediatra", "90003");
+        criarMedico("Dr. Filtro Combinado", "Ortopedista", "90004");
+        sincronizar();
+
+        List<Medico> medicos = buscar(Filtro.<Medico>novo()
+                .prefixo("nomeBusca", TextoUtils.normalizarParaBusca("Dr. Filtro Combinado"))
+                .igual("especialidade", "Pediatra"));
+        List<Medico> nenhum = buscar(Filtro.<Medico>novo()
+                .igual("especialidade", "Pediatra")
+                .igual("crm", "90004"));
+
+        assertEquals(1, medicos.size());
+        assertEquals("90003", medicos.get(0).getCrm());
+        assertTrue(nenhum.isEmpty());
+    }
+
+    @Test
+    void prefixoTrataCuringasDigitadosComoTexto() {
+        criarMedico("Dr. Curinga", "Pediatra", "90005");
+        sincronizar();
+
+        assertTrue(buscar(Filtro.<Medico>novo().prefixo("nomeBusca", "%curinga")).isEmpty());
+        assertTrue(buscar(Filtro.<Medico>novo().prefixo("nomeBusca", "dr_ curinga")).isEmpty());
+    }
+
+    @Test
+    void paginaTrazOTotalDeRegistrosDoFiltro() {
+        for (int i = 0; i < 5; i++) {
+            criarMedico("Dr. Paginado " + i, "Urologista", "9101" + i);
+        }
+        sincronizar();
+
+        Page<Medico> pagina = Filtro.<Medico>novo()
+                .prefixo("nomeBusca", "dr. paginado")
+                .buscar(medicoRepository, POR_NOME, 1, 2);
+
+        assertEquals(5, pagina.getTotalElements());
+        assertEquals(2, pagina.getContent().size());
+        assertEquals("Dr. Paginado 2", pagina.getContent().get(0).getNome());
+    }
+
+    // Valores diferentes com os mesmos campos geram o mesmo JPQL: a segunda busca não compila um plano novo
+    @Test
+    void mesmaCombinacaoDeFiltrosReaproveitaOPlanoCompilado() {
+        buscar(Filtro.<Medico>novo().igual("especialidade", "Pediatra").igual("crm", "90006"));
+
+        Statistics estatisticas = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        long compilados = estatisticas.getQueryPlanCacheMissCount();
+
+        buscar(Filtro.<Medico>novo().igual("especialidade", "Neurologista").igual("crm", "90007"));
+        buscar(Filtro.<Medico>novo().igual("especialidade", "Urologista").igual("crm", "90008"));
+
+        assertEquals(compilados, estatisticas.getQueryPlanCacheMissCount());
+    }
+
+    @Test
+    void ordenacaoAceitaApenasOsCamposPermitidos() {
+        Sort ordem = Filtro.ordenacao("nome,desc", "nome", "nome", "id");
+
+        assertEquals(Sort.Direction.DESC, ordem.getOrderFor("nome").getDirection());
+        assertEquals(Sort.Direction.ASC, ordem.getOrderFor("id").getDirection());
+        assertThrows(IllegalArgumentException.class, () -> Filtro.ordenacao("email", "nome", "nome", "id"));
+        assertThrows(IllegalArgumentException.class, () -> Filtro.ordenacao("nome,para cima", "nome", "nome", "id"));
+    }
+
+    private List<Medico> buscar(Filtro<Medico> filtro) {
+        return filtro.buscar(medicoRepository, POR_NOME, null, null).getContent();
+    }
+
+    // nome_busca é gerado pelo banco: grava e descarta as entidades para que a busca leia do banco
+    private void sincronizar() {
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private void criarMedico(String nome, String especialidade, String crm) {
+        medicoRepository.save(DadosTeste.medico(nome, especialidade, crm));
+    }
+}
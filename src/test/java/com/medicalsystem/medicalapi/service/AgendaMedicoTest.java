@@ -0,0 +1,58 @@
+package com.medicalsystem.medicalapi.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AgendaMedicoTest {
+
+    private static final long SEGUNDA = LocalDate.of(2025, 1, 6).toEpochDay();
+    private static final long SABADO = LocalDate.of(2025, 1, 11).toEpochDay();
+
+    @Test
+    void diaDaSemanaSegueDayOfWeek() {
+        for (long dia = SEGUNDA - 10; dia < SEGUNDA + 10; dia++) {
+            assertEquals(LocalDate.ofEpochDay(dia).getDayOfWeek().getValue(), AgendaMedico.diaDaSemana(dia));
+        }
+    }
+
+    @Test
+    void reservaRespeitaExpedienteEHorariosOcupados() {
+        AgendaMedico agenda = agendaDeSegundaASexta(0xFF00L);
+
+        assertEquals(AgendaMedico.ResultadoReserva.RESERVADO, agenda.reservar(SEGUNDA, 8));
+        assertEquals(AgendaMedico.ResultadoReserva.OCUPADO, agenda.reservar(SEGUNDA, 8));
+        assertEquals(AgendaMedico.ResultadoReserva.FORA_DO_EXPEDIENTE, agenda.reservar(SEGUNDA, 7));
+        assertEquals(AgendaMedico.ResultadoReserva.FORA_DO_EXPEDIENTE, agenda.reservar(SABADO, 8));
+        assertEquals(0xFE00L, agenda.livres(SEGUNDA));
+
+        agenda.liberar(SEGUNDA, 8);
+        assertEquals(0xFF00L, agenda.livres(SEGUNDA));
+    }
+
+    @Test
+    void descartaDiasAnteriores() {
+        AgendaMedico agenda = agendaDeSegundaASexta(0xFF00L);
+        agenda.reservar(SEGUNDA, 9);
+        agenda.reservar(SEGUNDA + 1, 9);
+
+        agenda.descartarAntesDe(SEGUNDA + 1);
+
+        assertEquals(0xFF00L, agenda.livres(SEGUNDA));
+        assertEquals(0xFD00L, agenda.livres(SEGUNDA + 1));
+    }
+
+    private static AgendaMedico agendaDeSegundaASexta(long mascara) {
+        long[] expediente = new long[8];
+        for (int dia = DayOfWeek.MONDAY.getValue(); dia <= DayOfWeek.FRIDAY.getValue(); dia++) {
+            expediente[dia] = mascara;
+        }
+        AgendaMedico agenda = new AgendaMedico(UUID.randomUUID());
+        agenda.definirExpediente(expediente);
+        return agenda;
+    }
+}
@@ -0,0 +1,144 @@
+package com.medicalsystem.medicalapi.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+// Várias threads disputando os mesmos horários: cada slot só pode ter um vencedor.
+// A vazão com médicos distintos é medida no AgendaMedicoBenchmark (perfil benchmark).
+class AgendamentoConcorrenteTest {
+
+    private static final long SEGUNDA = LocalDate.of(2025, 1, 6).toEpochDay();
+    private static final long EXPEDIENTE = 0xFFFFF0000L; // 08:00 às 18:00
+    private static final int SLOTS_NO_EXPEDIENTE = Long.bitCount(EXPEDIENTE);
+    private static final int DIAS = 28;
+    private static final int THREADS = 16;
+
+    @Test
+    void cadaHorarioTemUmUnicoVencedor() throws Exception {
+        int medicos = 8;
+        List<AgendaMedico> agendas = new ArrayList<>();
+        for (int i = 0; i < medicos; i++) {
+            agendas.add(agendaDeSegundaASexta());
+        }
+        AtomicIntegerArray vencedores = new AtomicIntegerArray(medicos * DIAS * AgendaMedico.SLOTS_POR_DIA);
+
+        // Todas as threads tentam todos os horários de todos os médicos, na mesma ordem: disputa máxima
+        emParalelo(thread -> {
+            for (int medico = 0; medico < medicos; medico++) {
+                for (int dia = 0; dia < DIAS; dia++) {
+                    for (int slot = 0; slot < AgendaMedico.SLOTS_POR_DIA; slot++) {
+                        if (agendas.get(medico).reservar(SEGUNDA + dia, slot) == AgendaMedico.ResultadoReserva.RESERVADO) {
+                            vencedores.incrementAndGet(indice(medico, dia, slot));
+                        }
+                    }
+                }
+            }
+        });
+
+        int reservados = 0;
+        for (int i = 0; i < vencedores.length(); i++) {
+            int slot = i % AgendaMedico.SLOTS_POR_DIA;
+            long dia = SEGUNDA + (i / AgendaMedico.SLOTS_POR_DIA) % DIAS;
+            boolean diaUtil = AgendaMedico.diaDaSemana(dia) <= DayOfWeek.FRIDAY.getValue();
+            assertEquals(diaUtil && (EXPEDIENTE & (1L << slot)) != 0 ? 1 : 0, vencedores.get(i));
+            reservados += vencedores.get(i);
+        }
+        assertEquals(medicos * (DIAS / 7 * 5) * SLOTS_NO_EXPEDIENTE, reservados);
+    }
+
+    @Test
+    void reservasELiberacoesSimultaneasNuncaSobrepoemConsultas() throws Exception {
+        int medicos = 4;
+        List<AgendaMedico> agendas = new ArrayList<>();
+        for (int i = 0; i < medicos; i++) {
+            agendas.add(agendaDeSegundaASexta());
+        }
+
+        // Dono atual de cada horário; uma reserva bem-sucedida num horário com dono é um agendamento duplo
+        AtomicReferenceArray<Thread> donos = new AtomicReferenceArray<>(medicos * DIAS * AgendaMedico.SLOTS_POR_DIA);
+        AtomicIntegerArray duplos = new AtomicIntegerArray(1);
+
+        emParalelo(thread -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < 200_000; i++) {
+                int medico = random.nextInt(medicos);
+                int dia = random.nextInt(5);
+                int slot = 16 + random.nextInt(SLOTS_NO_EXPEDIENTE);
+                AgendaMedico agenda = agendas.get(medico);
+
+                if (agenda.reservar(SEGUNDA + dia, slot) == AgendaMedico.ResultadoReserva.RESERVADO) {
+                    if (!donos.compareAndSet(indice(medico, dia, slot), null, Thread.currentThread())) {
+                        duplos.incrementAndGet(0);
+                    }
+                    donos.set(indice(medico, dia, slot), null);
+                    agenda.liberar(SEGUNDA + dia, slot);
+                }
+            }
+        });
+
+        assertEquals(0, duplos.get(0));
+        for (int i = 0; i < donos.length(); i++) {
+            assertNull(donos.get(i));
+        }
+        for (AgendaMedico agenda : agendas) {
+            for (int dia = 0; dia < 5; dia++) {
+                assertEquals(EXPEDIENTE, agenda.livres(SEGUNDA + dia));
+            }
+        }
+    }
+
+    private static int indice(int medico, int dia, int slot) {
+        return (medico * DIAS + dia) * AgendaMedico.SLOTS_POR_DIA + slot;
+    }
+
+    private static void emParalelo(Tarefa tarefa) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch largada = new CountDownLatch(1);
+        try {
+            List<Future<?>> execucoes = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                int thread = i;
+                execucoes.add(executor.submit(() -> {
+                    largada.await();
+                    tarefa.executar(thread);
+                    return null;
+                }));
+            }
+            largada.countDown();
+            for (Future<?> execucao : execucoes) {
+                execucao.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static AgendaMedico agendaDeSegundaASexta() {
+        long[] expediente = new long[8];
+        for (int dia = DayOfWeek.MONDAY.getValue(); dia <= DayOfWeek.FRIDAY.getValue(); dia++) {
+            expediente[dia] = EXPEDIENTE;
+        }
+        AgendaMedico agenda = new AgendaMedico(UUID.randomUUID());
+        agenda.definirExpediente(expediente);
+        return agenda;
+    }
+
+    private interface Tarefa {
+        void executar(int thread);
+    }
+}
@@ -0,0 +1,132 @@
+package com.medicalsystem.medicalapi.service;
+
+import com.medicalsystem.medicalapi.DadosTeste;
+import com.medicalsystem.medicalapi.constant.StatusConsulta;
+import com.medicalsystem.medicalapi.entity.Consulta;
+import com.medicalsystem.medicalapi.entity.Medico;
+import com.medicalsystem.medicalapi.entity.Paciente;
+import com.medicalsystem.medicalapi.exception.ConsultaAgendamentoException;
+import com.medicalsystem.medicalapi.repository.MedicoRepository;
+import com.medicalsystem.medicalapi.repository.PacienteRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doNothing;
+
+// Dois agendamentos do mesmo médico e horário, cada um como se viesse de uma instância diferente da aplicação:
+// a agenda em memória não vê o outro e quem decide é o banco (índice único da V7, traduzido em gravar()).
+// Sem @Transactional: cada agendamento precisa da própria transação, e o segundo espera o commit do primeiro
+@SpringBootTest
+class AgendamentoSimultaneoBancoTest {
+
+    private static final LocalDateTime HORARIO = LocalDateTime.of(2031, 3, 3, 10, 0);
+
+    @Autowired
+    private ConsultaService consultaService;
+
+    @SpyBean
+    private DisponibilidadeService disponibilidadeService;
+
+    @Autowired
+    private MedicoRepository medicoRepository;
+
+    @Autowired
+    private PacienteRepository pacienteRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Medico medico;
+    private final List<Paciente> pacientes = new ArrayList<>();
+
+    @AfterEach
+    void removerDados() {
+        if (medico == null) {
+            return;
+        }
+        jdbcTemplate.update("DELETE FROM evento_alteracao WHERE recurso_id IN (SELECT id FROM consulta WHERE medico_id = ?)", medico.getId());
+        jdbcTemplate.update("DELETE FROM consulta WHERE medico_id = ?", medico.getId());
+        for (Paciente paciente : pacientes) {
+            pacienteRepository.deleteById(paciente.getId());
+        }
+        medicoRepository.deleteById(medico.getId());
+        // Os contadores da clínica não são por médico: refeitos a partir das consultas que restaram
+        jdbcTemplate.queryForObject("SELECT reconstruir_estatisticas_consulta()", Long.class);
+    }
+
+    @Test
+    void mesmoHorarioTemUmUnicoAgendamentoNoBanco() throws Exception {
+        medico = medicoRepository.save(DadosTeste.medico());
+        pacientes.add(pacienteRepository.save(DadosTeste.paciente()));
+        pacientes.add(pacienteRepository.save(DadosTeste.paciente()));
+        doNothing().when(disponibilidadeService).reservar(any(Consulta.class));
+
+        ExecutorService executor = Executors.newFixedThreadPool(pacientes.size());
+        CountDownLatch largada = new CountDownLatch(1);
+        int agendadas = 0;
+        int recusadas = 0;
+        try {
+            List<Future<Consulta>> agendamentos = new ArrayList<>();
+            for (Paciente paciente : pacientes) {
+                agendamentos.add(executor.submit(() -> {
+                    largada.await();
+                    return consultaService.agendarConsulta(DadosTeste.consulta(medico, paciente, HORARIO, StatusConsulta.AGENDADA));
+                }));
+            }
+            largada.countDown();
+
+            for (Future<Consulta> agendamento : agendamentos) {
+                try {
+                    assertNotNull(agendamento.get(10, TimeUnit.SECONDS).getId());
+                    agendadas++;
+                } catch (ExecutionException e) {
+                    // A mesma exceção que o GlobalExceptionHandler responde com 400
+                    assertInstanceOf(ConsultaAgendamentoException.class, e.getCause());
+                    recusadas++;
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, agendadas);
+        assertEquals(1, recusadas);
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT count(*) FROM consulta WHERE medico_id = ? AND data_consulta = ? " +
+                "AND status_consulta = 'AGENDADA'", Integer.class, medico.getId(), HORARIO));
+    }
+
+    // gravar() reconhece a violação pelo nome do índice da partição: as criadas por criar_particao_consulta e as
+    // que já existiam (renomeadas pela V16) seguem o mesmo padrão
+    @Test
+    void indicesDeHorarioDasParticoesTemNomeFixo() {
+        jdbcTemplate.queryForObject("SELECT criar_particao_consulta(?::DATE)", Boolean.class, HORARIO.toLocalDate());
+
+        List<String> indices = jdbcTemplate.queryForList("SELECT filho.relname FROM pg_inherits heranca " +
+                "JOIN pg_class filho ON filho.oid = heranca.inhrelid " +
+                "WHERE heranca.inhparent = 'uq_consulta_medico_data_agendada'::regclass", String.class);
+
+        assertTrue(indices.contains("uq_consulta_2031_03_medico_data_agendada"));
+        for (String indice : indices) {
+            assertTrue(indice.matches("uq_consulta_(\\d{4}_\\d{2}|padrao)_medico_data_agendada"), indice);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.medicalsystem.medicalapi.service;
+
+import com.medicalsystem.medicalapi.DadosTeste;
+import com.medicalsystem.medicalapi.constant.PeriodoEstatistica;
+import com.medicalsystem.medicalapi.constant.StatusConsulta;
+import com.medicalsystem.medicalapi.entity.Consulta;
+import com.medicalsystem.medicalapi.entity.Medico;
+import com.medicalsystem.medicalapi.entity.Paciente;
+import com.medicalsystem.medicalapi.model.EstatisticaConsultas;
+import com.medicalsystem.medicalapi.repository.ConsultaRepository;
+import com.medicalsystem.medicalapi.repository.MedicoRepository;
+import com.medicalsystem.medicalapi.repository.PacienteRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Lotes de 2 consultas, para que as três consultas passadas do teste precisem de mais de um lote
+@SpringBootTest(properties = {"conclusao.consultas.lote=2", "conclusao.consultas.pausa-ms=0"})
+@Transactional
+class ConclusaoConsultasTest {
+
+    private static final LocalDate ONTEM = LocalDate.now().minusDays(1);
+
+    @Autowired
+    private ConclusaoConsultasService conclusaoConsultasService;
+
+    @Autowired
+    private EstatisticasConsultaService estatisticasConsultaService;
+
+    @Autowired
+    private ConsultaRepository consultaRepository;
+
+    @Autowired
+    private MedicoRepository medicoRepository;
+
+    @Autowired
+    private PacienteRepository pacienteRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Test
+    void concluiAsConsultasPassadasEAtualizaAsEstatisticas() {
+        Medico medico = medicoRepository.save(DadosTeste.medico());
+        Paciente paciente = pacienteRepository.save(DadosTeste.paciente());
+        VariacaoEstatisticas variacao = new VariacaoEstatisticas();
+        UUID[] passadas = new UUID[3];
+        for (int i = 0; i < passadas.length; i++) {
+            passadas[i] = criarConsulta(medico, paciente, ONTEM.atTime(LocalTime.of(9 + i, 0)), StatusConsulta.AGENDADA, variacao);
+        }
+        UUID cancelada = criarConsulta(medico, paciente, ONTEM.atTime(14, 0), StatusConsulta.CANCELADA, variacao);
+        UUID futura = criarConsulta(medico, paciente, LocalDateTime.now().plusDays(1), StatusConsulta.AGENDADA, variacao);
+        estatisticasConsultaService.aplicar(variacao);
+        entityManager.flush();
+        entityManager.clear();
+
+        long concluidas = conclusaoConsultasService.concluirConsultasPassadas();
+
+        assertTrue(concluidas >= passadas.length);
+        for (UUID id : passadas) {
+            Consulta consulta = consultaRepository.findById(id).get();
+            assertEquals(StatusConsulta.CONCLUIDA, consulta.getStatus_consulta());
+            assertEquals(1L, consulta.getVersao());
+        }
+        assertEquals(StatusConsulta.CANCELADA, consultaRepository.findById(cancelada).get().getStatus_consulta());
+        assertEquals(StatusConsulta.AGENDADA, consultaRepository.findById(futura).get().getStatus_consulta());
+
+        List<EstatisticaConsultas> ontem = estatisticasConsultaService.estatisticasDoMedico(
+                medico.getId(), PeriodoEstatistica.DIA, ONTEM, ONTEM.plusDays(1));
+        assertEquals(0, ontem.get(0).getAgendadas());
+        assertEquals(1, ontem.get(0).getCanceladas());
+        assertEquals(3, ontem.get(0).getConcluidas());
+
+        // O andamento registra cada lote na mesma transação, e a execução terminou
+        Long registradas = jdbcTemplate.queryForObject("SELECT concluidas FROM execucao_conclusao_consulta " +
+                "WHERE finalizada_em IS NOT NULL ORDER BY id DESC LIMIT 1", Long.class);
+        assertNotNull(registradas);
+        assertTrue(registradas >= passadas.length);
+    }
+
+    @Test
+    void semConsultasPassadasAgendadasNaoAlteraNada() {
+        conclusaoConsultasService.concluirConsultasPassadas();
+
+        assertEquals(0, conclusaoConsultasService.concluirConsultasPassadas());
+    }
+
+    private UUID criarConsulta(Medico medico, Paciente paciente, LocalDateTime data, StatusConsulta status, VariacaoEstatisticas variacao) {
+        Consulta consulta = consultaRepository.save(DadosTeste.consulta(medico, paciente, data, status));
+        variacao.adicionar(consulta);
+        return consulta.getId();
+    }
+}
@@ -0,0 +1,34 @@
+package com.medicalsystem.medicalapi.service;
+
+import com.medicalsystem.medicalapi.model.Lembrete;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+// Enviador dos testes: guarda os lembretes recebidos e, quando pedido, falha as próximas chamadas
+public class EnviadorLembreteFalso implements EnviadorLembrete {
+
+    private final List<Lembrete> enviados = new CopyOnWriteArrayList<>();
+    private final AtomicInteger falhasPendentes = new AtomicInteger();
+
+    @Override
+    public List<Lembrete> enviar(List<Lembrete> lote) {
+        if (falhasPendentes.getAndUpdate(falhas -> Math.max(falhas - 1, 0)) > 0) {
+            throw new IllegalStateException("Falha simulada do enviador");
+        }
+        enviados.addAll(lote);
+        return Collections.emptyList();
+    }
+
+    void falharProximas(int chamadas) {
+        falhasPendentes.set(chamadas);
+    }
+
+    List<Lembrete> enviadosDa(UUID consultaId) {
+        return enviados.stream().filter(lembrete -> lembrete.getConsultaId().equals(consultaId)).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,107 @@
+package com.medicalsystem.medicalapi.service;
+
+import com.medicalsystem.medicalapi.constant.StatusConsulta;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EstatisticasConsultaTest {
+
+    private static final UUID MEDICO_A = UUID.fromString("00000000-0000-0000-0000-00000000000a");
+    private static final UUID MEDICO_B = UUID.fromString("00000000-0000-0000-0000-00000000000b");
+
+    @Test
+    void cancelamentoMoveUmaConsultaDeAgendadasParaCanceladas() {
+        LocalDateTime horario = LocalDateTime.of(2025, 3, 10, 9, 0);
+        VariacaoEstatisticas variacao = new VariacaoEstatisticas();
+        variacao.remover(MEDICO_A, horario, StatusConsulta.AGENDADA);
+        variacao.adicionar(MEDICO_A, horario, StatusConsulta.CANCELADA);
+
+        List<Object[]> linhas = EstatisticasConsultaService.linhasMedico(variacao);
+
+        assertEquals(2, linhas.size());
+        assertLinha(linhas.get(0), MEDICO_A, "D", LocalDate.of(2025, 3, 10), -1, 1, 0);
+        assertLinha(linhas.get(1), MEDICO_A, "M", LocalDate.of(2025, 3, 1), -1, 1, 0);
+    }
+
+    @Test
+    void alteracaoSemMudarStatusNemPeriodoNaoGravaNada() {
+        VariacaoEstatisticas variacao = new VariacaoEstatisticas();
+        variacao.remover(MEDICO_A, LocalDateTime.of(2025, 3, 10, 9, 0), StatusConsulta.AGENDADA);
+        variacao.adicionar(MEDICO_A, LocalDateTime.of(2025, 3, 10, 15, 30), StatusConsulta.AGENDADA);
+
+        assertTrue(variacao.isVazia());
+        assertTrue(EstatisticasConsultaService.linhasMedico(variacao).isEmpty());
+        assertTrue(EstatisticasConsultaService.linhasClinica(variacao).isEmpty());
+    }
+
+    @Test
+    void remarcacaoParaOutroDiaDoMesMantemOContadorDoMes() {
+        VariacaoEstatisticas variacao = new VariacaoEstatisticas();
+        variacao.remover(MEDICO_A, LocalDateTime.of(2025, 3, 10, 9, 0), StatusConsulta.AGENDADA);
+        variacao.adicionar(MEDICO_A, LocalDateTime.of(2025, 3, 12, 9, 0), StatusConsulta.AGENDADA);
+
+        List<Object[]> linhas = EstatisticasConsultaService.linhasMedico(variacao);
+
+        assertEquals(2, linhas.size());
+        assertLinha(linhas.get(0), MEDICO_A, "D", LocalDate.of(2025, 3, 10), -1, 0, 0);
+        assertLinha(linhas.get(1), MEDICO_A, "D", LocalDate.of(2025, 3, 12), 1, 0, 0);
+    }
+
+    // Lotes com os mesmos médicos e dias em ordens diferentes gravam as linhas na mesma ordem
+    @Test
+    void linhasSaemNaMesmaOrdemIndependenteDaOrdemDasConsultas() {
+        VariacaoEstatisticas primeira = new VariacaoEstatisticas();
+        primeira.adicionar(MEDICO_B, LocalDateTime.of(2025, 4, 2, 8, 0), StatusConsulta.AGENDADA);
+        primeira.adicionar(MEDICO_A, LocalDateTime.of(2025, 3, 31, 8, 0), StatusConsulta.AGENDADA);
+
+        VariacaoEstatisticas segunda = new VariacaoEstatisticas();
+        segunda.adicionar(MEDICO_A, LocalDateTime.of(2025, 3, 31, 8, 0), StatusConsulta.AGENDADA);
+        segunda.adicionar(MEDICO_B, LocalDateTime.of(2025, 4, 2, 8, 0), StatusConsulta.AGENDADA);
+
+        List<Object[]> linhasPrimeira = EstatisticasConsultaService.linhasMedico(primeira);
+        List<Object[]> linhasSegunda = EstatisticasConsultaService.linhasMedico(segunda);
+        assertEquals(4, linhasPrimeira.size());
+        for (int i = 0; i < linhasPrimeira.size(); i++) {
+            assertEquals(Arrays.asList(linhasPrimeira.get(i)), Arrays.asList(linhasSegunda.get(i)));
+        }
+        assertEquals("D", linhasPrimeira.get(0)[1]);
+        assertEquals("D", linhasPrimeira.get(1)[1]);
+        assertEquals("M", linhasPrimeira.get(2)[1]);
+    }
+
+    @Test
+    void totalDaClinicaSomaOsMedicosDaMesmaFatia() {
+        VariacaoEstatisticas variacao = new VariacaoEstatisticas();
+        for (int i = 0; i < 3; i++) {
+            variacao.adicionar(MEDICO_A, LocalDateTime.of(2025, 3, 10, 9 + i, 0), StatusConsulta.CONCLUIDA);
+        }
+
+        List<Object[]> linhas = EstatisticasConsultaService.linhasClinica(variacao);
+
+        assertEquals(2, linhas.size());
+        assertEquals(EstatisticasConsultaService.fatia(MEDICO_A), linhas.get(0)[2]);
+        assertEquals(3, (int) linhas.get(0)[5]);
+        assertEquals("M", linhas.get(1)[0]);
+        assertEquals(Date.valueOf(LocalDate.of(2025, 3, 1)), linhas.get(1)[1]);
+        assertEquals(3, (int) linhas.get(1)[5]);
+    }
+
+    private static void assertLinha(Object[] linha, UUID medicoId, String periodo, LocalDate inicio,
+                                    int agendadas, int canceladas, int concluidas) {
+        assertEquals(medicoId, linha[0]);
+        assertEquals(periodo, linha[1]);
+        assertEquals(Date.valueOf(inicio), linha[2]);
+        assertEquals(agendadas, (int) linha[3]);
+        assertEquals(canceladas, (int) linha[4]);
+        assertEquals(concluidas, (int) linha[5]);
+    }
+}
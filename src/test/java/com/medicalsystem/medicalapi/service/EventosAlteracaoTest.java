@@ -0,0 +1,124 @@
+package com.medicalsystem.medicalapi.service;
+
+import com.medicalsystem.medicalapi.constant.OperacaoEvento;
+import com.medicalsystem.medicalapi.constant.RecursoEvento;
+import com.medicalsystem.medicalapi.model.EventoAlteracao;
+import com.medicalsystem.medicalapi.model.FeedEventos;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Sem @Transactional: os eventos só são publicados depois do commit de cada transação
+@SpringBootTest
+class EventosAlteracaoTest {
+
+    @Autowired
+    private EventosAlteracaoService eventosAlteracaoService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<UUID> registrados = new CopyOnWriteArrayList<>();
+
+    @AfterEach
+    void removerEventos() {
+        for (UUID id : registrados) {
+            jdbcTemplate.update("DELETE FROM evento_alteracao WHERE recurso_id = ?", id);
+        }
+    }
+
+    @Test
+    void eventoDeTransacaoLentaApareceDepoisDoCursorJaEntregue() throws Exception {
+        eventosAlteracaoService.publicar();
+        long inicio = eventosAlteracaoService.ultimaPublicada();
+
+        UUID lenta = UUID.randomUUID();
+        UUID rapida = UUID.randomUUID();
+        CountDownLatch registrou = new CountDownLatch(1);
+        CountDownLatch confirmar = new CountDownLatch(1);
+
+        // A transação lenta grava primeiro (id menor) e confirma por último
+        CompletableFuture<Void> transacaoLenta = CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(status -> {
+            registrar(lenta);
+            registrou.countDown();
+            aguardar(confirmar);
+        }));
+        registrou.await(5, TimeUnit.SECONDS);
+        transactionTemplate.executeWithoutResult(status -> registrar(rapida));
+
+        eventosAlteracaoService.publicar();
+        FeedEventos primeiro = eventosAlteracaoService.buscar(inicio, 100);
+        assertEquals(1, ocorrencias(primeiro, rapida));
+        assertEquals(0, ocorrencias(primeiro, lenta));
+
+        confirmar.countDown();
+        transacaoLenta.get(5, TimeUnit.SECONDS);
+        eventosAlteracaoService.publicar();
+
+        // Quem já avançou o cursor até o evento da transação rápida ainda recebe o da lenta
+        FeedEventos segundo = eventosAlteracaoService.buscar(primeiro.getCursor(), 100);
+        assertEquals(1, ocorrencias(segundo, lenta));
+        assertEquals(0, ocorrencias(segundo, rapida));
+    }
+
+    @Test
+    void esperaRecebeOEventoConfirmadoDepoisDoPedido() throws Exception {
+        eventosAlteracaoService.publicar();
+        long cursor = eventosAlteracaoService.ultimaPublicada();
+
+        CompletableFuture<FeedEventos> espera = eventosAlteracaoService.aguardar(cursor, 100, 10_000);
+        assertFalse(espera.isDone());
+
+        UUID id = UUID.randomUUID();
+        transactionTemplate.executeWithoutResult(status -> registrar(id));
+
+        // A publicação é pedida no commit, sem esperar o ciclo de eventos.publicacao-ms
+        FeedEventos feed = espera.get(5, TimeUnit.SECONDS);
+        assertEquals(1, ocorrencias(feed, id));
+        assertTrue(feed.getCursor() > cursor);
+    }
+
+    @Test
+    void esperaSemEventosTerminaVaziaNoMesmoCursor() throws Exception {
+        eventosAlteracaoService.publicar();
+        long cursor = eventosAlteracaoService.ultimaPublicada() + 1_000_000;
+
+        FeedEventos feed = eventosAlteracaoService.aguardar(cursor, 100, 200).get(5, TimeUnit.SECONDS);
+        assertTrue(feed.getEventos().isEmpty());
+        assertEquals(cursor, feed.getCursor());
+    }
+
+    private void registrar(UUID id) {
+        registrados.add(id);
+        eventosAlteracaoService.registrar(RecursoEvento.CONSULTA, id, OperacaoEvento.ALTERADO);
+    }
+
+    private static long ocorrencias(FeedEventos feed, UUID id) {
+        return feed.getEventos().stream().map(EventoAlteracao::getId).filter(id::equals).count();
+    }
+
+    private static void aguardar(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.medicalsystem.medicalapi.service;
+
+import com.medicalsystem.medicalapi.config.JacksonConfig;
+import com.medicalsystem.medicalapi.constant.FormatoExportacao;
+import com.medicalsystem.medicalapi.constant.StatusConsulta;
+import com.medicalsystem.medicalapi.model.LinhaExportacao;
+import org.junit.jupiter.api.Test;
+
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.UUID;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Roda na execução 'exportacao-memoria-constante' do surefire, com -Xmx32m: 1 milhão de linhas
+// só cabem nesse heap se a exportação nunca acumular as linhas em memória
+class ExportadorConsultasMemoriaTest {
+
+    private static final int LINHAS = 1_000_000;
+
+    private final ExportadorConsultas exportador = new ExportadorConsultas(new JacksonConfig().objectMapper());
+
+    @Test
+    void exportaUmMilhaoDeLinhasEmNdjson() throws Exception {
+        SaidaContada saida = new SaidaContada();
+
+        long escritas = exportador.escrever(FormatoExportacao.NDJSON, new LinhasSinteticas(LINHAS), saida);
+
+        assertEquals(LINHAS, escritas);
+        assertEquals(LINHAS, saida.quebrasDeLinha);
+    }
+
+    @Test
+    void exportaUmMilhaoDeLinhasEmCsvComprimido() throws Exception {
+        SaidaContada saida = new SaidaContada();
+        GZIPOutputStream gzip = new GZIPOutputStream(saida, 64 * 1024);
+
+        long escritas = exportador.escrever(FormatoExportacao.CSV, new LinhasSinteticas(LINHAS), gzip);
+        gzip.finish();
+
+        assertEquals(LINHAS, escritas);
+        assertTrue(saida.bytes > 0);
+    }
+
+    @Test
+    void exportaUmMilhaoDeLinhasEmCsv() throws Exception {
+        SaidaContada saida = new SaidaContada();
+
+        long escritas = exportador.escrever(FormatoExportacao.CSV, new LinhasSinteticas(LINHAS), saida);
+
+        // Cabeçalho + uma linha por consulta
+        assertEquals(LINHAS, escritas);
+        assertEquals(LINHAS + 1, saida.quebrasDeLinha);
+    }
+
+    // Gera as linhas sob demanda, como o cursor do banco
+    private static class LinhasSinteticas implements Iterator<LinhaExportacao> {
+
+        private final int total;
+        private final UUID medicoId = UUID.randomUUID();
+        private final LocalDateTime inicio = LocalDateTime.of(2024, 1, 1, 8, 0);
+        private int geradas;
+
+        LinhasSinteticas(int total) {
+            this.total = total;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return geradas < total;
+        }
+
+        @Override
+        public LinhaExportacao next() {
+            int i = geradas++;
+            return new LinhaExportacao(new UUID(i, i), inicio.plusMinutes(i * 30L), StatusConsulta.AGENDADA,
+                    medicoId, "Dr. Médico, Silva", "Cardiologia", "CRM-SP 12345",
+                    new UUID(0, i), "Paciente \"" + i + "\"");
+        }
+    }
+
+    // Descarta os bytes, contando apenas o tamanho e as quebras de linha
+    private static class SaidaContada extends OutputStream {
+
+        long bytes;
+        long quebrasDeLinha;
+
+        @Override
+        public void write(int b) {
+            bytes++;
+            if (b == '\n') {
+                quebrasDeLinha++;
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int inicio, int tamanho) {
+            bytes += tamanho;
+            for (int i = inicio; i < inicio + tamanho; i++) {
+                if (b[i] == '\n') {
+                    quebrasDeLinha++;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.medicalsystem.medicalapi.service;
+
+import com.medicalsystem.medicalapi.constant.OperacaoEvento;
+import com.medicalsystem.medicalapi.constant.RecursoEvento;
+import com.medicalsystem.medicalapi.exception.ConsultaAgendamentoException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// Com persistir, a ação roda na transação que reserva e completa a chave: o evento gravado pela ação
+// (registrar exige transação) e a chave são confirmados ou desfeitos juntos
+@SpringBootTest(properties = "idempotencia.persistir=true")
+class IdempotenciaPersistidaTest {
+
+    private static final String OPERACAO = "POST /teste";
+
+    @Autowired
+    private IdempotenciaService idempotenciaService;
+
+    @Autowired
+    private EventosAlteracaoService eventosAlteracaoService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<String> chaves = new CopyOnWriteArrayList<>();
+    private final List<UUID> gravados = new CopyOnWriteArrayList<>();
+
+    @AfterEach
+    void removerDados() {
+        for (String chave : chaves) {
+            jdbcTemplate.update("DELETE FROM chave_idempotencia WHERE operacao = ? AND chave = ?", OPERACAO, chave);
+        }
+        for (UUID id : gravados) {
+            jdbcTemplate.update("DELETE FROM evento_alteracao WHERE recurso_id = ?", id);
+        }
+    }
+
+    @Test
+    void gravacaoEChaveSaoConfirmadasJuntas() throws Exception {
+        String chave = novaChave();
+        UUID id = UUID.randomUUID();
+
+        ResponseEntity<Object> resposta = executar(chave, () -> {
+            gravar(id);
+            return ResponseEntity.status(HttpStatus.CREATED).body(Collections.singletonMap("id", id));
+        });
+
+        assertEquals(HttpStatus.CREATED, resposta.getStatusCode());
+        assertEquals(1, eventos(id));
+        assertEquals(Integer.valueOf(201), statusGuardado(chave));
+    }
+
+    @Test
+    void erroInesperadoDesfazGravacaoEChave() {
+        String chave = novaChave();
+        UUID id = UUID.randomUUID();
+
+        assertThrows(ExecutionException.class, () -> executar(chave, () -> {
+            gravar(id);
+            throw new IllegalStateException("Falha depois de gravar.");
+        }));
+
+        assertEquals(0, eventos(id));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT count(*) FROM chave_idempotencia WHERE operacao = ? AND chave = ?",
+                Integer.class, OPERACAO, chave));
+    }
+
+    @Test
+    void erroDeDominioDesfazGravacaoEGuardaAResposta() throws Exception {
+        String chave = novaChave();
+        UUID id = UUID.randomUUID();
+
+        ResponseEntity<Object> resposta = executar(chave, () -> {
+            gravar(id);
+            throw new ConsultaAgendamentoException("Horário ocupado.");
+        });
+
+        assertEquals(HttpStatus.BAD_REQUEST, resposta.getStatusCode());
+        assertEquals(0, eventos(id));
+        assertEquals(Integer.valueOf(400), statusGuardado(chave));
+    }
+
+    private ResponseEntity<Object> executar(String chave, Supplier<ResponseEntity<Object>> acao) throws Exception {
+        return idempotenciaService.executar(chave, OPERACAO, "corpo", acao).get(10, TimeUnit.SECONDS);
+    }
+
+    private void gravar(UUID id) {
+        gravados.add(id);
+        eventosAlteracaoService.registrar(RecursoEvento.CONSULTA, id, OperacaoEvento.CRIADO);
+    }
+
+    private String novaChave() {
+        String chave = UUID.randomUUID().toString();
+        chaves.add(chave);
+        return chave;
+    }
+
+    private int eventos(UUID id) {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM evento_alteracao WHERE recurso_id = ?", Integer.class, id);
+    }
+
+    private Integer statusGuardado(String chave) {
+        return jdbcTemplate.queryForObject("SELECT status FROM chave_idempotencia WHERE operacao = ? AND chave = ?",
+                Integer.class, OPERACAO, chave);
+    }
+}
@@ -0,0 +1,122 @@
+package com.medicalsystem.medicalapi.service;
+
+import com.medicalsystem.medicalapi.exception.ChaveIdempotenciaException;
+import com.medicalsystem.medicalapi.exception.ConsultaAgendamentoException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+class IdempotenciaTest {
+
+    private static final String OPERACAO = "POST /teste";
+
+    @Autowired
+    private IdempotenciaService idempotenciaService;
+
+    @Test
+    void retentativaRecebeAMesmaRespostaSemExecutarDeNovo() throws Exception {
+        String chave = UUID.randomUUID().toString();
+        AtomicInteger execucoes = new AtomicInteger();
+
+        ResponseEntity<Object> primeira = executar(chave, "corpo", () -> criada(execucoes.incrementAndGet())).get(5, TimeUnit.SECONDS);
+        ResponseEntity<Object> repetida = executar(chave, "corpo", () -> criada(execucoes.incrementAndGet())).get(5, TimeUnit.SECONDS);
+
+        assertEquals(1, execucoes.get());
+        assertEquals(HttpStatus.CREATED, repetida.getStatusCode());
+        assertArrayEquals((byte[]) primeira.getBody(), (byte[]) repetida.getBody());
+        assertNull(primeira.getHeaders().getFirst(IdempotenciaService.CABECALHO_REPETIDA));
+        assertEquals("true", repetida.getHeaders().getFirst(IdempotenciaService.CABECALHO_REPETIDA));
+    }
+
+    @Test
+    void duplicataSimultaneaEsperaARequisicaoEmAndamento() throws Exception {
+        String chave = UUID.randomUUID().toString();
+        AtomicInteger execucoes = new AtomicInteger();
+        CountDownLatch liberar = new CountDownLatch(1);
+
+        CompletableFuture<ResponseEntity<Object>> primeira = executar(chave, "corpo", () -> {
+            aguardar(liberar);
+            return criada(execucoes.incrementAndGet());
+        });
+        CompletableFuture<ResponseEntity<Object>> duplicata = executar(chave, "corpo", () -> criada(execucoes.incrementAndGet()));
+        assertFalse(duplicata.isDone());
+
+        liberar.countDown();
+        assertArrayEquals((byte[]) primeira.get(5, TimeUnit.SECONDS).getBody(), (byte[]) duplicata.get(5, TimeUnit.SECONDS).getBody());
+        assertEquals(1, execucoes.get());
+    }
+
+    @Test
+    void mesmaChaveComOutroCorpoERecusada() throws Exception {
+        String chave = UUID.randomUUID().toString();
+        executar(chave, "corpo", () -> criada(1)).get(5, TimeUnit.SECONDS);
+
+        assertThrows(ChaveIdempotenciaException.class, () -> executar(chave, "outro corpo", () -> criada(2)));
+    }
+
+    @Test
+    void erroDeDominioEGuardadoComoResposta() throws Exception {
+        String chave = UUID.randomUUID().toString();
+        AtomicInteger execucoes = new AtomicInteger();
+
+        ResponseEntity<Object> primeira = executar(chave, "corpo", () -> {
+            execucoes.incrementAndGet();
+            throw new ConsultaAgendamentoException("Horário ocupado.");
+        }).get(5, TimeUnit.SECONDS);
+        ResponseEntity<Object> repetida = executar(chave, "corpo", () -> criada(execucoes.incrementAndGet())).get(5, TimeUnit.SECONDS);
+
+        assertEquals(1, execucoes.get());
+        assertEquals(HttpStatus.BAD_REQUEST, primeira.getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, repetida.getStatusCode());
+        assertArrayEquals((byte[]) primeira.getBody(), (byte[]) repetida.getBody());
+        assertEquals("true", repetida.getHeaders().getFirst(IdempotenciaService.CABECALHO_REPETIDA));
+    }
+
+    @Test
+    void erroInesperadoLiberaAChaveParaANovaTentativa() throws Exception {
+        String chave = UUID.randomUUID().toString();
+
+        ExecutionException erro = assertThrows(ExecutionException.class, () -> executar(chave, "corpo", () -> {
+            throw new IllegalStateException("Banco indisponível.");
+        }).get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, erro.getCause());
+
+        ResponseEntity<Object> novaTentativa = executar(chave, "corpo", () -> criada(1)).get(5, TimeUnit.SECONDS);
+        assertEquals(HttpStatus.CREATED, novaTentativa.getStatusCode());
+    }
+
+    private CompletableFuture<ResponseEntity<Object>> executar(String chave, Object corpo, Supplier<ResponseEntity<Object>> acao) {
+        return idempotenciaService.executar(chave, OPERACAO, corpo, acao);
+    }
+
+    private static ResponseEntity<Object> criada(int execucao) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(Collections.singletonMap("execucao", execucao));
+    }
+
+    private static void aguardar(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.medicalsystem.medicalapi.service;
+
+import com.medicalsystem.medicalapi.config.JacksonConfig;
+import com.medicalsystem.medicalapi.constant.FormatoExportacao;
+import com.medicalsystem.medicalapi.model.RegistroImportacao;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Leitura e validação da importação de pacientes, sem banco
+class ImportacaoPacientesTest {
+
+    private static final LocalDate HOJE = LocalDate.of(2024, 6, 1);
+
+    @Test
+    void leCsvComColunasEmQualquerOrdemECamposEntreAspas() throws Exception {
+        String csv = "cpf,contato,nome,data_nascimento\r\n" +
+                "529.982.247-25,(11) 98765-4321,\"Silva, Maria \"\"Mari\"\"\",15/03/1990\r\n" +
+                "\r\n" +
+                "11144477735,1134567890,\"João\nda Costa\",01/01/1980\n";
+
+        List<RegistroImportacao> registros = ler(FormatoExportacao.CSV, csv);
+
+        assertEquals(2, registros.size());
+        assertEquals("Silva, Maria \"Mari\"", registros.get(0).getNome());
+        assertEquals("529.982.247-25", registros.get(0).getCpf());
+        assertEquals("15/03/1990", registros.get(0).getDataNascimento());
+        assertEquals("João\nda Costa", registros.get(1).getNome());
+        assertEquals(2, registros.get(0).getLinha());
+        assertEquals(4, registros.get(1).getLinha());
+    }
+
+    @Test
+    void leNdjsonEMarcaLinhaInvalida() throws Exception {
+        String ndjson = "{\"nome\":\"Maria\",\"cpf\":52998224725,\"dataNascimento\":\"15/03/1990\",\"contato\":\"11987654321\",\"extra\":1}\n" +
+                "{\"nome\":\"Quebrado\"\n";
+
+        List<RegistroImportacao> registros = ler(FormatoExportacao.NDJSON, ndjson);
+
+        assertEquals(2, registros.size());
+        assertEquals("52998224725", registros.get(0).getCpf());
+        assertTrue(registros.get(0).isValido());
+        assertTrue(registros.get(1).getErro().startsWith("JSON inválido"));
+    }
+
+    @Test
+    void validaENormalizaRegistro() {
+        RegistroImportacao valido = registro(" Maria Silva ", "529.982.247-25", "15/03/1990", "(11) 98765-4321");
+        ImportacaoPacientesService.validar(valido, HOJE);
+
+        assertNull(valido.getErro());
+        assertEquals("Maria Silva", valido.getNome());
+        assertEquals("52998224725", valido.getCpf());
+        assertEquals(52998224725L, valido.getCpfNumerico());
+        assertEquals("11987654321", valido.getContato());
+        assertEquals(LocalDate.of(1990, 3, 15), valido.getData());
+
+        RegistroImportacao invalido = registro("M", "52998224724", "31/02/1990", "12345");
+        ImportacaoPacientesService.validar(invalido, HOJE);
+
+        assertTrue(invalido.getErro().contains("'nome'"));
+        assertTrue(invalido.getErro().contains("CPF"));
+        assertTrue(invalido.getErro().contains("dd/MM/yyyy"));
+        assertTrue(invalido.getErro().contains("'contato'"));
+
+        RegistroImportacao futuro = registro("Maria", "52998224725", "02/06/2024", "11987654321");
+        ImportacaoPacientesService.validar(futuro, HOJE);
+        assertTrue(futuro.getErro().contains("futura"));
+    }
+
+    @Test
+    void cpfsVistosGuardaAPrimeiraOcorrencia() {
+        ImportacaoPacientesService.CpfsVistos vistos = new ImportacaoPacientesService.CpfsVistos();
+        for (long i = 1; i <= 200_000; i++) {
+            assertEquals(0, vistos.adicionar(10_000_000_000L + i, i + 1));
+        }
+        for (long i = 1; i <= 200_000; i++) {
+            assertEquals(i + 1, vistos.adicionar(10_000_000_000L + i, 999_999));
+        }
+    }
+
+    private static RegistroImportacao registro(String nome, String cpf, String dataNascimento, String contato) {
+        RegistroImportacao registro = new RegistroImportacao(2);
+        registro.setNome(nome);
+        registro.setCpf(cpf);
+        registro.setDataNascimento(dataNascimento);
+        registro.setContato(contato);
+        return registro;
+    }
+
+    private static List<RegistroImportacao> ler(FormatoExportacao formato, String conteudo) throws Exception {
+        LeitorImportacao leitor = new LeitorImportacao(formato, new BufferedReader(new StringReader(conteudo)),
+                new JacksonConfig().objectMapper());
+        List<RegistroImportacao> registros = new ArrayList<>();
+        RegistroImportacao registro;
+        while ((registro = leitor.proximo()) != null) {
+            registros.add(registro);
+        }
+        return registros;
+    }
+}
@@ -0,0 +1,130 @@
+package com.medicalsystem.medicalapi.service;
+
+import com.medicalsystem.medicalapi.DadosTeste;
+import com.medicalsystem.medicalapi.constant.AntecedenciaLembrete;
+import com.medicalsystem.medicalapi.constant.StatusConsulta;
+import com.medicalsystem.medicalapi.entity.Consulta;
+import com.medicalsystem.medicalapi.entity.Medico;
+import com.medicalsystem.medicalapi.entity.Paciente;
+import com.medicalsystem.medicalapi.model.Lembrete;
+import com.medicalsystem.medicalapi.repository.ConsultaRepository;
+import com.medicalsystem.medicalapi.repository.MedicoRepository;
+import com.medicalsystem.medicalapi.repository.PacienteRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Os testes usam um "agora" uma semana à frente, fora do alcance do despacho agendado, que roda com o relógio real
+@SpringBootTest(properties = "lembretes.enviador=falso")
+@Import(EnviadorLembreteFalso.class)
+@Transactional
+class LembretesTest {
+
+    private static final LocalDateTime AGORA = LocalDateTime.now().plusDays(7).withNano(0);
+    private static final long AGORA_MS = AGORA.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+
+    @Autowired
+    private LembreteService lembreteService;
+
+    @Autowired
+    private ConsultaService consultaService;
+
+    @Autowired
+    private EnviadorLembreteFalso enviador;
+
+    @Autowired
+    private ConsultaRepository consultaRepository;
+
+    @Autowired
+    private MedicoRepository medicoRepository;
+
+    @Autowired
+    private PacienteRepository pacienteRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Test
+    void lembreteVencidoSaiUmaVezMesmoDepoisDeReiniciar() {
+        Consulta consulta = criarConsulta(AGORA.plusMinutes(50));
+
+        carregarEDespachar(AGORA_MS);
+        carregarEDespachar(AGORA_MS);
+
+        List<Lembrete> enviados = enviador.enviadosDa(consulta.getId());
+        assertEquals(1, enviados.size());
+        assertEquals(AntecedenciaLembrete.UMA_HORA, enviados.get(0).getAntecedencia());
+        assertEquals(consulta.getPaciente_id().getContato(), enviados.get(0).getContatoPaciente());
+        assertEquals(consulta.getMedico_id().getEmail(), enviados.get(0).getEmailMedico());
+    }
+
+    @Test
+    void lembreteForaDaJanelaEntraNaCargaSeguinte() {
+        Consulta consulta = criarConsulta(AGORA.plusHours(26));
+
+        carregarEDespachar(AGORA_MS);
+        assertTrue(enviador.enviadosDa(consulta.getId()).isEmpty());
+
+        long duasHorasDepois = AGORA_MS + 2 * 3_600_000L;
+        lembreteService.carregarJanela(duasHorasDepois);
+        lembreteService.despachar(duasHorasDepois);
+        assertEquals(AntecedenciaLembrete.UM_DIA, enviador.enviadosDa(consulta.getId()).get(0).getAntecedencia());
+    }
+
+    @Test
+    void falhaDoEnviadorTentaDeNovoDepoisDaEspera() {
+        Consulta consulta = criarConsulta(AGORA.plusMinutes(50));
+        enviador.falharProximas(1);
+
+        carregarEDespachar(AGORA_MS);
+        assertTrue(enviador.enviadosDa(consulta.getId()).isEmpty());
+
+        lembreteService.despachar(AGORA_MS + 59_000);
+        assertTrue(enviador.enviadosDa(consulta.getId()).isEmpty());
+
+        lembreteService.despachar(AGORA_MS + 60_000);
+        List<Lembrete> enviados = enviador.enviadosDa(consulta.getId());
+        assertEquals(1, enviados.size());
+        assertEquals(1, enviados.get(0).getTentativa());
+    }
+
+    // O cancelamento só chega à roda depois do commit: até lá, o registro do envio recusa a consulta cancelada
+    @Test
+    void consultaCanceladaNaoRecebeLembrete() {
+        Consulta consulta = criarConsulta(AGORA.plusMinutes(50));
+        lembreteService.reiniciar(AGORA_MS);
+        lembreteService.carregarJanela(AGORA_MS);
+
+        consultaService.cancelarConsulta(consulta.getId());
+        lembreteService.despachar(AGORA_MS);
+
+        assertTrue(enviador.enviadosDa(consulta.getId()).isEmpty());
+    }
+
+    private void carregarEDespachar(long agora) {
+        lembreteService.reiniciar(agora);
+        lembreteService.carregarJanela(agora);
+        lembreteService.despachar(agora);
+    }
+
+    private Consulta criarConsulta(LocalDateTime data) {
+        Medico medico = medicoRepository.save(DadosTeste.medico());
+        Paciente paciente = pacienteRepository.save(DadosTeste.paciente());
+        Consulta consulta = consultaRepository.save(DadosTeste.consulta(medico, paciente, data, StatusConsulta.AGENDADA));
+
+        // A carga e o registro do envio usam JDBC na mesma transação: precisam das linhas já gravadas
+        entityManager.flush();
+        return consulta;
+    }
+}
@@ -0,0 +1,95 @@
+package com.medicalsystem.medicalapi.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RodaTemporalTest {
+
+    private static final long TICK = 1_000;
+
+    @Test
+    void itemVenceNoTickDoInstante() {
+        RodaTemporal<String, String> roda = new RodaTemporal<>(TICK, 0);
+        roda.agendar("a", 5_500, "a");
+
+        assertTrue(roda.avancar(4_999).isEmpty());
+        assertEquals(Collections.singletonList("a"), roda.avancar(5_000));
+        assertEquals(0, roda.tamanho());
+    }
+
+    @Test
+    void itensDosNiveisDeCimaDescemEVencemNaOrdem() {
+        RodaTemporal<String, String> roda = new RodaTemporal<>(TICK, 0);
+        roda.agendar("distante", 300_000 * TICK, "distante");
+        roda.agendar("nivel2", 5_000 * TICK, "nivel2");
+        roda.agendar("nivel1", 100 * TICK, "nivel1");
+        roda.agendar("nivel0", 3 * TICK, "nivel0");
+
+        assertEquals(Collections.singletonList("nivel0"), roda.avancar(99 * TICK));
+        assertEquals(Collections.singletonList("nivel1"), roda.avancar(100 * TICK));
+        assertTrue(roda.avancar(4_999 * TICK).isEmpty());
+        assertEquals(Collections.singletonList("nivel2"), roda.avancar(5_000 * TICK));
+        assertTrue(roda.avancar(299_999 * TICK).isEmpty());
+        assertEquals(Collections.singletonList("distante"), roda.avancar(300_000 * TICK));
+    }
+
+    @Test
+    void mesmaChaveSubstituiORemovidoNaoVence() {
+        RodaTemporal<String, String> roda = new RodaTemporal<>(TICK, 0);
+        roda.agendar("a", 10 * TICK, "primeiro");
+        roda.agendar("a", 200 * TICK, "remarcado");
+        roda.agendar("b", 20 * TICK, "b");
+        roda.remover("b");
+
+        assertTrue(roda.avancar(199 * TICK).isEmpty());
+        assertEquals(Collections.singletonList("remarcado"), roda.avancar(200 * TICK));
+        assertEquals(0, roda.tamanho());
+    }
+
+    @Test
+    void instanteJaPassadoVenceNoProximoAvanco() {
+        RodaTemporal<String, String> roda = new RodaTemporal<>(TICK, 50 * TICK);
+        roda.agendar("atrasado", 10 * TICK, "atrasado");
+        roda.agendar("agora", 50 * TICK, "agora");
+
+        assertEquals(Arrays.asList("atrasado", "agora"), roda.avancar(50 * TICK));
+    }
+
+    // Avanços de tamanhos variados: cada item vence uma única vez, no avanço que passa pelo seu tick
+    @Test
+    void cadaItemVenceUmaVezNoAvancoCerto() {
+        Random aleatorio = new Random(42);
+        RodaTemporal<Integer, Integer> roda = new RodaTemporal<>(TICK, 0);
+        Map<Integer, Long> ticks = new HashMap<>();
+        for (int item = 0; item < 20_000; item++) {
+            long tick = 1 + aleatorio.nextInt(399_999);
+            ticks.put(item, tick);
+            roda.agendar(item, tick * TICK + aleatorio.nextInt((int) TICK), item);
+        }
+
+        long anterior = 0;
+        int vencidos = 0;
+        while (anterior < 400_000) {
+            long alvo = anterior + 1 + aleatorio.nextInt(5_000);
+            List<Integer> itens = roda.avancar(alvo * TICK);
+            for (Integer item : itens) {
+                long tick = ticks.remove(item);
+                assertTrue(tick > anterior && tick <= alvo, "item " + item + " no tick " + tick + " venceu em (" + anterior + ", " + alvo + "]");
+            }
+            vencidos += itens.size();
+            anterior = alvo;
+        }
+
+        assertEquals(20_000, vencidos);
+        assertEquals(0, roda.tamanho());
+    }
+}
@@ -0,0 +1,75 @@
+package com.medicalsystem.medicalapi.service;
+
+import com.medicalsystem.medicalapi.DadosTeste;
+import com.medicalsystem.medicalapi.entity.Medico;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// As versões estão no banco: outra instância (ou a mesma após reiniciar) lê as mesmas ETags
+@SpringBootTest
+class VersoesRecursosTest {
+
+    @Autowired
+    private VersoesRecursos versoesRecursos;
+
+    @Autowired
+    private MedicoService medicoService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private UUID medicoId;
+
+    @AfterEach
+    void removerDados() {
+        if (medicoId != null) {
+            medicoService.deletarMedico(medicoId);
+            jdbcTemplate.update("DELETE FROM evento_alteracao WHERE recurso_id = ?", medicoId);
+        }
+    }
+
+    @Test
+    void gravacoesAvancamAVersaoDoRegistroEDaListagem() {
+        String listagem = versoesRecursos.etagMedicos();
+        Medico medico = medicoService.salvarMedico(DadosTeste.medico());
+        medicoId = medico.getId();
+
+        String depoisDeIncluir = versoesRecursos.etagMedicos();
+        String registro = VersoesRecursos.etagMedico(carregar());
+        assertNotEquals(listagem, depoisDeIncluir);
+        assertEquals(depoisDeIncluir, versoesRecursos.etagMedicos());
+
+        medicoService.atualizarMedico(medicoId, DadosTeste.medico());
+
+        assertNotEquals(registro, VersoesRecursos.etagMedico(carregar()));
+        assertNotEquals(depoisDeIncluir, versoesRecursos.etagMedicos());
+    }
+
+    @Test
+    void comparaListaDeEtagsIgnorandoPrefixoFraco() {
+        String etag = versoesRecursos.etagMedicos();
+
+        assertTrue(VersoesRecursos.naoModificado(etag, etag));
+        assertTrue(VersoesRecursos.naoModificado("\"outra\", W/" + etag, etag));
+        assertFalse(VersoesRecursos.naoModificado("\"outra\"", etag));
+        assertFalse(VersoesRecursos.naoModificado("*", etag));
+        assertFalse(VersoesRecursos.naoModificado(null, etag));
+    }
+
+    // Direto do banco, sem o cache de médicos
+    private Medico carregar() {
+        Medico medico = new Medico();
+        medico.setVersao(jdbcTemplate.queryForObject("SELECT versao FROM medico WHERE id = ?", Long.class, medicoId));
+        return medico;
+    }
+}
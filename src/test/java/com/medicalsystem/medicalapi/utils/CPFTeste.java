@@ -0,0 +1,49 @@
+package com.medicalsystem.medicalapi.utils;
+
+import java.util.Random;
+
+// CPFs válidos para a massa de dados dos testes e dos benchmarks (src/jmh entra como fonte de teste)
+public final class CPFTeste {
+
+    private CPFTeste() {
+    }
+
+    // Os nove primeiros dígitos vêm do número (até 9 dígitos, completado com zeros à esquerda)
+    public static String gerar(int numero) {
+        int[] digitos = new int[11];
+        String base = String.format("%09d", numero);
+        for (int i = 0; i < 9; i++) {
+            digitos[i] = base.charAt(i) - '0';
+        }
+        return completar(digitos);
+    }
+
+    // Os nove primeiros dígitos ao acaso
+    public static String gerar(Random random) {
+        int[] digitos = new int[11];
+        for (int i = 0; i < 9; i++) {
+            digitos[i] = random.nextInt(10);
+        }
+        return completar(digitos);
+    }
+
+    private static String completar(int[] digitos) {
+        digitos[9] = digitoVerificador(digitos, 9);
+        digitos[10] = digitoVerificador(digitos, 10);
+
+        StringBuilder cpf = new StringBuilder(11);
+        for (int digito : digitos) {
+            cpf.append(digito);
+        }
+        return cpf.toString();
+    }
+
+    private static int digitoVerificador(int[] digitos, int quantidade) {
+        int soma = 0;
+        for (int i = 0; i < quantidade; i++) {
+            soma += digitos[i] * (quantidade + 1 - i);
+        }
+        int digito = (soma * 10) % 11;
+        return digito == 10 ? 0 : digito;
+    }
+}
@@ -0,0 +1,50 @@
+package com.medicalsystem.medicalapi.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CPFUtilsTest {
+
+    @Test
+    void aceitaCpfValidoComOuSemPontuacao() {
+        assertTrue(CPFUtils.isValidCPF("52998224725"));
+        assertTrue(CPFUtils.isValidCPF("529.982.247-25"));
+        assertTrue(CPFUtils.isValidCPF(new StringBuilder("529.982.247-25")));
+        assertTrue(CPFUtils.isValidCPF("52998224725".toCharArray()));
+    }
+
+    @Test
+    void rejeitaCpfInvalido() {
+        assertFalse(CPFUtils.isValidCPF("52998224726"));
+        assertFalse(CPFUtils.isValidCPF("11111111111"));
+        assertFalse(CPFUtils.isValidCPF("00000000000"));
+        assertFalse(CPFUtils.isValidCPF("5299822472"));
+        assertFalse(CPFUtils.isValidCPF("529982247250"));
+        assertFalse(CPFUtils.isValidCPF(""));
+        assertFalse(CPFUtils.isValidCPF((String) null));
+        assertFalse(CPFUtils.isValidCPF((char[]) null));
+    }
+
+    @Test
+    void validaTrechoDeUmBuffer() {
+        char[] linha = "Maria;529.982.247-25;1987".toCharArray();
+
+        assertTrue(CPFUtils.isValidCPF(linha, 6, 14));
+        assertFalse(CPFUtils.isValidCPF(linha, 6, 13));
+    }
+
+    @Test
+    void validaLoteMarcandoOsValidos() {
+        BitSet validos = CPFUtils.validarLote(Arrays.asList("52998224725", "12345678900", "111.444.777-35", null));
+
+        assertEquals(2, validos.cardinality());
+        assertTrue(validos.get(0));
+        assertTrue(validos.get(2));
+    }
+}
@@ -0,0 +1,116 @@
+package com.medicalsystem.medicalapi.utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.medicalsystem.medicalapi.config.JacksonConfig;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Compara a saída do módulo com a das implementações anteriores (String.format, substring e DateTimeFormatter)
+class FormatoBrasileiroModuleTest {
+
+    private static final DateTimeFormatter DATA = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+    private static final DateTimeFormatter DATA_HORA = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss");
+
+    private final ObjectMapper objectMapper = new JacksonConfig().objectMapper();
+    private final Random random = new Random(42);
+
+    static class Contato {
+        @JsonSerialize(using = FormatoBrasileiroModule.CpfSerializer.class)
+        public String cpf;
+
+        @JsonSerialize(using = FormatoBrasileiroModule.TelefoneSerializer.class)
+        public String telefone;
+    }
+
+    @Test
+    void cpfIgualAoFormatoAnterior() throws Exception {
+        String[] casos = {"52998224725", "529.982.247-25", "5299822472", "529982247250", "", "abc", "12.345", null,
+                "1 2 3 4 5 6 7 8 9 0 1 2 3 4 5 6 7 8 9 0 1 2 3 4 5 6 7 8 9 0 1 2 3 4 5 6 7 8 9"};
+        for (String cpf : casos) {
+            assertEquals(jsonEsperado(cpfAnterior(cpf), "(11) 3456-7890"), json(cpf, "1134567890"));
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            String cpf = textoAleatorio("0123456789.-/ ", 8 + random.nextInt(10));
+            assertEquals(jsonEsperado(cpfAnterior(cpf), "(11) 3456-7890"), json(cpf, "1134567890"), cpf);
+        }
+    }
+
+    @Test
+    void telefoneIgualAoFormatoAnterior() throws Exception {
+        String[] casos = {"1134567890", "11987654321", "123456789", "123456789012", "", null, "(11)987654"};
+        for (String telefone : casos) {
+            assertEquals(jsonEsperado("529.982.247-25", telefoneAnterior(telefone)), json("52998224725", telefone));
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            String telefone = textoAleatorio("0123456789 -", 9 + random.nextInt(4));
+            assertEquals(jsonEsperado("529.982.247-25", telefoneAnterior(telefone)), json("52998224725", telefone), telefone);
+        }
+    }
+
+    @Test
+    void datasIguaisAoFormatoAnterior() throws Exception {
+        LocalDate[] casos = {LocalDate.of(1, 1, 1), LocalDate.of(999, 12, 31), LocalDate.of(9999, 12, 31),
+                LocalDate.of(10000, 1, 1), LocalDate.of(0, 6, 15), LocalDate.of(-50, 3, 1)};
+        for (LocalDate data : casos) {
+            assertEquals("\"" + data.format(DATA) + "\"", objectMapper.writeValueAsString(data));
+            LocalDateTime dataHora = data.atTime(23, 59, 59, 999_999_999);
+            assertEquals("\"" + dataHora.format(DATA_HORA) + "\"", objectMapper.writeValueAsString(dataHora));
+        }
+
+        LocalDateTime inicio = LocalDateTime.of(1900, 1, 1, 0, 0);
+        for (int i = 0; i < 10_000; i++) {
+            LocalDateTime dataHora = inicio.plusSeconds((long) (random.nextDouble() * 5_000_000_000L)).withNano(random.nextInt(1_000_000_000));
+            assertEquals("\"" + dataHora.format(DATA_HORA) + "\"", objectMapper.writeValueAsString(dataHora));
+            assertEquals("\"" + dataHora.toLocalDate().format(DATA) + "\"", objectMapper.writeValueAsString(dataHora.toLocalDate()));
+        }
+    }
+
+    private String json(String cpf, String telefone) throws Exception {
+        Contato contato = new Contato();
+        contato.cpf = cpf;
+        contato.telefone = telefone;
+        return objectMapper.writeValueAsString(contato);
+    }
+
+    // Monta o JSON esperado com os valores já formatados, escapados pelo próprio ObjectMapper
+    private String jsonEsperado(String cpf, String telefone) throws Exception {
+        return "{\"cpf\":" + objectMapper.writeValueAsString(cpf) + ",\"telefone\":" + objectMapper.writeValueAsString(telefone) + "}";
+    }
+
+    private String textoAleatorio(String alfabeto, int tamanho) {
+        StringBuilder texto = new StringBuilder(tamanho);
+        for (int i = 0; i < tamanho; i++) {
+            texto.append(alfabeto.charAt(random.nextInt(alfabeto.length())));
+        }
+        return texto.toString();
+    }
+
+    private static String cpfAnterior(String value) {
+        if (value == null) {
+            return null;
+        }
+        value = value.replaceAll("[^0-9]", "");
+        if (value.length() == 11) {
+            return String.format("%s.%s.%s-%s", value.substring(0, 3), value.substring(3, 6), value.substring(6, 9), value.substring(9, 11));
+        }
+        return value;
+    }
+
+    private static String telefoneAnterior(String value) {
+        if (value != null && value.length() == 10) {
+            return String.format("(%s) %s-%s", value.substring(0, 2), value.substring(2, 6), value.substring(6, 10));
+        } else if (value != null && value.length() == 11) {
+            return String.format("(%s) %s-%s", value.substring(0, 2), value.substring(2, 7), value.substring(7, 11));
+        }
+        return value;
+    }
+}